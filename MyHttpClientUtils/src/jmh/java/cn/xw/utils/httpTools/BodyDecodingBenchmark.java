@@ -0,0 +1,84 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.HttpResult;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应体解码：1KB、100KB、10MB响应体分别经过完整的同步、异步请求（进程内回环服务），
+ * 以及单独的解码步骤（同步方式的EntityUtils.toString、SimpleHttpUtils的逐行解析）<br/>
+ * 运行：mvn -Pjmh compile exec:exec -Djmh.args="BodyDecoding -prof gc"
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=error"})
+@State(Scope.Benchmark)
+public class BodyDecodingBenchmark {
+
+    @Param({"1024", "102400", "10485760"})
+    private int bodySize;
+
+    private LoadTestServer server;      // 进程内回环服务
+    private HttpClientUtils request;    // 请求指定大小响应体的GET请求
+    private byte[] body;                // 与服务端相同的响应体
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new LoadTestServer(0, 0, 0);
+        request = new HttpClientUtils.Builder()
+                .setUrl(server.getBaseUrl() + "/body/" + bodySize)
+                .setRequestType("GET")
+                .build();
+        body = LoadTestServer.createBody(bodySize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public HttpResult send() {
+        return request.send();
+    }
+
+    @Benchmark
+    public HttpResult sendAsync() {
+        return request.sendAsync().join();
+    }
+
+    @Benchmark
+    public String entityToString() throws IOException, ParseException {
+        return EntityUtils.toString(new ByteArrayEntity(body, ContentType.APPLICATION_JSON), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String parsingInStream() {
+        return SimpleHttpUtils.parsingInStream(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,93 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次请求都会执行、与网络无关的热点路径：构建请求（URIBuilder拼接URL参数及请求头）、响应头集合封装、
+ * SimpleHttpUtils的URL中文编码及响应流解析<br/>
+ * 运行：mvn -Pjmh compile exec:exec -Djmh.args="RequestPath -prof gc"
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=error")
+@State(Scope.Benchmark)
+public class RequestPathBenchmark {
+
+    private HttpClientUtils request;     // 带URL参数及自定义请求头的GET请求
+    private Header[] responseHeaders;    // 常见的响应头
+    private String chineseUrl;           // 带中文参数的URL
+    private byte[] responseBody;         // 1KB响应体
+
+    @Setup
+    public void setup() {
+        Map<String, String> params = new HashMap<>();
+        params.put("address", "安徽六安");
+        params.put("name", "李小二");
+        params.put("page", "1");
+        Map<String, String> headers = new HashMap<>();
+        headers.put("token", "xxxxxxxxx.xxxxxxxxx.xxxxxxxxx");
+        headers.put("X-Request-Id", "5f0c8a6e-2b1d-4c1e-9a57-3c2f0e6d7b19");
+        request = new HttpClientUtils.Builder()
+                .setUrl("http://127.0.0.1:8080/testDemo/getPage")
+                .setRequestType("GET")
+                .setParams(params)
+                .setReqHeaders(headers)
+                .build();
+        responseHeaders = new Header[]{
+                new BasicHeader("Content-Type", "application/json;charset=UTF-8"),
+                new BasicHeader("Content-Length", "1024"),
+                new BasicHeader("Date", "Sun, 18 Oct 2026 08:00:00 GMT"),
+                new BasicHeader("Connection", "keep-alive"),
+                new BasicHeader("Keep-Alive", "timeout=60"),
+                new BasicHeader("Cache-Control", "no-cache, no-store, max-age=0, must-revalidate"),
+                new BasicHeader("Vary", "Origin"),
+                new BasicHeader("Vary", "Access-Control-Request-Method"),
+                new BasicHeader("Vary", "Access-Control-Request-Headers"),
+                new BasicHeader("X-Content-Type-Options", "nosniff")};
+        chineseUrl = "http://127.0.0.1:8080/testDemo/getFarmer?likeName=晓&address=安徽六安&page=1&size=20";
+        responseBody = LoadTestServer.createBody(1024);
+    }
+
+    @Benchmark
+    public ClassicHttpRequest beforeSending() {
+        return request.beforeSending();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> createRespHeaders() {
+        return HttpClientUtils.createRespHeaders(responseHeaders);
+    }
+
+    @Benchmark
+    public String encodeUrl() {
+        return SimpleHttpUtils.encodeUrl(chineseUrl);
+    }
+
+    @Benchmark
+    public String parsingInStream() {
+        return SimpleHttpUtils.parsingInStream(new ByteArrayInputStream(responseBody));
+    }
+}
@@ -0,0 +1,76 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.HttpResult;
+import cn.xw.utils.httpTools.handler.ChunkedUploadScheme;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 分片上传自检：启动本地替身服务（LoadTestServer），生成随机内容的临时文件，通过uploadChunked分片并发上传并合并，
+ * 比较服务端合并后的字节数及SHA-256与本地文件是否一致，无需网络<br/>
+ * 运行：mvn -Ploadtest compile exec:exec -Dloadtest.main=cn.xw.utils.httpTools.ChunkedUploadCheck
+ * -Dloadtest.args="fileSize=10485760 partSize=1048576 parallelism=4"
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public class ChunkedUploadCheck {
+
+    // 默认参数（通过 key=value 形式的启动参数覆盖）
+    private static final Map<String, String> DEFAULT_OPTIONS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_OPTIONS.put("fileSize", "10485760");       // 上传文件字节数
+        DEFAULT_OPTIONS.put("partSize", "1048576");        // 分片字节数（最后一片可能更小）
+        DEFAULT_OPTIONS.put("parallelism", "4");           // 并发上传的分片数
+        DEFAULT_OPTIONS.put("serverDelay", "0");           // 替身服务每个请求的模拟处理耗时（毫秒）
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULT_OPTIONS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0 || !DEFAULT_OPTIONS.containsKey(arg.substring(0, separator))) {
+                System.out.println("无法识别的参数：" + arg + "，可用参数（默认值）：" + DEFAULT_OPTIONS);
+                return;
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        Path file = Files.createTempFile("chunked-upload", ".bin");
+        boolean passed;
+        try (LoadTestServer server = new LoadTestServer(Long.parseLong(options.get("serverDelay")), 0, 0)) {
+            byte[] content = new byte[Integer.parseInt(options.get("fileSize"))];
+            ThreadLocalRandom.current().nextBytes(content);
+            Files.write(file, content);
+            String expected = "\"size\":" + content.length + ",\"sha256\":\"" + sha256(content) + "\"";
+            // 分片：PUT {url}/{uploadId}/parts/{n}，合并：POST {url}/{uploadId}/commit
+            HttpResult httpResult = new HttpClientUtils.Builder()
+                    .setUrl(server.getBaseUrl() + "/uploads")
+                    .setRequestType("PUT").build()
+                    .uploadChunked(file, Long.parseLong(options.get("partSize")),
+                            Integer.parseInt(options.get("parallelism")), ChunkedUploadScheme.ofPath());
+            passed = httpResult.getCode() == 200 && httpResult.getRespBody().contains(expected);
+            System.out.println("合并响应：" + httpResult.getCode() + " " + httpResult.getRespBody());
+            System.out.println(passed ? "分片上传自检通过：服务端合并后的内容与本地文件一致"
+                    : "分片上传自检失败，预期：" + expected);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static String sha256(byte[] content) throws IOException {
+        try {
+            return String.format("%064x", new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(content)));
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+}
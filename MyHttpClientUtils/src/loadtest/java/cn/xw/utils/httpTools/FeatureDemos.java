@@ -0,0 +1,399 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.constant.HttpConstant;
+import cn.xw.utils.httpTools.entity.BatchResult;
+import cn.xw.utils.httpTools.entity.HttpResult;
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import cn.xw.utils.httpTools.entity.UploadPart;
+import cn.xw.utils.httpTools.handler.ChunkedUploadScheme;
+import cn.xw.utils.httpTools.handler.MicrometerMetricsRegistry;
+import cn.xw.utils.httpTools.handler.ResponseBodyHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扩展功能的测试案例（压缩、流式响应、分片上传、断点及分段下载、异步、HTTP/2、缓存、请求合并、批量请求、路由指标、
+ * 客户端配置、连接淘汰、重试、对冲、熔断、限流、域名解析缓存、负载均衡、连接预热、TLS会话恢复）<br/>
+ * 注：与TestCasesDemo一样需要本地的测试服务（localhost:8080）；部分案例依赖可选的micrometer-core，因此放在压测工具目录，
+ * 运行方式：mvn -Ploadtest compile exec:exec -Dloadtest.main=cn.xw.utils.httpTools.FeatureDemos
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public class FeatureDemos {
+
+    public static void main(String[] args) throws IOException {
+        // 请求头信息
+        Map<String, String> headers = new HashMap<>();
+        headers.put("token", "xxxxxxxxx.xxxxxxxxx.xxxxxxxxx");
+        // 请求体参数
+        String reqBody = "{\"id\":1,\"name\":\"张三\",\"sex\":\"男\",\"age\":20,\"address\":\"北京市\"}";
+
+        getOneAsync(headers);
+        //savePostCompressed(reqBody);
+        //getPageStreaming();
+        //uploadFileParts();
+        //uploadFileChunked();
+        //downloadFile();
+        //downloadFileSegmented();
+        //getOneHttp2(headers);
+        //getOneCached(headers);
+        //getOneSingleFlight(headers);
+        //getBatch(headers);
+        //getRouteMetrics(headers);
+        //getOneByProfile(headers);
+        //getBatchAdaptive(headers);
+        //getOneWithEviction(headers);
+        //getOneWithRetry(headers);
+        //getOneWithHedging(headers);
+        //getOneWithCircuitBreaker(headers);
+        //getOneWithRateLimit(headers);
+        //getOneWithDnsCache(headers);
+        //getOneByService(headers);
+        //getOneAfterWarmUp(headers);
+        //getOneWithTls(headers);
+    }
+
+    // 测试POST请求（请求体超过1KB时gzip压缩发送，服务端需支持Content-Encoding: gzip）
+    public static void savePostCompressed(String reqBody) {
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/savePost")
+                .setRequestType("POST")
+                .setRequestCompression(HttpConstant.CONTENT_ENCODING_GZIP, 1024)
+                .setRequestBody(reqBody).build().send();
+        System.out.println("响应信息：" + get);
+    }
+
+    // 测试GET请求（流式处理响应体，大响应体无需整体转换为字符串）
+    public static void getPageStreaming() {
+        long[] total = {0};
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/getPage/1/10000")
+                .setRequestType("GET").build()
+                .send(ResponseBodyHandler.ofChunks(chunk -> total[0] += chunk.remaining()));
+        System.out.println("响应信息：" + get + "，响应体字节数：" + total[0]);
+    }
+
+    // 测试POST请求上传多个文件（长度已知，带Content-Length，发送时才从磁盘读取文件内容）
+    public static void uploadFileParts() throws IOException {
+        // 项目跟目录
+        URL resource = FeatureDemos.class.getClassLoader().getResource("");
+        assert resource != null;
+        List<UploadPart> parts = new ArrayList<>();
+        parts.add(UploadPart.of(Paths.get(resource.getFile() + "client/风景图.jpg"), ContentType.IMAGE_JPEG));
+        parts.add(UploadPart.of(Paths.get(resource.getFile() + "client/测试图.jpg")));
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/uploadFiles")
+                .setRequestType("POST")
+                .setUploadParts(parts).build().sendFile("files");
+        System.out.println("响应信息：" + get);
+    }
+
+    // 测试大文件分片并发上传（每片4MB，4个分片同时上传，中断后再次调用会跳过已完成的分片）
+    public static void uploadFileChunked() {
+        // 项目跟目录
+        URL resource = FeatureDemos.class.getClassLoader().getResource("");
+        assert resource != null;
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/uploads")
+                .setRequestType("PUT").build()
+                .uploadChunked(Paths.get(resource.getFile() + "client/风景图.jpg"), 4L * 1024 * 1024, 4,
+                        ChunkedUploadScheme.ofPath());
+        System.out.println("响应信息：" + get);
+    }
+
+    // 测试GET请求下载文件（直接写入磁盘，中断后自动续传）
+    public static void downloadFile() {
+        // 项目跟目录
+        URL resource = FeatureDemos.class.getClassLoader().getResource("");
+        assert resource != null;
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/download")
+                .setRequestType("GET").build()
+                .downloadTo(Paths.get(resource.getFile() + "client"));
+        System.out.println("响应信息：" + get);
+    }
+
+    // 测试GET请求分段并发下载文件（4段并发写入内存映射文件，完成后校验SHA-256）
+    public static void downloadFileSegmented() {
+        // 项目跟目录
+        URL resource = FeatureDemos.class.getClassLoader().getResource("");
+        assert resource != null;
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/download")
+                .setRequestType("GET").build()
+                // 摘要传null时按服务端返回的Digest或Content-MD5响应头校验；已知文件摘要时传入，如："SHA-256", "9f86d0..."
+                .downloadSegmented(Paths.get(resource.getFile() + "client"), 4, null, null);
+        System.out.println("响应信息：" + get);
+    }
+
+    // 测试异步GET请求（不阻塞调用线程，响应由I/O Reactor线程回调处理）
+    public static void getOneAsync(Map<String, String> headers) {
+        CompletableFuture<HttpResult> future = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setRequestType("GET").build().sendAsync();
+        future.thenAccept(result -> System.out.println("异步响应信息：" + result)).join();
+    }
+
+    // 测试HTTP/2路由（同一路由的并发请求复用一条连接，对方不支持h2时自动回退HTTP/1.1）
+    public static void getOneHttp2(Map<String, String> headers) {
+        Map<String, Integer> http2RouteMap = new HashMap<>();
+        // 该路由单连接最多同时进行200个流
+        http2RouteMap.put("https://YZ.antladdie.asia:8443", 200);
+        HttpClientUtils.customHttp2Route(http2RouteMap);
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("https://YZ.antladdie.asia:8443/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setRequestType("GET").build().send();
+        System.out.println("响应信息：" + get);
+    }
+
+    // 测试GET请求响应缓存（第二次请求在新鲜期内直接返回缓存，过期后通过ETag条件请求重新校验）
+    public static void getOneCached(Map<String, String> headers) {
+        // 内存层最多缓存1000个响应，不使用磁盘层
+        HttpClientUtils.enableResponseCache(1000, null);
+        for (int i = 0; i < 2; i++) {
+            HttpResult get = new HttpClientUtils.Builder()
+                    .setUrl("http://localhost:8080/testDemo/getOne")
+                    .setReqHeaders(headers)
+                    .setRequestType("GET").build().send();
+            System.out.println("响应信息：" + get);
+        }
+        HttpClientUtils.disableResponseCache();
+    }
+
+    // 测试相同GET请求合并（20个线程同时发送相同请求，只有1个请求真正发出，其余共享其响应）
+    public static void getOneSingleFlight(Map<String, String> headers) {
+        List<CompletableFuture<HttpResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> new HttpClientUtils.Builder()
+                    .setUrl("http://localhost:8080/testDemo/getOne")
+                    .setReqHeaders(headers)
+                    .setSingleFlight(true)
+                    .setRequestType("GET").build().send()));
+        }
+        futures.forEach(CompletableFuture::join);
+        System.out.println("实际发送：" + HttpClientUtils.getSingleFlightExecutions()
+                + "，合并：" + HttpClientUtils.getSingleFlightCoalesced());
+    }
+
+    // 测试批量请求（500个请求按路由最大连接数并发发送，按请求顺序返回结果，最多等待60秒）
+    public static void getBatch(Map<String, String> headers) {
+        List<HttpClientUtils> requests = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            requests.add(new HttpClientUtils.Builder()
+                    .setUrl("http://localhost:8080/testDemo/getOne")
+                    .setReqHeaders(headers)
+                    .setRequestType("GET").build());
+        }
+        List<BatchResult> results = HttpClientUtils.executeAll(requests, false, 60, TimeUnit.SECONDS);
+        long success = results.stream().filter(BatchResult::isSuccess).count();
+        System.out.println("成功：" + success + "，失败：" + (results.size() - success));
+    }
+
+    // 测试路由指标（连接池状态、租用连接等待、建立连接、请求总耗时及按响应码类别的请求数）
+    public static void getRouteMetrics(Map<String, String> headers) {
+        // 绑定到Micrometer（Spring Boot中直接注入MeterRegistry即可），不绑定时指标同样会记录
+        HttpClientUtils.customMetricsRegistry(new MicrometerMetricsRegistry(new SimpleMeterRegistry()));
+        for (int i = 0; i < 10; i++) {
+            new HttpClientUtils.Builder()
+                    .setUrl("http://localhost:8080/testDemo/getOne")
+                    .setReqHeaders(headers)
+                    .setRequestType("GET").build().send();
+        }
+        RouteMetrics metrics = HttpClientUtils.getRouteMetrics("http://localhost:8080");
+        System.out.println("路由指标：" + metrics);
+        System.out.println("租用连接等待p99：" + metrics.getLeaseWait().getPercentile(0.99, TimeUnit.MILLISECONDS) + "ms");
+    }
+
+    // 测试客户端配置（舱壁隔离：慢的下游使用独立的连接池、超时时间，不影响默认配置的请求）
+    public static void getOneByProfile(Map<String, String> headers) {
+        HttpClientUtils.customProfile(new HttpClientProfile.Builder("partner-a")
+                .setPoolSize(20, 20)
+                .setConnectTimeout(1, TimeUnit.SECONDS)
+                .setResponseTimeout(2, TimeUnit.SECONDS)
+                .setRequestInterceptor((httpRequest, entityDetails, httpContext) ->
+                        System.out.println("partner-a请求：" + httpRequest.getRequestUri()))
+                .build());
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setProfile("partner-a")
+                .setRequestType("GET").build().send();
+        System.out.println("响应信息：" + get);
+        System.out.println("partner-a路由指标：" + HttpClientUtils.getRouteMetrics("partner-a", "http://localhost:8080"));
+    }
+
+    // 测试按路由自适应调整最大连接数（等待租用连接时逐个增加，下游变慢时按比例减小）
+    public static void getBatchAdaptive(Map<String, String> headers) {
+        HttpClientUtils.enableAdaptivePoolSizing(2, 50);
+        for (int round = 0; round < 10; round++) {
+            getBatch(headers);
+            System.out.println("当前最大连接数：" + HttpClientUtils.getRouteMetrics("http://localhost:8080")
+                    .getAsyncPoolStats().getMax());
+        }
+        HttpClientUtils.disableAdaptivePoolSizing();
+    }
+
+    // 测试连接淘汰（空闲超过5秒的连接被后台关闭，连接最多复用60秒，空闲1秒后租用前校验）
+    public static void getOneWithEviction(Map<String, String> headers) {
+        HttpClientUtils.customConnectionEviction(5, 60, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            new HttpClientUtils.Builder()
+                    .setUrl("http://localhost:8080/testDemo/getOne")
+                    .setReqHeaders(headers)
+                    .setRequestType("GET").build().send();
+            try {
+                TimeUnit.SECONDS.sleep(8);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        RouteMetrics metrics = HttpClientUtils.getRouteMetrics("http://localhost:8080");
+        System.out.println("淘汰连接：" + metrics.getEvicted() + "，失效连接：" + metrics.getStale());
+    }
+
+    // 测试重试（幂等请求失败或响应429、503等时按指数退避加抖动重试，重试次数受每个路由的重试预算限制）
+    public static void getOneWithRetry(Map<String, String> headers) {
+        // 最多重试3次，退避200毫秒起、最长5秒，重试不超过请求数的20%
+        HttpClientUtils.customRetryPolicy(3, 200, 5000, TimeUnit.MILLISECONDS, 0.2);
+        new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setRequestType("GET").build().send();
+        RouteMetrics metrics = HttpClientUtils.getRouteMetrics("http://localhost:8080");
+        System.out.println("重试：" + metrics.getRetries() + "，预算不足放弃：" + metrics.getRetryBudgetExhausted());
+    }
+
+    // 测试对冲请求（超过对冲延迟仍未响应时再发送一个相同的请求，取先到达的响应，对冲请求数受每个路由的对冲预算限制）
+    public static void getOneWithHedging(Map<String, String> headers) {
+        for (int i = 0; i < 50; i++) {
+            // 首次请求超过100毫秒仍未响应时发送对冲请求（setHedging(true)则取路由请求总耗时的p95）
+            new HttpClientUtils.Builder()
+                    .setUrl("http://localhost:8080/testDemo/getOne")
+                    .setReqHeaders(headers)
+                    .setHedging(100, TimeUnit.MILLISECONDS)
+                    .setRequestType("GET").build().send();
+        }
+        RouteMetrics metrics = HttpClientUtils.getRouteMetrics("http://localhost:8080");
+        System.out.println("对冲：" + metrics.getHedges() + "，对冲胜出：" + metrics.getHedgeWins()
+                + "，预算不足：" + metrics.getHedgeBudgetExhausted());
+    }
+
+    // 测试熔断器（路由失败率或慢请求率过高时打开，打开期间请求直接失败，不占用连接池的连接）
+    public static void getOneWithCircuitBreaker(Map<String, String> headers) {
+        // 失败率50%或慢请求率80%（2秒以上）时打开，打开5秒后放行探测请求
+        HttpClientUtils.customCircuitBreaker(0.5, 0.8, 2, 5, TimeUnit.SECONDS);
+        for (int i = 0; i < 50; i++) {
+            try {
+                new HttpClientUtils.Builder()
+                        .setUrl("http://localhost:8080/testDemo/getOne")
+                        .setReqHeaders(headers)
+                        .setRequestType("GET").build().send();
+            } catch (RuntimeException e) {
+                System.out.println("请求失败：" + e.getMessage());
+            }
+        }
+        RouteMetrics metrics = HttpClientUtils.getRouteMetrics("http://localhost:8080");
+        System.out.println("熔断器状态：" + metrics.getCircuitState() + "，熔断次数：" + metrics.getCircuitOpened()
+                + "，熔断拒绝：" + metrics.getCircuitRejected());
+    }
+
+    // 测试按路由限流（令牌桶：超过每秒请求数的请求等待许可，等不到则直接失败，不占用连接池的连接）
+    public static void getOneWithRateLimit(Map<String, String> headers) {
+        // 每秒5个请求、突发2个，最多等待500毫秒，并按429响应的Retry-After暂停
+        HttpClientUtils.customRateLimit("http://localhost:8080", 5, 2, 500, TimeUnit.MILLISECONDS, true);
+        for (int i = 0; i < 20; i++) {
+            try {
+                new HttpClientUtils.Builder()
+                        .setUrl("http://localhost:8080/testDemo/getOne")
+                        .setReqHeaders(headers)
+                        .setRequestType("GET").build().send();
+            } catch (RuntimeException e) {
+                System.out.println("请求失败：" + e.getMessage());
+            }
+        }
+        RouteMetrics metrics = HttpClientUtils.getRouteMetrics("http://localhost:8080");
+        System.out.println("限流等待：" + metrics.getRateLimitDelayed() + "，限流拒绝：" + metrics.getRateLimitRejected());
+        HttpClientUtils.customRateLimit("http://localhost:8080", 0, 0, 0, TimeUnit.MILLISECONDS, false);
+    }
+
+    // 测试带缓存的多地址域名解析（解析结果缓存并后台刷新，新连接轮询分布到域名的全部地址，连接失败的地址暂时排到最后）
+    public static void getOneWithDnsCache(Map<String, String> headers) {
+        // 解析成功缓存60秒、解析失败缓存10秒
+        HttpClientUtils.customDnsResolver(new CachingDnsResolver(60, 10, TimeUnit.SECONDS));
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setRequestType("GET").build().send();
+        System.out.println("响应信息：" + get);
+    }
+
+    // 测试客户端负载均衡（lb://服务名/路径，按各实例进行中的请求数/最大连接数选择实例，连续失败的实例暂时剔除）
+    public static void getOneByService(Map<String, String> headers) {
+        Map<String, Integer> endpoints = new LinkedHashMap<>();
+        endpoints.put("http://localhost:8080", 20);
+        endpoints.put("http://127.0.0.1:8080", 10);
+        HttpClientUtils.customService("demo-service", endpoints, false);
+        for (int i = 0; i < 10; i++) {
+            HttpResult get = new HttpClientUtils.Builder()
+                    .setUrl("lb://demo-service/testDemo/getOne")
+                    .setReqHeaders(headers)
+                    .setRequestType("GET").build().send();
+            System.out.println("响应信息：" + get);
+        }
+        System.out.println(HttpClientUtils.getRouteMetrics("http://localhost:8080"));
+        System.out.println(HttpClientUtils.getRouteMetrics("http://127.0.0.1:8080"));
+    }
+
+    // 测试连接预热（启动时为customMaxPerRoute设置的路由预先建立连接，首批请求不再承担建立连接的耗时）
+    public static void getOneAfterWarmUp(Map<String, String> headers) {
+        Map<String, Integer> customRouteMap = new HashMap<>();
+        customRouteMap.put("http://localhost:8080", 20);
+        HttpClientUtils.customMaxPerRoute(customRouteMap);
+        // 每个路由预先建立5个连接，最多等待3秒
+        int warmed = HttpClientUtils.warmUpConnections(5, 3, TimeUnit.SECONDS);
+        System.out.println("预热的连接数：" + warmed);
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("http://localhost:8080/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setRequestType("GET").build().send();
+        System.out.println("响应信息：" + get);
+        System.out.println(HttpClientUtils.getRouteMetrics("http://localhost:8080"));
+    }
+
+    // 测试TLS握手策略及会话恢复（同步、异步客户端共用TLS会话缓存，新连接复用之前的会话，省去完整握手）
+    public static void getOneWithTls(Map<String, String> headers) {
+        // 优先TLSv1.3，加密套件使用默认值，握手前可自定义SSL参数（如ALPN协议列表）
+        HttpClientUtils.customTls(new String[]{"TLSv1.3", "TLSv1.2"}, null, null);
+        // 缓存1000个会话，会话有效2小时
+        HttpClientUtils.customTlsSessionCache(1000, 2, TimeUnit.HOURS);
+        HttpResult get = new HttpClientUtils.Builder()
+                .setUrl("https://localhost:8443/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setRequestType("GET").build().send();
+        System.out.println("响应信息：" + get);
+        // 异步客户端的新连接复用同步客户端建立的会话
+        HttpResult asyncGet = new HttpClientUtils.Builder()
+                .setUrl("https://localhost:8443/testDemo/getOne")
+                .setReqHeaders(headers)
+                .setRequestType("GET").build().sendAsync().join();
+        System.out.println("异步响应信息：" + asyncGet);
+        RouteMetrics metrics = HttpClientUtils.getRouteMetrics("https://localhost:8443");
+        System.out.println("TLS完整握手：" + metrics.getTlsFullHandshakes() + "，会话恢复：" + metrics.getTlsResumedHandshakes()
+                + "，握手耗时p50：" + metrics.getTlsHandshake().getPercentile(0.5, TimeUnit.MILLISECONDS) + "ms");
+    }
+}
@@ -0,0 +1,374 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.constant.HttpConstant;
+import cn.xw.utils.httpTools.entity.LatencyHistogram;
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import cn.xw.utils.httpTools.entity.UploadPart;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.pool.PoolStats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测工具：以指定的并发数、请求组合和目标速率驱动HttpClientUtils、SimpleHttpUtils，输出吞吐量、
+ * p50/p99/p999延迟（已修正协调遗漏）、错误率以及连接池饱和度时间线，用于上线前确定连接池的
+ * 最大连接数（maxTotal）和每个路由的最大连接数（maxPerRoute）<br/>
+ * 默认启动本地替身服务（LoadTestServer），无需网络；也可通过url参数压测真实服务（需提供/get、/post、/upload、/download接口）<br/>
+ * 运行：mvn -Ploadtest compile exec:exec -Dloadtest.args="concurrency=64 rate=2000 duration=30 mix=get:60,post:25,multipart:10,download:5 maxPerRoute=20"
+ * <p style="color:#f61">协调遗漏：rate大于0时按目标速率预先排定每个请求的计划发送时间，延迟从计划时间开始计算，
+ * 连接池或服务端变慢导致请求积压时，排队等待的时间也会计入延迟；rate为0时各线程连续发送（闭环），只能反映服务耗时</p>
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public class LoadGenerator {
+
+    // 默认参数（通过 key=value 形式的启动参数覆盖）
+    private static final Map<String, String> DEFAULT_OPTIONS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_OPTIONS.put("url", "");                    // 压测地址前缀，为空则启动本地替身服务
+        DEFAULT_OPTIONS.put("concurrency", "64");          // 并发线程数（同时进行的最大请求数）
+        DEFAULT_OPTIONS.put("rate", "0");                  // 目标速率（请求/秒），0表示不限速（闭环）
+        DEFAULT_OPTIONS.put("duration", "30");             // 统计时长（秒）
+        DEFAULT_OPTIONS.put("warmup", "5");                // 预热时长（秒），预热期间的请求不计入统计
+        DEFAULT_OPTIONS.put("mix", "get:60,post:25,multipart:10,download:5"); // 请求组合及权重
+        DEFAULT_OPTIONS.put("maxTotal", "200");            // 连接池的最大连接数
+        DEFAULT_OPTIONS.put("maxPerRoute", "10");          // 默认每个路由的最大连接数
+        DEFAULT_OPTIONS.put("interval", "1");              // 连接池饱和度采样间隔（秒）
+        DEFAULT_OPTIONS.put("serverDelay", "5");           // 替身服务每个请求的模拟处理耗时（毫秒）
+        DEFAULT_OPTIONS.put("bodySize", "1024");           // 替身服务GET响应体字节数
+        DEFAULT_OPTIONS.put("uploadSize", "16384");        // 上传文件字节数
+        DEFAULT_OPTIONS.put("downloadSize", "1048576");    // 替身服务下载文件字节数
+        DEFAULT_OPTIONS.put("logLevel", "warn");           // 压测期间的日志级别（slf4j-simple），避免逐条请求日志影响结果
+    }
+
+    /**
+     * 请求类型（mix参数中的名称）
+     */
+    enum RequestKind {
+        GET("get"),                 // HttpClientUtils同步GET
+        ASYNC_GET("async-get"),     // HttpClientUtils异步GET（调用线程等待结果）
+        POST("post"),               // HttpClientUtils同步POST（JSON请求体）
+        MULTIPART("multipart"),     // HttpClientUtils文件上传（multipart/form-data）
+        DOWNLOAD("download"),       // HttpClientUtils下载到本地文件
+        SIMPLE_GET("simple-get"),   // SimpleHttpUtils GET
+        SIMPLE_POST("simple-post"); // SimpleHttpUtils POST（JSON请求体）
+
+        private final String name;
+
+        RequestKind(String name) {
+            this.name = name;
+        }
+
+        static RequestKind of(String name) {
+            for (RequestKind kind : values()) {
+                if (kind.name.equalsIgnoreCase(name.trim())) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("未知的请求类型：" + name);
+        }
+    }
+
+    // 压测的POST请求体
+    private static final String POST_BODY = "{\"id\":1,\"name\":\"张三\",\"sex\":\"男\",\"age\":20,\"address\":\"北京市\"}";
+
+    private final String baseUrl;                 // 请求地址前缀
+    private final int concurrency;                // 并发线程数
+    private final double rate;                    // 目标速率（请求/秒）
+    private final long durationNanos;             // 统计时长
+    private final long warmupNanos;               // 预热时长
+    private final long intervalMillis;            // 饱和度采样间隔
+    private final RequestKind[] mixKinds;         // 请求组合
+    private final int[] mixWeights;               // 请求组合的累计权重
+    private final ByteBuffer uploadContent;       // 上传文件内容
+    private final Path downloadDirectory;         // 下载文件目录
+
+    // 统计（修正协调遗漏的延迟、服务耗时、请求数、错误数，按请求类型分开记录）
+    private final Map<RequestKind, LatencyHistogram> latencies = new EnumMap<>(RequestKind.class);
+    private final Map<RequestKind, LatencyHistogram> serviceTimes = new EnumMap<>(RequestKind.class);
+    private final Map<RequestKind, LongAdder> errors = new EnumMap<>(RequestKind.class);
+    private final LatencyHistogram overallLatency = new LatencyHistogram();
+    private final LatencyHistogram overallServiceTime = new LatencyHistogram();
+    private final LongAdder dispatched = new LongAdder();  // 已发出的请求数（含预热）
+    private final LongAdder unsent = new LongAdder();      // 统计时段内计划发出但到结束时仍未发出的请求数
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final List<String> timeline = Collections.synchronizedList(new ArrayList<>()); // 饱和度时间线
+
+    private LoadGenerator(Map<String, String> options, String baseUrl) throws IOException {
+        this.baseUrl = baseUrl;
+        this.concurrency = Integer.parseInt(options.get("concurrency"));
+        this.rate = Double.parseDouble(options.get("rate"));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("duration")));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("warmup")));
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(options.get("interval")));
+        String[] mix = options.get("mix").split(",");
+        this.mixKinds = new RequestKind[mix.length];
+        this.mixWeights = new int[mix.length];
+        int totalWeight = 0;
+        for (int index = 0; index < mix.length; index++) {
+            String[] kindWeight = mix[index].split(":");
+            mixKinds[index] = RequestKind.of(kindWeight[0]);
+            totalWeight += kindWeight.length > 1 ? Integer.parseInt(kindWeight[1].trim()) : 1;
+            mixWeights[index] = totalWeight;
+        }
+        for (RequestKind kind : RequestKind.values()) {
+            latencies.put(kind, new LatencyHistogram());
+            serviceTimes.put(kind, new LatencyHistogram());
+            errors.put(kind, new LongAdder());
+        }
+        byte[] upload = new byte[Integer.parseInt(options.get("uploadSize"))];
+        ThreadLocalRandom.current().nextBytes(upload);
+        this.uploadContent = ByteBuffer.wrap(upload);
+        this.downloadDirectory = Files.createTempDirectory("load-test");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULT_OPTIONS);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0 || !DEFAULT_OPTIONS.containsKey(arg.substring(0, separator))) {
+                System.out.println("无法识别的参数：" + arg + "，可用参数（默认值）：" + DEFAULT_OPTIONS);
+                return;
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        // 必须在HttpClientUtils、SimpleHttpUtils初始化日志之前设置
+        System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", options.get("logLevel"));
+
+        LoadTestServer server = null;
+        String baseUrl = options.get("url");
+        if (baseUrl.isEmpty()) {
+            server = new LoadTestServer(Long.parseLong(options.get("serverDelay")),
+                    Integer.parseInt(options.get("bodySize")), Integer.parseInt(options.get("downloadSize")));
+            baseUrl = server.getBaseUrl();
+        }
+        HttpClientUtils.customPoolSize(Integer.parseInt(options.get("maxTotal")),
+                Integer.parseInt(options.get("maxPerRoute")));
+        System.out.println("压测参数：" + options + "，压测地址：" + baseUrl);
+        try {
+            new LoadGenerator(options, baseUrl).run();
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 启动并发线程和饱和度采样，等待压测结束后输出报告
+     */
+    private void run() throws InterruptedException {
+        RouteMetrics routeMetrics = HttpClientUtils.getRouteMetrics(baseUrl);
+        long startNanos = System.nanoTime();
+        long measureStartNanos = startNanos + warmupNanos;
+        long endNanos = measureStartNanos + durationNanos;
+        // 目标速率下相邻两个请求的计划间隔
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+        AtomicLong sequence = new AtomicLong();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] lastCounts = new long[2];
+        timeline.add(String.format("%8s %10s %8s %16s %16s", "时间(s)", "吞吐(req/s)", "错误",
+                "同步池 租用/等待/最大", "异步池 租用/等待/最大"));
+        sampler.scheduleAtFixedRate(() -> {
+            long completedCount = completed.sum();
+            long failedCount = failed.sum();
+            double seconds = intervalMillis / 1000.0;
+            timeline.add(String.format("%8.1f %10.1f %8d %16s %16s",
+                    (System.nanoTime() - startNanos) / 1e9,
+                    (completedCount - lastCounts[0]) / seconds, failedCount - lastCounts[1],
+                    formatPool(routeMetrics.getPoolStats()), formatPool(routeMetrics.getAsyncPoolStats())));
+            lastCounts[0] = completedCount;
+            lastCounts[1] = failedCount;
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "load-test-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int worker = 0; worker < concurrency; worker++) {
+            Path downloadFile = downloadDirectory.resolve("download-" + worker + ".bin");
+            workers.execute(() -> {
+                try {
+                    while (true) {
+                        long intended = intervalNanos > 0
+                                ? startNanos + sequence.getAndIncrement() * intervalNanos : System.nanoTime();
+                        // 超过结束时间即停止，目标速率超出处理能力时积压的请求不再发出（报告中单独列出）
+                        if (intended >= endNanos) {
+                            return;
+                        }
+                        if (System.nanoTime() >= endNanos) {
+                            // 已排定但来不及发出的请求：至少等待到结束时间，计入延迟
+                            recordUnsent(intended, measureStartNanos, endNanos);
+                            return;
+                        }
+                        // 等到计划发送时间（已落后于计划时不等待，落后的时间计入延迟）
+                        long waitNanos;
+                        while ((waitNanos = intended - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(waitNanos);
+                        }
+                        RequestKind kind = nextKind();
+                        dispatched.increment();
+                        long actualStart = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = execute(kind, downloadFile) < 400;
+                        } catch (RuntimeException e) {
+                            success = false;
+                        }
+                        long end = System.nanoTime();
+                        if (intended >= measureStartNanos) {
+                            latencies.get(kind).record(end - intended);
+                            serviceTimes.get(kind).record(end - actualStart);
+                            overallLatency.record(end - intended);
+                            overallServiceTime.record(end - actualStart);
+                            completed.increment();
+                            if (!success) {
+                                errors.get(kind).increment();
+                                failed.increment();
+                            }
+                        }
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        finished.await();
+        long elapsedNanos = Math.max(System.nanoTime() - measureStartNanos, 1);
+        sampler.shutdownNow();
+        workers.shutdownNow();
+        // 目标速率下排定在结束时间之前、但没有线程取走的请求（全部线程都被阻塞在慢请求上）同样计入延迟
+        if (intervalNanos > 0) {
+            for (long next = sequence.get(); startNanos + next * intervalNanos < endNanos; next++) {
+                recordUnsent(startNanos + next * intervalNanos, measureStartNanos, endNanos);
+            }
+        }
+        report(elapsedNanos, unsent.sum());
+    }
+
+    /**
+     * 记录一个计划发出但到结束时仍未发出的请求：延迟按结束时间减去计划发送时间计算（实际延迟只会更长），
+     * 否则服务端停顿时积压的请求不进入延迟分布，分位数会被低估（协调遗漏）
+     */
+    private void recordUnsent(long intended, long measureStartNanos, long endNanos) {
+        if (intended >= measureStartNanos) {
+            overallLatency.record(endNanos - intended);
+            unsent.increment();
+        }
+    }
+
+    /**
+     * 按权重随机选择请求类型
+     */
+    private RequestKind nextKind() {
+        int value = ThreadLocalRandom.current().nextInt(mixWeights[mixWeights.length - 1]);
+        for (int index = 0; index < mixWeights.length; index++) {
+            if (value < mixWeights[index]) {
+                return mixKinds[index];
+            }
+        }
+        return mixKinds[mixKinds.length - 1];
+    }
+
+    /**
+     * 发送单个请求
+     *
+     * @return 响应码
+     */
+    private int execute(RequestKind kind, Path downloadFile) {
+        switch (kind) {
+            case GET:
+                return new HttpClientUtils.Builder().setUrl(baseUrl + "/get")
+                        .setRequestType(HttpConstant.HTTP_GET).build().send().getCode();
+            case ASYNC_GET:
+                return new HttpClientUtils.Builder().setUrl(baseUrl + "/get")
+                        .setRequestType(HttpConstant.HTTP_GET).build().sendAsync().join().getCode();
+            case POST:
+                return new HttpClientUtils.Builder().setUrl(baseUrl + "/post").setRequestBody(POST_BODY)
+                        .setRequestType(HttpConstant.HTTP_POST).build().send().getCode();
+            case MULTIPART:
+                return new HttpClientUtils.Builder().setUrl(baseUrl + "/upload")
+                        .setUploadParts(Collections.singletonList(UploadPart.of(uploadContent.duplicate(),
+                                ContentType.APPLICATION_OCTET_STREAM, "load-test.bin")))
+                        .setRequestType(HttpConstant.HTTP_POST).build().sendFile("file").getCode();
+            case DOWNLOAD:
+                return new HttpClientUtils.Builder().setUrl(baseUrl + "/download")
+                        .setRequestType(HttpConstant.HTTP_GET).build().downloadTo(downloadFile).getCode();
+            case SIMPLE_GET:
+                return SimpleHttpUtils.sendGet(baseUrl + "/get", null, null).getCode();
+            case SIMPLE_POST:
+                return SimpleHttpUtils.sendPost(baseUrl + "/post", null, null, POST_BODY).getCode();
+            default:
+                throw new IllegalArgumentException("未知的请求类型：" + kind);
+        }
+    }
+
+    /**
+     * 输出压测报告：总体及各请求类型的吞吐量、延迟分位数、错误率，以及连接池饱和度时间线
+     */
+    private void report(long elapsedNanos, long unsent) {
+        long total = completed.sum();
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.println("================ 压测结果 ================");
+        System.out.printf("请求数：%d，吞吐量：%.1f req/s，错误率：%.2f%%%n", total, total / seconds,
+                total == 0 ? 0 : failed.sum() * 100.0 / total);
+        if (unsent > 0) {
+            System.out.printf("积压未发出：%d（目标速率%.0f req/s超出处理能力，按结束时间计入合计延迟）%n", unsent, rate);
+        }
+        System.out.printf("%-12s %8s %8s %10s %10s %10s %10s %12s%n", "请求类型", "请求数", "错误数",
+                "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)", "服务p99(ms)");
+        for (RequestKind kind : RequestKind.values()) {
+            if (latencies.get(kind).getCount() > 0) {
+                printLatency(kind.name, latencies.get(kind), serviceTimes.get(kind), errors.get(kind).sum());
+            }
+        }
+        printLatency("合计", overallLatency, overallServiceTime, failed.sum());
+        System.out.println(rate > 0 ? "注：延迟从计划发送时间开始计算（已修正协调遗漏），服务p99为实际发出至收到响应的耗时"
+                : "注：未设置rate（闭环），延迟即服务耗时，无法反映请求积压的排队时间");
+        System.out.println("================ 连接池饱和度时间线 ================");
+        timeline.forEach(System.out::println);
+        System.out.println("说明：等待数持续大于0说明连接池已饱和（请求在排队租用连接），应调大maxPerRoute/maxTotal或降低并发");
+    }
+
+    private static void printLatency(String name, LatencyHistogram latency, LatencyHistogram serviceTime,
+                                     long errorCount) {
+        System.out.printf("%-12s %8d %8d %10.2f %10.2f %10.2f %10.2f %12.2f%n", name, latency.getCount(), errorCount,
+                latency.getPercentile(0.5, TimeUnit.MILLISECONDS), latency.getPercentile(0.99, TimeUnit.MILLISECONDS),
+                latency.getPercentile(0.999, TimeUnit.MILLISECONDS), latency.getMax(TimeUnit.MILLISECONDS),
+                serviceTime.getPercentile(0.99, TimeUnit.MILLISECONDS));
+    }
+
+    private static String formatPool(PoolStats stats) {
+        return stats == null ? "-" : stats.getLeased() + "/" + stats.getPending() + "/" + stats.getMax();
+    }
+}
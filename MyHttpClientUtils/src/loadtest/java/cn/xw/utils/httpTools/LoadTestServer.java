@@ -0,0 +1,217 @@
+package cn.xw.utils.httpTools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 压测及基准测试（src/jmh/java）使用的本地替身服务（127.0.0.1，随机端口），模拟下游接口的响应耗时和响应体大小：<br/>
+ * GET /get：返回JSON响应体；GET /body/{字节数}：返回指定大小的JSON响应体，同一大小的响应体只生成一次；POST /post、POST /upload：读完请求体后返回简短JSON；GET /download：返回文件内容；<br/>
+ * 分片上传（ChunkedUploadScheme.ofPath()）：PUT /uploads/{uploadId}/parts/{partNumber}保存分片，
+ * POST /uploads/{uploadId}/commit按序号合并分片，分片不全时返回400，否则返回合并后的字节数及SHA-256
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class LoadTestServer implements AutoCloseable {
+
+    // 分片上传的请求路径：/uploads/{uploadId}/parts/{partNumber}、/uploads/{uploadId}/commit
+    private static final Pattern PART_PATH = Pattern.compile("/uploads/([^/]+)/parts/(\\d+)");
+    private static final Pattern COMMIT_PATH = Pattern.compile("/uploads/([^/]+)/commit");
+    private static final Pattern PART_COUNT = Pattern.compile("\"partCount\"\\s*:\\s*(\\d+)");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long delayMillis;       // 每个请求的模拟处理耗时
+    private final byte[] jsonBody;        // GET /get的响应体
+    private final byte[] fileBody;        // GET /download的文件内容
+    private final Map<Integer, byte[]> bodies = new ConcurrentHashMap<>(); // GET /body/{字节数}的响应体
+    private final Map<String, ConcurrentSkipListMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>(); // 已保存的分片
+
+    /**
+     * @param delayMillis  每个请求的模拟处理耗时（毫秒）
+     * @param bodySize     GET /get的响应体字节数
+     * @param downloadSize GET /download的文件字节数
+     * @throws IOException 端口绑定失败
+     */
+    LoadTestServer(long delayMillis, int bodySize, int downloadSize) throws IOException {
+        this.delayMillis = delayMillis;
+        this.jsonBody = createBody(bodySize);
+        this.fileBody = new byte[downloadSize];
+        Arrays.fill(fileBody, (byte) 'x');
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 替身服务不能成为瓶颈，每个连接一个线程
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 关闭Nagle算法：响应头和响应体分两次写出，否则会与客户端的延迟确认叠加，每个请求多出约40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/get", exchange -> respond(exchange, "application/json;charset=UTF-8", jsonBody));
+        server.createContext("/body/", exchange -> respond(exchange, "application/json;charset=UTF-8",
+                bodies.computeIfAbsent(Integer.parseInt(exchange.getRequestURI().getPath().substring("/body/".length())),
+                        LoadTestServer::createBody)));
+        server.createContext("/post", exchange -> respond(exchange, "application/json;charset=UTF-8",
+                "{\"code\":200,\"msg\":\"保存成功\"}".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/upload", exchange -> respond(exchange, "application/json;charset=UTF-8",
+                "{\"code\":200,\"msg\":\"上传成功\"}".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/download", exchange -> {
+            exchange.getResponseHeaders().add("Content-Disposition", "attachment; filename=\"load-test.bin\"");
+            exchange.getResponseHeaders().add("ETag", "\"load-test-" + fileBody.length + "\"");
+            respond(exchange, "application/octet-stream", fileBody);
+        });
+        server.createContext("/uploads/", this::handleChunkedUpload);
+        server.start();
+    }
+
+    /**
+     * 读完请求体，等待模拟处理耗时后返回响应
+     */
+    private void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (requestBody.read(buffer) != -1) {
+                // 丢弃请求体
+            }
+        }
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    /**
+     * 分片上传：保存分片（重复上传的分片覆盖之前的内容），合并时校验分片是否齐全
+     */
+    private void handleChunkedUpload(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        byte[] body = readBody(exchange);
+        Matcher part = PART_PATH.matcher(path);
+        if (part.matches() && "PUT".equalsIgnoreCase(exchange.getRequestMethod())) {
+            uploads.computeIfAbsent(part.group(1), uploadId -> new ConcurrentSkipListMap<>())
+                    .put(Integer.parseInt(part.group(2)), body);
+            respond(exchange, 200, "{\"code\":200,\"msg\":\"分片上传成功\"}");
+            return;
+        }
+        Matcher commit = COMMIT_PATH.matcher(path);
+        if (commit.matches() && "POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            Matcher partCount = PART_COUNT.matcher(new String(body, StandardCharsets.UTF_8));
+            ConcurrentSkipListMap<Integer, byte[]> parts = uploads.remove(commit.group(1));
+            int expected = partCount.find() ? Integer.parseInt(partCount.group(1)) : -1;
+            // 分片序号从1开始且不重复，数量一致且最大序号等于分片数即为齐全
+            if (parts == null || parts.size() != expected || parts.lastKey() != expected) {
+                respond(exchange, 400, "{\"code\":400,\"msg\":\"分片不全：已上传" + (parts == null ? 0 : parts.size())
+                        + "个，预期" + expected + "个\"}");
+                return;
+            }
+            MessageDigest messageDigest;
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+            long size = 0;
+            for (byte[] content : parts.values()) {
+                messageDigest.update(content);
+                size += content.length;
+            }
+            String sha256 = String.format("%064x", new BigInteger(1, messageDigest.digest()));
+            respond(exchange, 200, "{\"code\":200,\"size\":" + size + ",\"sha256\":\"" + sha256 + "\"}");
+            return;
+        }
+        respond(exchange, 404, "{\"code\":404,\"msg\":\"" + path + "\"}");
+    }
+
+    /**
+     * 读取完整的请求体（分片上传使用）
+     */
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = requestBody.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * 请求体已读完时，等待模拟处理耗时后返回JSON响应
+     */
+    private void respond(HttpExchange exchange, int code, String json) throws IOException {
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    /**
+     * 生成指定字节数的JSON响应体：重复写入完整的JSON对象（不截断中文字符），不足一个对象的剩余部分用空格填充
+     */
+    static byte[] createBody(int size) {
+        byte[] item = "{\"id\":1,\"name\":\"张三\",\"sex\":\"男\",\"age\":20,\"address\":\"北京市\"}\n"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[size];
+        int position = 0;
+        while (position + item.length <= size) {
+            System.arraycopy(item, 0, body, position, item.length);
+            position += item.length;
+        }
+        Arrays.fill(body, position, size, (byte) ' ');
+        return body;
+    }
+
+    /**
+     * 请求地址前缀，如：http://127.0.0.1:54321
+     */
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,209 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.LatencyHistogram;
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按路由自适应调整连接池的最大连接数（AIMD：加法增大、乘法减小），每个统计周期根据路由指标的增量计算：<br/>
+ * 1、下游耗时（请求总耗时减去租用连接等待耗时）超过基线耗时的LATENCY_TOLERANCE倍：下游已经变慢，按BACKOFF_RATIO乘法减小，
+ * 避免继续加大并发压垮下游；<br/>
+ * 2、否则有请求在等待租用连接（等待数大于0或平均等待耗时超过LEASE_WAIT_THRESHOLD_MS）：最大连接数加1；<br/>
+ * 3、否则租用中的连接数不到最大连接数的一半：最大连接数减1，跟随流量回落<br/>
+ * 最大连接数始终在[minPerRoute, maxPerRoute]范围内；基线耗时取观察到的最低下游耗时，并缓慢跟随当前耗时上浮，
+ * 以适应下游正常的耗时变化
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class AdaptivePoolSizer {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    // 统计周期（毫秒）
+    private static final long INTERVAL_MS = 1000L;
+    // 一个统计周期内至少完成的请求数，样本太少时不调整
+    private static final int MIN_SAMPLES = 5;
+    // 下游耗时超过基线耗时的倍数时视为下游变慢
+    private static final double LATENCY_TOLERANCE = 2.0;
+    // 下游变慢时最大连接数的缩小比例
+    private static final double BACKOFF_RATIO = 0.75;
+    // 平均租用连接等待耗时超过此值（毫秒）时视为连接不足
+    private static final double LEASE_WAIT_THRESHOLD_MS = 5.0;
+    // 基线耗时跟随当前耗时上浮的比例（每个统计周期）
+    private static final double BASELINE_DRIFT = 0.01;
+
+    // 所有调整任务共用的调度线程（守护线程）
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-adaptive-pool-sizer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String profile;                                   // 所属的客户端配置名称
+    private final int minPerRoute;                                  // 每个路由的最小连接数
+    private final int maxPerRoute;                                  // 每个路由的最大连接数上限
+    private final HttpClientMetrics metrics;                        // 路由指标
+    private final ToIntFunction<HttpRoute> limitGetter;             // 读取路由当前的最大连接数
+    private final RouteLimitSetter limitSetter;                     // 设置路由的最大连接数（同步、异步连接池）
+    private final Map<HttpRoute, RouteState> routeStates = new ConcurrentHashMap<>(); // 各路由上个周期的状态
+    private volatile ScheduledFuture<?> task;                       // 调整任务
+
+    AdaptivePoolSizer(String profile, int minPerRoute, int maxPerRoute, HttpClientMetrics metrics,
+                      ToIntFunction<HttpRoute> limitGetter, RouteLimitSetter limitSetter) {
+        if (minPerRoute <= 0 || maxPerRoute < minPerRoute) {
+            throw new RuntimeException("自适应连接数范围无效：minPerRoute=" + minPerRoute
+                    + "，maxPerRoute=" + maxPerRoute);
+        }
+        this.profile = profile;
+        this.minPerRoute = minPerRoute;
+        this.maxPerRoute = maxPerRoute;
+        this.metrics = metrics;
+        this.limitGetter = limitGetter;
+        this.limitSetter = limitSetter;
+    }
+
+    /**
+     * 开始周期性调整
+     */
+    synchronized void start() {
+        if (task == null) {
+            task = SCHEDULER.scheduleWithFixedDelay(this::adjustAll, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 停止调整（已调整的最大连接数保持不变）
+     */
+    synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * 调整所有已发送过请求的路由（调度线程内执行，异常只记录不中断后续周期）
+     */
+    private void adjustAll() {
+        for (RouteMetrics routeMetrics : metrics.getAllRouteMetrics().values()) {
+            try {
+                adjust(routeMetrics);
+            } catch (RuntimeException e) {
+                log.warn("路由：{} 自适应调整连接数失败：{}", routeMetrics.getRoute(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 根据路由指标在本周期的增量调整最大连接数
+     *
+     * @param routeMetrics 路由指标
+     */
+    private void adjust(RouteMetrics routeMetrics) {
+        HttpRoute route = routeMetrics.getRoute();
+        LatencyHistogram total = routeMetrics.getTotal();
+        LatencyHistogram leaseWait = routeMetrics.getLeaseWait();
+        long count = total.getCount();
+        double totalNanos = total.getTotalTime(TimeUnit.NANOSECONDS);
+        long leaseCount = leaseWait.getCount();
+        double leaseNanos = leaseWait.getTotalTime(TimeUnit.NANOSECONDS);
+        RouteState state = routeStates.get(route);
+        if (state == null) {
+            // 首次观察只记录起点，并把当前最大连接数限制在范围内
+            state = new RouteState();
+            state.update(count, totalNanos, leaseCount, leaseNanos);
+            routeStates.put(route, state);
+            int limit = limitGetter.applyAsInt(route);
+            int bounded = Math.max(minPerRoute, Math.min(maxPerRoute, limit));
+            if (bounded != limit) {
+                limitSetter.set(route, bounded);
+            }
+            return;
+        }
+        long samples = count - state.count;
+        if (samples < MIN_SAMPLES) {
+            return;
+        }
+        double meanLeaseMs = leaseCount > state.leaseCount
+                ? (leaseNanos - state.leaseNanos) / (leaseCount - state.leaseCount) / 1e6 : 0;
+        double meanTotalMs = (totalNanos - state.totalNanos) / samples / 1e6;
+        // 下游耗时：扣除在连接池中等待的时间，避免连接不足造成的排队被误判为下游变慢
+        double downstreamMs = Math.max(meanTotalMs - meanLeaseMs, 0);
+        state.update(count, totalNanos, leaseCount, leaseNanos);
+        if (state.baselineMs == 0 || downstreamMs < state.baselineMs) {
+            state.baselineMs = downstreamMs;
+        } else {
+            state.baselineMs += (downstreamMs - state.baselineMs) * BASELINE_DRIFT;
+        }
+
+        int pending = 0;
+        int leased = 0;
+        PoolStats poolStats = routeMetrics.getPoolStats();
+        PoolStats asyncPoolStats = routeMetrics.getAsyncPoolStats();
+        for (PoolStats stats : new PoolStats[]{poolStats, asyncPoolStats}) {
+            if (stats != null) {
+                pending += stats.getPending();
+                leased = Math.max(leased, stats.getLeased());
+            }
+        }
+        int limit = limitGetter.applyAsInt(route);
+        int newLimit = limit;
+        String reason;
+        if (state.baselineMs > 0 && downstreamMs > state.baselineMs * LATENCY_TOLERANCE) {
+            newLimit = (int) (limit * BACKOFF_RATIO);
+            reason = "下游变慢";
+        } else if (pending > 0 || meanLeaseMs > LEASE_WAIT_THRESHOLD_MS) {
+            newLimit = limit + 1;
+            reason = "等待租用连接";
+        } else if (leased < limit / 2) {
+            newLimit = limit - 1;
+            reason = "连接空闲";
+        } else {
+            return;
+        }
+        newLimit = Math.max(minPerRoute, Math.min(maxPerRoute, newLimit));
+        if (newLimit != limit) {
+            limitSetter.set(route, newLimit);
+            log.info("客户端配置：{} 路由：{} 最大连接数：{} -> {}（{}：下游耗时{}ms，基线{}ms，等待租用{}个/{}ms）",
+                    profile, route, limit, newLimit, reason, String.format("%.1f", downstreamMs),
+                    String.format("%.1f", state.baselineMs), pending, String.format("%.1f", meanLeaseMs));
+        }
+    }
+
+    /**
+     * 设置路由的最大连接数
+     */
+    interface RouteLimitSetter {
+        void set(HttpRoute route, int maxPerRoute);
+    }
+
+    /**
+     * 路由上个周期结束时的累计值及基线耗时
+     */
+    private static class RouteState {
+        private long count;         // 请求数
+        private double totalNanos;  // 请求总耗时
+        private long leaseCount;    // 租用连接次数
+        private double leaseNanos;  // 租用连接等待总耗时
+        private double baselineMs;  // 基线下游耗时（毫秒）
+
+        private void update(long count, double totalNanos, long leaseCount, double leaseNanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.leaseCount = leaseCount;
+            this.leaseNanos = leaseNanos;
+        }
+    }
+}
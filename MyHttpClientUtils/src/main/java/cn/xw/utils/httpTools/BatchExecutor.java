@@ -0,0 +1,217 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.BatchResult;
+import cn.xw.utils.httpTools.entity.HttpResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 批量请求调度：按路由排队，每个路由同时进行的请求数不超过该路由的连接池最大连接数，
+ * 所有路由同时进行的请求数不超过连接池最大连接总数，一个请求完成后立即发出排队中的下一个请求，
+ * 既让连接池保持满负荷，又不会让请求在连接池中排队等待租用连接（CONNECTION_POOL_MANAGER_TIMEOUT）<br/>
+ * 请求通过异步客户端发送，调度过程不占用额外线程
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class BatchExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchExecutor.class);
+
+    private final int size;                                                // 批量请求数
+    private final IntFunction<CompletableFuture<HttpResult>> sender;       // 单个请求（按位置）的发送方式
+    private final boolean failFast;                                        // 是否快速失败
+    private final Consumer<BatchResult> listener;                          // 单个请求完成时的回调
+    private final int maxTotal;                                            // 所有路由同时进行的最大请求数
+    private final Map<Object, RouteQueue> routeQueues = new LinkedHashMap<>();    // 各路由的排队请求
+    private final RouteQueue[] queueOf;                                    // 每个请求所属路由的排队请求
+    private final Map<Integer, CompletableFuture<HttpResult>> running = new LinkedHashMap<>(); // 进行中的请求
+    private final AtomicInteger remaining;                                 // 尚未完成的请求数
+    private final CompletableFuture<Void> done = new CompletableFuture<>(); // 全部请求完成
+    private int active;                                                    // 所有路由进行中的请求数
+    private Throwable stopReason;                                          // 停止调度的原因（快速失败或超过截止时间）
+
+    /**
+     * @param size       批量请求数（请求按位置0~size-1标识）
+     * @param routeOf    请求所属的路由（排队的键，如路由或客户端配置+路由）
+     * @param routeLimit 请求所属路由同时进行的最大请求数（按路由的第一个请求计算）
+     * @param maxTotal   所有路由同时进行的最大请求数
+     * @param sender     单个请求的发送方式（须发往routeOf计算时的路由）
+     * @param failFast   是否快速失败（任意一个请求失败时取消其余请求）
+     * @param listener   单个请求完成（成功、失败、取消、超时）时的回调，每个请求只回调一次
+     */
+    BatchExecutor(int size, IntFunction<Object> routeOf, IntUnaryOperator routeLimit, int maxTotal,
+                  IntFunction<CompletableFuture<HttpResult>> sender, boolean failFast,
+                  Consumer<BatchResult> listener) {
+        this.size = size;
+        this.sender = sender;
+        this.failFast = failFast;
+        this.listener = listener;
+        this.maxTotal = Math.max(maxTotal, 1);
+        this.remaining = new AtomicInteger(size);
+        this.queueOf = new RouteQueue[size];
+        for (int index = 0; index < size; index++) {
+            int request = index;
+            queueOf[index] = routeQueues.computeIfAbsent(routeOf.apply(request),
+                    key -> new RouteQueue(Math.max(routeLimit.applyAsInt(request), 1)));
+            queueOf[index].pending.add(index);
+        }
+    }
+
+    /**
+     * 开始调度
+     *
+     * @return 全部请求完成（每个请求都已回调）时完成
+     */
+    CompletableFuture<Void> start() {
+        if (size == 0) {
+            done.complete(null);
+        } else {
+            schedule();
+        }
+        return done;
+    }
+
+    /**
+     * 停止调度：取消进行中的请求，排队中的请求不再发送，均以指定的异常回调
+     *
+     * @param reason 停止原因（如CancellationException、TimeoutException）
+     */
+    void stop(Throwable reason) {
+        List<Integer> abandoned = new ArrayList<>();
+        List<CompletableFuture<HttpResult>> cancelled;
+        synchronized (this) {
+            if (stopReason != null) {
+                return;
+            }
+            stopReason = reason;
+            for (RouteQueue routeQueue : routeQueues.values()) {
+                abandoned.addAll(routeQueue.pending);
+                routeQueue.pending.clear();
+            }
+            cancelled = new ArrayList<>(running.values());
+            abandoned.addAll(running.keySet());
+            running.clear();
+        }
+        cancelled.forEach(future -> future.cancel(true));
+        for (Integer index : abandoned) {
+            complete(index, null, reason);
+        }
+    }
+
+    /**
+     * 在路由及总数限制内发出排队中的请求（在锁内选出要发送的请求，在锁外发送）
+     */
+    private void schedule() {
+        List<Integer> starting = new ArrayList<>();
+        synchronized (this) {
+            boolean progress = true;
+            // 各路由轮流发出，避免单个路由占满总数限制
+            while (stopReason == null && active < maxTotal && progress) {
+                progress = false;
+                for (RouteQueue routeQueue : routeQueues.values()) {
+                    if (active >= maxTotal) {
+                        break;
+                    }
+                    if (routeQueue.active < routeQueue.limit && !routeQueue.pending.isEmpty()) {
+                        Integer index = routeQueue.pending.poll();
+                        routeQueue.active++;
+                        active++;
+                        starting.add(index);
+                        progress = true;
+                    }
+                }
+            }
+        }
+        for (Integer index : starting) {
+            send(index);
+        }
+    }
+
+    /**
+     * 发送单个请求，完成后释放名额并继续调度
+     */
+    private void send(int index) {
+        CompletableFuture<HttpResult> future;
+        try {
+            future = sender.apply(index);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        Throwable reason;
+        synchronized (this) {
+            reason = stopReason;
+            if (reason == null) {
+                running.put(index, future);
+            }
+        }
+        // 发送期间已停止调度，该请求不在stop的处理范围内，在这里取消并回调
+        if (reason != null) {
+            future.cancel(true);
+            complete(index, null, reason);
+            return;
+        }
+        future.whenComplete((httpResult, throwable) -> {
+            synchronized (this) {
+                // 已被stop处理（取消、超时）的请求不再重复回调
+                if (running.remove(index) == null) {
+                    return;
+                }
+                active--;
+                queueOf[index].active--;
+            }
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+            complete(index, httpResult, cause);
+            if (cause != null && failFast) {
+                stop(new CancellationException("批量请求中第" + index + "个请求失败，其余请求已取消"));
+            } else {
+                schedule();
+            }
+        });
+    }
+
+    /**
+     * 回调单个请求的结果（回调抛出的异常只记录日志，不影响后续调度及全部请求完成）
+     */
+    private void complete(int index, HttpResult httpResult, Throwable throwable) {
+        try {
+            listener.accept(new BatchResult(index, httpResult, throwable));
+        } catch (RuntimeException e) {
+            log.warn("批量请求中第{}个请求的完成回调异常：{}", index, e.getMessage(), e);
+        } finally {
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * 单个路由的排队请求
+     */
+    private static class RouteQueue {
+
+        private final int limit;                                // 路由同时进行的最大请求数
+        private final Queue<Integer> pending = new ArrayDeque<>(); // 排队中的请求位置
+        private int active;                                     // 进行中的请求数
+
+        private RouteQueue(int limit) {
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 带缓存的多地址域名解析（同步、异步连接池管理器建立新连接时使用）：<br/>
+ * 1、解析成功的结果缓存positiveTtl，解析失败（域名不存在）缓存negativeTtl，避免每次建立连接都查询DNS；<br/>
+ * 2、缓存到期后仍先返回旧的地址，同时由后台线程异步刷新，建立连接不等待DNS查询；刷新失败继续使用旧的地址，
+ * negativeTtl后再次刷新；<br/>
+ * 3、每次解析把全部A/AAAA记录轮询（Round-Robin）排序后返回，新连接依次落在域名下的各个节点上，而不是全部连到第一个地址；<br/>
+ * 4、连接池按返回的顺序逐个尝试建立连接，某个地址连接被拒绝、不可达或建立连接超时后（同步、异步连接池均上报），
+ * FAILED_ADDRESS_COOLDOWN_SECONDS秒内排到最后，后续的新连接优先尝试其它地址<br/>
+ * 注：JVM自身也缓存解析结果（networkaddress.cache.ttl，默认30秒），需要更快感知DNS变化时应同时调小该配置
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public class CachingDnsResolver implements DnsResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingDnsResolver.class);
+
+    // 连接失败的地址排到最后的时间（秒）
+    private static final long FAILED_ADDRESS_COOLDOWN_SECONDS = 30L;
+
+    // 异步刷新解析结果的线程（守护线程）
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-dns-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final DnsResolver delegate;                                         // 实际执行解析的解析器
+    private final long positiveTtlNanos;                                        // 解析成功的缓存时间（纳秒）
+    private final long negativeTtlNanos;                                        // 解析失败的缓存时间（纳秒）
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();    // 各域名的解析结果
+    private final Map<InetAddress, Long> failedAddresses = new ConcurrentHashMap<>(); // 连接失败的地址及其恢复时间
+
+    /**
+     * @param positiveTtl 解析成功的缓存时间
+     * @param negativeTtl 解析失败的缓存时间
+     * @param unit        时间单位
+     */
+    public CachingDnsResolver(long positiveTtl, long negativeTtl, TimeUnit unit) {
+        this(SystemDefaultDnsResolver.INSTANCE, positiveTtl, negativeTtl, unit);
+    }
+
+    /**
+     * @param delegate    实际执行解析的解析器（如自定义的服务发现）
+     * @param positiveTtl 解析成功的缓存时间
+     * @param negativeTtl 解析失败的缓存时间
+     * @param unit        时间单位
+     */
+    public CachingDnsResolver(DnsResolver delegate, long positiveTtl, long negativeTtl, TimeUnit unit) {
+        if (delegate == null || positiveTtl <= 0 || negativeTtl < 0) {
+            throw new RuntimeException("域名解析缓存参数无效：positiveTtl=" + positiveTtl + "，negativeTtl=" + negativeTtl);
+        }
+        this.delegate = delegate;
+        this.positiveTtlNanos = unit.toNanos(positiveTtl);
+        this.negativeTtlNanos = unit.toNanos(negativeTtl);
+    }
+
+    /**
+     * 委托给当前解析器的解析器（连接池管理器创建后仍可替换解析器）
+     *
+     * @param current 获取当前的解析器
+     * @return 解析器
+     */
+    static DnsResolver delegate(Supplier<DnsResolver> current) {
+        return new DelegatingDnsResolver(current);
+    }
+
+    /**
+     * 包装连接套接字工厂：建立连接失败时通知当前解析器（为CachingDnsResolver时），该地址暂时排到最后
+     *
+     * @param factory 连接套接字工厂（https的LayeredConnectionSocketFactory包装后仍可升级TLS）
+     * @param current 获取当前的解析器
+     * @return 包装后的连接套接字工厂
+     */
+    static ConnectionSocketFactory trackConnectFailures(ConnectionSocketFactory factory,
+                                                        Supplier<DnsResolver> current) {
+        if (factory instanceof LayeredConnectionSocketFactory) {
+            return new LayeredFailureTrackingSocketFactory((LayeredConnectionSocketFactory) factory, current);
+        }
+        return new FailureTrackingSocketFactory(factory, current);
+    }
+
+    /**
+     * 包装异步连接池管理器的连接发起器：异步建立连接时逐个尝试解析出的地址，某个地址建立连接失败时通知解析器
+     * （为CachingDnsResolver或委托给它时），该地址暂时排到最后
+     *
+     * @param initiator 连接发起器（I/O Reactor）
+     * @param resolver  异步连接池管理器使用的解析器
+     * @return 包装后的连接发起器
+     */
+    static ConnectionInitiator trackConnectFailures(ConnectionInitiator initiator, DnsResolver resolver) {
+        return (remoteEndpoint, remoteAddress, localAddress, timeout, attachment, callback) ->
+                initiator.connect(remoteEndpoint, remoteAddress, localAddress, timeout, attachment,
+                        new FutureCallback<IOSession>() {
+                            @Override
+                            public void completed(IOSession session) {
+                                if (callback != null) {
+                                    callback.completed(session);
+                                }
+                            }
+
+                            @Override
+                            public void failed(Exception cause) {
+                                if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                                        || cause instanceof SocketTimeoutException) {
+                                    reportConnectFailure(resolver, remoteAddress);
+                                }
+                                if (callback != null) {
+                                    callback.failed(cause);
+                                }
+                            }
+
+                            @Override
+                            public void cancelled() {
+                                if (callback != null) {
+                                    callback.cancelled();
+                                }
+                            }
+                        });
+    }
+
+    /**
+     * 建立连接失败时通知解析器：委托解析器取其当前的解析器，为CachingDnsResolver时记录失败的地址
+     *
+     * @param resolver      解析器
+     * @param remoteAddress 连接失败的地址
+     */
+    private static void reportConnectFailure(DnsResolver resolver, SocketAddress remoteAddress) {
+        while (resolver instanceof DelegatingDnsResolver) {
+            resolver = ((DelegatingDnsResolver) resolver).current.get();
+        }
+        if (resolver instanceof CachingDnsResolver && remoteAddress instanceof InetSocketAddress) {
+            ((CachingDnsResolver) resolver).markFailed(((InetSocketAddress) remoteAddress).getAddress());
+        }
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = System.nanoTime();
+        CacheEntry entry = cache.get(host);
+        if (entry == null) {
+            // 同一域名并发的首次解析只查询一次
+            entry = cache.computeIfAbsent(host, this::lookup);
+        } else if (entry.addresses == null && now - entry.expiresAt >= 0) {
+            CacheEntry expired = entry;
+            entry = cache.compute(host,
+                    (key, current) -> current == null || current == expired ? lookup(key) : current);
+        } else if (now - entry.expiresAt >= 0) {
+            refreshAsync(host, entry);
+        }
+        if (entry.addresses == null) {
+            throw new UnknownHostException(host);
+        }
+        return order(entry, now);
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return delegate.resolveCanonicalHostname(host);
+    }
+
+    /**
+     * 记录建立连接失败的地址，FAILED_ADDRESS_COOLDOWN_SECONDS秒内解析结果中排到最后
+     *
+     * @param address 连接失败的地址
+     */
+    void markFailed(InetAddress address) {
+        if (address != null && failedAddresses.put(address,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(FAILED_ADDRESS_COOLDOWN_SECONDS)) == null) {
+            log.warn("地址：{} 建立连接失败，{}秒内优先连接其它地址", address.getHostAddress(),
+                    FAILED_ADDRESS_COOLDOWN_SECONDS);
+        }
+    }
+
+    private CacheEntry lookup(String host) {
+        try {
+            return new CacheEntry(delegate.resolve(host), System.nanoTime() + positiveTtlNanos);
+        } catch (UnknownHostException e) {
+            log.warn("域名解析失败：{}", host);
+            return new CacheEntry(null, System.nanoTime() + negativeTtlNanos);
+        }
+    }
+
+    /**
+     * 后台刷新过期的解析结果（同一域名同时只刷新一次），刷新失败继续使用旧的地址
+     */
+    private void refreshAsync(String host, CacheEntry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        REFRESHER.execute(() -> {
+            try {
+                CacheEntry refreshed = lookup(host);
+                if (refreshed.addresses == null) {
+                    refreshed = new CacheEntry(entry.addresses, refreshed.expiresAt);
+                }
+                cache.replace(host, entry, refreshed);
+            } catch (RuntimeException e) {
+                log.warn("域名：{} 刷新解析结果异常：{}", host, e.getMessage());
+            } finally {
+                // 成功时旧结果已被替换；解析器抛出运行时异常时旧结果继续使用，下次解析时重新刷新
+                entry.refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * 轮询排序：连接失败冷却中的地址排到最后，其余地址从本次的起始位置依次排列（各地址轮流排在第一个）
+     */
+    private InetAddress[] order(CacheEntry entry, long now) {
+        InetAddress[] addresses = entry.addresses;
+        int count = addresses.length;
+        if (count <= 1) {
+            return addresses.clone();
+        }
+        InetAddress[] ordered = new InetAddress[count];
+        int healthy = 0;
+        int tail = count;
+        for (InetAddress address : addresses) {
+            if (!failedAddresses.isEmpty() && isFailed(address, now)) {
+                ordered[--tail] = address;
+            } else {
+                ordered[healthy++] = address;
+            }
+        }
+        if (healthy > 1) {
+            int start = Math.floorMod(entry.next.getAndIncrement(), healthy);
+            InetAddress[] rotated = new InetAddress[healthy];
+            for (int index = 0; index < healthy; index++) {
+                rotated[index] = ordered[(start + index) % healthy];
+            }
+            System.arraycopy(rotated, 0, ordered, 0, healthy);
+        }
+        return ordered;
+    }
+
+    private boolean isFailed(InetAddress address, long now) {
+        Long until = failedAddresses.get(address);
+        if (until == null) {
+            return false;
+        }
+        if (now - until >= 0) {
+            failedAddresses.remove(address, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 单个域名的解析结果（addresses为null表示解析失败）
+     */
+    private static final class CacheEntry {
+        private final InetAddress[] addresses;
+        private final long expiresAt;                                           // 过期时间（System.nanoTime）
+        private final AtomicInteger next = new AtomicInteger(ThreadLocalRandom.current().nextInt(1 << 16)); // 轮询位置
+        private final AtomicBoolean refreshing = new AtomicBoolean();           // 是否正在刷新
+
+        CacheEntry(InetAddress[] addresses, long expiresAt) {
+            this.addresses = addresses;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 委托给当前解析器的解析器
+     */
+    private static final class DelegatingDnsResolver implements DnsResolver {
+        private final Supplier<DnsResolver> current;
+
+        DelegatingDnsResolver(Supplier<DnsResolver> current) {
+            this.current = current;
+        }
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            return current.get().resolve(host);
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) throws UnknownHostException {
+            return current.get().resolveCanonicalHostname(host);
+        }
+    }
+
+    /**
+     * 记录建立连接失败地址的连接套接字工厂
+     */
+    private static class FailureTrackingSocketFactory implements ConnectionSocketFactory {
+        private final ConnectionSocketFactory delegate;
+        private final Supplier<DnsResolver> current;
+
+        FailureTrackingSocketFactory(ConnectionSocketFactory delegate, Supplier<DnsResolver> current) {
+            this.delegate = delegate;
+            this.current = current;
+        }
+
+        @Override
+        public Socket createSocket(HttpContext context) throws IOException {
+            return delegate.createSocket(context);
+        }
+
+        @Override
+        public Socket connectSocket(TimeValue connectTimeout, Socket socket, HttpHost host,
+                                    InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                    HttpContext context) throws IOException {
+            try {
+                return delegate.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+            } catch (ConnectException | NoRouteToHostException | SocketTimeoutException e) {
+                markFailed(remoteAddress);
+                throw e;
+            }
+        }
+
+        @Override
+        public Socket connectSocket(Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                    InetSocketAddress localAddress, Timeout connectTimeout, Object attachment,
+                                    HttpContext context) throws IOException {
+            try {
+                return delegate.connectSocket(socket, host, remoteAddress, localAddress, connectTimeout, attachment,
+                        context);
+            } catch (ConnectException | NoRouteToHostException | SocketTimeoutException e) {
+                markFailed(remoteAddress);
+                throw e;
+            }
+        }
+
+        private void markFailed(InetSocketAddress remoteAddress) {
+            reportConnectFailure(current.get(), remoteAddress);
+        }
+    }
+
+    /**
+     * 记录建立连接失败地址的TLS连接套接字工厂
+     */
+    private static class LayeredFailureTrackingSocketFactory extends FailureTrackingSocketFactory
+            implements LayeredConnectionSocketFactory {
+        private final LayeredConnectionSocketFactory layeredDelegate;
+
+        LayeredFailureTrackingSocketFactory(LayeredConnectionSocketFactory delegate, Supplier<DnsResolver> current) {
+            super(delegate, current);
+            this.layeredDelegate = delegate;
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+                throws IOException {
+            return layeredDelegate.createLayeredSocket(socket, target, port, context);
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, Object attachment,
+                                          HttpContext context) throws IOException {
+            return layeredDelegate.createLayeredSocket(socket, target, port, attachment, context);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.UploadPart;
+import org.apache.hc.core5.http.ContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 大文件分片并发上传：把文件按固定大小拆分为多个分片，以限定的并发数同时上传，
+ * 每完成一个分片就记录到本地状态文件（xxx.upload），中断后再次上传同一文件时跳过已完成的分片<br/>
+ * 分片内容发送时直接从文件通道读取，不会把分片读入内存
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class ChunkedUploader {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploader.class);
+
+    // 单个分片上传失败后的最大重试次数
+    private static final Integer PART_RETRIES = 3;
+    // 上传状态文件后缀（记录上传标识及已完成的分片）
+    private static final String STATE_SUFFIX = ".upload";
+
+    private final Path file;            // 上传的文件
+    private final long partSize;        // 分片字节数
+    private final int parallelism;      // 并发上传的分片数
+    private final Path stateFile;       // 上传状态文件
+    private String uploadId;            // 本次上传的唯一标识（续传时沿用状态文件中的标识）
+    private final Set<Integer> completedParts = ConcurrentHashMap.newKeySet(); // 已完成的分片序号
+
+    /**
+     * 上传单个分片
+     */
+    @FunctionalInterface
+    interface PartSender {
+
+        /**
+         * 上传单个分片，非2xx响应需抛出异常
+         *
+         * @param uploadId   本次上传的唯一标识
+         * @param partNumber 分片序号（从1开始）
+         * @param part       分片内容（长度已知）
+         * @throws IOException 上传失败
+         */
+        void send(String uploadId, int partNumber, UploadPart part) throws IOException;
+    }
+
+    ChunkedUploader(Path file, long partSize, int parallelism) {
+        this.file = file;
+        this.partSize = partSize;
+        this.parallelism = Math.max(parallelism, 1);
+        this.stateFile = Paths.get(file + STATE_SUFFIX);
+    }
+
+    /**
+     * 并发上传所有未完成的分片，全部成功后返回（不包含合并请求）
+     *
+     * @param partSender 单个分片的上传方式
+     * @return 分片数
+     * @throws IOException 存在分片重试后仍上传失败（已完成的分片已记录，可再次调用续传）
+     */
+    int upload(PartSender partSender) throws IOException {
+        long fileSize = Files.size(file);
+        int partCount = (int) Math.max((fileSize + partSize - 1) / partSize, 1);
+        loadState(fileSize);
+        List<Integer> pendingParts = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            if (!completedParts.contains(partNumber)) {
+                pendingParts.add(partNumber);
+            }
+        }
+        if (pendingParts.size() < partCount) {
+            log.info("分片上传续传：{}，已完成{}/{}个分片", file, partCount - pendingParts.size(), partCount);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(pendingParts.size(), 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "chunked-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Integer partNumber : pendingParts) {
+                long offset = (partNumber - 1) * partSize;
+                UploadPart part = UploadPart.of(fileChannel, offset, Math.min(partSize, fileSize - offset),
+                        ContentType.APPLICATION_OCTET_STREAM, file.getFileName().toString());
+                futures.add(executor.submit(() -> {
+                    sendPart(partSender, partNumber, part);
+                    return null;
+                }));
+            }
+            IOException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("分片上传被中断", e);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IOException("分片上传失败：" + e.getCause().getMessage(), e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return partCount;
+    }
+
+    /**
+     * 上传单个分片，失败时重试，成功后记录到状态文件
+     */
+    private void sendPart(PartSender partSender, int partNumber, UploadPart part) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                partSender.send(uploadId, partNumber, part);
+                completedParts.add(partNumber);
+                saveState();
+                return;
+            } catch (IOException e) {
+                if (attempt >= PART_RETRIES) {
+                    throw e;
+                }
+                log.warn("分片{}上传失败，开始第{}次重试：{}", partNumber, attempt + 1, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取上传状态文件，文件大小、修改时间或分片大小与记录不一致时重新上传
+     *
+     * @param fileSize 文件字节数
+     * @throws IOException 状态文件读取失败
+     */
+    private void loadState(long fileSize) throws IOException {
+        String lastModified = String.valueOf(Files.getLastModifiedTime(file).toMillis());
+        if (Files.exists(stateFile)) {
+            Properties state = new Properties();
+            try (InputStream inputStream = Files.newInputStream(stateFile)) {
+                state.load(inputStream);
+            }
+            if (String.valueOf(fileSize).equals(state.getProperty("fileSize"))
+                    && lastModified.equals(state.getProperty("lastModified"))
+                    && String.valueOf(partSize).equals(state.getProperty("partSize"))
+                    && state.getProperty("uploadId") != null) {
+                uploadId = state.getProperty("uploadId");
+                String parts = state.getProperty("completedParts", "");
+                for (String part : parts.split(",")) {
+                    if (!part.trim().isEmpty()) {
+                        completedParts.add(Integer.parseInt(part.trim()));
+                    }
+                }
+                return;
+            }
+            log.info("文件已变化，重新分片上传：{}", file);
+        }
+        uploadId = UUID.randomUUID().toString().replace("-", "");
+        saveState();
+    }
+
+    /**
+     * 保存上传状态（先写临时文件再替换，避免中断时状态文件损坏）
+     *
+     * @throws IOException 状态文件写入失败
+     */
+    private synchronized void saveState() throws IOException {
+        Properties state = new Properties();
+        state.setProperty("uploadId", uploadId);
+        state.setProperty("fileSize", String.valueOf(Files.size(file)));
+        state.setProperty("lastModified", String.valueOf(Files.getLastModifiedTime(file).toMillis()));
+        state.setProperty("partSize", String.valueOf(partSize));
+        state.setProperty("completedParts", completedParts.stream().sorted()
+                .map(String::valueOf).collect(Collectors.joining(",")));
+        Path tempFile = Paths.get(stateFile + ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+            state.store(outputStream, "chunked upload state");
+        }
+        Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 合并请求成功后删除上传状态文件
+     *
+     * @throws IOException 删除失败
+     */
+    void complete() throws IOException {
+        Files.deleteIfExists(stateFile);
+    }
+
+    String getUploadId() {
+        return uploadId;
+    }
+}
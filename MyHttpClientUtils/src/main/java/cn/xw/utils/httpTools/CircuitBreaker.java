@@ -0,0 +1,324 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * 按路由的熔断器：下游故障或变慢时快速失败，不再占用连接池的连接等待响应超时，避免拖垮调用方的请求线程<br/>
+ * 1、关闭（CLOSED）：记录最近WINDOW_SIZE次请求的结果（滑动窗口），请求数达到MIN_CALLS后，失败率（异常、超时、5xx响应）
+ * 达到failureRateThreshold，或慢请求率（耗时达到slowCallDuration）达到slowCallRateThreshold时打开；<br/>
+ * 2、打开（OPEN）：openDuration内该路由的请求直接失败（不租用连接、不发出请求），计入熔断拒绝数；<br/>
+ * 3、半开（HALF_OPEN）：打开时间到达后放行HALF_OPEN_PROBES个探测请求（其余请求仍直接失败），探测请求全部完成后
+ * 按同样的阈值判断，未达到则关闭并清空窗口，否则重新打开<br/>
+ * 拦截器放在重试之后、路由指标之前：重试、对冲的每一次实际请求都经过熔断器，被拒绝的请求不重试、不计入路由指标的请求数；
+ * 调用方主动取消的请求（如对冲请求中落后的一方）不计入窗口<br/>
+ * 熔断器状态、打开次数、拒绝数计入路由指标（RouteMetrics）
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    // 请求执行链拦截器名称
+    static final String EXEC_INTERCEPTOR_NAME = "circuit-breaker";
+    // 滑动窗口大小（最近的请求数）
+    private static final int WINDOW_SIZE = 100;
+    // 窗口内至少需要的请求数（请求数不足时不打开）
+    private static final int MIN_CALLS = 20;
+    // 半开状态放行的探测请求数
+    private static final int HALF_OPEN_PROBES = 5;
+    // 窗口中单次请求的结果标记：失败、慢请求
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final double failureRateThreshold;                      // 打开熔断器的失败率
+    private final double slowCallRateThreshold;                     // 打开熔断器的慢请求率
+    private final long slowCallNanos;                               // 慢请求的耗时（纳秒）
+    private final long openNanos;                                   // 打开状态的持续时间（纳秒）
+    private final HttpClientMetrics metrics;                        // 路由指标（记录熔断器状态）
+    private final Map<HttpRoute, RouteBreaker> breakers = new ConcurrentHashMap<>(); // 各路由的熔断器
+
+    CircuitBreaker(double failureRateThreshold, double slowCallRateThreshold, TimeValue slowCallDuration,
+                   TimeValue openDuration, HttpClientMetrics metrics) {
+        if (failureRateThreshold > 1 || slowCallRateThreshold > 1 || !TimeValue.isPositive(slowCallDuration)
+                || !TimeValue.isPositive(openDuration)) {
+            throw new RuntimeException("熔断器参数无效：failureRate=" + failureRateThreshold + "，slowCallRate="
+                    + slowCallRateThreshold + "，slowCallDuration=" + slowCallDuration + "，openDuration=" + openDuration);
+        }
+        // 小于等于0的阈值不参与判断
+        this.failureRateThreshold = failureRateThreshold > 0 ? failureRateThreshold : Double.MAX_VALUE;
+        this.slowCallRateThreshold = slowCallRateThreshold > 0 ? slowCallRateThreshold : Double.MAX_VALUE;
+        this.slowCallNanos = slowCallDuration.getTimeUnit().toNanos(slowCallDuration.getDuration());
+        this.openNanos = openDuration.getTimeUnit().toNanos(openDuration.getDuration());
+        this.metrics = metrics;
+    }
+
+    /**
+     * 同步请求执行链拦截器（委托给当前熔断器，当前熔断器为null时直接放行）
+     *
+     * @param current 获取当前的熔断器
+     * @return 执行链拦截器
+     */
+    static ExecChainHandler createExecInterceptor(Supplier<CircuitBreaker> current) {
+        return (request, scope, chain) -> {
+            CircuitBreaker circuitBreaker = current.get();
+            if (circuitBreaker == null) {
+                return chain.proceed(request, scope);
+            }
+            RouteBreaker breaker = circuitBreaker.getBreaker(scope.route);
+            long generation = breaker.acquire();
+            long start = System.nanoTime();
+            try {
+                ClassicHttpResponse response = chain.proceed(request, scope);
+                breaker.onResult(generation, isFailure(response), System.nanoTime() - start);
+                return response;
+            } catch (IOException | HttpException | RuntimeException e) {
+                breaker.onResult(generation, true, System.nanoTime() - start);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * 异步请求执行链拦截器（委托给当前熔断器，当前熔断器为null时直接放行）
+     *
+     * @param current 获取当前的熔断器
+     * @return 执行链拦截器
+     */
+    static AsyncExecChainHandler createAsyncExecInterceptor(Supplier<CircuitBreaker> current) {
+        return (request, entityProducer, scope, chain, asyncExecCallback) -> {
+            CircuitBreaker circuitBreaker = current.get();
+            if (circuitBreaker == null) {
+                chain.proceed(request, entityProducer, scope, asyncExecCallback);
+                return;
+            }
+            RouteBreaker breaker = circuitBreaker.getBreaker(scope.route);
+            long generation;
+            try {
+                generation = breaker.acquire();
+            } catch (RuntimeException e) {
+                asyncExecCallback.failed(e);
+                return;
+            }
+            BreakerExecCallback callback = new BreakerExecCallback(breaker, generation, scope.cancellableDependency,
+                    asyncExecCallback);
+            try {
+                chain.proceed(request, entityProducer, scope, callback);
+            } catch (HttpException | IOException | RuntimeException e) {
+                // 发出请求时直接抛出异常（回调可能不再被调用），与同步拦截器一样记为失败，半开状态的探测名额随之归还
+                callback.record(true);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * 异步请求的熔断器回调：收到响应头、失败或发出请求时直接抛出异常，均记录一次请求结果（只记录一次）
+     */
+    private static class BreakerExecCallback implements AsyncExecCallback {
+        private static final AtomicIntegerFieldUpdater<BreakerExecCallback> RECORDED =
+                AtomicIntegerFieldUpdater.newUpdater(BreakerExecCallback.class, "recorded");
+
+        private final RouteBreaker breaker;
+        private final long generation;
+        private final CancellableDependency cancellable;
+        private final AsyncExecCallback delegate;
+        private final long start = System.nanoTime();
+        private volatile int recorded;                          // 请求结果是否已记录（0：否，1：是）
+
+        BreakerExecCallback(RouteBreaker breaker, long generation, CancellableDependency cancellable,
+                            AsyncExecCallback delegate) {
+            this.breaker = breaker;
+            this.generation = generation;
+            this.cancellable = cancellable;
+            this.delegate = delegate;
+        }
+
+        /**
+         * 记录请求结果（重复调用无效）
+         */
+        void record(boolean failed) {
+            if (RECORDED.compareAndSet(this, 0, 1)) {
+                breaker.onResult(generation, failed, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails)
+                throws HttpException, IOException {
+            record(isFailure(response));
+            return delegate.handleResponse(response, entityDetails);
+        }
+
+        @Override
+        public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+            delegate.handleInformationResponse(response);
+        }
+
+        @Override
+        public void completed() {
+            delegate.completed();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            // 调用方主动取消的请求只归还探测名额，不计入窗口
+            if (cancellable.isCancelled()) {
+                if (RECORDED.compareAndSet(this, 0, 1)) {
+                    breaker.release(generation);
+                }
+            } else {
+                record(true);
+            }
+            delegate.failed(cause);
+        }
+    }
+
+    private static boolean isFailure(HttpResponse response) {
+        return response.getCode() >= 500;
+    }
+
+    private RouteBreaker getBreaker(HttpRoute route) {
+        RouteBreaker breaker = breakers.get(route);
+        return breaker != null ? breaker
+                : breakers.computeIfAbsent(route, key -> new RouteBreaker(key, metrics.getRouteMetrics(key)));
+    }
+
+    /**
+     * 单个路由的熔断器状态及滑动窗口（状态变化时代数加1，之前代数的请求结果不再计入）
+     */
+    private class RouteBreaker {
+        private final HttpRoute route;
+        private final RouteMetrics routeMetrics;
+        private final byte[] window = new byte[WINDOW_SIZE];    // 最近请求的结果（环形）
+        private int index;                                      // 下一个结果写入的位置
+        private int calls;                                      // 窗口内的请求数
+        private int failures;                                   // 窗口内的失败数
+        private int slowCalls;                                  // 窗口内的慢请求数
+        private int probes;                                     // 半开状态已放行的探测请求数
+        private volatile int state = RouteMetrics.CIRCUIT_CLOSED;
+        private volatile long openUntil;                        // 打开状态的结束时间（System.nanoTime）
+        private long generation;                                // 状态的代数
+
+        RouteBreaker(HttpRoute route, RouteMetrics routeMetrics) {
+            this.route = route;
+            this.routeMetrics = routeMetrics;
+        }
+
+        /**
+         * 获取请求许可，打开状态（或半开状态的探测名额已用完）时直接失败
+         *
+         * @return 当前状态的代数，请求完成时原样传回
+         */
+        long acquire() {
+            // 打开状态无锁快速拒绝
+            if (state == RouteMetrics.CIRCUIT_OPEN && System.nanoTime() - openUntil < 0) {
+                throw reject();
+            }
+            synchronized (this) {
+                if (state == RouteMetrics.CIRCUIT_OPEN) {
+                    if (System.nanoTime() - openUntil < 0) {
+                        throw reject();
+                    }
+                    transition(RouteMetrics.CIRCUIT_HALF_OPEN);
+                }
+                if (state == RouteMetrics.CIRCUIT_HALF_OPEN) {
+                    if (probes >= HALF_OPEN_PROBES) {
+                        throw reject();
+                    }
+                    probes++;
+                }
+                return generation;
+            }
+        }
+
+        /**
+         * 记录请求结果，达到阈值时打开熔断器；半开状态的探测请求全部完成时决定关闭或重新打开
+         */
+        synchronized void onResult(long callGeneration, boolean failed, long totalNanos) {
+            if (callGeneration != generation) {
+                return;
+            }
+            byte outcome = (byte) ((failed ? FAILED : 0) | (totalNanos >= slowCallNanos ? SLOW : 0));
+            if (calls == WINDOW_SIZE) {
+                byte evicted = window[index];
+                failures -= evicted & FAILED;
+                slowCalls -= (evicted & SLOW) >> 1;
+            } else {
+                calls++;
+            }
+            window[index] = outcome;
+            index = (index + 1) % WINDOW_SIZE;
+            failures += outcome & FAILED;
+            slowCalls += (outcome & SLOW) >> 1;
+
+            if (state == RouteMetrics.CIRCUIT_HALF_OPEN) {
+                if (calls >= HALF_OPEN_PROBES) {
+                    transition(exceedsThreshold() ? RouteMetrics.CIRCUIT_OPEN : RouteMetrics.CIRCUIT_CLOSED);
+                }
+            } else if (calls >= MIN_CALLS && exceedsThreshold()) {
+                transition(RouteMetrics.CIRCUIT_OPEN);
+            }
+        }
+
+        /**
+         * 请求被取消（无结果）：半开状态归还探测名额
+         */
+        synchronized void release(long callGeneration) {
+            if (callGeneration == generation && state == RouteMetrics.CIRCUIT_HALF_OPEN && probes > 0) {
+                probes--;
+            }
+        }
+
+        private boolean exceedsThreshold() {
+            return failures >= failureRateThreshold * calls || slowCalls >= slowCallRateThreshold * calls;
+        }
+
+        /**
+         * 切换状态并清空窗口（半开状态的窗口只记录探测请求）
+         */
+        private void transition(int newState) {
+            if (newState == RouteMetrics.CIRCUIT_OPEN) {
+                openUntil = System.nanoTime() + openNanos;
+                routeMetrics.recordCircuitOpened();
+                log.warn("路由：{} 熔断器打开（失败：{}，慢请求：{}，请求数：{}），{}毫秒内快速失败", route.getTargetHost(),
+                        failures, slowCalls, calls, openNanos / 1000000L);
+            } else if (newState == RouteMetrics.CIRCUIT_CLOSED) {
+                log.info("路由：{} 熔断器关闭（探测请求失败：{}，慢请求：{}）", route.getTargetHost(), failures, slowCalls);
+            }
+            state = newState;
+            routeMetrics.setCircuitState(newState);
+            generation++;
+            index = 0;
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+            probes = 0;
+        }
+
+        private RuntimeException reject() {
+            routeMetrics.recordCircuitRejected();
+            return new RuntimeException("熔断器已打开，请求被拒绝：" + route.getTargetHost());
+        }
+    }
+}
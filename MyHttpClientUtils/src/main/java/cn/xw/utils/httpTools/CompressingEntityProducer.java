@@ -0,0 +1,164 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.constant.HttpConstant;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 边压缩边发送的异步请求体：I/O Reactor每次可写时把请求体压缩到固定大小的缓冲区再写出，
+ * 压缩结果不会整体缓存在内存中；gzip格式由原始deflate数据加上gzip头部与尾部（CRC32、原始长度）组成，
+ * deflate格式为zlib格式（与DeflaterOutputStream一致）<br/>
+ * 注：压缩后长度未知，以分块方式传输；可重复发送，释放资源后再次发送时重新压缩
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class CompressingEntityProducer implements AsyncEntityProducer {
+
+    // 压缩缓冲区大小（字节），即每个请求压缩时最多占用的输出内存
+    private static final int BUFFER_SIZE = 8 * 1024;
+    // gzip头部：魔数、deflate压缩方式、无标记、无修改时间、无额外标记、操作系统未知（与GZIPOutputStream一致）
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    // gzip尾部长度：CRC32（4字节）+ 原始长度（4字节）
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private final byte[] content;                           // 未压缩的请求体
+    private final ContentType contentType;
+    private final String contentEncoding;                   // 压缩方式：gzip、deflate
+    private final boolean gzip;
+
+    private Deflater deflater;                              // 本次发送使用的压缩器（未开始或已释放时为null）
+    private ByteBuffer buffer;                              // 待写出的压缩数据（读模式）
+    private boolean trailerWritten;                         // gzip尾部是否已放入缓冲区
+    private boolean ended;                                  // 本次发送是否已结束
+
+    CompressingEntityProducer(byte[] content, ContentType contentType, String contentEncoding) {
+        this.content = content;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding.toLowerCase();
+        this.gzip = HttpConstant.CONTENT_ENCODING_GZIP.equals(this.contentEncoding);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType != null ? contentType.toString() : null;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public int available() {
+        return ended ? 0 : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public synchronized void produce(DataStreamChannel channel) throws IOException {
+        if (ended) {
+            return;
+        }
+        if (deflater == null) {
+            start();
+        }
+        while (buffer.hasRemaining() || fill()) {
+            channel.write(buffer);
+            // 通道已写满，等待下一次可写时继续
+            if (buffer.hasRemaining()) {
+                return;
+            }
+        }
+        ended = true;
+        channel.endStream();
+    }
+
+    /**
+     * 开始一次发送：创建压缩器并放入gzip头部
+     */
+    private void start() {
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+        deflater.setInput(content);
+        deflater.finish();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        buffer.clear();
+        if (gzip) {
+            buffer.put(GZIP_HEADER);
+        }
+        buffer.flip();
+        trailerWritten = !gzip;
+    }
+
+    /**
+     * 把下一段压缩数据放入缓冲区
+     *
+     * @return false已没有可写出的数据
+     */
+    private boolean fill() {
+        buffer.clear();
+        if (!deflater.finished()) {
+            int length = deflater.deflate(buffer.array(), buffer.position(), buffer.remaining());
+            buffer.position(buffer.position() + length);
+        }
+        if (deflater.finished() && !trailerWritten && buffer.remaining() >= GZIP_TRAILER_SIZE) {
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, content.length);
+            putIntLittleEndian((int) crc.getValue());
+            putIntLittleEndian(content.length);
+            trailerWritten = true;
+        }
+        buffer.flip();
+        return buffer.hasRemaining();
+    }
+
+    private void putIntLittleEndian(int value) {
+        buffer.put((byte) value).put((byte) (value >> 8)).put((byte) (value >> 16)).put((byte) (value >> 24));
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        releaseResources();
+    }
+
+    /**
+     * 释放压缩器的本地内存，并重置发送状态（重试、重定向时重新压缩发送）
+     */
+    @Override
+    public synchronized void releaseResources() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        ended = false;
+    }
+}
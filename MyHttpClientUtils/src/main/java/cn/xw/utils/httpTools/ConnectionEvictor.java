@@ -0,0 +1,95 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 后台淘汰连接池中的空闲、过期连接：每个周期关闭空闲超过maxIdle的连接，以及超过保活时间（Keep-Alive）的连接，
+ * 避免空闲连接被服务端或中间的负载均衡、防火墙悄悄断开后，下次租用才发现失效<br/>
+ * 周期取maxIdle的一半（最长5秒），同步、异步连接池一起淘汰；超过存活时间（TimeToLive）的连接在租用时关闭
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class ConnectionEvictor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionEvictor.class);
+
+    // 淘汰周期的上限（毫秒）
+    private static final long MAX_INTERVAL_MS = 5000L;
+
+    // 所有淘汰任务共用的调度线程（守护线程）
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-connection-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String profile;                                       // 所属的客户端配置名称
+    private final TimeValue maxIdle;                                    // 连接的最长空闲时间
+    private final Supplier<ConnPoolControl<HttpRoute>> connectionPool;  // 同步连接池（读取当前的连接池管理器）
+    private final Supplier<ConnPoolControl<HttpRoute>> asyncConnectionPool; // 异步连接池（未创建时返回null）
+    private ScheduledFuture<?> task;                                    // 淘汰任务
+
+    ConnectionEvictor(String profile, TimeValue maxIdle, Supplier<ConnPoolControl<HttpRoute>> connectionPool,
+                      Supplier<ConnPoolControl<HttpRoute>> asyncConnectionPool) {
+        if (!TimeValue.isPositive(maxIdle)) {
+            throw new RuntimeException("连接最长空闲时间必须大于0：maxIdle=" + maxIdle);
+        }
+        this.profile = profile;
+        this.maxIdle = maxIdle;
+        this.connectionPool = connectionPool;
+        this.asyncConnectionPool = asyncConnectionPool;
+    }
+
+    /**
+     * 开始周期性淘汰
+     */
+    synchronized void start() {
+        if (task == null) {
+            long interval = Math.max(1L, Math.min(maxIdle.toMilliseconds() / 2, MAX_INTERVAL_MS));
+            task = SCHEDULER.scheduleWithFixedDelay(this::evictAll, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 停止淘汰
+     */
+    synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * 淘汰同步、异步连接池的空闲、过期连接（调度线程内执行，异常只记录不中断后续周期）
+     */
+    private void evictAll() {
+        evict(connectionPool.get());
+        evict(asyncConnectionPool.get());
+    }
+
+    private void evict(ConnPoolControl<HttpRoute> pool) {
+        if (pool == null) {
+            return;
+        }
+        try {
+            HttpClientMetrics.evict(() -> {
+                pool.closeExpired();
+                pool.closeIdle(maxIdle);
+            });
+        } catch (RuntimeException e) {
+            log.warn("客户端配置：{} 淘汰空闲连接失败：{}", profile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接预热：启动时为指定的路由预先建立连接（完成TCP握手及TLS握手）并放回同步连接池，
+ * 应用对外提供服务后的首批请求直接复用这些连接，不再承担建立连接的耗时<br/>
+ * 1、每个路由预先租用connectionsPerRoute个连接（不超过路由的最大连接数）并行建立，全部建立完成（或到达预热时间上限）后
+ * 一起放回连接池；逐个放回会被下一次租用取回同一个连接（LIFO），只建立出一个连接；<br/>
+ * 2、预热时间上限到达时不再等待，已建立的连接放回连接池，仍在建立（如TLS握手无响应）的连接直接关闭，
+ * 不会一直占用路由的连接数；<br/>
+ * 3、建立连接失败（路由不可达、握手失败）只记录日志，不影响其它连接及应用启动<br/>
+ * 建立连接耗时计入路由指标（RouteMetrics），预热的耗时、建立的连接数记录到日志
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class ConnectionWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+    // 并行建立连接的最大线程数
+    private static final int MAX_THREADS = 16;
+    // 放回连接池的连接不限保活时间（空闲连接由后台淘汰，放回时保活时间为null会直接关闭连接）
+    private static final TimeValue KEEP_ALIVE = TimeValue.NEG_ONE_MILLISECOND;
+
+    private final String profile;                                   // 所属的客户端配置名称
+    private final PoolingHttpClientConnectionManager manager;       // 同步连接池管理器
+    private final List<ConnectionEndpoint> connected = new ArrayList<>(); // 已建立、等待放回连接池的连接
+    private final Set<ConnectionEndpoint> connecting = new HashSet<>();   // 正在建立的连接（预热结束时关闭）
+    private final AtomicInteger failed = new AtomicInteger();       // 建立失败的连接数
+    private boolean finished;                                       // 预热是否已结束（之后建立完成的连接直接放回）
+
+    private ConnectionWarmer(String profile, PoolingHttpClientConnectionManager manager) {
+        this.profile = profile;
+        this.manager = manager;
+    }
+
+    /**
+     * 为路由预先建立连接并放回连接池，最多等待timeout
+     *
+     * @param profile             所属的客户端配置名称
+     * @param manager             同步连接池管理器
+     * @param routes              需要预热的路由
+     * @param connectionsPerRoute 每个路由预先建立的连接数，小于等于0则建立至路由的最大连接数
+     * @param timeout             预热时间上限
+     * @return 预热结束时已建立并放回连接池的连接数
+     */
+    static int warmUp(String profile, PoolingHttpClientConnectionManager manager, Collection<HttpRoute> routes,
+                      int connectionsPerRoute, TimeValue timeout) {
+        if (!TimeValue.isPositive(timeout)) {
+            throw new RuntimeException("连接预热时间上限必须大于0：timeout=" + timeout);
+        }
+        return new ConnectionWarmer(profile, manager).run(routes, connectionsPerRoute, timeout);
+    }
+
+    private int run(Collection<HttpRoute> routes, int connectionsPerRoute, TimeValue timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.getTimeUnit().toNanos(timeout.getDuration());
+        List<HttpRoute> targets = new ArrayList<>();
+        for (HttpRoute route : routes) {
+            int maxPerRoute = manager.getMaxPerRoute(route);
+            int count = connectionsPerRoute > 0 ? Math.min(connectionsPerRoute, maxPerRoute) : maxPerRoute;
+            for (int index = 0; index < count; index++) {
+                targets.add(route);
+            }
+        }
+        if (targets.isEmpty()) {
+            log.info("客户端配置：{} 没有需要预热连接的路由", profile);
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(targets.size(), MAX_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "http-connection-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch done = new CountDownLatch(targets.size());
+        for (int index = 0; index < targets.size(); index++) {
+            HttpRoute route = targets.get(index);
+            String id = "warm-up-" + index;
+            executor.execute(() -> {
+                try {
+                    connect(id, route, deadline);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        executor.shutdown();
+        int warmed;
+        try {
+            done.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                finished = true;
+                warmed = connected.size();
+                for (ConnectionEndpoint endpoint : connected) {
+                    manager.release(endpoint, null, KEEP_ALIVE);
+                }
+                connected.clear();
+                for (ConnectionEndpoint endpoint : connecting) {
+                    endpoint.close(CloseMode.IMMEDIATE);
+                }
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (done.getCount() > 0) {
+            log.warn("客户端配置：{} 连接预热到达时间上限：{}毫秒，已建立{}个连接（共{}个，失败{}个，{}个未完成）", profile,
+                    elapsedMs, warmed, targets.size(), failed.get(), done.getCount());
+        } else {
+            log.info("客户端配置：{} 连接预热完成：{}个路由，建立{}个连接（失败{}个），耗时{}毫秒", profile, routes.size(),
+                    warmed, failed.get(), elapsedMs);
+        }
+        return warmed;
+    }
+
+    /**
+     * 租用一个连接并建立（已建立的连接直接保留），预热结束前暂不放回连接池
+     */
+    private void connect(String id, HttpRoute route, long deadline) {
+        ConnectionEndpoint endpoint;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+        }
+        try {
+            Timeout leaseTimeout = Timeout.of(Math.max(1L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            LeaseRequest leaseRequest = manager.lease(id, route, leaseTimeout, null);
+            endpoint = leaseRequest.get(leaseTimeout);
+            synchronized (this) {
+                if (finished) {
+                    manager.release(endpoint, null, endpoint.isConnected() ? KEEP_ALIVE : null);
+                    return;
+                }
+                connecting.add(endpoint);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            failed.incrementAndGet();
+            log.warn("路由：{} 预热时租用连接失败：{}", route.getTargetHost(), e.getMessage());
+            return;
+        }
+        try {
+            if (!endpoint.isConnected()) {
+                HttpClientContext context = HttpClientContext.create();
+                context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+                manager.connect(endpoint, null, context);
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            log.warn("路由：{} 预热时建立连接失败：{}", route.getTargetHost(), e.getMessage());
+            endpoint.close(CloseMode.IMMEDIATE);
+            synchronized (this) {
+                connecting.remove(endpoint);
+            }
+            manager.release(endpoint, null, null);
+            return;
+        }
+        synchronized (this) {
+            connecting.remove(endpoint);
+            if (finished) {
+                manager.release(endpoint, null, KEEP_ALIVE);
+            } else {
+                connected.add(endpoint);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package cn.xw.utils.httpTools;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/2路由的单连接并发流数限制器（HTTP/2客户端每个路由只维护一条多路复用连接）<br/>
+ * 超出限制的请求进入等待队列，不阻塞任何线程，有流结束时再依次发出
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class Http2StreamLimiter {
+
+    // 单连接最大并发流数
+    private final int maxConcurrentStreams;
+    // 当前正在进行中的流数
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    // 等待发送的请求
+    private final Queue<Runnable> pendingStreams = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param maxConcurrentStreams 单连接最大并发流数，小于等于0则不限制（以服务端SETTINGS为准）
+     */
+    Http2StreamLimiter(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams > 0 ? maxConcurrentStreams : Integer.MAX_VALUE;
+    }
+
+    /**
+     * 提交一个流（请求），未超过限制时立即在当前线程发出，否则排队等待
+     *
+     * @param stream 发送请求的任务，请求结束后必须调用release
+     */
+    void submit(Runnable stream) {
+        pendingStreams.add(stream);
+        drain();
+    }
+
+    /**
+     * 一个流结束（成功、失败、取消），释放名额并发出等待中的请求
+     */
+    void release() {
+        activeStreams.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * 在名额允许的情况下依次发出等待中的请求
+     */
+    private void drain() {
+        while (!pendingStreams.isEmpty()) {
+            int active = activeStreams.get();
+            if (active >= maxConcurrentStreams) {
+                return;
+            }
+            if (activeStreams.compareAndSet(active, active + 1)) {
+                Runnable stream = pendingStreams.poll();
+                if (stream == null) {
+                    activeStreams.decrementAndGet();
+                    return;
+                }
+                stream.run();
+            }
+        }
+    }
+
+    int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    int getPendingStreams() {
+        return pendingStreams.size();
+    }
+}
@@ -0,0 +1,568 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import cn.xw.utils.httpTools.handler.HttpMetricsRegistry;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.EndpointDetails;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.ProtocolVersion;
+import org.apache.hc.core5.http.config.Lookup;
+import org.apache.hc.core5.http.config.Registry;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.util.Identifiable;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * 按路由采集连接池及请求耗时指标：请求执行链拦截器记录请求总耗时、响应码类别、超时及异常，
+ * 连接池管理器子类记录租用连接等待耗时和建立连接耗时，同步连接记录被淘汰及租用前校验失效的次数<br/>
+ * 拦截器放在协议处理（PROTOCOL）之前，重定向、重试的每一次实际请求都按其真实路由单独记录<br/>
+ * 注：指标的记录本身不分配对象，但采集需要包装连接池及请求的回调：同步请求每次租用连接分配一个LeaseRequest包装，
+ * 异步请求每次租用连接、建立连接各分配一个回调，每个异步请求分配一个执行链回调（MeteredExecCallback）
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class HttpClientMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpClientMetrics.class);
+
+    // 请求执行链拦截器名称
+    static final String EXEC_INTERCEPTOR_NAME = "route-metrics";
+    // 当前线程正在建立连接的路由指标（连接绑定套接字时记下所属路由）
+    private static final ThreadLocal<RouteMetrics> CONNECTING = new ThreadLocal<>();
+    // 当前线程是否正在租用连接（租用时关闭的连接为超过存活时间被淘汰）
+    private static final ThreadLocal<Boolean> LEASING = new ThreadLocal<>();
+    // 当前线程是否正在淘汰空闲、过期的连接
+    private static final ThreadLocal<Boolean> EVICTING = new ThreadLocal<>();
+
+    private final String profile;                                 // 所属的客户端配置名称
+    private final ConcurrentHashMap<HttpRoute, RouteMetrics> routeMetrics = new ConcurrentHashMap<>(); // 各路由的指标
+    private final Function<HttpRoute, PoolStats> poolStats;       // 同步连接池状态
+    private final Function<HttpRoute, PoolStats> asyncPoolStats;  // 异步连接池状态
+    private volatile HttpMetricsRegistry registry;                // 指标注册表（为null则只在内存中记录）
+
+    HttpClientMetrics(String profile, Function<HttpRoute, PoolStats> poolStats,
+                      Function<HttpRoute, PoolStats> asyncPoolStats) {
+        this.profile = profile;
+        this.poolStats = poolStats;
+        this.asyncPoolStats = asyncPoolStats;
+    }
+
+    /**
+     * 获取路由的指标，路由首次出现时创建并绑定到注册表（之后只是一次哈希查找，不分配对象）
+     *
+     * @param route 路由
+     * @return 路由的指标
+     */
+    RouteMetrics getRouteMetrics(HttpRoute route) {
+        RouteMetrics metrics = routeMetrics.get(route);
+        if (metrics != null) {
+            return metrics;
+        }
+        return routeMetrics.computeIfAbsent(route, key -> {
+            RouteMetrics created = new RouteMetrics(profile, key, poolStats, asyncPoolStats);
+            bind(registry, created);
+            return created;
+        });
+    }
+
+    /**
+     * 设置指标注册表，已有的路由立即绑定
+     *
+     * @param metricsRegistry 指标注册表
+     */
+    synchronized void setRegistry(HttpMetricsRegistry metricsRegistry) {
+        registry = metricsRegistry;
+        for (RouteMetrics metrics : routeMetrics.values()) {
+            bind(metricsRegistry, metrics);
+        }
+    }
+
+    HttpMetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    Map<HttpRoute, RouteMetrics> getAllRouteMetrics() {
+        return Collections.unmodifiableMap(routeMetrics);
+    }
+
+    private static void bind(HttpMetricsRegistry metricsRegistry, RouteMetrics metrics) {
+        if (metricsRegistry == null) {
+            return;
+        }
+        try {
+            metricsRegistry.bindRoute(metrics);
+        } catch (RuntimeException e) {
+            log.warn("路由：{} 指标绑定失败：{}", metrics.getRoute(), e.getMessage());
+        }
+    }
+
+    /**
+     * 同步请求执行链拦截器：记录进行中的请求数、请求总耗时（至收到响应头）、响应码类别、超时及异常
+     *
+     * @return 执行链拦截器
+     */
+    ExecChainHandler createExecInterceptor() {
+        return (request, scope, chain) -> {
+            RouteMetrics metrics = getRouteMetrics(scope.route);
+            // 提前放入路由，供连接池管理器记录建立连接耗时时获取
+            scope.clientContext.setAttribute(HttpClientContext.HTTP_ROUTE, scope.route);
+            long start = System.nanoTime();
+            metrics.recordStart();
+            try {
+                ClassicHttpResponse response = chain.proceed(request, scope);
+                metrics.recordResponse(response.getCode(), System.nanoTime() - start);
+                return response;
+            } catch (IOException | HttpException | RuntimeException e) {
+                metrics.recordFailure(e, System.nanoTime() - start);
+                throw e;
+            } finally {
+                metrics.recordEnd();
+            }
+        };
+    }
+
+    /**
+     * 异步请求执行链拦截器：记录进行中的请求数、请求总耗时（至收到响应头）、响应码类别、超时及异常
+     *
+     * @return 执行链拦截器
+     */
+    AsyncExecChainHandler createAsyncExecInterceptor() {
+        return (request, entityProducer, scope, chain, asyncExecCallback) -> {
+            RouteMetrics metrics = getRouteMetrics(scope.route);
+            scope.clientContext.setAttribute(HttpClientContext.HTTP_ROUTE, scope.route);
+            MeteredExecCallback callback = new MeteredExecCallback(metrics, scope.cancellableDependency,
+                    asyncExecCallback);
+            metrics.recordStart();
+            try {
+                chain.proceed(request, entityProducer, scope, callback);
+            } catch (HttpException | IOException | RuntimeException e) {
+                callback.endInFlight();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * 创建记录租用连接等待耗时、建立连接耗时的同步连接池管理器
+     *
+     * @param socketFactoryRegistry 连接注册表信息
+     * @param dnsResolver           域名解析器
+     * @return 连接池管理器
+     */
+    PoolingHttpClientConnectionManager createConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry,
+                                                               DnsResolver dnsResolver) {
+        return new MeteredConnectionManager(socketFactoryRegistry, dnsResolver);
+    }
+
+    /**
+     * 创建记录租用连接等待耗时、建立连接耗时的异步连接池管理器
+     *
+     * @param tlsStrategyLookup https连接的TLS策略信息
+     * @param dnsResolver       域名解析器
+     * @return 异步连接池管理器
+     */
+    PoolingAsyncClientConnectionManager createAsyncConnectionManager(Lookup<TlsStrategy> tlsStrategyLookup,
+                                                                     DnsResolver dnsResolver) {
+        return new MeteredAsyncConnectionManager(tlsStrategyLookup, dnsResolver);
+    }
+
+    /**
+     * 执行淘汰操作（如连接池管理器的closeIdle、closeExpired），期间关闭的同步连接计入所属路由的淘汰连接数
+     *
+     * @param eviction 淘汰操作
+     */
+    static void evict(Runnable eviction) {
+        EVICTING.set(Boolean.TRUE);
+        try {
+            eviction.run();
+        } finally {
+            EVICTING.remove();
+        }
+    }
+
+    /**
+     * 从请求上下文中获取路由的指标（路由由执行链拦截器提前放入）
+     */
+    private RouteMetrics getRouteMetrics(HttpContext context) {
+        Object route = context == null ? null : context.getAttribute(HttpClientContext.HTTP_ROUTE);
+        return route instanceof HttpRoute ? getRouteMetrics((HttpRoute) route) : null;
+    }
+
+    /**
+     * 记录异步请求指标的回调（每个请求只创建这一个对象，进行中标记用字段更新器保存在回调内）<br/>
+     * 收到响应头、失败或发出请求时直接抛出异常，均结束进行中的请求（只结束一次）
+     */
+    private static class MeteredExecCallback implements AsyncExecCallback {
+        private static final AtomicIntegerFieldUpdater<MeteredExecCallback> ENDED =
+                AtomicIntegerFieldUpdater.newUpdater(MeteredExecCallback.class, "ended");
+
+        private final RouteMetrics metrics;
+        private final CancellableDependency cancellable;
+        private final AsyncExecCallback delegate;
+        private final long start = System.nanoTime();
+        private volatile int ended;                             // 进行中的请求是否已结束（0：否，1：是）
+
+        MeteredExecCallback(RouteMetrics metrics, CancellableDependency cancellable, AsyncExecCallback delegate) {
+            this.metrics = metrics;
+            this.cancellable = cancellable;
+            this.delegate = delegate;
+        }
+
+        /**
+         * 结束进行中的请求（重复调用无效）
+         */
+        void endInFlight() {
+            if (ENDED.compareAndSet(this, 0, 1)) {
+                metrics.recordEnd();
+            }
+        }
+
+        @Override
+        public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails)
+                throws HttpException, IOException {
+            endInFlight();
+            metrics.recordResponse(response.getCode(), System.nanoTime() - start);
+            return delegate.handleResponse(response, entityDetails);
+        }
+
+        @Override
+        public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+            delegate.handleInformationResponse(response);
+        }
+
+        @Override
+        public void completed() {
+            delegate.completed();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            endInFlight();
+            // 调用方主动取消的请求（如对冲请求中落后的一方）不计入超时、异常
+            if (!cancellable.isCancelled()) {
+                metrics.recordFailure(cause, System.nanoTime() - start);
+            }
+            delegate.failed(cause);
+        }
+    }
+
+    /**
+     * 记录租用连接等待耗时、建立连接耗时的同步连接池管理器
+     */
+    private class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+        MeteredConnectionManager(Registry<ConnectionSocketFactory> socketFactoryRegistry, DnsResolver dnsResolver) {
+            super(socketFactoryRegistry, PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO,
+                    TimeValue.NEG_ONE_MILLISECOND, null, dnsResolver, socket -> new MeteredConnection(
+                            ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket)));
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            RouteMetrics metrics = getRouteMetrics(route);
+            long start = System.nanoTime();
+            LeaseRequest leaseRequest = super.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    LEASING.set(Boolean.TRUE);
+                    try {
+                        return leaseRequest.get(timeout);
+                    } finally {
+                        LEASING.remove();
+                        metrics.getLeaseWait().record(System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return leaseRequest.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void connect(ConnectionEndpoint endpoint, TimeValue timeout, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            RouteMetrics metrics = getRouteMetrics(context);
+            CONNECTING.set(metrics);
+            try {
+                super.connect(endpoint, timeout, context);
+            } finally {
+                CONNECTING.remove();
+                if (metrics != null) {
+                    metrics.getConnect().record(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * 包装同步连接，记录所属路由的连接事件：租用前校验发现失效时计入失效连接数，
+     * 淘汰时（后台淘汰或租用时超过存活时间）计入淘汰连接数；其余方法直接委托给HttpClient默认的连接
+     */
+    private static class MeteredConnection implements ManagedHttpClientConnection, Identifiable {
+
+        private final ManagedHttpClientConnection delegate; // HttpClient默认的连接
+        private volatile RouteMetrics metrics;              // 所属路由的指标（建立连接绑定套接字时确定）
+
+        MeteredConnection(ManagedHttpClientConnection delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void bind(Socket socket) throws IOException {
+            if (metrics == null) {
+                metrics = CONNECTING.get();
+            }
+            delegate.bind(socket);
+        }
+
+        @Override
+        public boolean isStale() throws IOException {
+            boolean stale;
+            try {
+                stale = delegate.isStale();
+            } catch (IOException e) {
+                stale = true;
+            }
+            if (stale && metrics != null) {
+                metrics.recordStale();
+            }
+            return stale;
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            // 租用时以GRACEFUL方式关闭的是超过存活时间的连接（校验失效的连接以IMMEDIATE方式关闭，已计入失效连接数）
+            boolean evicted = EVICTING.get() != null || (LEASING.get() != null && closeMode == CloseMode.GRACEFUL);
+            if (evicted && metrics != null && delegate.isOpen()) {
+                metrics.recordEvicted();
+            }
+            delegate.close(closeMode);
+        }
+
+        @Override
+        public String getId() {
+            return delegate instanceof Identifiable ? ((Identifiable) delegate).getId() : toString();
+        }
+
+        @Override
+        public Socket getSocket() {
+            return delegate.getSocket();
+        }
+
+        @Override
+        public SSLSession getSSLSession() {
+            return delegate.getSSLSession();
+        }
+
+        @Override
+        public void passivate() {
+            delegate.passivate();
+        }
+
+        @Override
+        public void activate() {
+            delegate.activate();
+        }
+
+        @Override
+        public boolean isConsistent() {
+            return delegate.isConsistent();
+        }
+
+        @Override
+        public void sendRequestHeader(ClassicHttpRequest request) throws HttpException, IOException {
+            delegate.sendRequestHeader(request);
+        }
+
+        @Override
+        public void terminateRequest(ClassicHttpRequest request) throws HttpException, IOException {
+            delegate.terminateRequest(request);
+        }
+
+        @Override
+        public void sendRequestEntity(ClassicHttpRequest request) throws HttpException, IOException {
+            delegate.sendRequestEntity(request);
+        }
+
+        @Override
+        public ClassicHttpResponse receiveResponseHeader() throws HttpException, IOException {
+            return delegate.receiveResponseHeader();
+        }
+
+        @Override
+        public void receiveResponseEntity(ClassicHttpResponse response) throws HttpException, IOException {
+            delegate.receiveResponseEntity(response);
+        }
+
+        @Override
+        public boolean isDataAvailable(Timeout timeout) throws IOException {
+            return delegate.isDataAvailable(timeout);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public EndpointDetails getEndpointDetails() {
+            return delegate.getEndpointDetails();
+        }
+
+        @Override
+        public SocketAddress getLocalAddress() {
+            return delegate.getLocalAddress();
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return delegate.getRemoteAddress();
+        }
+
+        @Override
+        public ProtocolVersion getProtocolVersion() {
+            return delegate.getProtocolVersion();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public Timeout getSocketTimeout() {
+            return delegate.getSocketTimeout();
+        }
+
+        @Override
+        public void setSocketTimeout(Timeout timeout) {
+            delegate.setSocketTimeout(timeout);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    /**
+     * 记录租用连接等待耗时、建立连接耗时的异步连接池管理器
+     */
+    private class MeteredAsyncConnectionManager extends PoolingAsyncClientConnectionManager {
+
+        private final DnsResolver dnsResolver;
+
+        MeteredAsyncConnectionManager(Lookup<TlsStrategy> tlsStrategyLookup, DnsResolver dnsResolver) {
+            super(tlsStrategyLookup, PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO,
+                    TimeValue.NEG_ONE_MILLISECOND, null, dnsResolver);
+            this.dnsResolver = dnsResolver;
+        }
+
+        @Override
+        public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state, Timeout requestTimeout,
+                                                     FutureCallback<AsyncConnectionEndpoint> callback) {
+            return super.lease(id, route, state, requestTimeout,
+                    recording(getRouteMetrics(route), callback, true));
+        }
+
+        @Override
+        public Future<AsyncConnectionEndpoint> connect(AsyncConnectionEndpoint endpoint,
+                                                       ConnectionInitiator connectionInitiator, Timeout timeout,
+                                                       Object attachment, HttpContext context,
+                                                       FutureCallback<AsyncConnectionEndpoint> callback) {
+            RouteMetrics metrics = getRouteMetrics(context);
+            // 建立连接失败的地址通知域名解析器（与同步连接池的连接套接字工厂一致）
+            return super.connect(endpoint, CachingDnsResolver.trackConnectFailures(connectionInitiator, dnsResolver),
+                    timeout, attachment, context, metrics == null ? callback : recording(metrics, callback, false));
+        }
+
+        /**
+         * 包装回调，完成或失败时记录耗时
+         */
+        private FutureCallback<AsyncConnectionEndpoint> recording(RouteMetrics metrics,
+                                                                  FutureCallback<AsyncConnectionEndpoint> callback,
+                                                                  boolean lease) {
+            long start = System.nanoTime();
+            return new FutureCallback<AsyncConnectionEndpoint>() {
+                @Override
+                public void completed(AsyncConnectionEndpoint result) {
+                    record();
+                    if (callback != null) {
+                        callback.completed(result);
+                    }
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    record();
+                    if (callback != null) {
+                        callback.failed(ex);
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                    if (callback != null) {
+                        callback.cancelled();
+                    }
+                }
+
+                private void record() {
+                    (lease ? metrics.getLeaseWait() : metrics.getConnect()).record(System.nanoTime() - start);
+                }
+            };
+        }
+    }
+}
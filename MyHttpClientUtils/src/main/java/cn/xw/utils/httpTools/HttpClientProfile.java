@@ -0,0 +1,521 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpRequestInterceptor;
+import org.apache.hc.core5.http.HttpResponseInterceptor;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 客户端配置（舱壁隔离）：每个配置拥有独立的同步、异步连接池（异步连接池有独立的I/O Reactor线程）、超时时间、
+ * SSL上下文（证书信任策略、双向认证的密钥库）以及请求、响应拦截器；某个下游变慢只会占满它所在配置的连接池，
+ * 不会拖慢其它配置的请求<br/>
+ * 通过HttpClientUtils.customProfile注册后，在Builder中以setProfile(名称)指定；未指定时使用默认配置（default），
+ * 即HttpClientUtils原有的静态连接池及客户端<br/>
+ * 注：HTTP/2多路复用路由（customHttp2Route）只对默认配置生效，其它配置的请求始终走本配置的HTTP/1.1连接池
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public class HttpClientProfile {
+
+    private final String name;                              // 配置名称
+    private final int maxTotal;                             // 连接池的最大连接数
+    private final int defaultMaxPerRoute;                   // 默认每个路由的最大连接数
+    private final Map<HttpRoute, Integer> customRouteMax;   // 单独设置的路由最大连接数
+    private final Map<HttpRoute, RateLimiter> rateLimiters; // 设置了限流的路由及其限流器
+    private final Timeout connectionRequestTimeout;         // 从连接池获取连接的超时时间
+    private final Timeout responseTimeout;                  // 响应超时时间
+    private final HttpClientMetrics metrics;                // 本配置按路由的连接池及请求耗时指标
+
+    private PoolingHttpClientConnectionManager connectionManager;       // 同步连接池管理器
+    private final CloseableHttpClient closeableHttpClient;              // 同步客户端
+    private final ConnectionConfig connectionConfig;                    // 连接配置（连接超时、读取超时）
+    private final SSLContext sslContext;                                // SSL上下文
+    private final HttpRequestInterceptor requestInterceptor;            // 请求拦截器（可为null）
+    private final HttpResponseInterceptor responseInterceptor;          // 响应拦截器（可为null）
+    private final AdaptivePoolSizer adaptivePoolSizer;                  // 按路由自适应调整最大连接数（可为null）
+    private final ConnectionEvictor connectionEvictor;                  // 后台淘汰空闲、过期连接（可为null）
+    private final RetryPolicy retryPolicy;                              // 重试策略（为null则不重试）
+    private final RequestHedger hedger;                                 // 对冲请求（按路由限制对冲请求数）
+    private final CircuitBreaker circuitBreaker;                        // 按路由的熔断器（为null则不熔断）
+    private final DnsResolver dnsResolver;                              // 域名解析器
+    private final Supplier<TlsPolicy> tlsPolicy;                        // TLS握手策略（获取的策略为null则使用默认值）
+    // 异步连接池管理器及异步客户端（首次发送异步请求时才创建）
+    private volatile PoolingAsyncClientConnectionManager asyncConnectionManager = null;
+    private volatile CloseableHttpAsyncClient closeableHttpAsyncClient = null;
+    private volatile boolean closed = false;
+
+    private HttpClientProfile(Builder builder) {
+        this.name = builder.name;
+        this.maxTotal = builder.maxTotal;
+        this.defaultMaxPerRoute = builder.defaultMaxPerRoute;
+        this.customRouteMax = new ConcurrentHashMap<>(builder.customRouteMax);
+        this.rateLimiters = new ConcurrentHashMap<>(builder.rateLimiters);
+        this.connectionRequestTimeout = builder.connectionRequestTimeout;
+        this.responseTimeout = builder.responseTimeout;
+        this.sslContext = builder.sslContext == null ? HttpClientUtils.getDefaultSslContext() : builder.sslContext;
+        this.requestInterceptor = builder.requestInterceptor;
+        this.responseInterceptor = builder.responseInterceptor;
+        this.connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(builder.connectTimeout)
+                .setSocketTimeout(builder.socketTimeout)
+                .setTimeToLive(builder.timeToLive)
+                .setValidateAfterInactivity(builder.validateAfterInactivity).build();
+        DnsResolver dnsResolver = builder.dnsResolver == null ? HttpClientUtils.DNS_RESOLVER : builder.dnsResolver;
+        this.dnsResolver = dnsResolver;
+        TlsPolicy policy = builder.tlsPolicy;
+        this.tlsPolicy = builder.tlsConfigured ? () -> policy : HttpClientUtils.TLS_POLICY;
+        this.metrics = new HttpClientMetrics(name,
+                route -> connectionManager.getStats(route),
+                route -> asyncConnectionManager == null ? null : asyncConnectionManager.getStats(route));
+
+        this.retryPolicy = builder.maxRetries > 0 ? new RetryPolicy(builder.maxRetries, builder.baseBackoff,
+                builder.maxBackoff, builder.retryBudgetRatio, metrics) : null;
+        this.hedger = new RequestHedger(metrics, HttpClientUtils.HEDGE_BUDGET_RATIO);
+        this.circuitBreaker = builder.circuitFailureRate > 0 || builder.circuitSlowCallRate > 0
+                ? new CircuitBreaker(builder.circuitFailureRate, builder.circuitSlowCallRate,
+                builder.circuitSlowCallDuration, builder.circuitOpenDuration, metrics) : null;
+
+        // 同步连接池管理器：本配置的SSL上下文及连接池大小
+        connectionManager = metrics.createConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("https", CachingDnsResolver.trackConnectFailures(
+                        TlsPolicy.createSocketFactory(sslContext, tlsPolicy, metrics), () -> dnsResolver))
+                .register("http", CachingDnsResolver.trackConnectFailures(
+                        PlainConnectionSocketFactory.getSocketFactory(), () -> dnsResolver))
+                .build(), dnsResolver);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+        connectionManager.setDefaultConnectionConfig(connectionConfig);
+        for (Map.Entry<HttpRoute, Integer> customRoute : customRouteMax.entrySet()) {
+            connectionManager.setMaxPerRoute(customRoute.getKey(), customRoute.getValue());
+        }
+        HttpClientBuilder httpClientBuilder = HttpClients.custom().setConnectionManager(connectionManager);
+        if (requestInterceptor != null) {
+            httpClientBuilder.addRequestInterceptorFirst(requestInterceptor);
+        }
+        if (responseInterceptor != null) {
+            httpClientBuilder.addResponseInterceptorFirst(responseInterceptor);
+        }
+        closeableHttpClient = HttpClientUtils.applyExecChain(httpClientBuilder,
+                RetryPolicy.delegate(() -> retryPolicy), metrics, () -> circuitBreaker, rateLimiters).build();
+        if (builder.adaptiveMaxPerRoute > 0) {
+            adaptivePoolSizer = new AdaptivePoolSizer(name, builder.adaptiveMinPerRoute, builder.adaptiveMaxPerRoute,
+                    metrics, this::getMaxPerRoute, this::setMaxPerRoute);
+            adaptivePoolSizer.start();
+        } else {
+            adaptivePoolSizer = null;
+        }
+        if (builder.maxIdle != null) {
+            connectionEvictor = new ConnectionEvictor(name, builder.maxIdle,
+                    () -> connectionManager, () -> asyncConnectionManager);
+            connectionEvictor.start();
+        } else {
+            connectionEvictor = null;
+        }
+    }
+
+    /**
+     * 获取本配置的异步客户端，不存在则创建（双重校验，避免重复启动I/O Reactor）
+     *
+     * @return 异步Http客户端对象
+     */
+    CloseableHttpAsyncClient getCloseableHttpAsyncClient() {
+        if (closeableHttpAsyncClient == null) {
+            synchronized (this) {
+                if (closeableHttpAsyncClient == null) {
+                    checkOpen();
+                    createCloseableHttpAsyncClient();
+                }
+            }
+        }
+        return closeableHttpAsyncClient;
+    }
+
+    /**
+     * 创建本配置的异步连接池管理器及异步客户端（创建后立即启动I/O Reactor）
+     */
+    private void createCloseableHttpAsyncClient() {
+        TlsStrategy tlsStrategy = TlsPolicy.createTlsStrategy(sslContext, tlsPolicy, metrics);
+        PoolingAsyncClientConnectionManager manager = metrics.createAsyncConnectionManager(
+                RegistryBuilder.<TlsStrategy>create().register("https", tlsStrategy).build(), dnsResolver);
+        manager.setMaxTotal(maxTotal);
+        manager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+        manager.setDefaultConnectionConfig(connectionConfig);
+        for (Map.Entry<HttpRoute, Integer> customRoute : customRouteMax.entrySet()) {
+            manager.setMaxPerRoute(customRoute.getKey(), customRoute.getValue());
+        }
+        HttpAsyncClientBuilder httpAsyncClientBuilder = HttpAsyncClients.custom();
+        if (requestInterceptor != null) {
+            httpAsyncClientBuilder.addRequestInterceptorFirst(requestInterceptor);
+        }
+        if (responseInterceptor != null) {
+            httpAsyncClientBuilder.addResponseInterceptorFirst(responseInterceptor);
+        }
+        httpAsyncClientBuilder
+                .setConnectionManager(manager)
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(HttpClientUtils.IO_REACTOR_THREAD_COUNT)
+                        .setSoTimeout(connectionConfig.getSocketTimeout())
+                        .build());
+        CloseableHttpAsyncClient asyncClient = HttpClientUtils.applyExecChain(httpAsyncClientBuilder,
+                RetryPolicy.delegate(() -> retryPolicy), metrics, () -> circuitBreaker, rateLimiters).build();
+        asyncClient.start();
+        asyncConnectionManager = manager;
+        closeableHttpAsyncClient = asyncClient;
+    }
+
+    /**
+     * 获取本配置的同步客户端
+     *
+     * @return Http客户端对象
+     */
+    CloseableHttpClient getCloseableHttpClient() {
+        checkOpen();
+        return closeableHttpClient;
+    }
+
+    /**
+     * 路由在同步连接池中的最大连接数
+     *
+     * @param route 路由
+     * @return 最大连接数
+     */
+    int getMaxPerRoute(HttpRoute route) {
+        return connectionManager.getMaxPerRoute(route);
+    }
+
+    /**
+     * 设置路由的最大连接数（同步、异步连接池）
+     *
+     * @param route       路由
+     * @param maxPerRoute 最大连接数
+     */
+    void setMaxPerRoute(HttpRoute route, int maxPerRoute) {
+        customRouteMax.put(route, maxPerRoute);
+        connectionManager.setMaxPerRoute(route, maxPerRoute);
+        PoolingAsyncClientConnectionManager manager = asyncConnectionManager;
+        if (manager != null) {
+            manager.setMaxPerRoute(route, maxPerRoute);
+        }
+    }
+
+    /**
+     * 路由在异步连接池中的最大连接数（异步连接池未创建时按本配置的设置计算）
+     *
+     * @param route 路由
+     * @return 最大连接数
+     */
+    int getAsyncMaxPerRoute(HttpRoute route) {
+        PoolingAsyncClientConnectionManager manager = asyncConnectionManager;
+        return manager == null ? customRouteMax.getOrDefault(route, defaultMaxPerRoute) : manager.getMaxPerRoute(route);
+    }
+
+    /**
+     * 为单独设置过最大连接数的路由预先建立连接并放回同步连接池（规则见ConnectionWarmer）
+     *
+     * @param connectionsPerRoute 每个路由预先建立的连接数，小于等于0则建立至路由的最大连接数
+     * @param timeout             预热时间上限
+     * @return 已建立并放回连接池的连接数
+     */
+    int warmUpConnections(int connectionsPerRoute, TimeValue timeout) {
+        checkOpen();
+        return ConnectionWarmer.warmUp(name, connectionManager, new ArrayList<>(customRouteMax.keySet()),
+                connectionsPerRoute, timeout);
+    }
+
+    /**
+     * 关闭本配置的同步、异步客户端及连接池（进行中的请求完成后关闭）
+     */
+    synchronized void close() {
+        closed = true;
+        if (adaptivePoolSizer != null) {
+            adaptivePoolSizer.stop();
+        }
+        if (connectionEvictor != null) {
+            connectionEvictor.stop();
+        }
+        closeableHttpClient.close(CloseMode.GRACEFUL);
+        if (closeableHttpAsyncClient != null) {
+            closeableHttpAsyncClient.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("客户端配置已关闭：" + name);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public Timeout getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public Timeout getResponseTimeout() {
+        return responseTimeout;
+    }
+
+    HttpClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    RequestHedger getHedger() {
+        return hedger;
+    }
+
+    /**
+     * 构建客户端配置，未设置的项与默认配置一致（连接池200、每个路由10，连接3秒、读取20秒、获取连接3秒、响应10秒，
+     * 不在后台淘汰、空闲2秒后租用前校验，不重试，不熔断，默认的SSL上下文），
+     * 拦截器默认不添加
+     */
+    public static class Builder {
+        private final String name;
+        private int maxTotal = HttpClientUtils.POOL_MAX_TOTAL;
+        private int defaultMaxPerRoute = HttpClientUtils.POOL_DEFAULT_MAX_PER_ROUTE;
+        private final Map<HttpRoute, Integer> customRouteMax = new HashMap<>();
+        private final Map<HttpRoute, RateLimiter> rateLimiters = new HashMap<>();
+        private Timeout connectTimeout = Timeout.of(HttpClientUtils.REQUEST_CONNECT_TIMEOUT, HttpClientUtils.TIME_UNIT);
+        private Timeout socketTimeout = Timeout.of(HttpClientUtils.SOCKET_TIMEOUT, HttpClientUtils.TIME_UNIT);
+        private Timeout connectionRequestTimeout = Timeout.of(HttpClientUtils.CONNECTION_POOL_MANAGER_TIMEOUT,
+                HttpClientUtils.TIME_UNIT);
+        private Timeout responseTimeout = Timeout.of(HttpClientUtils.RESPONSE_TIMEOUT, HttpClientUtils.TIME_UNIT);
+        private SSLContext sslContext;
+        private DnsResolver dnsResolver;
+        private TlsPolicy tlsPolicy;
+        private boolean tlsConfigured;
+        private HttpRequestInterceptor requestInterceptor;
+        private HttpResponseInterceptor responseInterceptor;
+        private int adaptiveMinPerRoute;
+        private int adaptiveMaxPerRoute;
+        private TimeValue maxIdle;
+        private TimeValue timeToLive;
+        private TimeValue validateAfterInactivity = TimeValue.of(HttpClientUtils.CONNECTION_VALIDATE_AFTER_INACTIVITY,
+                HttpClientUtils.TIME_UNIT);
+        private int maxRetries;
+        private TimeValue baseBackoff;
+        private TimeValue maxBackoff;
+        private double retryBudgetRatio;
+        private double circuitFailureRate;
+        private double circuitSlowCallRate;
+        private TimeValue circuitSlowCallDuration;
+        private TimeValue circuitOpenDuration;
+
+        /**
+         * @param name 配置名称（不可为default，default为默认配置）
+         */
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 连接池的最大连接数及默认每个路由的最大连接数（同步、异步连接池共用）
+         */
+        public Builder setPoolSize(int maxTotal, int defaultMaxPerRoute) {
+            this.maxTotal = maxTotal;
+            this.defaultMaxPerRoute = defaultMaxPerRoute;
+            return this;
+        }
+
+        /**
+         * 单独设置路由的最大连接数，如：key（路由：https://192.168.0.2:9999） value（最大连接数）
+         */
+        public Builder setMaxPerRoute(Map<String, Integer> customRouteMap) {
+            for (Map.Entry<String, Integer> customRoute : customRouteMap.entrySet()) {
+                customRouteMax.put(HttpClientUtils.createHttpRoute(URI.create(customRoute.getKey())),
+                        customRoute.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * 单独设置路由的客户端限流（规则见HttpClientUtils.customRateLimit）
+         *
+         * @param route            路由 如：https://192.168.0.2:9999
+         * @param permitsPerSecond 每秒请求数
+         * @param burst            突发请求数（令牌桶容量）
+         * @param maxWait          获取不到许可时的最长等待时间，小于等于0则直接拒绝
+         * @param unit             时间单位
+         * @param adaptive         是否按响应头（Retry-After、X-RateLimit-Remaining/Reset）暂停请求
+         */
+        public Builder setRateLimit(String route, double permitsPerSecond, int burst, long maxWait, TimeUnit unit,
+                                    boolean adaptive) {
+            rateLimiters.put(HttpClientUtils.createHttpRoute(URI.create(route)),
+                    new RateLimiter(permitsPerSecond, burst, TimeValue.of(maxWait, unit), adaptive));
+            return this;
+        }
+
+        public Builder setConnectTimeout(long connectTimeout, TimeUnit unit) {
+            this.connectTimeout = Timeout.of(connectTimeout, unit);
+            return this;
+        }
+
+        public Builder setSocketTimeout(long socketTimeout, TimeUnit unit) {
+            this.socketTimeout = Timeout.of(socketTimeout, unit);
+            return this;
+        }
+
+        public Builder setConnectionRequestTimeout(long connectionRequestTimeout, TimeUnit unit) {
+            this.connectionRequestTimeout = Timeout.of(connectionRequestTimeout, unit);
+            return this;
+        }
+
+        public Builder setResponseTimeout(long responseTimeout, TimeUnit unit) {
+            this.responseTimeout = Timeout.of(responseTimeout, unit);
+            return this;
+        }
+
+        /**
+         * 本配置使用的SSL上下文（证书信任策略、双向认证的密钥库），不设置则使用默认的SSL上下文
+         */
+        public Builder setSslContext(SSLContext sslContext) {
+            this.sslContext = sslContext;
+            return this;
+        }
+
+        /**
+         * 本配置使用的域名解析器（规则见HttpClientUtils.customDnsResolver），不设置则与默认配置共用
+         */
+        public Builder setDnsResolver(DnsResolver dnsResolver) {
+            this.dnsResolver = dnsResolver;
+            return this;
+        }
+
+        /**
+         * 本配置的TLS握手策略（规则见HttpClientUtils.customTls），不设置则与默认配置共用；三个参数均为null则使用默认值
+         */
+        public Builder setTls(String[] protocols, String[] cipherSuites, Consumer<SSLParameters> parametersCustomizer) {
+            this.tlsPolicy = protocols == null && cipherSuites == null && parametersCustomizer == null ? null
+                    : new TlsPolicy(protocols, cipherSuites, parametersCustomizer);
+            this.tlsConfigured = true;
+            return this;
+        }
+
+        public Builder setRequestInterceptor(HttpRequestInterceptor requestInterceptor) {
+            this.requestInterceptor = requestInterceptor;
+            return this;
+        }
+
+        public Builder setResponseInterceptor(HttpResponseInterceptor responseInterceptor) {
+            this.responseInterceptor = responseInterceptor;
+            return this;
+        }
+
+        /**
+         * 按路由自适应调整最大连接数（规则见HttpClientUtils.enableAdaptivePoolSizing），setMaxPerRoute设置的值作为调整的起点
+         *
+         * @param minPerRoute 每个路由的最小连接数
+         * @param maxPerRoute 每个路由的最大连接数上限
+         */
+        public Builder setAdaptivePoolSizing(int minPerRoute, int maxPerRoute) {
+            this.adaptiveMinPerRoute = minPerRoute;
+            this.adaptiveMaxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        /**
+         * 连接淘汰策略（默认不在后台淘汰，规则见HttpClientUtils.customConnectionEviction）
+         *
+         * @param maxIdle                 连接的最长空闲时间，小于等于0则关闭后台淘汰
+         * @param timeToLive              连接的存活时间，小于等于0则不限制
+         * @param validateAfterInactivity 空闲多久后租用前校验连接，小于等于0则不校验
+         * @param unit                    时间单位
+         */
+        public Builder setConnectionEviction(long maxIdle, long timeToLive, long validateAfterInactivity,
+                                             TimeUnit unit) {
+            this.maxIdle = maxIdle > 0 ? TimeValue.of(maxIdle, unit) : null;
+            this.timeToLive = timeToLive > 0 ? TimeValue.of(timeToLive, unit) : null;
+            this.validateAfterInactivity = validateAfterInactivity > 0
+                    ? TimeValue.of(validateAfterInactivity, unit) : TimeValue.NEG_ONE_MILLISECOND;
+            return this;
+        }
+
+        /**
+         * 重试策略（默认关闭，规则见HttpClientUtils.customRetryPolicy）
+         *
+         * @param maxRetries  单个请求的最大重试次数，等于0则不重试
+         * @param baseBackoff 首次重试的退避时间上限（之后每次翻倍）
+         * @param maxBackoff  退避时间上限
+         * @param unit        时间单位
+         * @param budgetRatio 重试次数占请求数的最大比例（0~1）
+         */
+        public Builder setRetryPolicy(int maxRetries, long baseBackoff, long maxBackoff, TimeUnit unit,
+                                      double budgetRatio) {
+            this.maxRetries = maxRetries;
+            this.baseBackoff = TimeValue.of(baseBackoff, unit);
+            this.maxBackoff = TimeValue.of(maxBackoff, unit);
+            this.retryBudgetRatio = budgetRatio;
+            return this;
+        }
+
+        /**
+         * 按路由的熔断器（默认关闭，规则见HttpClientUtils.customCircuitBreaker）
+         *
+         * @param failureRate      打开熔断器的失败率（0~1），小于等于0则不按失败率熔断
+         * @param slowCallRate     打开熔断器的慢请求率（0~1），小于等于0则不按慢请求率熔断（两者都小于等于0则关闭熔断器）
+         * @param slowCallDuration 慢请求的耗时（至收到响应头）
+         * @param openDuration     打开状态的持续时间
+         * @param unit             时间单位
+         */
+        public Builder setCircuitBreaker(double failureRate, double slowCallRate, long slowCallDuration,
+                                         long openDuration, TimeUnit unit) {
+            this.circuitFailureRate = failureRate;
+            this.circuitSlowCallRate = slowCallRate;
+            this.circuitSlowCallDuration = TimeValue.of(slowCallDuration, unit);
+            this.circuitOpenDuration = TimeValue.of(openDuration, unit);
+            return this;
+        }
+
+        public HttpClientProfile build() {
+            if (name == null || "".equals(name)) {
+                throw new NullPointerException("客户端配置名称不可为空！");
+            }
+            if (HttpClientUtils.DEFAULT_PROFILE.equals(name)) {
+                throw new RuntimeException("客户端配置名称不可为：" + HttpClientUtils.DEFAULT_PROFILE);
+            }
+            if (maxTotal <= 0 || defaultMaxPerRoute <= 0) {
+                throw new RuntimeException("连接池最大连接数必须大于0：maxTotal=" + maxTotal
+                        + "，defaultMaxPerRoute=" + defaultMaxPerRoute);
+            }
+            if (adaptiveMaxPerRoute > 0 && (adaptiveMinPerRoute <= 0 || adaptiveMaxPerRoute < adaptiveMinPerRoute)) {
+                throw new RuntimeException("自适应连接数范围无效：minPerRoute=" + adaptiveMinPerRoute
+                        + "，maxPerRoute=" + adaptiveMaxPerRoute);
+            }
+            return new HttpClientProfile(this);
+        }
+    }
+}
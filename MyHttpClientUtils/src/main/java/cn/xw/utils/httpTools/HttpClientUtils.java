@@ -1,43 +1,85 @@
 package cn.xw.utils.httpTools;
 
 import cn.xw.utils.httpTools.constant.HttpConstant;
+import cn.xw.utils.httpTools.entity.BatchResult;
 import cn.xw.utils.httpTools.entity.HttpResult;
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import cn.xw.utils.httpTools.entity.UploadPart;
+import cn.xw.utils.httpTools.handler.ChunkedUploadScheme;
+import cn.xw.utils.httpTools.handler.HttpMetricsRegistry;
+import cn.xw.utils.httpTools.handler.ResponseBodyHandler;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
 import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
 import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.GzipCompressingEntity;
 import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
-import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.*;
 import org.apache.hc.core5.http.config.Registry;
 import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityTemplate;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
 import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.http2.ssl.ApplicationProtocol;
+import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.ssl.SSLContextBuilder;
 import org.apache.hc.core5.ssl.SSLContexts;
 import org.apache.hc.core5.ssl.TrustStrategy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
 import java.io.*;
 import java.net.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -45,7 +87,17 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.DeflaterOutputStream;
 
 /**
  * 一个基于Apache HttpClient-5.2.1版本封装的简易工具，方便操作<br/>
@@ -61,17 +113,34 @@ public class HttpClientUtils {
 
     // 连接池管理器的一些配置常量
     // 设置请求建立时长（建立连接的最长等待时间）注：在连接池管理器内设置（优先级低与requestConfig）
-    private static final Long REQUEST_CONNECT_TIMEOUT = 3L;
+    static final Long REQUEST_CONNECT_TIMEOUT = 3L;
     // 设置本次请求响应总时长（从被建立连接到响应数据返回的这段时间）注：在连接池管理器内设置（优先级低与requestConfig）
-    private static final Long SOCKET_TIMEOUT = 20L;
+    static final Long SOCKET_TIMEOUT = 20L;
     // 设置连接和响应时长单位（默认：秒）
-    private static final TimeUnit TIME_UNIT = TimeUnit.SECONDS;
+    static final TimeUnit TIME_UNIT = TimeUnit.SECONDS;
 
     // 单次请求配置的一些RequestConfig常量值（优先级比连接池管理器高）
     // 每个发送请求时从连接池管理器获取连接时的超时时间 单位/秒
-    private static final Long CONNECTION_POOL_MANAGER_TIMEOUT = 3L;
+    static final Long CONNECTION_POOL_MANAGER_TIMEOUT = 3L;
     // 响应超时时间 单位/秒
-    private static final Long RESPONSE_TIMEOUT = 10L;
+    static final Long RESPONSE_TIMEOUT = 10L;
+
+    // 连接池的最大连接数（同步、异步连接池管理器共用此配置）
+    static final Integer POOL_MAX_TOTAL = 200;
+    // 默认每个路由的最大连接数（同步、异步连接池管理器共用此配置）
+    static final Integer POOL_DEFAULT_MAX_PER_ROUTE = 10;
+    // 异步客户端I/O反应器（I/O Reactor）线程数，默认与CPU核数一致
+    static final Integer IO_REACTOR_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    // 连接空闲超过此时间后，租用前先校验连接是否已被对方关闭 单位/秒
+    static final Long CONNECTION_VALIDATE_AFTER_INACTIVITY = 2L;
+    // 对冲预算：每个路由的对冲请求数不超过开启对冲的请求数的此比例
+    static final Double HEDGE_BUDGET_RATIO = 0.1;
+    // 域名解析缓存（规则见CachingDnsResolver）：解析成功、解析失败的缓存时间 单位/秒
+    static final Long DNS_POSITIVE_TTL = 30L;
+    static final Long DNS_NEGATIVE_TTL = 5L;
+    // TLS会话缓存（同一个SSL上下文的新连接复用之前的会话，省去完整握手）：缓存的会话数、会话有效时间 单位/秒
+    static final Integer TLS_SESSION_CACHE_SIZE = 1000;
+    static final Long TLS_SESSION_TIMEOUT = 3600L;
 
     // 构建HttpClient连接池管理器
     private static PoolingHttpClientConnectionManager connectionManager = null;
@@ -80,11 +149,93 @@ public class HttpClientUtils {
     //      createCloseableHttpClient和自定义customCreateCloseableHttpClient两个方法
     private static CloseableHttpClient closeableHttpClient = null;
 
+    // 构建异步HttpClient连接池管理器（首次调用sendAsync系列方法时才创建）
+    private static volatile PoolingAsyncClientConnectionManager asyncConnectionManager = null;
+    // 异步可关闭的HttpClient，基于I/O Reactor，少量线程即可承载大量并发请求
+    // 说明：若需要自定义创建CloseableHttpAsyncClient对象则调用：
+    //      createCloseableHttpAsyncClient和自定义customCreateCloseableHttpAsyncClient两个方法
+    private static volatile CloseableHttpAsyncClient closeableHttpAsyncClient = null;
+    // 当前连接池的最大连接数、默认每个路由的最大连接数（默认取上面的常量，可通过customPoolSize调整）
+    private static volatile int poolMaxTotal = POOL_MAX_TOTAL;
+    private static volatile int poolDefaultMaxPerRoute = POOL_DEFAULT_MAX_PER_ROUTE;
+    // 记录通过customMaxPerRoute设置过的路由最大连接数，异步连接池管理器创建时同步设置
+    private static final Map<HttpRoute, Integer> CUSTOM_ROUTE_MAX = new ConcurrentHashMap<>();
+    // 通过customRateLimit设置了限流的路由及其限流器（令牌桶）
+    private static final Map<HttpRoute, RateLimiter> RATE_LIMITERS = new ConcurrentHashMap<>();
+    // 通过customService注册的逻辑服务（服务名 -> 服务的实例及负载均衡），请求地址写作lb://服务名/路径
+    private static final Map<String, ServiceLoadBalancer> SERVICES = new ConcurrentHashMap<>();
+    // 按路由自适应调整最大连接数（默认关闭），通过enableAdaptivePoolSizing开启
+    private static AdaptivePoolSizer adaptivePoolSizer = null;
+    // 连接的存活时间（超过后租用时关闭，默认不限制）、空闲校验时间，可通过customConnectionEviction调整
+    private static volatile TimeValue connectionTimeToLive = null;
+    private static volatile TimeValue connectionValidateAfterInactivity =
+            TimeValue.of(CONNECTION_VALIDATE_AFTER_INACTIVITY, TIME_UNIT);
+    // 后台淘汰同步、异步连接池的空闲、过期连接（默认关闭），通过customConnectionEviction开启
+    private static ConnectionEvictor connectionEvictor = null;
+    // 默认客户端配置的重试策略（默认关闭），通过customRetryPolicy开启，为null则不重试
+    private static volatile RetryPolicy retryPolicy = null;
+    // 设置到默认客户端上的重试策略（委托给上面的retryPolicy，客户端创建后仍可调整）
+    private static final HttpRequestRetryStrategy RETRY_STRATEGY = RetryPolicy.delegate(() -> retryPolicy);
+    // 默认客户端配置的域名解析器（默认带缓存、多地址轮询），可通过customDnsResolver替换
+    private static volatile DnsResolver dnsResolver = new CachingDnsResolver(DNS_POSITIVE_TTL, DNS_NEGATIVE_TTL,
+            TIME_UNIT);
+    // 设置到连接池管理器上的域名解析器（委托给上面的dnsResolver，连接池管理器创建后仍可替换），其它客户端配置默认共用
+    static final DnsResolver DNS_RESOLVER = CachingDnsResolver.delegate(() -> dnsResolver);
+    // 默认的SSL上下文（首次使用时构建），同步、异步、HTTP/2客户端及未指定SSL上下文的客户端配置共用，从而共用TLS会话缓存
+    private static SSLContext defaultSslContext;
+    // 默认客户端配置的TLS握手策略（协议版本、加密套件、自定义SSL参数），可通过customTls调整，为null则使用默认值
+    private static volatile TlsPolicy tlsPolicy;
+    // 设置到SSL套接字工厂、TLS策略上的TLS握手策略（读取上面的tlsPolicy，客户端创建后仍可调整），其它客户端配置默认共用
+    static final Supplier<TlsPolicy> TLS_POLICY = () -> tlsPolicy;
+    // 默认客户端配置的按路由熔断器（默认关闭），通过customCircuitBreaker开启，为null则不熔断
+    private static volatile CircuitBreaker circuitBreaker = null;
+
+    // HTTP/2配置（只对通过customHttp2Route开启HTTP/2的路由生效）
+    // 本端通告的最大并发流数（SETTINGS_MAX_CONCURRENT_STREAMS）
+    private static final Integer H2_MAX_CONCURRENT_STREAMS = 100;
+    // 流的初始窗口大小（字节），大响应体可适当调大
+    private static final Integer H2_INITIAL_WINDOW_SIZE = 65535;
+    // 对方不支持h2时回退到HTTP/1.1的时间 单位/秒（到期后重新尝试，对方升级后可恢复HTTP/2）
+    private static final Long H2_FALLBACK_TTL = 300L;
+    // HTTP/2多路复用客户端，每个路由只建立一条连接，所有请求以流的方式复用这条连接
+    // 说明：若需要自定义创建则调用createCloseableHttp2AsyncClient和customCreateCloseableHttp2AsyncClient两个方法
+    private static volatile CloseableHttpAsyncClient closeableHttp2AsyncClient = null;
+    // 开启HTTP/2的路由及其单连接并发流数限制器
+    private static final Map<HttpRoute, Http2StreamLimiter> HTTP2_ROUTES = new ConcurrentHashMap<>();
+    // 对方不支持h2（TLS握手时ALPN选择了http/1.1）而回退到HTTP/1.1的路由及回退的到期时间（System.nanoTime），
+    // 到期后由幂等请求重新尝试HTTP/2
+    private static final Map<HttpRoute, Long> HTTP2_FALLBACK_ROUTES = new ConcurrentHashMap<>();
+    // GET响应缓存（默认关闭），通过enableResponseCache开启
+    private static volatile HttpResponseCache responseCache = null;
+    // 相同GET请求合并（通过Builder的setSingleFlight按请求开启），默认忽略链路追踪、请求ID等每次都不同的请求头
+    private static final SingleFlight SINGLE_FLIGHT = new SingleFlight(new HashSet<>(Arrays.asList(
+            "x-request-id", "x-correlation-id", "traceparent", "tracestate", "x-b3-traceid", "x-b3-spanid",
+            "x-b3-parentspanid", "x-b3-sampled", "date")));
+    // 默认客户端配置的名称（即上面的静态连接池及客户端），Builder未指定setProfile时使用
+    public static final String DEFAULT_PROFILE = "default";
+    // 通过customProfile注册的客户端配置（各自独立的连接池、超时时间、SSL上下文及拦截器）
+    private static final Map<String, HttpClientProfile> PROFILES = new ConcurrentHashMap<>();
+    // 按路由的连接池及请求耗时指标（连接池状态在读取时获取），通过customMetricsRegistry绑定到监控系统
+    private static final HttpClientMetrics METRICS = new HttpClientMetrics(DEFAULT_PROFILE,
+            route -> connectionManager.getStats(route),
+            route -> asyncConnectionManager == null ? null : asyncConnectionManager.getStats(route));
+    // 默认客户端配置的对冲请求（通过Builder的setHedging按请求开启），按路由限制对冲请求数
+    private static final RequestHedger HEDGER = new RequestHedger(METRICS, HEDGE_BUDGET_RATIO);
+
     // 其它配置
     // 可以文件下载的类型
     private static final List<String> FILE_CONTENT_TYPE = Arrays.asList("image/jpeg", "image/png", "image/gif",
             "audio/mpeg", "audio/wav", "video/mp4", "video/mpeg", "application/pdf", "application/msword");
 
+    // 直接下载到文件（downloadTo）时的配置
+    // 下载中断后自动续传的最大次数
+    private static final Integer DOWNLOAD_RESUME_RETRIES = 3;
+    // 每次从响应流写入文件通道的最大字节数（只影响单次系统调用，不影响内存占用）
+    private static final Long DOWNLOAD_TRANSFER_CHUNK = 1024L * 1024L;
+    // 未下载完成的临时文件后缀，以及记录续传校验值（ETag或Last-Modified）的文件后缀
+    private static final String DOWNLOAD_PART_SUFFIX = ".part";
+    private static final String DOWNLOAD_VALIDATOR_SUFFIX = ".part.validator";
+
     // 关于SSL配置信息（手动修改这里的配置）
     // 说明：如果对方服务器不校验咱们客户端信息，我们无需设置我们自己的密钥库信息
     // 密钥库库信息（内包含证书、密钥），主要用来提取密钥库内的证书，建立连接后发送给对方服务器，校验安全（可以做SSL双向认证）
@@ -104,6 +255,12 @@ public class HttpClientUtils {
     private final String requestBody;                   //  请求体参数（常用于POST、PUT）
     private RequestConfig requestConfig;                //  每次请求体配置如：超时时间、是否可重定向、重定向次数等
     private final Map<String, InputStream> uploadFiles; //  文件上传流信息（只有上传文件时使用）key文件名 value文件流
+    private final List<UploadPart> uploadParts;         //  文件上传部分（长度已知，来源于文件、文件通道或缓冲区）
+    private final String requestCompression;            //  请求体压缩方式（gzip、deflate），为空则不压缩
+    private final Integer requestCompressionThreshold;  //  请求体编码后达到此字节数才压缩
+    private final boolean singleFlight;                 //  是否合并同一时刻相同的GET请求
+    private final HttpClientProfile profile;            //  请求使用的客户端配置（为null则使用默认配置）
+    private final long hedgeDelay;                      //  对冲延迟（纳秒），0则取路由耗时分位数，小于0不对冲
 
     static {
         // 初始化HttpClient连接池管理器
@@ -123,6 +280,12 @@ public class HttpClientUtils {
         this.requestBody = builder.requestBody;
         this.requestConfig = builder.requestConfig;
         this.uploadFiles = builder.uploadFiles;
+        this.uploadParts = builder.uploadParts;
+        this.requestCompression = builder.requestCompression;
+        this.requestCompressionThreshold = builder.requestCompressionThreshold;
+        this.singleFlight = builder.singleFlight;
+        this.profile = getProfile(builder.profile);
+        this.hedgeDelay = builder.hedgeDelay;
     }
 
     /**
@@ -136,22 +299,55 @@ public class HttpClientUtils {
         // 若注册表信息不为空则设置到连接池管理器中（一般可以指定https、ftp、smtp等）
         if (socketFactoryRegistry != null) {
             // 构建带有传入的注册表的HttpClient连接池管理器
-            connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+            connectionManager = METRICS.createConnectionManager(socketFactoryRegistry, DNS_RESOLVER);
         } else {
             // 构建默认HttpClient连接池管理器及注册表信息
             connectionManager = createDefaultSocketFactoryRegistry();
         }
 
         // 设置连接池的最大连接数
-        connectionManager.setMaxTotal(200);
+        connectionManager.setMaxTotal(poolMaxTotal);
         // 默认每个路由的最大连接数
         // 说明：ip+端口为一个路由，同一个路由最多可以并发10次相同时间访问，额外请调用customMaxPerRoute()方法
-        connectionManager.setDefaultMaxPerRoute(10);
+        connectionManager.setDefaultMaxPerRoute(poolDefaultMaxPerRoute);
         // 设置创建连接池的基本连接配置（设置连接时长和本次请求响应总时长）
-        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+        connectionManager.setDefaultConnectionConfig(createDefaultConnectionConfig());
+    }
+
+    /**
+     * 创建异步HttpClient连接池管理器，参数默认传null即可（使用与同步连接池相同的SSL上下文）
+     * <p style="color:#f61">最大连接数、每个路由的最大连接数以及customMaxPerRoute设置的路由与同步连接池管理器保持一致</p>
+     *
+     * @param tlsStrategy https连接的TLS策略信息
+     */
+    public static synchronized void createPoolingAsyncClientConnectionManager(TlsStrategy tlsStrategy) {
+        // 若TLS策略为空则使用默认的SSL上下文构建（信任策略、双向认证与同步方式一致）
+        if (tlsStrategy == null) {
+            tlsStrategy = TlsPolicy.createTlsStrategy(getDefaultSslContext(), TLS_POLICY, METRICS);
+        }
+        PoolingAsyncClientConnectionManager manager = METRICS.createAsyncConnectionManager(
+                RegistryBuilder.<TlsStrategy>create().register("https", tlsStrategy).build(), DNS_RESOLVER);
+        manager.setMaxTotal(poolMaxTotal);
+        manager.setDefaultMaxPerRoute(poolDefaultMaxPerRoute);
+        manager.setDefaultConnectionConfig(createDefaultConnectionConfig());
+        // 同步之前通过customMaxPerRoute设置的路由最大连接数
+        for (Map.Entry<HttpRoute, Integer> customRoute : CUSTOM_ROUTE_MAX.entrySet()) {
+            manager.setMaxPerRoute(customRoute.getKey(), customRoute.getValue());
+        }
+        asyncConnectionManager = manager;
+    }
+
+    /**
+     * 创建连接池的基本连接配置（设置连接时长和本次请求响应总时长，以及连接的存活时间和空闲校验时间）
+     *
+     * @return 连接配置
+     */
+    private static ConnectionConfig createDefaultConnectionConfig() {
+        return ConnectionConfig.custom()
                 .setConnectTimeout(REQUEST_CONNECT_TIMEOUT, TIME_UNIT)
-                .setSocketTimeout(SOCKET_TIMEOUT.intValue(), TIME_UNIT).build();
-        connectionManager.setDefaultConnectionConfig(connectionConfig);
+                .setSocketTimeout(SOCKET_TIMEOUT.intValue(), TIME_UNIT)
+                .setTimeToLive(connectionTimeToLive)
+                .setValidateAfterInactivity(connectionValidateAfterInactivity).build();
     }
 
     /**
@@ -161,6 +357,67 @@ public class HttpClientUtils {
      */
     private static PoolingHttpClientConnectionManager createDefaultSocketFactoryRegistry() {
         // =========================== 配置自定义 https 策略 =========================== //
+        // 构建SSL连接套接字工厂，并设置SSL上下文（握手前按TLS握手策略设置协议版本、加密套件，握手后记录握手耗时及类型）
+        SSLConnectionSocketFactory sslConnectionSocketFactory =
+                TlsPolicy.createSocketFactory(getDefaultSslContext(), TLS_POLICY, METRICS);
+
+        // =========================== 配置自定义 http 策略 =========================== //
+        PlainConnectionSocketFactory plainConnectionSocketFactory = new PlainConnectionSocketFactory() {
+            @Override
+            public Socket createSocket(HttpContext context) {
+                try {
+                    // 空实现
+                    Socket socket = super.createSocket(context);
+                    //socket.setSoTimeout(5000);
+                    return socket;
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+
+        // 创建Registry对象，并注册自定义的SSLConnectionSocketFactory
+        // 说明：这里我只展开"https"和”http“介绍，其实还有如下可选类型配置到注册表（部分）
+        //      "http"： 表示使用 HTTP 协议进行普通连接。
+        //      "ftp"：  表示使用 FTP 协议进行文件传输连接。
+        //      "socks"：表示使用 SOCKS 协议进行代理连接。
+        //      "smtp"： 表示使用 SMTP 协议进行邮件发送连接。
+        //      "imap"： 表示使用 IMAP 协议进行邮件接收连接。
+        //      "pop3"： 表示使用 POP3 协议进行邮件接收连接。
+        // 说明：两个工厂均包装一层，建立连接失败的地址通知域名解析器，后续的新连接优先尝试该域名的其它地址
+        Registry<ConnectionSocketFactory> socketFactoryRegistry =
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("https", CachingDnsResolver.trackConnectFailures(sslConnectionSocketFactory,
+                                () -> dnsResolver))
+                        .register("http", CachingDnsResolver.trackConnectFailures(plainConnectionSocketFactory,
+                                () -> dnsResolver))
+                        .build();
+        createPoolingHttpClientConnectionManager(socketFactoryRegistry);
+        return METRICS.createConnectionManager(socketFactoryRegistry, DNS_RESOLVER);
+    }
+
+    /**
+     * 获取默认的SSL上下文（首次调用时构建并设置TLS会话缓存），同步、异步、HTTP/2客户端共用同一个会话缓存，
+     * 任一客户端建立过连接的路由，其它客户端的新连接也能恢复会话
+     *
+     * @return SSL上下文
+     */
+    static synchronized SSLContext getDefaultSslContext() {
+        if (defaultSslContext == null) {
+            SSLContext sslContext = createDefaultSslContext();
+            sslContext.getClientSessionContext().setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+            sslContext.getClientSessionContext().setSessionTimeout(TLS_SESSION_TIMEOUT.intValue());
+            defaultSslContext = sslContext;
+        }
+        return defaultSslContext;
+    }
+
+    /**
+     * 构建默认的SSL上下文（证书信任策略及双向认证策略）
+     *
+     * @return SSL上下文
+     */
+    private static SSLContext createDefaultSslContext() {
         // 配置SSL的证书信任策略及双向认证策略
         SSLContext sslContext = null;
         try {
@@ -217,47 +474,34 @@ public class HttpClientUtils {
             log.warn("当密钥管理异常：{}", e.getMessage());
             throw new RuntimeException(e);
         }
-        // 构建SSL连接套接字工厂生成器
-        SSLConnectionSocketFactoryBuilder sslConnectionSocketFactoryBuilder =
-                SSLConnectionSocketFactoryBuilder.create();
-        // 通过工厂Builder构建SSL连接套接字工厂，并设置SSL上下文
-        SSLConnectionSocketFactory sslConnectionSocketFactory = sslConnectionSocketFactoryBuilder
-                .setSslContext(sslContext).build();
-
-        // =========================== 配置自定义 http 策略 =========================== //
-        PlainConnectionSocketFactory plainConnectionSocketFactory = new PlainConnectionSocketFactory() {
-            @Override
-            public Socket createSocket(HttpContext context) {
-                try {
-                    // 空实现
-                    Socket socket = super.createSocket(context);
-                    //socket.setSoTimeout(5000);
-                    return socket;
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        };
+        return sslContext;
+    }
 
-        // 创建Registry对象，并注册自定义的SSLConnectionSocketFactory
-        // 说明：这里我只展开"https"和”http“介绍，其实还有如下可选类型配置到注册表（部分）
-        //      "http"： 表示使用 HTTP 协议进行普通连接。
-        //      "ftp"：  表示使用 FTP 协议进行文件传输连接。
-        //      "socks"：表示使用 SOCKS 协议进行代理连接。
-        //      "smtp"： 表示使用 SMTP 协议进行邮件发送连接。
-        //      "imap"： 表示使用 IMAP 协议进行邮件接收连接。
-        //      "pop3"： 表示使用 POP3 协议进行邮件接收连接。
-        Registry<ConnectionSocketFactory> socketFactoryRegistry =
-                RegistryBuilder.<ConnectionSocketFactory>create()
-                        .register("https", sslConnectionSocketFactory)
-                        .register("http", plainConnectionSocketFactory)
-                        .build();
-        createPoolingHttpClientConnectionManager(socketFactoryRegistry);
-        return new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+    /**
+     * 自定义连接池的最大连接数及默认每个路由的最大连接数（默认200、10），可先通过LoadGenerator（src/loadtest/java）压测确定<br/>
+     * 注：同时作用于同步和异步连接池管理器，已通过customMaxPerRoute单独设置的路由不受影响
+     *
+     * @param maxTotal           连接池的最大连接数
+     * @param defaultMaxPerRoute 默认每个路由的最大连接数
+     */
+    public static void customPoolSize(int maxTotal, int defaultMaxPerRoute) {
+        if (maxTotal <= 0 || defaultMaxPerRoute <= 0) {
+            log.warn("连接池最大连接数必须大于0：maxTotal={}，defaultMaxPerRoute={}", maxTotal, defaultMaxPerRoute);
+            return;
+        }
+        poolMaxTotal = maxTotal;
+        poolDefaultMaxPerRoute = defaultMaxPerRoute;
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+        if (asyncConnectionManager != null) {
+            asyncConnectionManager.setMaxTotal(maxTotal);
+            asyncConnectionManager.setDefaultMaxPerRoute(defaultMaxPerRoute);
+        }
     }
 
     /**
-     * 自定义HttpClient连接池管理器的每种路由（端口+ip）的最大连接数，若不设置默认为10
+     * 自定义HttpClient连接池管理器的每种路由（端口+ip）的最大连接数，若不设置默认为10<br/>
+     * 注：同时作用于同步和异步连接池管理器
      *
      * @param customRouteMap 自定义路由连接数 如：key（路由） value（最大连接数）
      */
@@ -270,11 +514,449 @@ public class HttpClientUtils {
             log.warn("传入自定义路由最大连接数据为空！");
         } else {
             for (Map.Entry<String, Integer> customRoute : customRouteMap.entrySet()) {
-                URI uri = URI.create(customRoute.getKey());
-                HttpRoute route = new HttpRoute(new HttpHost(uri.getHost(), uri.getPort()));
-                connectionManager.setMaxPerRoute(route, customRoute.getValue());
+                setMaxPerRoute(createHttpRoute(URI.create(customRoute.getKey())), customRoute.getValue());
+            }
+        }
+    }
+
+    /**
+     * 自定义路由的客户端限流（令牌桶，规则见RateLimiter），同时作用于同步、异步及HTTP/2客户端：
+     * 超过每秒请求数（及突发请求数）的请求等待至多maxWait，仍拿不到许可则直接抛出异常，不租用连接、不发出请求<br/>
+     * 注：其它客户端配置通过HttpClientProfile.Builder的setRateLimit设置
+     *
+     * @param route            路由 如：https://192.168.0.2:9999
+     * @param permitsPerSecond 每秒请求数，小于等于0则取消该路由的限流
+     * @param burst            突发请求数（令牌桶容量）
+     * @param maxWait          获取不到许可时的最长等待时间，小于等于0则直接拒绝
+     * @param unit             时间单位
+     * @param adaptive         是否按响应头（429、503的Retry-After，X-RateLimit-Remaining为0时的X-RateLimit-Reset）暂停请求
+     */
+    public static void customRateLimit(String route, double permitsPerSecond, int burst, long maxWait, TimeUnit unit,
+                                       boolean adaptive) {
+        HttpRoute httpRoute = createHttpRoute(URI.create(route));
+        if (permitsPerSecond <= 0) {
+            RATE_LIMITERS.remove(httpRoute);
+        } else {
+            RATE_LIMITERS.put(httpRoute, new RateLimiter(permitsPerSecond, burst, TimeValue.of(maxWait, unit),
+                    adaptive));
+        }
+    }
+
+    /**
+     * 连接预热：为通过customMaxPerRoute（及customService）设置过最大连接数的路由预先建立连接（含TLS握手）并放回同步连接池，
+     * 并行建立、最多等待timeout，建议在应用对外提供服务前调用（规则见ConnectionWarmer）<br/>
+     * 注：只预热同步连接池；其它客户端配置通过warmUpConnections(profileName, ...)预热
+     *
+     * @param connectionsPerRoute 每个路由预先建立的连接数，小于等于0则建立至路由的最大连接数
+     * @param timeout             预热时间上限
+     * @param unit                时间单位
+     * @return 已建立并放回连接池的连接数
+     */
+    public static int warmUpConnections(int connectionsPerRoute, long timeout, TimeUnit unit) {
+        return ConnectionWarmer.warmUp(DEFAULT_PROFILE, connectionManager, new ArrayList<>(CUSTOM_ROUTE_MAX.keySet()),
+                connectionsPerRoute, TimeValue.of(timeout, unit));
+    }
+
+    /**
+     * 连接预热：为指定客户端配置中通过setMaxPerRoute设置过最大连接数的路由预先建立连接并放回其同步连接池
+     *
+     * @param profileName         客户端配置名称，default为默认配置
+     * @param connectionsPerRoute 每个路由预先建立的连接数，小于等于0则建立至路由的最大连接数
+     * @param timeout             预热时间上限
+     * @param unit                时间单位
+     * @return 已建立并放回连接池的连接数
+     */
+    public static int warmUpConnections(String profileName, int connectionsPerRoute, long timeout, TimeUnit unit) {
+        HttpClientProfile clientProfile = getProfile(profileName);
+        if (clientProfile == null) {
+            return warmUpConnections(connectionsPerRoute, timeout, unit);
+        }
+        return clientProfile.warmUpConnections(connectionsPerRoute, TimeValue.of(timeout, unit));
+    }
+
+    /**
+     * 注册（或替换）客户端负载均衡的逻辑服务，请求地址写作lb://服务名/路径，每次发送请求时按各实例的实时负载
+     * （进行中的请求数 / 最大连接数）选出一个实例，连续失败的实例暂时剔除（规则见ServiceLoadBalancer）<br/>
+     * 注：服务对所有客户端配置生效，负载按发送请求的客户端配置的路由指标计算；实例的最大连接数只设置到默认客户端配置，
+     * 其它客户端配置通过HttpClientProfile.Builder的setMaxPerRoute设置
+     *
+     * @param service           服务名（需符合域名规则），如：order-service
+     * @param endpoints         实例地址及其最大连接数 如：key（http://192.168.0.1:8080） value（最大连接数，null或小于等于0则不修改），
+     *                          为空则取消注册该服务
+     * @param powerOfTwoChoices 是否使用P2C（随机取两个实例选负载低的），否则选择负载最低的实例
+     */
+    public static void customService(String service, Map<String, Integer> endpoints, boolean powerOfTwoChoices) {
+        if (service == null || "".equals(service)) {
+            log.warn("服务名不可为空！");
+            throw new RuntimeException("服务名不可为空！");
+        }
+        String name = service.toLowerCase(Locale.ROOT);
+        if (endpoints == null || endpoints.isEmpty()) {
+            SERVICES.remove(name);
+            return;
+        }
+        ServiceLoadBalancer loadBalancer = new ServiceLoadBalancer(name, new ArrayList<>(endpoints.keySet()),
+                powerOfTwoChoices);
+        for (Map.Entry<String, Integer> endpoint : endpoints.entrySet()) {
+            if (endpoint.getValue() != null && endpoint.getValue() > 0) {
+                setMaxPerRoute(createHttpRoute(URI.create(endpoint.getKey().trim())), endpoint.getValue());
+            }
+        }
+        SERVICES.put(name, loadBalancer);
+    }
+
+    /**
+     * 设置路由的最大连接数（同步、异步连接池管理器），并记录下来供异步连接池管理器创建时同步设置
+     *
+     * @param route       路由
+     * @param maxPerRoute 最大连接数
+     */
+    private static void setMaxPerRoute(HttpRoute route, int maxPerRoute) {
+        CUSTOM_ROUTE_MAX.put(route, maxPerRoute);
+        connectionManager.setMaxPerRoute(route, maxPerRoute);
+        if (asyncConnectionManager != null) {
+            asyncConnectionManager.setMaxPerRoute(route, maxPerRoute);
+        }
+    }
+
+    /**
+     * 开启默认客户端配置按路由自适应调整最大连接数：每秒根据路由的租用连接等待耗时、等待租用连接数及下游耗时，
+     * 在[minPerRoute, maxPerRoute]范围内增减最大连接数，下游耗时明显上升时按比例减小，避免压垮下游（规则见AdaptivePoolSizer）<br/>
+     * 注：customMaxPerRoute设置的值作为调整的起点；其它客户端配置通过HttpClientProfile.Builder的setAdaptivePoolSizing开启
+     *
+     * @param minPerRoute 每个路由的最小连接数
+     * @param maxPerRoute 每个路由的最大连接数上限（不宜超过连接池的最大连接数）
+     */
+    public static synchronized void enableAdaptivePoolSizing(int minPerRoute, int maxPerRoute) {
+        AdaptivePoolSizer poolSizer = new AdaptivePoolSizer(DEFAULT_PROFILE, minPerRoute, maxPerRoute, METRICS,
+                route -> connectionManager.getMaxPerRoute(route), HttpClientUtils::setMaxPerRoute);
+        disableAdaptivePoolSizing();
+        adaptivePoolSizer = poolSizer;
+        poolSizer.start();
+    }
+
+    /**
+     * 关闭默认客户端配置的自适应调整（已调整的路由最大连接数保持不变）
+     */
+    public static synchronized void disableAdaptivePoolSizing() {
+        if (adaptivePoolSizer != null) {
+            adaptivePoolSizer.stop();
+            adaptivePoolSizer = null;
+        }
+    }
+
+    /**
+     * 自定义默认客户端配置的连接淘汰策略（默认：不在后台淘汰、存活时间不限制、空闲2秒后租用前校验；
+     * 参考值：空闲30秒淘汰，应小于服务端及中间负载均衡的空闲超时），同时作用于同步和异步连接池<br/>
+     * 1、后台每隔maxIdle的一半（最长5秒）关闭空闲超过maxIdle及超过保活时间（Keep-Alive）的连接；<br/>
+     * 2、连接建立超过timeToLive后不再复用，租用时关闭并重新建立（如下游扩容、DNS切换后让连接逐步迁移）；<br/>
+     * 3、连接空闲超过validateAfterInactivity后，租用前先检查是否已被对方关闭，失效则丢弃重新租用<br/>
+     * 被淘汰的连接数、校验失效的连接数计入路由指标（RouteMetrics，只统计同步连接池）<br/>
+     * 注：其它客户端配置通过HttpClientProfile.Builder的setConnectionEviction设置
+     *
+     * @param maxIdle                 连接的最长空闲时间，小于等于0则关闭后台淘汰
+     * @param timeToLive              连接的存活时间，小于等于0则不限制
+     * @param validateAfterInactivity 空闲多久后租用前校验连接，小于等于0则不校验
+     * @param unit                    时间单位
+     */
+    public static synchronized void customConnectionEviction(long maxIdle, long timeToLive,
+                                                             long validateAfterInactivity, TimeUnit unit) {
+        connectionTimeToLive = timeToLive > 0 ? TimeValue.of(timeToLive, unit) : null;
+        connectionValidateAfterInactivity = validateAfterInactivity > 0
+                ? TimeValue.of(validateAfterInactivity, unit) : TimeValue.NEG_ONE_MILLISECOND;
+        connectionManager.setDefaultConnectionConfig(createDefaultConnectionConfig());
+        if (asyncConnectionManager != null) {
+            asyncConnectionManager.setDefaultConnectionConfig(createDefaultConnectionConfig());
+        }
+        if (connectionEvictor != null) {
+            connectionEvictor.stop();
+            connectionEvictor = null;
+        }
+        if (maxIdle > 0) {
+            connectionEvictor = new ConnectionEvictor(DEFAULT_PROFILE, TimeValue.of(maxIdle, unit),
+                    () -> connectionManager, () -> asyncConnectionManager);
+            connectionEvictor.start();
+        }
+    }
+
+    /**
+     * 开启默认客户端配置的重试策略（默认关闭，请求失败直接返回；参考值：最多重试2次，退避100毫秒起、最长2秒，
+     * 重试不超过请求数的10%），同时作用于同步、异步及HTTP/2客户端：<br/>
+     * 1、只重试幂等请求，或请求尚未发出的失败（如连接被拒绝、建立连接超时）；响应超时不重试；<br/>
+     * 2、429、502、503、504响应按Retry-After等待后重试（幂等请求），否则按指数退避加全抖动等待；<br/>
+     * 3、每个路由的重试受令牌桶预算限制，下游故障时重试不会成倍放大流量<br/>
+     * 重试次数、因预算不足放弃的重试次数计入路由指标（RouteMetrics）；规则详见RetryPolicy<br/>
+     * 注：其它客户端配置通过HttpClientProfile.Builder的setRetryPolicy设置
+     *
+     * @param maxRetries  单个请求的最大重试次数，等于0则不重试
+     * @param baseBackoff 首次重试的退避时间上限（之后每次翻倍）
+     * @param maxBackoff  退避时间上限
+     * @param unit        时间单位
+     * @param budgetRatio 重试次数占请求数的最大比例（0~1）
+     */
+    public static void customRetryPolicy(int maxRetries, long baseBackoff, long maxBackoff, TimeUnit unit,
+                                         double budgetRatio) {
+        retryPolicy = maxRetries > 0 ? new RetryPolicy(maxRetries, TimeValue.of(baseBackoff, unit),
+                TimeValue.of(maxBackoff, unit), budgetRatio, METRICS) : null;
+    }
+
+    /**
+     * 开启默认客户端配置的按路由熔断器（默认关闭；参考值：失败率50%或慢请求率80%时打开，耗时5秒以上为慢请求，打开10秒），
+     * 同时作用于同步、异步及HTTP/2客户端：<br/>
+     * 1、每个路由统计最近100次请求，至少20次请求后，失败率（异常、超时、5xx响应）或慢请求率达到阈值时打开；<br/>
+     * 2、打开期间该路由的请求直接抛出异常（不再返回带状态码的HttpResult），不租用连接、不发出请求，
+     * 避免请求线程被挂起的下游占满；<br/>
+     * 3、打开时间到达后放行5个探测请求，探测结果未达到阈值则关闭，否则重新打开<br/>
+     * 熔断器状态、打开次数、拒绝数计入路由指标（RouteMetrics）；规则详见CircuitBreaker<br/>
+     * 注：其它客户端配置通过HttpClientProfile.Builder的setCircuitBreaker设置
+     *
+     * @param failureRate      打开熔断器的失败率（0~1），小于等于0则不按失败率熔断
+     * @param slowCallRate     打开熔断器的慢请求率（0~1），小于等于0则不按慢请求率熔断（两者都小于等于0则关闭熔断器）
+     * @param slowCallDuration 慢请求的耗时（至收到响应头）
+     * @param openDuration     打开状态的持续时间
+     * @param unit             时间单位
+     */
+    public static void customCircuitBreaker(double failureRate, double slowCallRate, long slowCallDuration,
+                                            long openDuration, TimeUnit unit) {
+        circuitBreaker = failureRate > 0 || slowCallRate > 0 ? new CircuitBreaker(failureRate, slowCallRate,
+                TimeValue.of(slowCallDuration, unit), TimeValue.of(openDuration, unit), METRICS) : null;
+    }
+
+    /**
+     * 自定义默认客户端配置的域名解析器（同步、异步连接池及HTTP/2客户端建立新连接时使用，替换后对新连接立即生效）<br/>
+     * 默认为CachingDnsResolver：解析结果缓存30秒（解析失败缓存5秒）、到期后后台异步刷新，
+     * 新连接轮询分布到域名的全部A/AAAA地址上，建立连接失败的地址暂时排到最后；
+     * 可传入new CachingDnsResolver(自定义解析器, 缓存时间...)在服务发现等解析器之上使用缓存及轮询<br/>
+     * 注：未通过HttpClientProfile.Builder的setDnsResolver单独设置的客户端配置共用此解析器
+     *
+     * @param resolver 域名解析器，为null则使用JVM默认的解析（SystemDefaultDnsResolver）
+     */
+    public static void customDnsResolver(DnsResolver resolver) {
+        dnsResolver = resolver == null ? SystemDefaultDnsResolver.INSTANCE : resolver;
+    }
+
+    /**
+     * 自定义默认客户端配置的TLS握手策略，同时作用于同步、异步及HTTP/2客户端（包括已建立的客户端，对之后的新连接生效）：
+     * 如只启用TLSv1.3（握手少一次往返）、把ECDHE-ECDSA及AES-GCM加密套件排在前面，或在握手前设置ALPN协议列表<br/>
+     * 完整握手、会话恢复的次数及握手耗时计入路由指标<br/>
+     * 注：其它客户端配置通过HttpClientProfile.Builder的setTls设置
+     *
+     * @param protocols            启用的协议版本，如：{"TLSv1.3", "TLSv1.2"}，为null则使用默认值
+     * @param cipherSuites         启用的加密套件（按优先顺序），为null则使用默认值
+     * @param parametersCustomizer 握手前自定义SSL参数（如setApplicationProtocols设置ALPN，需JDK9及以上），可为null
+     */
+    public static void customTls(String[] protocols, String[] cipherSuites,
+                                 Consumer<SSLParameters> parametersCustomizer) {
+        tlsPolicy = protocols == null && cipherSuites == null && parametersCustomizer == null ? null
+                : new TlsPolicy(protocols, cipherSuites, parametersCustomizer);
+    }
+
+    /**
+     * 自定义默认SSL上下文的TLS会话缓存（默认缓存1000个会话、有效1小时），新连接复用缓存中对方的会话时只需简化握手，
+     * 双向认证时也不再发送、校验客户端证书<br/>
+     * 注：会话能否恢复还取决于对方的会话缓存（或会话票据）有效时间；使用自定义SSL上下文的客户端配置自行设置
+     *
+     * @param sessionCacheSize 缓存的会话数，0表示不限制
+     * @param sessionTimeout   会话有效时间，0表示不限制
+     * @param unit             时间单位
+     */
+    public static void customTlsSessionCache(int sessionCacheSize, long sessionTimeout, TimeUnit unit) {
+        if (sessionCacheSize < 0 || sessionTimeout < 0) {
+            log.warn("TLS会话缓存参数不可小于0：sessionCacheSize={}，sessionTimeout={}", sessionCacheSize, sessionTimeout);
+            return;
+        }
+        SSLContext sslContext = getDefaultSslContext();
+        sslContext.getClientSessionContext().setSessionCacheSize(sessionCacheSize);
+        sslContext.getClientSessionContext().setSessionTimeout((int) Math.min(Integer.MAX_VALUE,
+                unit.toSeconds(sessionTimeout)));
+    }
+
+    /**
+     * 自定义开启HTTP/2多路复用的路由（按路由选择，未设置的路由仍走HTTP/1.1连接池）<br/>
+     * 开启后该路由的同步、异步请求均通过一条HTTP/2连接并发发送，不再受每个路由最大连接数的限制；
+     * 若对方不支持h2（TLS握手时ALPN选择了http/1.1），该路由回退到HTTP/1.1（幂等请求自动重发）5分钟，到期后由幂等请求
+     * 重新尝试HTTP/2；连接被关闭等其它异常不回退<br/>
+     * 注：明文h2c没有ALPN，无法确认对方是否支持，请确认对方支持h2c后再开启
+     *
+     * @param http2RouteMap 如：key（路由） value（单连接最大并发流数，小于等于0则以服务端SETTINGS为准）
+     */
+    public static void customHttp2Route(Map<String, Integer> http2RouteMap) {
+        // 示例数据
+        // http2RouteMap.put("https://192.168.0.2:9999", 200);
+        if (http2RouteMap == null || http2RouteMap.isEmpty()) {
+            log.warn("传入自定义HTTP/2路由数据为空！");
+        } else {
+            for (Map.Entry<String, Integer> http2Route : http2RouteMap.entrySet()) {
+                HttpRoute route = createHttpRoute(URI.create(http2Route.getKey()));
+                int maxStreams = http2Route.getValue() == null ? 0 : http2Route.getValue();
+                HTTP2_ROUTES.put(route, new Http2StreamLimiter(maxStreams));
+                HTTP2_FALLBACK_ROUTES.remove(route);
+            }
+        }
+    }
+
+    /**
+     * 开启GET响应缓存（作用于send等同步请求）：按Cache-Control、Expires判断新鲜度，新鲜期内直接返回缓存的响应；
+     * 过期后按ETag、Last-Modified发送条件请求，304时沿用缓存的响应；响应带有stale-while-revalidate时，
+     * 在该时间窗口内直接返回过期的响应，同时通过异步客户端在后台重新校验<br/>
+     * 注：缓存命中时多个调用方共享同一个HttpResult对象，请勿修改其内容；文件类型的响应不缓存；
+     * 带Authorization的请求只有响应明确允许共享（public、s-maxage、must-revalidate）时才缓存
+     *
+     * @param maxMemoryEntries 内存层最大条目数（LRU淘汰）
+     * @param diskDirectory    磁盘层目录，为null则只使用内存层
+     */
+    public static void enableResponseCache(int maxMemoryEntries, Path diskDirectory) {
+        responseCache = new HttpResponseCache(maxMemoryEntries, diskDirectory);
+    }
+
+    /**
+     * 关闭GET响应缓存并清空已缓存的内容（包含磁盘层）
+     */
+    public static void disableResponseCache() {
+        HttpResponseCache cache = responseCache;
+        responseCache = null;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 自定义相同请求合并时忽略的请求头（替换默认的忽略列表），如每次请求都不同的链路追踪ID、时间戳、签名等
+     *
+     * @param ignoredHeaders 忽略的请求头名称（不区分大小写）
+     */
+    public static void customSingleFlightIgnoredHeaders(Collection<String> ignoredHeaders) {
+        Set<String> headers = new HashSet<>();
+        if (ignoredHeaders != null) {
+            for (String header : ignoredHeaders) {
+                headers.add(header.toLowerCase());
             }
         }
+        SINGLE_FLIGHT.setIgnoredHeaders(headers);
+    }
+
+    /**
+     * 开启相同请求合并的请求中，实际发送的请求数
+     *
+     * @return 实际发送的请求数
+     */
+    public static long getSingleFlightExecutions() {
+        return SINGLE_FLIGHT.getExecutions();
+    }
+
+    /**
+     * 开启相同请求合并的请求中，被合并（未实际发送，共享其它请求响应）的请求数
+     *
+     * @return 被合并的请求数
+     */
+    public static long getSingleFlightCoalesced() {
+        return SINGLE_FLIGHT.getCoalesced();
+    }
+
+    /**
+     * 自定义指标注册表，把每个路由的连接池状态（租用、空闲、等待、最大连接数）、租用连接等待耗时、建立连接耗时、
+     * 请求总耗时以及按响应码类别的请求数、超时数、异常数绑定到监控系统，如：
+     * customMetricsRegistry(new MicrometerMetricsRegistry(meterRegistry))<br/>
+     * 注：不设置注册表时指标同样会记录，可通过getRouteMetrics读取
+     *
+     * @param metricsRegistry 指标注册表
+     */
+    public static void customMetricsRegistry(HttpMetricsRegistry metricsRegistry) {
+        METRICS.setRegistry(metricsRegistry);
+        for (HttpClientProfile clientProfile : PROFILES.values()) {
+            clientProfile.getMetrics().setRegistry(metricsRegistry);
+        }
+    }
+
+    /**
+     * 获取所有已发送过请求的路由的指标
+     *
+     * @return key（路由） value（路由的指标）
+     */
+    public static Map<HttpRoute, RouteMetrics> getRouteMetrics() {
+        return METRICS.getAllRouteMetrics();
+    }
+
+    /**
+     * 获取指定路由的指标（路由尚未发送过请求时也会创建）
+     *
+     * @param routeUrl 路由地址，如：https://192.168.0.2:9999
+     * @return 路由的指标
+     */
+    public static RouteMetrics getRouteMetrics(String routeUrl) {
+        return METRICS.getRouteMetrics(createHttpRoute(URI.create(routeUrl)));
+    }
+
+    /**
+     * 获取指定客户端配置中指定路由的指标（路由尚未发送过请求时也会创建）
+     *
+     * @param profileName 客户端配置名称，default为默认配置
+     * @param routeUrl    路由地址，如：https://192.168.0.2:9999
+     * @return 路由的指标
+     */
+    public static RouteMetrics getRouteMetrics(String profileName, String routeUrl) {
+        HttpClientProfile clientProfile = getProfile(profileName);
+        HttpClientMetrics metrics = clientProfile == null ? METRICS : clientProfile.getMetrics();
+        return metrics.getRouteMetrics(createHttpRoute(URI.create(routeUrl)));
+    }
+
+    /**
+     * 注册客户端配置（舱壁隔离），之后通过Builder的setProfile(名称)指定请求使用该配置；
+     * 同名配置已存在时替换，旧配置的连接池在进行中的请求完成后关闭<br/>
+     * 如：customProfile(new HttpClientProfile.Builder("partner-a").setPoolSize(20, 20)
+     * .setResponseTimeout(2, TimeUnit.SECONDS).build())
+     *
+     * @param clientProfile 客户端配置
+     */
+    public static void customProfile(HttpClientProfile clientProfile) {
+        clientProfile.getMetrics().setRegistry(METRICS.getRegistry());
+        HttpClientProfile oldProfile = PROFILES.put(clientProfile.getName(), clientProfile);
+        if (oldProfile != null && oldProfile != clientProfile) {
+            oldProfile.close();
+        }
+    }
+
+    /**
+     * 移除客户端配置，其连接池在进行中的请求完成后关闭（已构建的请求再发送时抛出异常）
+     *
+     * @param profileName 客户端配置名称
+     */
+    public static void removeProfile(String profileName) {
+        HttpClientProfile clientProfile = PROFILES.remove(profileName);
+        if (clientProfile != null) {
+            clientProfile.close();
+        }
+    }
+
+    /**
+     * 根据名称获取客户端配置
+     *
+     * @param profileName 客户端配置名称，为null或default时返回null（即默认配置）
+     * @return 客户端配置
+     */
+    private static HttpClientProfile getProfile(String profileName) {
+        if (profileName == null || DEFAULT_PROFILE.equals(profileName)) {
+            return null;
+        }
+        HttpClientProfile clientProfile = PROFILES.get(profileName);
+        if (clientProfile == null) {
+            throw new RuntimeException("客户端配置不存在：" + profileName);
+        }
+        return clientProfile;
+    }
+
+    /**
+     * 根据地址构建路由信息（协议+ip+端口），与连接池内部实际使用的路由保持一致<br/>
+     * 注：未写端口时按协议补全默认端口（http:80、https:443），https路由标记为安全连接
+     *
+     * @param uri 请求地址或路由地址，如：https://192.168.0.2:9999
+     * @return 路由信息
+     */
+    static HttpRoute createHttpRoute(URI uri) {
+        String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase();
+        boolean secure = "https".equals(scheme);
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(scheme, uri.getHost(), port), null, secure);
     }
 
     /**
@@ -328,10 +1010,11 @@ public class HttpClientUtils {
         }
 
         // 创建 HttpClient 对象
-        closeableHttpClient = HttpClients.custom()
-                .setConnectionManager(connectionManager)
-                .addRequestInterceptorFirst(httpRequestInterceptor)
-                .addResponseInterceptorFirst(httpResponseInterceptor)
+        closeableHttpClient = applyExecChain(HttpClients.custom()
+                        .setConnectionManager(connectionManager)
+                        .addRequestInterceptorFirst(httpRequestInterceptor)
+                        .addResponseInterceptorFirst(httpResponseInterceptor),
+                RETRY_STRATEGY, METRICS, () -> circuitBreaker, RATE_LIMITERS)
                 .build();
     }
 
@@ -342,23 +1025,199 @@ public class HttpClientUtils {
      */
     public static void customCreateCloseableHttpClient(HttpClientBuilder httpClientBuilder) {
         // 通过传入的HttpClientBuilder生成HttpClient并设置静态全局CloseableHttp变量
-        closeableHttpClient = httpClientBuilder.setConnectionManager(connectionManager).build();
+        closeableHttpClient = applyExecChain(httpClientBuilder.setConnectionManager(connectionManager),
+                RETRY_STRATEGY, METRICS, () -> circuitBreaker, RATE_LIMITERS)
+                .build();
     }
 
     /**
-     * 构建请求的URL地址信息和设置请求参数拼接到URL地址后
+     * 创建一个基本可关闭的异步HttpClient，并设置基本配置（创建后立即启动I/O Reactor）
      *
-     * @return URI地址（就是请求地址）
-     * @throws NullPointerException 空指针异常（URL地址为空）
-     * @throws URISyntaxException   URI语法异常（生成URI的时候）
+     * @param httpRequestInterceptor  请求开始拦截器（若传入则使用，若不传入则使用默认）
+     * @param httpResponseInterceptor 响应开始拦截器（若传入则使用，若不传入则使用默认）
      */
-    private URI createRequestUrl() throws URISyntaxException {
-        // 校验请求地址
+    public static synchronized void createCloseableHttpAsyncClient(HttpRequestInterceptor httpRequestInterceptor,
+                                                                   HttpResponseInterceptor httpResponseInterceptor) {
+        // 异步请求的请求体由实体生产者（AsyncEntityProducer）按需写出，这里默认只记录请求类型及URL
+        if (httpRequestInterceptor == null) {
+            httpRequestInterceptor = (httpRequest, entityDetails, httpContext) ->
+                    log.info("异步请求类型：{} ===> 请求URL：{}", httpRequest.getMethod(),
+                            httpRequest.getScheme() + ":" + httpRequest.getAuthority() + httpRequest.getPath());
+        }
+        if (httpResponseInterceptor == null) {
+            httpResponseInterceptor = (httpResponse, entityDetails, httpContext) ->
+                    log.info("异步响应码：{}", httpResponse.getCode());
+        }
+        customCreateCloseableHttpAsyncClient(HttpAsyncClients.custom()
+                .addRequestInterceptorFirst(httpRequestInterceptor)
+                .addResponseInterceptorFirst(httpResponseInterceptor));
+    }
+
+    /**
+     * 自定义构建一个基本可关闭的异步HttpClient（若已存在旧的异步客户端则优雅关闭）
+     *
+     * @param httpAsyncClientBuilder 自定义异步HttpClient构造（无需设置连接池管理器和I/O Reactor配置，方法内部会设置）
+     */
+    public static synchronized void customCreateCloseableHttpAsyncClient(HttpAsyncClientBuilder httpAsyncClientBuilder) {
+        if (asyncConnectionManager == null) {
+            createPoolingAsyncClientConnectionManager(null);
+        }
+        // I/O Reactor配置：少量线程承载全部连接的读写事件
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(IO_REACTOR_THREAD_COUNT)
+                .setSoTimeout(SOCKET_TIMEOUT.intValue(), TIME_UNIT)
+                .build();
+        CloseableHttpAsyncClient asyncClient = applyExecChain(httpAsyncClientBuilder
+                        .setConnectionManager(asyncConnectionManager)
+                        // 连接池管理器由本工具类统一维护，关闭旧客户端时不关闭连接池管理器
+                        .setConnectionManagerShared(true)
+                        .setIOReactorConfig(ioReactorConfig),
+                RETRY_STRATEGY, METRICS, () -> circuitBreaker, RATE_LIMITERS)
+                .build();
+        asyncClient.start();
+        CloseableHttpAsyncClient oldAsyncClient = closeableHttpAsyncClient;
+        closeableHttpAsyncClient = asyncClient;
+        if (oldAsyncClient != null) {
+            oldAsyncClient.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    /**
+     * 创建一个基本可关闭的HTTP/2异步客户端（创建后立即启动I/O Reactor）
+     *
+     * @param h2Config HTTP/2配置（如并发流数、窗口大小），传null使用默认配置
+     */
+    public static synchronized void createCloseableHttp2AsyncClient(H2Config h2Config) {
+        if (h2Config == null) {
+            h2Config = H2Config.custom()
+                    .setMaxConcurrentStreams(H2_MAX_CONCURRENT_STREAMS)
+                    .setInitialWindowSize(H2_INITIAL_WINDOW_SIZE)
+                    .setPushEnabled(false)
+                    .build();
+        }
+        customCreateCloseableHttp2AsyncClient(HttpAsyncClients.customHttp2()
+                .setH2Config(h2Config)
+                .addRequestInterceptorFirst((httpRequest, entityDetails, httpContext) ->
+                        log.info("HTTP/2请求类型：{} ===> 请求URL：{}", httpRequest.getMethod(),
+                                httpRequest.getScheme() + ":" + httpRequest.getAuthority() + httpRequest.getPath()))
+                .addResponseInterceptorFirst((httpResponse, entityDetails, httpContext) ->
+                        log.info("HTTP/2响应码：{}", httpResponse.getCode())));
+    }
+
+    /**
+     * 自定义构建一个基本可关闭的HTTP/2异步客户端（若已存在旧的客户端则优雅关闭）
+     *
+     * @param h2AsyncClientBuilder 自定义HTTP/2客户端构造（无需设置TLS策略、连接配置和I/O Reactor配置，方法内部会设置）
+     */
+    public static synchronized void customCreateCloseableHttp2AsyncClient(H2AsyncClientBuilder h2AsyncClientBuilder) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(IO_REACTOR_THREAD_COUNT)
+                .setSoTimeout(SOCKET_TIMEOUT.intValue(), TIME_UNIT)
+                .build();
+        CloseableHttpAsyncClient http2AsyncClient = applyExecChain(h2AsyncClientBuilder
+                        .setTlsStrategy(TlsPolicy.createHttp2TlsStrategy(getDefaultSslContext(), TLS_POLICY, METRICS))
+                        .setDefaultConnectionConfig(createDefaultConnectionConfig())
+                        .setDnsResolver(DNS_RESOLVER)
+                        .setIOReactorConfig(ioReactorConfig),
+                RETRY_STRATEGY, METRICS, () -> circuitBreaker, RATE_LIMITERS)
+                .build();
+        http2AsyncClient.start();
+        CloseableHttpAsyncClient oldHttp2AsyncClient = closeableHttp2AsyncClient;
+        closeableHttp2AsyncClient = http2AsyncClient;
+        if (oldHttp2AsyncClient != null) {
+            oldHttp2AsyncClient.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    /**
+     * 设置同步客户端的重试策略及请求执行链拦截器（默认配置与客户端配置共用）：
+     * 重试 → 限流（RateLimiter）→ 熔断（CircuitBreaker）→ 路由指标（HttpClientMetrics）→ 协议处理（PROTOCOL）
+     *
+     * @param httpClientBuilder 同步客户端构造
+     * @param retryStrategy     重试策略
+     * @param metrics           路由指标
+     * @param circuitBreaker    获取当前的熔断器（为null则不熔断）
+     * @param rateLimiters      设置了限流的路由及其限流器
+     * @return 同步客户端构造
+     */
+    static HttpClientBuilder applyExecChain(HttpClientBuilder httpClientBuilder,
+                                            HttpRequestRetryStrategy retryStrategy, HttpClientMetrics metrics,
+                                            Supplier<CircuitBreaker> circuitBreaker,
+                                            Map<HttpRoute, RateLimiter> rateLimiters) {
+        return httpClientBuilder
+                .setRetryStrategy(retryStrategy)
+                .addExecInterceptorBefore(ChainElement.PROTOCOL.name(), HttpClientMetrics.EXEC_INTERCEPTOR_NAME,
+                        metrics.createExecInterceptor())
+                .addExecInterceptorBefore(HttpClientMetrics.EXEC_INTERCEPTOR_NAME, CircuitBreaker.EXEC_INTERCEPTOR_NAME,
+                        CircuitBreaker.createExecInterceptor(circuitBreaker))
+                .addExecInterceptorBefore(CircuitBreaker.EXEC_INTERCEPTOR_NAME, RateLimiter.EXEC_INTERCEPTOR_NAME,
+                        RateLimiter.createExecInterceptor(rateLimiters, metrics));
+    }
+
+    /**
+     * 设置异步客户端的重试策略及请求执行链拦截器，顺序同applyExecChain(HttpClientBuilder, ...)
+     *
+     * @param httpAsyncClientBuilder 异步客户端构造
+     * @param retryStrategy          重试策略
+     * @param metrics                路由指标
+     * @param circuitBreaker         获取当前的熔断器（为null则不熔断）
+     * @param rateLimiters           设置了限流的路由及其限流器
+     * @return 异步客户端构造
+     */
+    static HttpAsyncClientBuilder applyExecChain(HttpAsyncClientBuilder httpAsyncClientBuilder,
+                                                 HttpRequestRetryStrategy retryStrategy, HttpClientMetrics metrics,
+                                                 Supplier<CircuitBreaker> circuitBreaker,
+                                                 Map<HttpRoute, RateLimiter> rateLimiters) {
+        return httpAsyncClientBuilder
+                .setRetryStrategy(retryStrategy)
+                .addExecInterceptorBefore(ChainElement.PROTOCOL.name(), HttpClientMetrics.EXEC_INTERCEPTOR_NAME,
+                        metrics.createAsyncExecInterceptor())
+                .addExecInterceptorBefore(HttpClientMetrics.EXEC_INTERCEPTOR_NAME, CircuitBreaker.EXEC_INTERCEPTOR_NAME,
+                        CircuitBreaker.createAsyncExecInterceptor(circuitBreaker))
+                .addExecInterceptorBefore(CircuitBreaker.EXEC_INTERCEPTOR_NAME, RateLimiter.EXEC_INTERCEPTOR_NAME,
+                        RateLimiter.createAsyncExecInterceptor(rateLimiters, metrics));
+    }
+
+    /**
+     * 设置HTTP/2异步客户端的重试策略及请求执行链拦截器（H2AsyncClientBuilder与HttpAsyncClientBuilder没有共同的父类），
+     * 顺序同applyExecChain(HttpClientBuilder, ...)
+     *
+     * @param h2AsyncClientBuilder HTTP/2异步客户端构造
+     * @param retryStrategy        重试策略
+     * @param metrics              路由指标
+     * @param circuitBreaker       获取当前的熔断器（为null则不熔断）
+     * @param rateLimiters         设置了限流的路由及其限流器
+     * @return HTTP/2异步客户端构造
+     */
+    static H2AsyncClientBuilder applyExecChain(H2AsyncClientBuilder h2AsyncClientBuilder,
+                                               HttpRequestRetryStrategy retryStrategy, HttpClientMetrics metrics,
+                                               Supplier<CircuitBreaker> circuitBreaker,
+                                               Map<HttpRoute, RateLimiter> rateLimiters) {
+        return h2AsyncClientBuilder
+                .setRetryStrategy(retryStrategy)
+                .addExecInterceptorBefore(ChainElement.PROTOCOL.name(), HttpClientMetrics.EXEC_INTERCEPTOR_NAME,
+                        metrics.createAsyncExecInterceptor())
+                .addExecInterceptorBefore(HttpClientMetrics.EXEC_INTERCEPTOR_NAME, CircuitBreaker.EXEC_INTERCEPTOR_NAME,
+                        CircuitBreaker.createAsyncExecInterceptor(circuitBreaker))
+                .addExecInterceptorBefore(CircuitBreaker.EXEC_INTERCEPTOR_NAME, RateLimiter.EXEC_INTERCEPTOR_NAME,
+                        RateLimiter.createAsyncExecInterceptor(rateLimiters, metrics));
+    }
+
+    /**
+     * 构建请求的URL地址信息和设置请求参数拼接到URL地址后
+     *
+     * @return URI地址（就是请求地址）
+     * @throws NullPointerException 空指针异常（URL地址为空）
+     * @throws URISyntaxException   URI语法异常（生成URI的时候）
+     */
+    private URI createRequestUrl() throws URISyntaxException {
+        // 校验请求地址
         if (requestUrl == null || "".equals(requestUrl)) {
             throw new NullPointerException("请求URL不可为空！");
         }
-        // 构建URL生成对象
-        URIBuilder uriBuilder = new URIBuilder(requestUrl);
+        // 构建URL生成对象（服务请求地址lb://服务名/路径先替换为选出的实例地址）
+        URIBuilder uriBuilder = new URIBuilder(ServiceLoadBalancer.isServiceUrl(requestUrl)
+                ? resolveServiceUrl() : requestUrl);
         // 若请求参数不为null则添加请求参数，如?aa=xx&bb=xx
         if (params != null && !params.isEmpty()) {
             // 添加地址参数
@@ -369,6 +1228,23 @@ public class HttpClientUtils {
         return uriBuilder.build();
     }
 
+    /**
+     * 按服务的负载均衡选出一个实例，把服务请求地址（lb://服务名/路径）替换为该实例的地址
+     *
+     * @return 实例的请求地址
+     */
+    private String resolveServiceUrl() {
+        URI serviceUri = URI.create(requestUrl);
+        String name = serviceUri.getHost() == null ? null : serviceUri.getHost().toLowerCase(Locale.ROOT);
+        ServiceLoadBalancer loadBalancer = name == null ? null : SERVICES.get(name);
+        if (loadBalancer == null) {
+            log.warn("服务未注册：{}", requestUrl);
+            throw new RuntimeException("服务未注册：" + requestUrl);
+        }
+        HttpClientMetrics metrics = profile == null ? METRICS : profile.getMetrics();
+        return loadBalancer.resolve(serviceUri, metrics::getRouteMetrics, this::getRouteMaxConcurrency);
+    }
+
     /**
      * 设置自定义的请求配置，每个请求都有自己的配置，若设置null或不调用方法则有默认的配置<br/>
      * 注：设置这个requestConfig超时时间是高于连接池管理器的超时时间
@@ -379,10 +1255,17 @@ public class HttpClientUtils {
         // 校验是否请求设置自定义配置，若没有则初始化一个
         if (requestConfig == null) {
             // 设置单次请求的配置信息
-            requestConfig = RequestConfig.custom()
-                    // 连接管理器获取连接的超时时间
-                    .setConnectionRequestTimeout(CONNECTION_POOL_MANAGER_TIMEOUT, TIME_UNIT)
-                    .setResponseTimeout(RESPONSE_TIMEOUT, TIME_UNIT)    // 响应超时时间
+            RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
+            if (profile != null) {
+                // 使用客户端配置的超时时间
+                requestConfigBuilder.setConnectionRequestTimeout(profile.getConnectionRequestTimeout())
+                        .setResponseTimeout(profile.getResponseTimeout());
+            } else {
+                // 连接管理器获取连接的超时时间
+                requestConfigBuilder.setConnectionRequestTimeout(CONNECTION_POOL_MANAGER_TIMEOUT, TIME_UNIT)
+                        .setResponseTimeout(RESPONSE_TIMEOUT, TIME_UNIT);   // 响应超时时间
+            }
+            requestConfig = requestConfigBuilder
                     .setContentCompressionEnabled(true)                 // 是否设置请求内容压缩
                     .setRedirectsEnabled(true)                          // 是否允许重定向
                     .setMaxRedirects(3)                                 // 最大重定向次数
@@ -402,110 +1285,873 @@ public class HttpClientUtils {
     }
 
     /**
-     * 前置请求方法，用来封装请求路径和设置请求头以及请求配置
+     * 前置请求方法，用来封装请求路径和设置请求头以及请求配置
+     *
+     * @return ClassicHttpRequest Http请求对象
+     */
+    ClassicHttpRequest beforeSending() {
+        try {
+            // 获取地址URL并根据地址构建请求对象
+            return beforeSending(createRequestUrl());
+        } catch (URISyntaxException e) {
+            log.warn("http请求地址异常：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 前置请求方法，使用已确定的请求地址（服务请求地址lb://已替换为选出的实例地址）封装请求，
+     * 一次请求拆分的多个请求（分片、分段、续传、批量调度）共用同一个地址，保证发往同一个实例
+     *
+     * @param uri 请求地址（含请求参数）
+     * @return ClassicHttpRequest Http请求对象
+     */
+    private ClassicHttpRequest beforeSending(URI uri) {
+        // 校验请求类型
+        if (requestType == null || "".equals(requestType)) {
+            throw new NullPointerException("请求类型不可为空！");
+        }
+        // JDK 14+语法
+        // ClassicHttpRequest httpRequest = switch (requestType.toUpperCase()) {
+        //     case HttpConstant.HTTP_GET -> new HttpGet(uri);
+        //     case HttpConstant.HTTP_POST -> new HttpPost(uri);
+        //     case HttpConstant.HTTP_PUT -> new HttpPut(uri);
+        //     case HttpConstant.HTTP_DELETE -> new HttpDelete(uri);
+        //     default -> throw new RuntimeException("请求类型无法识别！");
+        // };
+        ClassicHttpRequest httpRequest = null;
+        switch (requestType.toUpperCase()) {
+            case HttpConstant.HTTP_GET:
+                httpRequest = new HttpGet(uri);
+                break;
+            case HttpConstant.HTTP_POST:
+                httpRequest = new HttpPost(uri);
+                break;
+            case HttpConstant.HTTP_PUT:
+                httpRequest = new HttpPut(uri);
+                break;
+            case HttpConstant.HTTP_DELETE:
+                httpRequest = new HttpDelete(uri);
+                break;
+            default:
+                throw new RuntimeException("请求类型无法识别！");
+        }
+        // 设置请求基本配置，如响应超时...
+        setRequestConfig(httpRequest);
+        // 添加常规请求头信息
+        httpRequest.addHeader(new BasicHeader("Accept", "application/json, text/plain, */*"));
+        httpRequest.addHeader(new BasicHeader("Accept-Language", "zh-CN,zh;q=0.9,en;"));
+        httpRequest.addHeader(new BasicHeader("Connection", "keep-alive"));
+        httpRequest.addHeader(new BasicHeader("User-Agent",
+                "Apache-HttpClient/5.2.1 (Java/1.8.0_161)"));
+        // 若存在额外请求头则也添加
+        if (reqHeaders != null && !reqHeaders.isEmpty()) {
+            for (Map.Entry<String, String> reqHeader : reqHeaders.entrySet()) {
+                httpRequest.addHeader(new BasicHeader(reqHeader.getKey(), reqHeader.getValue()));
+            }
+        }
+        return httpRequest;
+    }
+
+    /***
+     * 发送常用请求（JSON类型请求体）
+     * @return HttpResult响应数据（响应码、响应头、响应体）
+     */
+    public HttpResult send() {
+        // 调用请求前置操作获取Http请求对象
+        ClassicHttpRequest httpRequest = beforeSending();
+        // 添加请求体信息（要发什么样的数据通过修改 ContentType.APPLICATION_JSON）
+        AsyncEntityProducer entityProducer = setRequestEntity(httpRequest, ContentType.APPLICATION_JSON);
+        // 相同的GET请求正在进行中时等待并共享其响应
+        if (isSingleFlight(httpRequest)) {
+            return SINGLE_FLIGHT.execute(getSingleFlightKey(httpRequest), getSingleFlightTimeout(),
+                    () -> sendToHttpResult(httpRequest, null));
+        }
+        return sendToHttpResult(httpRequest, entityProducer);
+    }
+
+    /**
+     * 设置同步请求的文本请求体：HTTP/2路由的请求体按异步方式构建（由多路复用连接发送），其余路由设置到请求对象上
+     *
+     * @param httpRequest Http请求对象
+     * @param contentType 请求体类型
+     * @return HTTP/2路由的异步请求体，没有请求体或非HTTP/2路由时为null
+     */
+    private AsyncEntityProducer setRequestEntity(ClassicHttpRequest httpRequest, ContentType contentType) {
+        if (requestBody == null || "".equals(requestBody)) {
+            return null;
+        }
+        if (getHttp2StreamLimiter(httpRequest) != null) {
+            return createRequestEntityProducer(contentType);
+        }
+        httpRequest.setEntity(createRequestEntity(contentType));
+        return null;
+    }
+
+    /**
+     * 本次请求是否合并相同的请求（只合并无请求体的GET请求）
+     *
+     * @param httpRequest Http请求对象
+     * @return true合并
+     */
+    private boolean isSingleFlight(ClassicHttpRequest httpRequest) {
+        return singleFlight && HttpConstant.HTTP_GET.equalsIgnoreCase(httpRequest.getMethod())
+                && (requestBody == null || "".equals(requestBody));
+    }
+
+    /**
+     * 合并的调用方等待进行中请求的最长时间：请求配置的租用连接超时 + 响应超时（一次请求正常情况下的最长耗时），
+     * 未设置响应超时时不限制
+     *
+     * @return 最长等待时间（纳秒），0则不限制
+     */
+    private long getSingleFlightTimeout() {
+        Timeout responseTimeout = requestConfig.getResponseTimeout();
+        if (!TimeValue.isPositive(responseTimeout)) {
+            return 0;
+        }
+        Timeout connectionRequestTimeout = requestConfig.getConnectionRequestTimeout();
+        return responseTimeout.toNanoseconds()
+                + (TimeValue.isPositive(connectionRequestTimeout) ? connectionRequestTimeout.toNanoseconds() : 0);
+    }
+
+    /**
+     * 请求合并的键，不同客户端配置（SSL上下文、拦截器可能不同）的请求不合并
+     *
+     * @param httpRequest Http请求对象
+     * @return 请求合并的键
+     */
+    private String getSingleFlightKey(ClassicHttpRequest httpRequest) {
+        String key = SINGLE_FLIGHT.createKey(httpRequest);
+        return profile == null ? key : profile.getName() + ' ' + key;
+    }
+
+    /**
+     * 发送常用请求（JSON类型请求体），响应体以流的方式交给处理器处理，不会整体转换为字符串<br/>
+     * 注：处理器返回后未读完的响应体会被读完丢弃，连接随即归还连接池；HTTP/2路由同样走HTTP/1.1连接池
+     *
+     * @param responseBodyHandler 流式响应体处理器，如：ResponseBodyHandler.ofChunks(chunk -> ...)
+     * @param <T>                 处理结果类型
+     * @return 处理器的处理结果
+     */
+    public <T> T send(ResponseBodyHandler<T> responseBodyHandler) {
+        // 调用请求前置操作获取Http请求对象
+        ClassicHttpRequest httpRequest = beforeSending();
+        // 添加请求体信息
+        if (requestBody != null && !"".equals(requestBody)) {
+            httpRequest.setEntity(createRequestEntity(ContentType.APPLICATION_JSON));
+        }
+        try {
+            return getProfileHttpClient().execute(httpRequest, classicHttpResponse -> {
+                HttpResult httpResult = createHttpResult(classicHttpResponse.getCode(),
+                        classicHttpResponse.getHeaders());
+                HttpEntity entity = classicHttpResponse.getEntity();
+                try (InputStream bodyStream = entity == null
+                        ? new ByteArrayInputStream(new byte[0]) : entity.getContent()) {
+                    return responseBodyHandler.handle(httpResult, bodyStream);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("响应IO流操作失败：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /***
+     * 发送请求（表单方式提交）
+     * @return HttpResult响应数据（响应码、响应头、响应体）
+     */
+    public HttpResult sendFrom() {
+        // 调用请求前置操作获取Http请求对象
+        ClassicHttpRequest httpRequest = beforeSending();
+        // 添加请求体信息
+        AsyncEntityProducer entityProducer = setRequestEntity(httpRequest, ContentType.APPLICATION_FORM_URLENCODED);
+        return sendToHttpResult(httpRequest, entityProducer);
+    }
+
+    /**
+     * 发送请求（单个或批量文件上传）<br/>
+     * 注：服务端接收单个文件可以通过这个方法获取：xxx(@RequestParam("file") MultipartFile file)<br/>
+     * 注：服务端接收多个文件可以通过这个方法获取：xxx(@RequestParam("files") MultipartFile [] files)<br/>
+     * 注：文件来源于Builder的setUploadFiles（文件流）与setUploadParts（长度已知的文件、文件通道、缓冲区），
+     * 只使用setUploadParts时请求带有Content-Length，文件内容发送时才从磁盘读取
+     *
+     * @param paramName 上传文件时对应对方服务端接收参数的名称，一一对应
+     * @return HttpResult响应数据（响应码、响应头、响应体）
+     */
+    public HttpResult sendFile(String paramName) {
+        // 调用请求前置操作获取Http请求对象
+        ClassicHttpRequest httpRequest = beforeSending();
+        // HTTP/2路由的请求体以流的方式交给多路复用连接发送，文件内容边读边发
+        if (getHttp2StreamLimiter(httpRequest) != null) {
+            return sendToHttpResult(httpRequest, new StreamingEntityProducer(createMultipartEntity(paramName)));
+        }
+        // 设置请求体
+        httpRequest.setEntity(createMultipartEntity(paramName));
+        return sendToHttpResult(httpRequest, null);
+    }
+
+    /**
+     * 大文件分片并发上传：按partSize拆分文件，以parallelism个并发（不超过该路由的连接池最大连接数）上传各分片，
+     * 全部完成后发送合并请求；已完成的分片记录在文件旁的状态文件（xxx.upload）中，中断后再次调用会跳过已完成的分片<br/>
+     * 注：分片请求使用Builder的请求地址、请求方式（如PUT）、请求头，请求地址经scheme转换；合并请求为POST（JSON请求体）
+     *
+     * @param file        上传的文件
+     * @param partSize    分片字节数（必须大于0）
+     * @param parallelism 并发上传的分片数
+     * @param scheme      分片及合并请求的地址规则，如：ChunkedUploadScheme.ofPath()
+     * @return HttpResult合并请求的响应数据（响应码、响应头、响应体）
+     * @throws IllegalArgumentException 分片字节数小于等于0
+     */
+    public HttpResult uploadChunked(Path file, long partSize, int parallelism, ChunkedUploadScheme scheme) {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("分片上传的分片字节数必须大于0：partSize=" + partSize);
+        }
+        // 调用请求前置操作获取Http请求对象，用于确定请求地址及路由
+        ClassicHttpRequest baseRequest = beforeSending();
+        URI baseUri;
+        String baseUrl;
+        HttpRoute route;
+        try {
+            baseUri = baseRequest.getUri();
+            baseUrl = baseUri.toString();
+            route = createHttpRoute(baseUri);
+        } catch (URISyntaxException e) {
+            log.warn("http请求地址异常：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+        CloseableHttpClient httpClient = getProfileHttpClient();
+        // 并发数超过该路由的最大连接数时，多出的分片只会在连接池中排队等待
+        int maxPerRoute = profile == null ? connectionManager.getMaxPerRoute(route) : profile.getMaxPerRoute(route);
+        ChunkedUploader uploader = new ChunkedUploader(file, partSize, Math.min(parallelism, maxPerRoute));
+        int partCount;
+        long startTime = System.currentTimeMillis();
+        try {
+            partCount = uploader.upload((uploadId, partNumber, part) -> {
+                // 各分片发往同一个地址（服务请求地址只选择一次实例）
+                ClassicHttpRequest partRequest = beforeSending(baseUri);
+                partRequest.setUri(URI.create(scheme.partUrl(baseUrl, uploadId, partNumber)));
+                partRequest.setEntity(new EntityTemplate(part.getContentLength(), part.getContentType(), null,
+                        part::writeTo));
+                int code = httpClient.execute(partRequest, classicHttpResponse -> {
+                    EntityUtils.consume(classicHttpResponse.getEntity());
+                    return classicHttpResponse.getCode();
+                });
+                if (code < 200 || code >= 300) {
+                    throw new IOException("分片" + partNumber + "上传失败，响应码：" + code);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("文件分片上传失败（已完成的分片已记录，可再次上传续传）：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+        // 全部分片完成，发送合并请求
+        HttpPost commitRequest = new HttpPost(URI.create(scheme.commitUrl(baseUrl, uploader.getUploadId())));
+        commitRequest.setHeaders(baseRequest.getHeaders());
+        commitRequest.setConfig(requestConfig);
+        commitRequest.setEntity(new StringEntity(scheme.commitBody(uploader.getUploadId(),
+                file.getFileName().toString(), file.toFile().length(), partSize, partCount),
+                ContentType.APPLICATION_JSON));
+        HttpResult httpResult = sendToHttpResult(commitRequest, null);
+        if (httpResult.getCode() >= 200 && httpResult.getCode() < 300) {
+            try {
+                uploader.complete();
+            } catch (IOException e) {
+                log.warn("上传状态文件删除失败：{}", e.getMessage());
+            }
+            log.info("文件分片上传完成：{}（{}个分片，耗时{}ms）", file, partCount,
+                    System.currentTimeMillis() - startTime);
+        }
+        return httpResult;
+    }
+
+    /**
+     * 下载文件并直接写入本地文件（边接收边通过FileChannel写入磁盘，不在内存中缓存文件内容，内存占用与文件大小无关）<br/>
+     * 支持断点续传：下载中断时通过Range/If-Range从已写入的位置继续下载，服务端文件已变化时自动从头下载；
+     * 若target为文件路径，未下载完成的临时文件（xxx.part）会保留，下次调用时继续下载
+     *
+     * @param target 保存的文件路径；若为已存在的目录则文件名称从Content-Disposition解析（规则同send）
+     * @return HttpResult响应数据（响应码、响应头、文件名、文件路径；非2xx响应时为响应体信息）
+     */
+    public HttpResult downloadTo(Path target) {
+        try {
+            return downloadTo(target, createRequestUrl());
+        } catch (URISyntaxException e) {
+            log.warn("http请求地址异常：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 下载文件并直接写入本地文件，规则同downloadTo(Path)；每次续传都发往同一个请求地址（服务请求地址只选择一次实例）
+     *
+     * @param target 保存的文件路径或已存在的目录
+     * @param uri    请求地址（含请求参数）
+     * @return HttpResult响应数据
+     */
+    private HttpResult downloadTo(Path target, URI uri) {
+        // 目标为文件时可以沿用上次未下载完成的临时文件，目标为目录时要等响应头返回才知道文件名
+        DownloadProgress progress = new DownloadProgress();
+        if (!Files.isDirectory(target)) {
+            progress.load(target);
+        }
+        for (int attempt = 0; ; attempt++) {
+            // 调用请求前置操作获取Http请求对象
+            ClassicHttpRequest httpRequest = beforeSending(uri);
+            // 不协商内容压缩，保证Range的字节偏移与文件内容一致
+            httpRequest.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+            if (progress.offset > 0) {
+                httpRequest.setHeader(HttpHeaders.RANGE, "bytes=" + progress.offset + "-");
+                httpRequest.setHeader(HttpHeaders.IF_RANGE, progress.validator);
+            }
+            try {
+                return getProfileHttpClient().execute(httpRequest,
+                        classicHttpResponse -> writeToFile(classicHttpResponse, target, progress));
+            } catch (IOException e) {
+                if (attempt >= DOWNLOAD_RESUME_RETRIES) {
+                    log.warn("文件下载失败：{}", e.getMessage());
+                    throw new RuntimeException(e);
+                }
+                // 没有校验值无法确认服务端文件未变化，只能从头下载
+                if (progress.validator == null) {
+                    progress.offset = 0;
+                }
+                log.warn("文件下载中断，已写入{}字节，开始第{}次续传：{}", progress.offset, attempt + 1, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 将下载的响应流写入文件通道（先写入临时文件，下载完成后再重命名为目标文件）
+     *
+     * @param response 响应信息
+     * @param target   保存的文件路径或目录
+     * @param progress 下载进度（记录已写入的字节数及续传校验值）
+     * @return HttpResult响应数据
+     * @throws IOException   响应流读取或文件写入异常
+     * @throws HttpException 响应体解析异常
+     */
+    private static HttpResult writeToFile(ClassicHttpResponse response, Path target, DownloadProgress progress)
+            throws IOException, HttpException {
+        HttpResult httpResult = createHttpResult(response.getCode(), response.getHeaders());
+        Map<String, List<String>> respHeaders = httpResult.getRespHeaders();
+        HttpEntity entity = response.getEntity();
+        if (response.getCode() == 416 && progress.offset > 0) {
+            // 续传的范围无效（如本地临时文件大于服务端文件），丢弃临时文件后从头下载
+            progress.offset = 0;
+            progress.validator = null;
+            throw new IOException("续传范围无效，重新下载");
+        }
+        if (response.getCode() < 200 || response.getCode() >= 300) {
+            httpResult.setRespBody(entity == null ? null : EntityUtils.toString(entity, StandardCharsets.UTF_8));
+            return httpResult;
+        }
+        // 206且范围起点与已写入字节数一致才是续传，否则（如If-Range校验失败返回200）从头写入
+        if (response.getCode() != 206 || getContentRangeStart(respHeaders) != progress.offset) {
+            progress.offset = 0;
+        }
+        if (progress.targetFile == null) {
+            progress.targetFile = resolveTargetFile(target, respHeaders);
+        }
+        Path partFile = Paths.get(progress.targetFile + DOWNLOAD_PART_SUFFIX);
+        if (progress.offset > 0 && (!Files.exists(partFile) || Files.size(partFile) < progress.offset)) {
+            // 临时文件已不完整，续传的数据无法拼接，丢弃后从头下载
+            progress.offset = 0;
+            progress.validator = null;
+            throw new IOException("未下载完成的临时文件已丢失，重新下载");
+        }
+        progress.saveValidator(respHeaders);
+        long startOffset = progress.offset;
+        try (FileChannel fileChannel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            fileChannel.truncate(progress.offset);
+            if (entity != null) {
+                try (ReadableByteChannel source = Channels.newChannel(entity.getContent())) {
+                    long transferred;
+                    while ((transferred = fileChannel.transferFrom(source, progress.offset, DOWNLOAD_TRANSFER_CHUNK)) > 0) {
+                        progress.offset += transferred;
+                    }
+                }
+                // 连接被提前关闭时响应流可能直接结束，需要按Content-Length校验是否完整
+                if (entity.getContentLength() >= 0 && progress.offset - startOffset != entity.getContentLength()) {
+                    throw new IOException("文件下载不完整，预期：" + entity.getContentLength()
+                            + "字节，实际：" + (progress.offset - startOffset) + "字节");
+                }
+            }
+        }
+        Files.move(partFile, progress.targetFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Paths.get(progress.targetFile + DOWNLOAD_VALIDATOR_SUFFIX));
+        httpResult.setFileName(progress.targetFile.getFileName().toString());
+        httpResult.setFilePath(progress.targetFile);
+        return httpResult;
+    }
+
+    /**
+     * 根据响应头确定保存的文件路径（target为目录时文件名称从Content-Disposition解析）
+     *
+     * @param target      保存的文件路径或目录
+     * @param respHeaders 响应头集合
+     * @return 保存的文件路径
+     * @throws IOException 文件名称解码失败
+     */
+    private static Path resolveTargetFile(Path target, Map<String, List<String>> respHeaders) throws IOException {
+        if (!Files.isDirectory(target)) {
+            return target;
+        }
+        List<String> types = respHeaders.get("content-type");
+        String contentType = types == null || types.isEmpty() ? "application/octet-stream" : types.get(0);
+        // 只取文件名部分，防止服务端返回的文件名带有路径；当前文件系统无法表示的文件名则自动生成
+        String fileName;
+        try {
+            fileName = Paths.get(resolveFileName(respHeaders, contentType)).getFileName().toString();
+        } catch (InvalidPathException e) {
+            fileName = UUID.randomUUID() + "." + contentType.split("/")[1];
+        }
+        return target.resolve(fileName);
+    }
+
+    /**
+     * 分段并发下载文件到本地（不校验文件摘要），详见{@link #downloadSegmented(Path, int, String, String)}
+     *
+     * @param target       保存的文件路径；若为已存在的目录则文件名称从Content-Disposition解析
+     * @param segmentCount 分段数（不超过该路由的连接池最大连接数）
+     * @return HttpResult响应数据（响应码、响应头、文件名、文件路径）
+     */
+    public HttpResult downloadSegmented(Path target, int segmentCount) {
+        return downloadSegmented(target, segmentCount, null, null);
+    }
+
+    /**
+     * 分段并发下载文件到本地：先通过HEAD请求探测Accept-Ranges、Content-Length，将文件按字节范围拆分为多段，
+     * 通过异步连接池的该路由连接并发下载，每段数据直接写入内存映射文件的对应区域；单段中断时只重试该段剩余的范围，
+     * 全部完成后校验文件摘要<br/>
+     * 注：服务端不支持范围请求或未返回文件大小时退化为downloadTo单连接下载；HEAD请求会沿用Builder设置的请求头
+     *
+     * @param target            保存的文件路径；若为已存在的目录则文件名称从Content-Disposition解析
+     * @param segmentCount      分段数（不超过该路由的连接池最大连接数）
+     * @param checksumAlgorithm 摘要算法（如：SHA-256、MD5），为null时若服务端返回Digest或Content-MD5响应头则按其校验
+     * @param expectedChecksum  预期摘要（十六进制或Base64）
+     * @return HttpResult响应数据（响应码、响应头、文件名、文件路径；非2xx响应时为响应体信息）
+     */
+    public HttpResult downloadSegmented(Path target, int segmentCount, String checksumAlgorithm,
+                                        String expectedChecksum) {
+        // 调用请求前置操作获取Http请求对象，探测请求沿用其请求地址、请求头及请求配置
+        ClassicHttpRequest httpRequest = beforeSending();
+        URI uri;
+        HttpHead headRequest;
+        HttpRoute route;
+        try {
+            uri = httpRequest.getUri();
+            headRequest = new HttpHead(uri);
+            route = createHttpRoute(uri);
+        } catch (URISyntaxException e) {
+            log.warn("http请求地址异常：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+        headRequest.setHeaders(httpRequest.getHeaders());
+        headRequest.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        headRequest.setConfig(requestConfig);
+        HttpResult probeResult;
+        try {
+            probeResult = getProfileHttpClient().execute(headRequest,
+                    classicHttpResponse -> createHttpResult(classicHttpResponse.getCode(),
+                            classicHttpResponse.getHeaders()));
+        } catch (IOException e) {
+            log.warn("响应IO流操作失败：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+        Map<String, List<String>> respHeaders = probeResult.getRespHeaders();
+        List<String> acceptRanges = respHeaders.get("accept-ranges");
+        List<String> contentLengths = respHeaders.get("content-length");
+        long contentLength = -1;
+        if (contentLengths != null && !contentLengths.isEmpty()) {
+            try {
+                contentLength = Long.parseLong(contentLengths.get(0).trim());
+            } catch (NumberFormatException e) {
+                contentLength = -1;
+            }
+        }
+        if (probeResult.getCode() != 200 || acceptRanges == null || !acceptRanges.contains("bytes")
+                || contentLength <= 0 || segmentCount <= 1) {
+            log.info("服务端不支持范围请求或未返回文件大小，改为单连接下载");
+            return downloadTo(target, uri);
+        }
+        // 未指定摘要时使用服务端提供的摘要（Digest: SHA-256=xxx 或 Content-MD5: xxx）
+        if (checksumAlgorithm == null || expectedChecksum == null) {
+            List<String> digests = respHeaders.get("digest");
+            List<String> contentMd5 = respHeaders.get("content-md5");
+            if (digests != null && !digests.isEmpty() && digests.get(0).indexOf('=') > 0) {
+                String digest = digests.get(0).split(",")[0].trim();
+                checksumAlgorithm = digest.substring(0, digest.indexOf('='));
+                expectedChecksum = digest.substring(digest.indexOf('=') + 1);
+            } else if (contentMd5 != null && !contentMd5.isEmpty()) {
+                checksumAlgorithm = "MD5";
+                expectedChecksum = contentMd5.get(0);
+            }
+        }
+        // 续传校验值：强ETag优先，其次Last-Modified，保证各段来自同一版本的文件
+        List<String> etags = respHeaders.get("etag");
+        List<String> lastModified = respHeaders.get("last-modified");
+        String validator = null;
+        if (etags != null && !etags.isEmpty() && !etags.get(0).startsWith("W/")) {
+            validator = etags.get(0);
+        } else if (lastModified != null && !lastModified.isEmpty()) {
+            validator = lastModified.get(0);
+        }
+        // 分段数不超过该路由的连接池最大连接数，否则多出的分段只会在连接池中排队
+        CloseableHttpAsyncClient asyncClient = getProfileHttpAsyncClient();
+        int count = Math.min(segmentCount, getRouteMaxConcurrency(route));
+        Path targetFile;
+        long startTime = System.currentTimeMillis();
+        try {
+            targetFile = resolveTargetFile(target, respHeaders);
+            new SegmentedDownloader(asyncClient, () -> {
+                // 各分段发往探测请求的地址（服务请求地址只选择一次实例）
+                ClassicHttpRequest segmentRequest = beforeSending(uri);
+                segmentRequest.removeHeaders("Connection");
+                return segmentRequest;
+            }, contentLength, validator).download(targetFile, count, checksumAlgorithm, expectedChecksum);
+        } catch (IOException e) {
+            log.warn("文件分段下载失败：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+        log.info("文件分段下载完成：{}（{}字节，{}段，耗时{}ms）", targetFile, contentLength, count,
+                System.currentTimeMillis() - startTime);
+        probeResult.setFileName(targetFile.getFileName().toString());
+        probeResult.setFilePath(targetFile);
+        return probeResult;
+    }
+
+    /**
+     * 解析Content-Range响应头的范围起点，如：bytes 100-999/1000 返回100
+     *
+     * @param respHeaders 响应头集合
+     * @return 范围起点，不存在或无法解析时返回-1
+     */
+    private static long getContentRangeStart(Map<String, List<String>> respHeaders) {
+        List<String> values = respHeaders.get("content-range");
+        if (values == null || values.isEmpty()) {
+            return -1;
+        }
+        String range = values.get(0).trim();
+        int start = range.indexOf(' ');
+        int end = range.indexOf('-');
+        if (start < 0 || end <= start) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(range.substring(start + 1, end).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /***
+     * 异步发送常用请求（JSON类型请求体），不占用调用线程，由I/O Reactor线程完成请求的发送与响应的接收
+     * @return 异步的HttpResult响应数据（响应码、响应头、响应体）
+     */
+    public CompletableFuture<HttpResult> sendAsync() {
+        // 调用请求前置操作获取Http请求对象
+        return sendAsync(beforeSending());
+    }
+
+    /**
+     * 异步发送已封装的请求（JSON类型请求体）
+     *
+     * @param httpRequest 前置操作封装的Http请求对象
+     * @return 异步的HttpResult响应数据
+     */
+    private CompletableFuture<HttpResult> sendAsync(ClassicHttpRequest httpRequest) {
+        // 添加请求体信息
+        AsyncEntityProducer entityProducer = null;
+        if (requestBody != null && !"".equals(requestBody)) {
+            entityProducer = createRequestEntityProducer(ContentType.APPLICATION_JSON);
+        }
+        if (isSingleFlight(httpRequest)) {
+            return SINGLE_FLIGHT.executeAsync(getSingleFlightKey(httpRequest),
+                    () -> isHedged(httpRequest) ? sendToHttpResultHedged(httpRequest)
+                            : sendToHttpResultAsync(httpRequest, null));
+        }
+        if (isHedged(httpRequest)) {
+            return sendToHttpResultHedged(httpRequest);
+        }
+        return sendToHttpResultAsync(httpRequest, entityProducer);
+    }
+
+    /***
+     * 异步发送请求（表单方式提交）
+     * @return 异步的HttpResult响应数据（响应码、响应头、响应体）
+     */
+    public CompletableFuture<HttpResult> sendFromAsync() {
+        // 调用请求前置操作获取Http请求对象
+        return sendFromAsync(beforeSending());
+    }
+
+    /**
+     * 异步发送已封装的请求（表单方式提交）
+     *
+     * @param httpRequest 前置操作封装的Http请求对象
+     * @return 异步的HttpResult响应数据
+     */
+    private CompletableFuture<HttpResult> sendFromAsync(ClassicHttpRequest httpRequest) {
+        // 添加请求体信息
+        AsyncEntityProducer entityProducer = null;
+        if (requestBody != null && !"".equals(requestBody)) {
+            entityProducer = createRequestEntityProducer(ContentType.APPLICATION_FORM_URLENCODED);
+        }
+        return sendToHttpResultAsync(httpRequest, entityProducer);
+    }
+
+    /**
+     * 异步发送请求（单个或批量文件上传），参数说明同sendFile<br/>
+     * 注：多部分实体由后台线程边读边写入固定大小的缓冲区，再由I/O Reactor发送，不会整体读入内存（以分块方式传输）
+     *
+     * @param paramName 上传文件时对应对方服务端接收参数的名称，一一对应
+     * @return 异步的HttpResult响应数据（响应码、响应头、响应体）
+     */
+    public CompletableFuture<HttpResult> sendFileAsync(String paramName) {
+        // 调用请求前置操作获取Http请求对象
+        return sendFileAsync(beforeSending(), paramName);
+    }
+
+    /**
+     * 异步发送已封装的请求（单个或批量文件上传）
+     *
+     * @param httpRequest 前置操作封装的Http请求对象
+     * @param paramName   上传文件时对应对方服务端接收参数的名称
+     * @return 异步的HttpResult响应数据
+     */
+    private CompletableFuture<HttpResult> sendFileAsync(ClassicHttpRequest httpRequest, String paramName) {
+        return sendToHttpResultAsync(httpRequest, new StreamingEntityProducer(createMultipartEntity(paramName)));
+    }
+
+    /**
+     * 批量发送请求（收集全部结果，不设截止时间），详见{@link #executeAll(Collection, boolean, long, TimeUnit)}
+     *
+     * @param requests 通过Builder构建的请求
+     * @return 与requests顺序一致的结果
+     */
+    public static List<BatchResult> executeAll(Collection<HttpClientUtils> requests) {
+        return executeAll(requests, false, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 批量发送请求，按请求顺序返回结果：每个路由同时进行的请求数不超过该路由的最大连接数（customMaxPerRoute），
+     * 全部路由不超过连接池最大连接总数，一个请求完成后立即补发，连接池保持满负荷且请求不会在连接池中排队等待<br/>
+     * 注：每个请求按sendAsync的方式发送（JSON类型请求体）
+     *
+     * @param requests 通过Builder构建的请求
+     * @param failFast true快速失败：任意请求失败（异常，不含非2xx响应）时取消其余请求并抛出该异常；false收集全部结果
+     * @param timeout  截止时间，小于等于0则不限制；超过时未完成的请求被取消，结果为TimeoutException（快速失败时抛出）
+     * @param unit     截止时间单位
+     * @return 与requests顺序一致的结果
+     */
+    public static List<BatchResult> executeAll(Collection<HttpClientUtils> requests, boolean failFast,
+                                               long timeout, TimeUnit unit) {
+        AtomicReferenceArray<BatchResult> results = new AtomicReferenceArray<>(requests.size());
+        executeAll(requests, failFast, timeout, unit, batchResult -> results.set(batchResult.getIndex(), batchResult));
+        List<BatchResult> batchResults = new ArrayList<>(requests.size());
+        BatchResult failure = null;
+        for (int index = 0; index < results.length(); index++) {
+            BatchResult batchResult = results.get(index);
+            batchResults.add(batchResult);
+            // 快速失败时抛出引起失败的异常（而不是被连带取消的异常）
+            if (failFast && !batchResult.isSuccess() && (failure == null
+                    || failure.getException() instanceof CancellationException)) {
+                failure = batchResult;
+            }
+        }
+        if (failure != null) {
+            log.warn("批量请求失败（第{}个请求）：{}", failure.getIndex(), failure.getException().getMessage());
+            throw new RuntimeException(failure.getException());
+        }
+        return batchResults;
+    }
+
+    /**
+     * 批量发送请求，每个请求完成时立即回调（按完成顺序），全部请求回调完成后返回，调度规则同上<br/>
+     * 注：回调在I/O Reactor线程内并发执行，需保证线程安全且不要在回调内阻塞；回调抛出的异常只记录日志；
+     * 等待期间线程被中断时取消未完成的请求并抛出异常
      *
-     * @return ClassicHttpRequest Http请求对象
+     * @param requests   通过Builder构建的请求
+     * @param failFast   true快速失败：任意请求失败时取消其余请求（以CancellationException回调）；false发送全部请求
+     * @param timeout    截止时间，小于等于0则不限制；超过时未完成的请求被取消，以TimeoutException回调
+     * @param unit       截止时间单位
+     * @param onComplete 单个请求完成（成功、失败、取消、超时）时的回调，每个请求只回调一次
      */
-    private ClassicHttpRequest beforeSending() {
-        try {
-            // 校验请求类型
-            if (requestType == null || "".equals(requestType)) {
-                throw new NullPointerException("请求类型不可为空！");
+    public static void executeAll(Collection<HttpClientUtils> requests, boolean failFast, long timeout,
+                                  TimeUnit unit, Consumer<BatchResult> onComplete) {
+        // 提前创建用到的各客户端配置的异步客户端，确保可以读取连接池的路由最大连接数；
+        // 各客户端配置的连接池相互独立，最大请求数为用到的连接池最大连接数之和
+        Map<String, HttpClientProfile> usedProfiles = new HashMap<>();
+        for (HttpClientUtils request : requests) {
+            usedProfiles.put(request.profile == null ? DEFAULT_PROFILE : request.profile.getName(), request.profile);
+        }
+        int maxTotal = 0;
+        for (HttpClientProfile clientProfile : usedProfiles.values()) {
+            if (clientProfile == null) {
+                getCloseableHttpAsyncClient();
+                maxTotal += asyncConnectionManager == null ? poolMaxTotal : asyncConnectionManager.getMaxTotal();
+            } else {
+                clientProfile.getCloseableHttpAsyncClient();
+                maxTotal += clientProfile.getMaxTotal();
             }
-            // 获取地址URL并根据地址构建请求对象
-            URI uri = createRequestUrl();
-            // JDK 14+语法
-            // ClassicHttpRequest httpRequest = switch (requestType.toUpperCase()) {
-            //     case HttpConstant.HTTP_GET -> new HttpGet(uri);
-            //     case HttpConstant.HTTP_POST -> new HttpPost(uri);
-            //     case HttpConstant.HTTP_PUT -> new HttpPut(uri);
-            //     case HttpConstant.HTTP_DELETE -> new HttpDelete(uri);
-            //     default -> throw new RuntimeException("请求类型无法识别！");
-            // };
-            ClassicHttpRequest httpRequest = null;
-            switch (requestType.toUpperCase()) {
-                case HttpConstant.HTTP_GET:
-                    httpRequest = new HttpGet(uri);
-                    break;
-                case HttpConstant.HTTP_POST:
-                    httpRequest = new HttpPost(uri);
-                    break;
-                case HttpConstant.HTTP_PUT:
-                    httpRequest = new HttpPut(uri);
-                    break;
-                case HttpConstant.HTTP_DELETE:
-                    httpRequest = new HttpDelete(uri);
-                    break;
-                default:
-                    throw new RuntimeException("请求类型无法识别！");
-            }
-            // 设置请求基本配置，如响应超时...
-            setRequestConfig(httpRequest);
-            // 添加常规请求头信息
-            httpRequest.addHeader(new BasicHeader("Accept", "application/json, text/plain, */*"));
-            httpRequest.addHeader(new BasicHeader("Accept-Language", "zh-CN,zh;q=0.9,en;"));
-            httpRequest.addHeader(new BasicHeader("Connection", "keep-alive"));
-            httpRequest.addHeader(new BasicHeader("User-Agent",
-                    "Apache-HttpClient/5.2.1 (Java/1.8.0_161)"));
-            // 若存在额外请求头则也添加
-            if (reqHeaders != null && !reqHeaders.isEmpty()) {
-                for (Map.Entry<String, String> reqHeader : reqHeaders.entrySet()) {
-                    httpRequest.addHeader(new BasicHeader(reqHeader.getKey(), reqHeader.getValue()));
-                }
+        }
+        // 每个请求只确定一次请求地址（服务请求地址lb://在这里选出实例），排队的路由、路由最大请求数及实际发送共用该地址
+        List<HttpClientUtils> batch = new ArrayList<>(requests);
+        URI[] uris = new URI[batch.size()];
+        HttpRoute[] routes = new HttpRoute[batch.size()];
+        try {
+            for (int index = 0; index < uris.length; index++) {
+                uris[index] = batch.get(index).createRequestUrl();
+                routes[index] = createHttpRoute(uris[index]);
             }
-            return httpRequest;
         } catch (URISyntaxException e) {
             log.warn("http请求地址异常：{}", e.getMessage());
             throw new RuntimeException(e);
         }
+        // 按客户端配置+路由排队，同一路由在不同客户端配置中分别计算最大请求数
+        BatchExecutor batchExecutor = new BatchExecutor(batch.size(), index -> {
+            HttpClientProfile clientProfile = batch.get(index).profile;
+            return clientProfile == null ? routes[index]
+                    : new AbstractMap.SimpleImmutableEntry<>(clientProfile.getName(), routes[index]);
+        }, index -> batch.get(index).getRouteMaxConcurrency(routes[index]), maxTotal,
+                index -> batch.get(index).sendAsync(batch.get(index).beforeSending(uris[index])),
+                failFast, onComplete);
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<Void> done = batchExecutor.start();
+        try {
+            if (timeout > 0) {
+                done.get(timeout, unit);
+            } else {
+                done.get();
+            }
+        } catch (TimeoutException e) {
+            batchExecutor.stop(new TimeoutException("批量请求超过截止时间：" + timeout + " " + unit));
+            done.join();
+        } catch (InterruptedException e) {
+            // 取消进行中、排队中的请求（均以CancellationException回调）后抛出，不返回未完成的结果
+            batchExecutor.stop(new CancellationException("批量请求被中断"));
+            Thread.currentThread().interrupt();
+            log.warn("批量请求被中断：{}", e.getMessage());
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            log.warn("批量请求回调异常：{}", e.getCause().getMessage());
+            throw new RuntimeException(e.getCause());
+        }
+        log.info("批量请求完成：{}个请求，耗时{}ms", requests.size(), System.currentTimeMillis() - startTime);
     }
 
-    /***
-     * 发送常用请求（JSON类型请求体）
-     * @return HttpResult响应数据（响应码、响应头、响应体）
+    /**
+     * 路由同时进行的最大请求数：HTTP/2路由为customHttp2Route设置的单连接最大并发流数（未设置时不限制，由对方的
+     * SETTINGS限制），否则为本次请求的客户端配置中异步连接池的路由最大连接数
+     *
+     * @param route 路由
+     * @return 最大请求数
      */
-    public HttpResult send() {
-        // 调用请求前置操作获取Http请求对象
-        ClassicHttpRequest httpRequest = beforeSending();
-        // 添加请求体信息
-        if (requestBody != null && !"".equals(requestBody)) {
-            // 要发什么样的数据通过修改 ContentType.APPLICATION_JSON
-            httpRequest.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_JSON));
+    private int getRouteMaxConcurrency(HttpRoute route) {
+        if (profile != null) {
+            return profile.getAsyncMaxPerRoute(route);
+        }
+        Http2StreamLimiter streamLimiter = HTTP2_FALLBACK_ROUTES.containsKey(route) ? null : HTTP2_ROUTES.get(route);
+        if (streamLimiter != null) {
+            return streamLimiter.getMaxConcurrentStreams();
+        }
+        if (asyncConnectionManager != null) {
+            return asyncConnectionManager.getMaxPerRoute(route);
         }
-        return sendToHttpResult(httpRequest);
+        return CUSTOM_ROUTE_MAX.getOrDefault(route, poolDefaultMaxPerRoute);
     }
 
-    /***
-     * 发送请求（表单方式提交）
-     * @return HttpResult响应数据（响应码、响应头、响应体）
+    /**
+     * 构建文本请求体，开启请求体压缩且达到阈值时边压缩边写出（不会把压缩结果再缓存一份），
+     * Content-Encoding请求头由实体的编码方式自动添加，压缩后长度未知因此以分块方式传输
+     *
+     * @param contentType 请求体类型
+     * @return 请求体
      */
-    public HttpResult sendFrom() {
-        // 调用请求前置操作获取Http请求对象
-        ClassicHttpRequest httpRequest = beforeSending();
-        // 添加请求体信息
-        if (requestBody != null && !"".equals(requestBody)) {
-            httpRequest.setEntity(new StringEntity(requestBody, ContentType.APPLICATION_FORM_URLENCODED));
+    private HttpEntity createRequestEntity(ContentType contentType) {
+        byte[] content = getRequestBodyBytes(contentType);
+        ByteArrayEntity entity = new ByteArrayEntity(content, contentType);
+        if (!isRequestCompressed(content)) {
+            return entity;
         }
-        return sendToHttpResult(httpRequest);
+        if (HttpConstant.CONTENT_ENCODING_GZIP.equalsIgnoreCase(requestCompression)) {
+            return new GzipCompressingEntity(entity);
+        }
+        return new EntityTemplate(-1, contentType, HttpConstant.CONTENT_ENCODING_DEFLATE, outputStream -> {
+            DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream);
+            entity.writeTo(deflaterOutputStream);
+            // 只结束压缩流，不关闭底层的连接输出流
+            deflaterOutputStream.finish();
+        });
     }
 
     /**
-     * 发送请求（单个或批量文件上传）<br/>
-     * 注：服务端接收单个文件可以通过这个方法获取：xxx(@RequestParam("file") MultipartFile file)<br/>
-     * 注：服务端接收多个文件可以通过这个方法获取：xxx(@RequestParam("files") MultipartFile [] files)
+     * 构建异步文本请求体，开启请求体压缩且达到阈值时由I/O Reactor边压缩边发送（每个请求只占用固定大小的压缩缓冲区），
+     * Content-Encoding请求头由请求体的编码方式自动添加
+     *
+     * @param contentType 请求体类型
+     * @return 异步请求体生产者
+     */
+    private AsyncEntityProducer createRequestEntityProducer(ContentType contentType) {
+        byte[] content = getRequestBodyBytes(contentType);
+        if (!isRequestCompressed(content)) {
+            return AsyncEntityProducers.create(content, contentType);
+        }
+        return new CompressingEntityProducer(content, contentType, requestCompression);
+    }
+
+    /**
+     * 按请求体类型的字符集编码请求体（未指定字符集时与StringEntity一致使用ISO-8859-1）
+     *
+     * @param contentType 请求体类型
+     * @return 编码后的请求体
+     */
+    private byte[] getRequestBodyBytes(ContentType contentType) {
+        return requestBody.getBytes(ContentType.getCharset(contentType, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 是否压缩本次请求的请求体
+     *
+     * @param content 编码后的请求体
+     * @return true压缩
+     */
+    private boolean isRequestCompressed(byte[] content) {
+        if (requestCompression == null || "".equals(requestCompression)) {
+            return false;
+        }
+        if (!HttpConstant.CONTENT_ENCODING_GZIP.equalsIgnoreCase(requestCompression)
+                && !HttpConstant.CONTENT_ENCODING_DEFLATE.equalsIgnoreCase(requestCompression)) {
+            throw new RuntimeException("请求体压缩方式无法识别：" + requestCompression);
+        }
+        return content.length >= requestCompressionThreshold;
+    }
+
+    /**
+     * 构建文件上传的多部分实体（同步与异步上传共用）
      *
      * @param paramName 上传文件时对应对方服务端接收参数的名称，一一对应
-     * @return HttpResult响应数据（响应码、响应头、响应体）
+     * @return 多部分实体
      */
-    public HttpResult sendFile(String paramName) {
-        // 调用请求前置操作获取Http请求对象
-        ClassicHttpRequest httpRequest = beforeSending();
+    private HttpEntity createMultipartEntity(String paramName) {
         // 构建多部分实体对象
         MultipartEntityBuilder builder = MultipartEntityBuilder.create();
         // 使用严格的MIME多部分实体格式
         builder.setMode(HttpMultipartMode.STRICT);
-        // 文件不为空则构建文件信息
-        if (uploadFiles != null && !uploadFiles.isEmpty()) {
+        boolean hasUploadFiles = uploadFiles != null && !uploadFiles.isEmpty();
+        boolean hasUploadParts = uploadParts != null && !uploadParts.isEmpty();
+        if (!hasUploadFiles && !hasUploadParts) {
+            throw new RuntimeException("上传文件不可为空！");
+        }
+        // 长度已知的上传部分直接作为内容体，全部长度已知时请求会带上Content-Length
+        if (hasUploadParts) {
+            for (UploadPart uploadPart : uploadParts) {
+                builder.addPart(paramName, uploadPart);
+            }
+        }
+        // 文件流长度未知，存在时请求以分块方式传输
+        if (hasUploadFiles) {
             for (Map.Entry<String, InputStream> file : uploadFiles.entrySet()) {
                 // 文件名称编码，防止中文文件名称乱码
                 String fileName = null;
@@ -518,78 +2164,109 @@ public class HttpClientUtils {
                 }
                 builder.addBinaryBody(paramName, file.getValue(), ContentType.DEFAULT_BINARY, fileName);
             }
-        } else {
-            throw new RuntimeException("上传文件不可为空！");
         }
-        // 设置请求体
-        HttpEntity multipart = builder.build();
-        httpRequest.setEntity(multipart);
-        return sendToHttpResult(httpRequest);
+        return builder.build();
     }
 
     /**
-     * 发送请求，并获取结果信息封装到HttpResult返回
+     * 发送请求，并获取结果信息封装到HttpResult返回（经过响应缓存）
      *
-     * @param httpRequest Http请求对象；其子类是HttpGet、HttpPost、HttpPut、HttpDelete
+     * @param httpRequest    Http请求对象；其子类是HttpGet、HttpPost、HttpPut、HttpDelete
+     * @param entityProducer HTTP/2路由的异步请求体（见setRequestEntity），其余情况传null
      * @return HttpResult响应数据（响应码、响应头、响应体，注：下载文件时存在：文件名、文件流）
      */
-    private HttpResult sendToHttpResult(ClassicHttpRequest httpRequest) {
-        try {
-            // 判断当前的Http的客户端对象是否存在，不存在则默认创建
-            if (closeableHttpClient == null) {
-                createCloseableHttpClient(null, null);
+    private HttpResult sendToHttpResult(ClassicHttpRequest httpRequest, AsyncEntityProducer entityProducer) {
+        HttpResponseCache cache = responseCache;
+        if (cache == null || !HttpResponseCache.isCacheableRequest(httpRequest)) {
+            return executeToHttpResult(httpRequest, entityProducer);
+        }
+        String cacheKey = HttpResponseCache.createKey(httpRequest);
+        HttpResponseCache.CacheEntry cacheEntry = cache.get(cacheKey, httpRequest);
+        long requestTime = System.currentTimeMillis();
+        if (cacheEntry != null) {
+            if (cacheEntry.isFresh(requestTime)) {
+                log.info("响应缓存命中：{}", cacheKey);
+                return cacheEntry.getResult();
+            }
+            if (cacheEntry.isStaleWhileRevalidate(requestTime)) {
+                // 过期但仍在stale-while-revalidate窗口内，直接返回，由抢占到的调用方发起后台重新校验
+                if (cacheEntry.startRevalidation()) {
+                    cacheEntry.addConditionalHeaders(httpRequest);
+                    revalidateAsync(getProfileHttpAsyncClient(), cache, cacheKey, cacheEntry, httpRequest,
+                            requestTime);
+                }
+                log.info("响应缓存命中（已过期，后台重新校验）：{}", cacheKey);
+                return cacheEntry.getResult();
+            }
+            cacheEntry.addConditionalHeaders(httpRequest);
+        }
+        HttpResult httpResult = executeToHttpResult(httpRequest, entityProducer);
+        return cache.update(cacheKey, httpRequest, cacheEntry, httpResult, requestTime, System.currentTimeMillis());
+    }
+
+    /**
+     * 通过异步客户端在后台发送条件请求，重新校验过期的缓存条目（不占用调用线程）
+     *
+     * @param asyncClient 异步客户端（与本次请求的客户端配置一致）
+     * @param cache       响应缓存
+     * @param cacheKey    缓存的键
+     * @param cacheEntry  过期的缓存条目
+     * @param httpRequest 已添加条件请求头的Http请求对象
+     * @param requestTime 请求发出的时间
+     */
+    private static void revalidateAsync(CloseableHttpAsyncClient asyncClient, HttpResponseCache cache,
+                                        String cacheKey, HttpResponseCache.CacheEntry cacheEntry,
+                                        ClassicHttpRequest httpRequest, long requestTime) {
+        executeAsync(asyncClient, httpRequest, null).whenComplete((httpResult, throwable) -> {
+            try {
+                if (throwable != null) {
+                    log.warn("响应缓存后台重新校验失败：{}", throwable.getMessage());
+                    return;
+                }
+                if (httpResult.getCode() != 200 && httpResult.getCode() != 304) {
+                    log.warn("响应缓存后台重新校验失败，响应码：{}", httpResult.getCode());
+                }
+                cache.update(cacheKey, httpRequest, cacheEntry, httpResult, requestTime, System.currentTimeMillis());
+            } finally {
+                // 未替换缓存条目时（如5xx），之后的请求仍可再次发起后台重新校验
+                cacheEntry.endRevalidation();
             }
+        });
+    }
+
+    /**
+     * 发送请求（不经过响应缓存），并获取结果信息封装到HttpResult返回
+     *
+     * @param httpRequest    Http请求对象
+     * @param entityProducer HTTP/2路由的异步请求体，其余情况传null
+     * @return HttpResult响应数据（响应码、响应头、响应体，注：下载文件时存在：文件名、文件流；304时只有响应码、响应头）
+     */
+    private HttpResult executeToHttpResult(ClassicHttpRequest httpRequest, AsyncEntityProducer entityProducer) {
+        // 开启对冲的请求通过异步客户端同时等待首次请求、对冲请求，调用线程等待先到达的结果
+        if (isHedged(httpRequest)) {
+            return awaitHttpResult(sendToHttpResultHedged(httpRequest));
+        }
+        // HTTP/2路由（请求体已按异步方式构建，或没有请求体）走多路复用连接，调用线程等待结果即可，
+        // 不再占用HTTP/1.1连接池的路由连接
+        if (entityProducer != null || (httpRequest.getEntity() == null && getHttp2StreamLimiter(httpRequest) != null)) {
+            return awaitHttpResult(sendToHttpResultAsync(httpRequest, entityProducer));
+        }
+        try {
             // 发送请求并封装数据到HttpResult对象
-            return closeableHttpClient.execute(httpRequest, classicHttpResponse -> {
+            return getProfileHttpClient().execute(httpRequest, classicHttpResponse -> {
                 // 初始化自定义的请求返回对象，并设置Code、响应头、响应体
-                HttpResult httpResult = new HttpResult();
-                httpResult.setCode(classicHttpResponse.getCode());
-                // 响应头信息处理（获取到响应头信息，并封装到HttpResult自定义返回对象中）
-                Map<String, List<String>> respHeaders = new HashMap<>();
-                httpResult.setRespHeaders(respHeaders);
-                for (Header header : classicHttpResponse.getHeaders()) {
-                    if (respHeaders.containsKey(header.getName())) {
-                        respHeaders.get(header.getName().toLowerCase()).add(header.getValue());
-                    } else {
-                        ArrayList<String> headerValue = new ArrayList<>();
-                        headerValue.add(header.getValue());
-                        respHeaders.put(header.getName().toLowerCase(), headerValue);
-                    }
+                HttpResult httpResult = createHttpResult(classicHttpResponse.getCode(),
+                        classicHttpResponse.getHeaders());
+                Map<String, List<String>> respHeaders = httpResult.getRespHeaders();
+                // 条件请求校验通过（304）没有响应体
+                if (classicHttpResponse.getCode() == 304) {
+                    return httpResult;
                 }
 
                 // 校验请求头，判断是否为文件类型，文件类型封装fileName、fileInputStream属性
-                List<String> types = respHeaders.get("content-type");
-                if (types == null || types.isEmpty()) {
-                    throw new RuntimeException("未知的响应类型，无法解析。");
-                }
-                String contentType = types.get(0);
+                String contentType = getRespContentType(respHeaders);
                 if (FILE_CONTENT_TYPE.contains(contentType)) {
-                    // 获取 Content-Disposition 头部字段的值
-                    List<String> values = respHeaders.get("content-disposition");
-                    if (values == null || values.isEmpty()) {
-                        // 未读取到文件名称
-                        httpResult.setFileName(UUID.randomUUID() + "." + contentType.split("/")[1]);
-                    } else {
-                        String headerMsg = values.get(0);
-                        if (headerMsg != null && !headerMsg.isEmpty()) {
-                            String fileName = headerMsg.substring(headerMsg.indexOf(";filename=") + 10);
-                            // 解码（因为传输中文文件名，服务端可能会编码）
-                            fileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8.name());
-                            if (fileName.isEmpty()) {
-                                // 文件名称为空则自定义
-                                fileName = UUID.randomUUID() + "." + contentType.split("/")[1];
-                            }
-                            // 若文件名为 如：".jpg"则需要添加前缀
-                            if (fileName.contains(".") && "".equals(fileName.split("\\.")[0])) {
-                                fileName = UUID.randomUUID() + fileName;
-                            }
-                            // 若文件名为 如 "aaa"则添加后缀
-                            if (!fileName.contains(".")) {
-                                fileName = fileName + "." + contentType.split("/")[1];
-                            }
-                            httpResult.setFileName(fileName);
-                        }
-                    }
+                    httpResult.setFileName(resolveFileName(respHeaders, contentType));
                     // 因为当前请求一旦结束则关闭全部流，包含请求来的文件，既然我需要放到HttpResult对象，则需要深拷贝
                     ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
                     byte[] buffer = new byte[4096];
@@ -613,6 +2290,441 @@ public class HttpClientUtils {
         }
     }
 
+    /**
+     * 异步发送请求，按路由选择HTTP/1.1连接池客户端或HTTP/2多路复用客户端
+     *
+     * @param httpRequest    Http请求对象（只使用请求行、请求头及请求配置，请求体由entityProducer提供）
+     * @param entityProducer 异步请求体生产者，无请求体时传null
+     * @return 异步的HttpResult响应数据（响应码、响应头、响应体，注：下载文件时存在：文件名、文件流）
+     */
+    private CompletableFuture<HttpResult> sendToHttpResultAsync(ClassicHttpRequest httpRequest,
+                                                                AsyncEntityProducer entityProducer) {
+        // 开启HTTP/2的路由走多路复用客户端
+        Http2StreamLimiter streamLimiter = getHttp2StreamLimiter(httpRequest);
+        if (streamLimiter != null) {
+            return sendToHttp2ResultAsync(httpRequest, entityProducer, streamLimiter);
+        }
+        return executeAsync(getProfileHttpAsyncClient(), httpRequest, entityProducer);
+    }
+
+    /**
+     * 本次请求是否对冲（开启了对冲的无请求体的幂等请求，如GET、HEAD、DELETE）
+     *
+     * @param httpRequest Http请求对象
+     * @return true对冲
+     */
+    private boolean isHedged(ClassicHttpRequest httpRequest) {
+        return hedgeDelay >= 0 && Method.isIdempotent(httpRequest.getMethod()) && httpRequest.getEntity() == null
+                && (requestBody == null || "".equals(requestBody));
+    }
+
+    /**
+     * 异步发送请求，超过对冲延迟仍未响应时发送对冲请求，取先到达的响应并取消另一个请求（规则见RequestHedger）
+     *
+     * @param httpRequest Http请求对象（无请求体）
+     * @return 异步的HttpResult响应数据
+     */
+    private CompletableFuture<HttpResult> sendToHttpResultHedged(ClassicHttpRequest httpRequest) {
+        RequestHedger hedger = profile != null ? profile.getHedger() : HEDGER;
+        try {
+            return hedger.execute(createHttpRoute(httpRequest.getUri()), hedgeDelay,
+                    () -> sendToHttpResultAsync(httpRequest, null));
+        } catch (URISyntaxException e) {
+            log.warn("http请求地址异常：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 获取本次请求的客户端配置对应的同步Http客户端对象，默认配置的客户端不存在则默认创建
+     *
+     * @return Http客户端对象
+     */
+    private CloseableHttpClient getProfileHttpClient() {
+        if (profile != null) {
+            return profile.getCloseableHttpClient();
+        }
+        // 判断当前的Http的客户端对象是否存在，不存在则默认创建
+        if (closeableHttpClient == null) {
+            createCloseableHttpClient(null, null);
+        }
+        return closeableHttpClient;
+    }
+
+    /**
+     * 获取本次请求的客户端配置对应的异步Http客户端对象（HTTP/1.1连接池），不存在则默认创建
+     *
+     * @return 异步Http客户端对象
+     */
+    private CloseableHttpAsyncClient getProfileHttpAsyncClient() {
+        return profile != null ? profile.getCloseableHttpAsyncClient() : getCloseableHttpAsyncClient();
+    }
+
+    /**
+     * 获取异步Http客户端对象（HTTP/1.1连接池），不存在则默认创建（双重校验，避免重复启动I/O Reactor）
+     *
+     * @return 异步Http客户端对象
+     */
+    private static CloseableHttpAsyncClient getCloseableHttpAsyncClient() {
+        if (closeableHttpAsyncClient == null) {
+            synchronized (HttpClientUtils.class) {
+                if (closeableHttpAsyncClient == null) {
+                    createCloseableHttpAsyncClient(null, null);
+                }
+            }
+        }
+        return closeableHttpAsyncClient;
+    }
+
+    /**
+     * 通过HTTP/2多路复用客户端异步发送请求，超出单连接并发流数时排队等待<br/>
+     * 注：若对方不支持h2（TLS握手时ALPN选择了http/1.1）则将该路由标记为回退HTTP/1.1，幂等的请求通过HTTP/1.1连接池重发，
+     * 其它请求直接失败；连接被关闭、GOAWAY、协议错误等其它异常不回退、不重发
+     *
+     * @param httpRequest    Http请求对象
+     * @param entityProducer 异步请求体生产者，无请求体时传null
+     * @param streamLimiter  该路由的并发流数限制器
+     * @return 异步的HttpResult响应数据
+     */
+    private CompletableFuture<HttpResult> sendToHttp2ResultAsync(ClassicHttpRequest httpRequest,
+                                                                 AsyncEntityProducer entityProducer,
+                                                                 Http2StreamLimiter streamLimiter) {
+        if (closeableHttp2AsyncClient == null) {
+            synchronized (HttpClientUtils.class) {
+                if (closeableHttp2AsyncClient == null) {
+                    createCloseableHttp2AsyncClient(null);
+                }
+            }
+        }
+        // HTTP/2禁止携带连接级别的请求头（如Connection: keep-alive），发送前移除
+        httpRequest.removeHeaders(HttpHeaders.CONNECTION);
+        httpRequest.removeHeaders(HttpHeaders.KEEP_ALIVE);
+        httpRequest.removeHeaders(HttpHeaders.UPGRADE);
+        CompletableFuture<HttpResult> resultFuture = new CompletableFuture<>();
+        streamLimiter.submit(() -> {
+            // 调用方已取消则不再发送
+            if (resultFuture.isDone()) {
+                streamLimiter.release();
+                return;
+            }
+            CompletableFuture<HttpResult> streamFuture =
+                    executeAsync(closeableHttp2AsyncClient, httpRequest, entityProducer);
+            resultFuture.whenComplete((httpResult, throwable) -> {
+                if (resultFuture.isCancelled()) {
+                    streamFuture.cancel(true);
+                }
+            });
+            streamFuture.whenComplete((httpResult, throwable) -> {
+                streamLimiter.release();
+                if (throwable == null) {
+                    resultFuture.complete(httpResult);
+                } else if (isHttp2NegotiationFailure(throwable)) {
+                    HttpRoute route = createHttpRoute(URI.create(httpRequest.getScheme() + "://"
+                            + httpRequest.getAuthority()));
+                    HTTP2_FALLBACK_ROUTES.put(route, System.nanoTime() + TIME_UNIT.toNanos(H2_FALLBACK_TTL));
+                    log.warn("路由：{} 不支持HTTP/2（ALPN选择了http/1.1），{}秒内回退到HTTP/1.1：{}", route,
+                            H2_FALLBACK_TTL, throwable.getMessage());
+                    // 只重发幂等且请求体可重复读取的请求，其余请求直接失败（之后的请求走HTTP/1.1）
+                    if (!Method.isIdempotent(httpRequest.getMethod())
+                            || (entityProducer != null && !entityProducer.isRepeatable())) {
+                        resultFuture.completeExceptionally(throwable);
+                        return;
+                    }
+                    sendToHttpResultAsync(httpRequest, entityProducer).whenComplete((fallbackResult, fallbackEx) -> {
+                        if (fallbackEx == null) {
+                            resultFuture.complete(fallbackResult);
+                        } else {
+                            resultFuture.completeExceptionally(fallbackEx);
+                        }
+                    });
+                } else {
+                    resultFuture.completeExceptionally(throwable);
+                }
+            });
+        });
+        return resultFuture;
+    }
+
+    /**
+     * 通过指定的异步客户端发送请求，响应接收完成后在I/O Reactor线程内封装到HttpResult<br/>
+     * 注：取消返回的CompletableFuture时会同时取消底层请求，连接归还连接池
+     *
+     * @param asyncClient    异步客户端（HTTP/1.1连接池客户端或HTTP/2多路复用客户端）
+     * @param httpRequest    Http请求对象
+     * @param entityProducer 异步请求体生产者，无请求体时传null
+     * @return 异步的HttpResult响应数据
+     */
+    private static CompletableFuture<HttpResult> executeAsync(CloseableHttpAsyncClient asyncClient,
+                                                              ClassicHttpRequest httpRequest,
+                                                              AsyncEntityProducer entityProducer) {
+        CompletableFuture<HttpResult> resultFuture = new CompletableFuture<>();
+        Future<SimpleHttpResponse> responseFuture = asyncClient.execute(
+                new BasicRequestProducer(httpRequest, entityProducer), SimpleResponseConsumer.create(),
+                null, new FutureCallback<SimpleHttpResponse>() {
+                    @Override
+                    public void completed(SimpleHttpResponse response) {
+                        try {
+                            resultFuture.complete(toHttpResult(response));
+                        } catch (Exception e) {
+                            resultFuture.completeExceptionally(e);
+                        }
+                    }
+
+                    @Override
+                    public void failed(Exception ex) {
+                        log.warn("异步请求发送失败：{}", ex.getMessage());
+                        resultFuture.completeExceptionally(new RuntimeException(ex));
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        resultFuture.cancel(false);
+                    }
+                });
+        // 调用方取消时同步取消底层请求
+        resultFuture.whenComplete((httpResult, throwable) -> {
+            if (resultFuture.isCancelled()) {
+                responseFuture.cancel(true);
+            }
+        });
+        return resultFuture;
+    }
+
+    /**
+     * 获取请求所属路由的HTTP/2并发流数限制器，未开启HTTP/2或已回退HTTP/1.1的路由返回null<br/>
+     * 注：HTTP/2路由只对默认客户端配置生效，其它客户端配置的请求返回null
+     *
+     * @param httpRequest Http请求对象
+     * @return 并发流数限制器
+     */
+    private Http2StreamLimiter getHttp2StreamLimiter(ClassicHttpRequest httpRequest) {
+        if (profile != null || HTTP2_ROUTES.isEmpty()) {
+            return null;
+        }
+        try {
+            HttpRoute route = createHttpRoute(httpRequest.getUri());
+            Http2StreamLimiter streamLimiter = HTTP2_ROUTES.get(route);
+            Long fallbackUntil = streamLimiter == null ? null : HTTP2_FALLBACK_ROUTES.get(route);
+            if (fallbackUntil == null) {
+                return streamLimiter;
+            }
+            // 回退已到期时由幂等请求重新尝试HTTP/2（对方仍不支持时可重发），非幂等请求继续走HTTP/1.1
+            if (System.nanoTime() - fallbackUntil >= 0 && Method.isIdempotent(httpRequest.getMethod())
+                    && HTTP2_FALLBACK_ROUTES.remove(route, fallbackUntil)) {
+                log.info("路由：{} 回退HTTP/1.1已到期，重新尝试HTTP/2", route);
+                return streamLimiter;
+            }
+            return null;
+        } catch (URISyntaxException e) {
+            log.warn("http请求地址异常：{}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 判断异常是否证明对方不支持HTTP/2：TLS握手时对方通过ALPN明确选择了http/1.1（HTTP/2客户端同时提供h2、http/1.1）<br/>
+     * 注：连接被关闭、重置、GOAWAY、协议错误可能是偶发的，不视为不支持；明文h2c没有ALPN，不回退
+     *
+     * @param throwable 异常信息
+     * @return true：对方不支持HTTP/2
+     */
+    private static boolean isHttp2NegotiationFailure(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ProtocolNegotiationException) {
+                // 异常信息带有对方选择的协议，如：ALPN: unexpected application protocol 'http/1.1'
+                String message = cause.getMessage();
+                return message != null && message.contains("'" + ApplicationProtocol.HTTP_1_1.id + "'");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 同步等待异步请求的结果（HTTP/2路由的同步请求使用）
+     *
+     * @param resultFuture 异步的HttpResult响应数据
+     * @return HttpResult响应数据
+     */
+    private static HttpResult awaitHttpResult(CompletableFuture<HttpResult> resultFuture) {
+        try {
+            return resultFuture.get();
+        } catch (InterruptedException e) {
+            resultFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 将异步响应结果封装到HttpResult（与同步方式封装规则一致）
+     *
+     * @param response 异步响应信息（响应体已完整接收）
+     * @return HttpResult响应数据
+     * @throws UnsupportedEncodingException 文件名称解码异常
+     */
+    private static HttpResult toHttpResult(SimpleHttpResponse response) throws UnsupportedEncodingException {
+        HttpResult httpResult = createHttpResult(response.getCode(), response.getHeaders());
+        Map<String, List<String>> respHeaders = httpResult.getRespHeaders();
+        // 条件请求校验通过（304）没有响应体
+        if (response.getCode() == 304) {
+            return httpResult;
+        }
+        String contentType = getRespContentType(respHeaders);
+        byte[] body = response.getBodyBytes() == null ? new byte[0] : response.getBodyBytes();
+        if (FILE_CONTENT_TYPE.contains(contentType)) {
+            httpResult.setFileName(resolveFileName(respHeaders, contentType));
+            // 异步响应体已经完整接收在内存中，直接包装即可，无需再次拷贝
+            httpResult.setFileInputStream(new ByteArrayInputStream(body));
+        } else {
+            ContentType respContentType = response.getContentType();
+            httpResult.setRespBody(new String(body, respContentType != null && respContentType.getCharset() != null
+                    ? respContentType.getCharset() : StandardCharsets.UTF_8));
+            log.info("异步响应数据：{}", httpResult.getRespBody());
+        }
+        return httpResult;
+    }
+
+    /**
+     * 初始化自定义的请求返回对象，并设置Code、响应头（响应体由调用方按需设置）
+     *
+     * @param code    响应码
+     * @param headers 响应头信息
+     * @return HttpResult响应数据
+     */
+    private static HttpResult createHttpResult(int code, Header[] headers) {
+        HttpResult httpResult = new HttpResult();
+        httpResult.setCode(code);
+        // 响应头信息处理（获取到响应头信息，并封装到HttpResult自定义返回对象中）
+        httpResult.setRespHeaders(createRespHeaders(headers));
+        return httpResult;
+    }
+
+    /**
+     * 响应头信息处理（响应头名称统一转为小写，同名响应头的多个值放在同一个集合内）
+     *
+     * @param headers 响应头信息
+     * @return 响应头集合
+     */
+    static Map<String, List<String>> createRespHeaders(Header[] headers) {
+        Map<String, List<String>> respHeaders = new HashMap<>();
+        for (Header header : headers) {
+            respHeaders.computeIfAbsent(header.getName().toLowerCase(), key -> new ArrayList<>())
+                    .add(header.getValue());
+        }
+        return respHeaders;
+    }
+
+    /**
+     * 获取响应的内容类型，不存在则无法解析
+     *
+     * @param respHeaders 响应头集合
+     * @return 内容类型，如：application/json
+     */
+    private static String getRespContentType(Map<String, List<String>> respHeaders) {
+        List<String> types = respHeaders.get("content-type");
+        if (types == null || types.isEmpty()) {
+            throw new RuntimeException("未知的响应类型，无法解析。");
+        }
+        return types.get(0);
+    }
+
+    /**
+     * 解析下载文件的名称（从Content-Disposition头获取，获取不到则自动生成）
+     *
+     * @param respHeaders 响应头集合
+     * @param contentType 响应的内容类型
+     * @return 文件名称
+     * @throws UnsupportedEncodingException 文件名称解码异常
+     */
+    private static String resolveFileName(Map<String, List<String>> respHeaders, String contentType)
+            throws UnsupportedEncodingException {
+        // 获取 Content-Disposition 头部字段的值
+        List<String> values = respHeaders.get("content-disposition");
+        if (values == null || values.isEmpty()) {
+            // 未读取到文件名称
+            return UUID.randomUUID() + "." + contentType.split("/")[1];
+        }
+        String headerMsg = values.get(0);
+        if (headerMsg == null || headerMsg.isEmpty()) {
+            return null;
+        }
+        String fileName = headerMsg.substring(headerMsg.indexOf(";filename=") + 10);
+        // 解码（因为传输中文文件名，服务端可能会编码）
+        fileName = URLDecoder.decode(fileName, StandardCharsets.UTF_8.name());
+        if (fileName.isEmpty()) {
+            // 文件名称为空则自定义
+            fileName = UUID.randomUUID() + "." + contentType.split("/")[1];
+        }
+        // 若文件名为 如：".jpg"则需要添加前缀
+        if (fileName.contains(".") && "".equals(fileName.split("\\.")[0])) {
+            fileName = UUID.randomUUID() + fileName;
+        }
+        // 若文件名为 如 "aaa"则添加后缀
+        if (!fileName.contains(".")) {
+            fileName = fileName + "." + contentType.split("/")[1];
+        }
+        return fileName;
+    }
+
+    /**
+     * 直接下载到文件时的下载进度（目标文件、已写入的字节数、续传校验值）
+     */
+    private static class DownloadProgress {
+        private Path targetFile;    // 目标文件（目标为目录时在响应头返回后确定）
+        private long offset;        // 临时文件已写入的字节数，即续传的起点
+        private String validator;   // 续传校验值（强ETag或Last-Modified），用于If-Range
+
+        /**
+         * 加载上次未下载完成的临时文件，只有同时存在校验值时才可以续传
+         *
+         * @param targetFile 目标文件
+         */
+        private void load(Path targetFile) {
+            this.targetFile = targetFile;
+            Path partFile = Paths.get(targetFile + DOWNLOAD_PART_SUFFIX);
+            Path validatorFile = Paths.get(targetFile + DOWNLOAD_VALIDATOR_SUFFIX);
+            try {
+                if (Files.exists(partFile) && Files.exists(validatorFile)) {
+                    validator = new String(Files.readAllBytes(validatorFile), StandardCharsets.UTF_8).trim();
+                    offset = validator.isEmpty() ? 0 : Files.size(partFile);
+                }
+            } catch (IOException e) {
+                log.warn("读取未下载完成的临时文件失败，重新下载：{}", e.getMessage());
+                offset = 0;
+            }
+        }
+
+        /**
+         * 记录续传校验值（弱ETag不能用于If-Range，此时使用Last-Modified），没有校验值则无法续传
+         *
+         * @param respHeaders 响应头集合
+         * @throws IOException 校验值文件写入异常
+         */
+        private void saveValidator(Map<String, List<String>> respHeaders) throws IOException {
+            List<String> etags = respHeaders.get("etag");
+            List<String> lastModified = respHeaders.get("last-modified");
+            if (etags != null && !etags.isEmpty() && !etags.get(0).startsWith("W/")) {
+                validator = etags.get(0);
+            } else if (lastModified != null && !lastModified.isEmpty()) {
+                validator = lastModified.get(0);
+            } else {
+                validator = null;
+            }
+            Path validatorFile = Paths.get(targetFile + DOWNLOAD_VALIDATOR_SUFFIX);
+            if (validator == null) {
+                Files.deleteIfExists(validatorFile);
+            } else {
+                Files.write(validatorFile, validator.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
     /**
      * 一个基本的Builder代码，通过Builder来构建对象的属性
      */
@@ -624,6 +2736,12 @@ public class HttpClientUtils {
         private String requestBody;             //  Builder请求体参数（常用于POST、PUT的文本方式）
         private RequestConfig requestConfig;    //  Builder每次请求体配置如：超时时间、是否可重定向、重定向次数等
         private Map<String, InputStream> uploadFiles; // Builder文件上传流信息（只有上传文件时使用）key文件名 value文件流
+        private List<UploadPart> uploadParts;   //  Builder文件上传部分（长度已知，来源于文件、文件通道或缓冲区）
+        private String requestCompression;      //  Builder请求体压缩方式（gzip、deflate）
+        private Integer requestCompressionThreshold = 0; // Builder请求体编码后达到此字节数才压缩
+        private boolean singleFlight;           //  Builder是否合并同一时刻相同的GET请求
+        private String profile;                 //  Builder请求使用的客户端配置名称
+        private long hedgeDelay = -1;           //  Builder对冲延迟（纳秒），0则取路由耗时分位数，小于0不对冲
 
 
         public Builder setUrl(String requestUrl) {
@@ -661,6 +2779,78 @@ public class HttpClientUtils {
             return this;
         }
 
+        public Builder setUploadParts(List<UploadPart> uploadParts) {
+            this.uploadParts = uploadParts;
+            return this;
+        }
+
+        /**
+         * 压缩请求体（send、sendFrom），服务端需支持对应的Content-Encoding
+         *
+         * @param requestCompression 压缩方式：HttpConstant.CONTENT_ENCODING_GZIP、HttpConstant.CONTENT_ENCODING_DEFLATE
+         */
+        public Builder setRequestCompression(String requestCompression) {
+            return setRequestCompression(requestCompression, 0);
+        }
+
+        /**
+         * 请求体按其字符集编码后达到指定字节数时才压缩（小请求体压缩收益低，反而增加CPU开销）
+         *
+         * @param requestCompression 压缩方式：HttpConstant.CONTENT_ENCODING_GZIP、HttpConstant.CONTENT_ENCODING_DEFLATE
+         * @param threshold          压缩阈值（编码后的请求体字节数）
+         */
+        public Builder setRequestCompression(String requestCompression, int threshold) {
+            this.requestCompression = requestCompression;
+            this.requestCompressionThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * 合并同一时刻相同的GET请求（请求地址、URL参数、请求头相同），只发送一次，其余调用方共享响应<br/>
+         * 注：共享的HttpResult请勿修改；计算是否相同时忽略的请求头通过HttpClientUtils.customSingleFlightIgnoredHeaders设置；
+         * 同步请求等待进行中的相同请求最多“租用连接超时 + 响应超时”，超过时抛出异常
+         *
+         * @param singleFlight 是否开启
+         */
+        public Builder setSingleFlight(boolean singleFlight) {
+            this.singleFlight = singleFlight;
+            return this;
+        }
+
+        /**
+         * 请求使用的客户端配置（通过HttpClientUtils.customProfile注册），不设置或设置为default时使用默认配置<br/>
+         * 注：使用该配置的连接池、超时时间、SSL上下文及拦截器，与其它配置的请求互不影响
+         *
+         * @param profile 客户端配置名称
+         */
+        public Builder setProfile(String profile) {
+            this.profile = profile;
+            return this;
+        }
+
+        /**
+         * 开启对冲请求（只对无请求体的幂等请求生效，如GET、HEAD、DELETE）：超过路由最近时间窗口内请求总耗时的p95仍未响应时，
+         * 再发送一个相同的请求，取先到达的响应并取消另一个请求；路由的样本不足时不对冲<br/>
+         * 注：对冲请求数受每个路由的对冲预算限制（不超过开启对冲的请求数的10%）；请求通过异步客户端发送
+         *
+         * @param hedging 是否开启
+         */
+        public Builder setHedging(boolean hedging) {
+            this.hedgeDelay = hedging ? 0 : -1;
+            return this;
+        }
+
+        /**
+         * 开启对冲请求并指定对冲延迟（规则同setHedging(boolean)）
+         *
+         * @param delay 对冲延迟，首次请求超过此时间仍未响应时发送对冲请求
+         * @param unit  时间单位
+         */
+        public Builder setHedging(long delay, TimeUnit unit) {
+            this.hedgeDelay = delay > 0 ? unit.toNanos(delay) : 0;
+            return this;
+        }
+
         public HttpClientUtils build() {
             return new HttpClientUtils(this);
         }
@@ -0,0 +1,529 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.HttpResult;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * GET响应缓存：按Cache-Control（max-age、no-cache、no-store、must-revalidate、stale-while-revalidate）、
+ * Expires、Age判断新鲜度，按ETag、Last-Modified发送条件请求重新校验<br/>
+ * 内存层为按条目数限制的LRU，可选的磁盘层在内存未命中时读取（写入时同步落盘）<br/>
+ * 缓存由所有调用方共享（共享缓存）：带Authorization的请求，只有响应明确允许共享（public、s-maxage、must-revalidate）时才缓存<br/>
+ * <p style="color:#f61">说明：缓存命中时所有调用方共享同一个HttpResult对象（响应头不可修改），请勿修改其内容</p>
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class HttpResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    // 磁盘缓存文件后缀
+    private static final String DISK_FILE_SUFFIX = ".cache";
+
+    private final Map<String, CacheEntry> memoryEntries;    // 内存层（LRU，访问顺序）
+    private final Path diskDirectory;                       // 磁盘层目录，为null则不使用磁盘层
+
+    /**
+     * @param maxMemoryEntries 内存层最大条目数
+     * @param diskDirectory    磁盘层目录，为null则只使用内存层
+     */
+    HttpResponseCache(int maxMemoryEntries, Path diskDirectory) {
+        this.memoryEntries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxMemoryEntries;
+            }
+        };
+        this.diskDirectory = diskDirectory;
+        if (diskDirectory != null) {
+            try {
+                Files.createDirectories(diskDirectory);
+            } catch (IOException e) {
+                log.warn("响应缓存目录创建失败：{}", e.getMessage());
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * 请求是否可以使用缓存（只缓存GET请求，请求头Cache-Control: no-store、no-cache时不读缓存）
+     *
+     * @param httpRequest Http请求对象
+     * @return true可以使用缓存
+     */
+    static boolean isCacheableRequest(ClassicHttpRequest httpRequest) {
+        if (!"GET".equalsIgnoreCase(httpRequest.getMethod())) {
+            return false;
+        }
+        Header cacheControl = httpRequest.getFirstHeader(HttpHeaders.CACHE_CONTROL);
+        return cacheControl == null || !(cacheControl.getValue().contains("no-store")
+                || cacheControl.getValue().contains("no-cache"));
+    }
+
+    /**
+     * 缓存的键（请求方式 + 完整的请求地址）
+     *
+     * @param httpRequest Http请求对象
+     * @return 缓存的键
+     */
+    static String createKey(ClassicHttpRequest httpRequest) {
+        try {
+            return httpRequest.getMethod() + " " + httpRequest.getUri();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 获取缓存条目（内存层未命中时读取磁盘层），Vary指定的请求头与缓存时不一致视为未命中
+     *
+     * @param key         缓存的键
+     * @param httpRequest Http请求对象
+     * @return 缓存条目，未命中返回null
+     */
+    CacheEntry get(String key, ClassicHttpRequest httpRequest) {
+        CacheEntry entry;
+        synchronized (memoryEntries) {
+            entry = memoryEntries.get(key);
+        }
+        if (entry == null && diskDirectory != null) {
+            entry = readFromDisk(key);
+            if (entry != null) {
+                synchronized (memoryEntries) {
+                    memoryEntries.put(key, entry);
+                }
+            }
+        }
+        if (entry == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> vary : entry.varyHeaders.entrySet()) {
+            Header header = httpRequest.getFirstHeader(vary.getKey());
+            if (!vary.getValue().equals(header == null ? "" : header.getValue())) {
+                return null;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 根据网络响应更新缓存：304时沿用原缓存的响应并刷新新鲜度，可缓存的200响应写入缓存
+     *
+     * @param key          缓存的键
+     * @param httpRequest  Http请求对象
+     * @param cachedEntry  发送条件请求前的缓存条目，没有则为null
+     * @param httpResult   网络响应
+     * @param requestTime  请求发出的时间
+     * @param responseTime 响应收到的时间
+     * @return 返回给调用方的响应（304时为缓存中的响应）
+     */
+    HttpResult update(String key, ClassicHttpRequest httpRequest, CacheEntry cachedEntry, HttpResult httpResult,
+                      long requestTime, long responseTime) {
+        if (httpResult.getCode() == 304 && cachedEntry != null) {
+            CacheEntry refreshed = CacheEntry.create(cachedEntry.result, httpResult.getRespHeaders(),
+                    cachedEntry.varyHeaders, requestTime, responseTime, cachedEntry);
+            if (refreshed != null) {
+                put(key, refreshed);
+            } else {
+                remove(key);
+            }
+            log.info("响应缓存重新校验通过：{}", key);
+            return cachedEntry.result;
+        }
+        if (httpResult.getCode() != 200 || httpResult.getFileInputStream() != null) {
+            return httpResult;
+        }
+        // 带Authorization的请求的响应属于该用户，不能返回给其它调用方
+        if (httpRequest.containsHeader(HttpHeaders.AUTHORIZATION) && !isSharedCacheable(httpResult.getRespHeaders())) {
+            return httpResult;
+        }
+        Map<String, String> varyHeaders = new HashMap<>();
+        List<String> varies = httpResult.getRespHeaders().get("vary");
+        if (varies != null) {
+            for (String vary : String.join(",", varies).split(",")) {
+                String name = vary.trim();
+                if ("*".equals(name)) {
+                    return httpResult;
+                }
+                if (!name.isEmpty()) {
+                    Header header = httpRequest.getFirstHeader(name);
+                    varyHeaders.put(name, header == null ? "" : header.getValue());
+                }
+            }
+        }
+        // 缓存中的响应会被多个调用方共享，响应头改为不可修改
+        Map<String, List<String>> respHeaders = new HashMap<>();
+        httpResult.getRespHeaders().forEach((name, values) ->
+                respHeaders.put(name, Collections.unmodifiableList(new ArrayList<>(values))));
+        httpResult.setRespHeaders(Collections.unmodifiableMap(respHeaders));
+        CacheEntry entry = CacheEntry.create(httpResult, httpResult.getRespHeaders(), varyHeaders,
+                requestTime, responseTime, null);
+        if (entry != null) {
+            put(key, entry);
+        } else {
+            remove(key);
+        }
+        return httpResult;
+    }
+
+    /**
+     * 带Authorization的请求的响应是否允许共享缓存（Cache-Control含public、s-maxage或must-revalidate，RFC 9111 3.5）
+     *
+     * @param headers 响应头集合
+     * @return true允许缓存
+     */
+    private static boolean isSharedCacheable(Map<String, List<String>> headers) {
+        List<String> cacheControls = headers.get("cache-control");
+        if (cacheControls == null) {
+            return false;
+        }
+        for (String directive : String.join(",", cacheControls).split(",")) {
+            String name = directive.trim().toLowerCase();
+            if (name.equals("public") || name.startsWith("s-maxage=") || name.equals("must-revalidate")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(String key) {
+        synchronized (memoryEntries) {
+            memoryEntries.remove(key);
+        }
+        if (diskDirectory != null) {
+            try {
+                Files.deleteIfExists(diskFile(key));
+            } catch (IOException e) {
+                log.warn("响应缓存删除失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    private void put(String key, CacheEntry entry) {
+        synchronized (memoryEntries) {
+            memoryEntries.put(key, entry);
+        }
+        if (diskDirectory != null) {
+            writeToDisk(key, entry);
+        }
+    }
+
+    /**
+     * 清空缓存（内存层及磁盘层）
+     */
+    void clear() {
+        synchronized (memoryEntries) {
+            memoryEntries.clear();
+        }
+        if (diskDirectory != null) {
+            try (Stream<Path> files = Files.list(diskDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.toString().endsWith(DISK_FILE_SUFFIX)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("响应缓存目录清理失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    private Path diskFile(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return diskDirectory.resolve(String.format("%064x", new BigInteger(1, digest)) + DISK_FILE_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 写入磁盘层（先写临时文件再替换），写入失败只记录日志，不影响本次请求
+     */
+    private void writeToDisk(String key, CacheEntry entry) {
+        Path file = diskFile(key);
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp" + Thread.currentThread().getId());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            writeString(out, key);
+            out.writeInt(entry.result.getCode());
+            out.writeInt(entry.result.getRespHeaders().size());
+            for (Map.Entry<String, List<String>> header : entry.result.getRespHeaders().entrySet()) {
+                writeString(out, header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    writeString(out, value);
+                }
+            }
+            writeString(out, entry.result.getRespBody());
+            out.writeInt(entry.varyHeaders.size());
+            for (Map.Entry<String, String> vary : entry.varyHeaders.entrySet()) {
+                writeString(out, vary.getKey());
+                writeString(out, vary.getValue());
+            }
+            out.writeLong(entry.responseTime);
+            out.writeLong(entry.currentAge);
+            out.writeLong(entry.freshnessLifetime);
+            out.writeLong(entry.staleWhileRevalidate);
+        } catch (IOException e) {
+            log.warn("响应缓存写入磁盘失败：{}", e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("响应缓存写入磁盘失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取磁盘层，文件不存在、损坏或键不一致（哈希冲突）时返回null
+     */
+    private CacheEntry readFromDisk(String key) {
+        Path file = diskFile(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (!key.equals(readString(in))) {
+                return null;
+            }
+            HttpResult result = new HttpResult();
+            result.setCode(in.readInt());
+            Map<String, List<String>> respHeaders = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = readString(in);
+                List<String> values = new ArrayList<>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    values.add(readString(in));
+                }
+                respHeaders.put(name, Collections.unmodifiableList(values));
+            }
+            result.setRespHeaders(Collections.unmodifiableMap(respHeaders));
+            result.setRespBody(readString(in));
+            Map<String, String> varyHeaders = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                varyHeaders.put(readString(in), readString(in));
+            }
+            return new CacheEntry(result, varyHeaders, in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                    CacheEntry.getValidator(respHeaders, "etag"), CacheEntry.getValidator(respHeaders, "last-modified"));
+        } catch (IOException e) {
+            log.warn("响应缓存读取磁盘失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 缓存条目（不可变，重新校验后整体替换）
+     */
+    static final class CacheEntry {
+
+        private final HttpResult result;                // 缓存的响应（多个调用方共享）
+        private final Map<String, String> varyHeaders;  // Vary指定的请求头及缓存时的值
+        private final long responseTime;                // 响应收到的时间
+        private final long currentAge;                  // 收到响应时的年龄（Age + 请求耗时）
+        private final long freshnessLifetime;           // 新鲜期（毫秒）
+        private final long staleWhileRevalidate;        // 过期后仍可直接返回并后台重新校验的时长（毫秒）
+        private final String etag;                      // 校验值ETag
+        private final String lastModified;              // 校验值Last-Modified
+        private final AtomicBoolean revalidating = new AtomicBoolean(false); // 是否正在后台重新校验
+
+        private CacheEntry(HttpResult result, Map<String, String> varyHeaders, long responseTime, long currentAge,
+                           long freshnessLifetime, long staleWhileRevalidate, String etag, String lastModified) {
+            this.result = result;
+            this.varyHeaders = varyHeaders;
+            this.responseTime = responseTime;
+            this.currentAge = currentAge;
+            this.freshnessLifetime = freshnessLifetime;
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * 根据响应头计算新鲜度，不可缓存（no-store、既没有新鲜期也没有校验值）时返回null
+         *
+         * @param result       缓存的响应
+         * @param headers      用于计算新鲜度的响应头（304时为304的响应头）
+         * @param varyHeaders  Vary指定的请求头及值
+         * @param requestTime  请求发出的时间
+         * @param responseTime 响应收到的时间
+         * @param previous     重新校验前的缓存条目（304时沿用其校验值），没有则为null
+         * @return 缓存条目
+         */
+        private static CacheEntry create(HttpResult result, Map<String, List<String>> headers,
+                                         Map<String, String> varyHeaders, long requestTime, long responseTime,
+                                         CacheEntry previous) {
+            long maxAge = -1;
+            long staleWhileRevalidate = 0;
+            boolean mustRevalidate = false;
+            List<String> cacheControls = headers.get("cache-control");
+            if (cacheControls != null) {
+                for (String directive : String.join(",", cacheControls).split(",")) {
+                    String name = directive.trim().toLowerCase();
+                    String value = name.contains("=") ? name.substring(name.indexOf('=') + 1).replace("\"", "") : "";
+                    if (name.equals("no-store")) {
+                        return null;
+                    } else if (name.equals("no-cache")) {
+                        maxAge = 0;
+                        mustRevalidate = true;
+                    } else if (name.startsWith("max-age=") && maxAge != 0) {
+                        maxAge = parseSeconds(value);
+                    } else if (name.startsWith("stale-while-revalidate=")) {
+                        staleWhileRevalidate = parseSeconds(value);
+                    } else if (name.equals("must-revalidate") || name.equals("proxy-revalidate")) {
+                        mustRevalidate = true;
+                    }
+                }
+            }
+            long freshnessLifetime;
+            if (maxAge >= 0) {
+                freshnessLifetime = maxAge * 1000;
+            } else {
+                // 没有max-age时按Expires - Date计算
+                Instant expires = parseDate(headers, "expires");
+                Instant date = parseDate(headers, "date");
+                freshnessLifetime = expires == null ? 0 : Math.max(0, expires.toEpochMilli()
+                        - (date == null ? responseTime : date.toEpochMilli()));
+            }
+            long age = parseSeconds(getValidator(headers, "age")) * 1000;
+            long currentAge = Math.max(age, 0) + (responseTime - requestTime);
+            String etag = getValidator(headers, "etag");
+            String lastModified = getValidator(headers, "last-modified");
+            if (previous != null) {
+                etag = etag == null ? previous.etag : etag;
+                lastModified = lastModified == null ? previous.lastModified : lastModified;
+            }
+            if (freshnessLifetime <= 0 && etag == null && lastModified == null) {
+                return null;
+            }
+            return new CacheEntry(result, varyHeaders, responseTime, currentAge, freshnessLifetime,
+                    mustRevalidate ? 0 : staleWhileRevalidate * 1000, etag, lastModified);
+        }
+
+        private static long parseSeconds(String value) {
+            if (value == null) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private static Instant parseDate(Map<String, List<String>> headers, String name) {
+            String value = getValidator(headers, name);
+            return value == null ? null : DateUtils.parseStandardDate(value);
+        }
+
+        private static String getValidator(Map<String, List<String>> headers, String name) {
+            List<String> values = headers.get(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+
+        /**
+         * 当前年龄（毫秒）
+         */
+        private long getAge(long now) {
+            return currentAge + (now - responseTime);
+        }
+
+        /**
+         * 是否仍在新鲜期内（可直接返回，无需访问网络）
+         */
+        boolean isFresh(long now) {
+            return getAge(now) < freshnessLifetime;
+        }
+
+        /**
+         * 是否在stale-while-revalidate时间窗口内（可直接返回过期响应，同时后台重新校验）
+         */
+        boolean isStaleWhileRevalidate(long now) {
+            return staleWhileRevalidate > 0 && getAge(now) < freshnessLifetime + staleWhileRevalidate;
+        }
+
+        /**
+         * 抢占后台重新校验（同一条目只会有一个后台重新校验）
+         *
+         * @return true抢占成功，由当前调用方发起重新校验
+         */
+        boolean startRevalidation() {
+            return revalidating.compareAndSet(false, true);
+        }
+
+        /**
+         * 后台重新校验结束（无论响应是否为200、304或出现异常），允许后续请求再次发起
+         */
+        void endRevalidation() {
+            revalidating.set(false);
+        }
+
+        /**
+         * 为请求添加条件请求头（If-None-Match、If-Modified-Since）
+         *
+         * @param httpRequest Http请求对象
+         * @return true存在校验值，请求为条件请求
+         */
+        boolean addConditionalHeaders(ClassicHttpRequest httpRequest) {
+            if (etag != null) {
+                httpRequest.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                httpRequest.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+            return etag != null || lastModified != null;
+        }
+
+        HttpResult getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个路由的客户端限流器（令牌桶）：每秒permitsPerSecond个请求，允许burst个突发请求；超出时等待至多maxWait，
+ * 等不到（或maxWait为0）则直接失败，不租用连接、不发出请求，避免把连接和重试浪费在必然被对方429拒绝的请求上<br/>
+ * 1、令牌桶以“下一个请求的理论到达时间”实现（GCRA），存取只是一次CAS，无锁、不分配对象；<br/>
+ * 2、同步请求在调用线程等待；异步请求不阻塞任何线程，到达时间后由定时线程发出；<br/>
+ * 3、adaptive开启时，429、503响应的Retry-After，或X-RateLimit-Remaining为0时的X-RateLimit-Reset，
+ * 会暂停该路由的请求至对方给出的时间（最长MAX_PAUSE_SECONDS秒）<br/>
+ * 拦截器放在重试之后、熔断器之前：重试的每一次实际请求都需要许可，等待许可的时间不计入请求耗时；
+ * 等待许可的请求数、被拒绝的请求数计入路由指标（RouteMetrics）
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    // 请求执行链拦截器名称
+    static final String EXEC_INTERCEPTOR_NAME = "rate-limiter";
+    // 按响应头暂停的最长时间（秒），避免异常的响应头长时间阻断请求
+    private static final long MAX_PAUSE_SECONDS = 60L;
+    // X-RateLimit-Reset大于此值时按Unix时间戳（秒）解析，否则按剩余秒数解析
+    private static final long EPOCH_SECONDS_THRESHOLD = 1000000000L;
+
+    // 异步请求等待许可的定时线程（守护线程），只负责在许可到达时发出请求
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-rate-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final double permitsPerSecond;                  // 每秒请求数
+    private final int burst;                                // 突发请求数（令牌桶容量）
+    private final long intervalNanos;                       // 每个许可的间隔（纳秒）
+    private final long burstNanos;                          // 令牌桶容量对应的时长（纳秒）
+    private final long maxWaitNanos;                        // 获取许可的最长等待时间（纳秒），0则不等待
+    private final boolean adaptive;                         // 是否按响应头暂停
+    private final AtomicLong arrival;                       // 下一个请求的理论到达时间（System.nanoTime）
+
+    /**
+     * @param permitsPerSecond 每秒请求数
+     * @param burst            突发请求数（令牌桶容量）
+     * @param maxWait          获取不到许可时的最长等待时间，小于等于0则直接拒绝
+     * @param adaptive         是否按响应头（Retry-After、X-RateLimit-Remaining/Reset）暂停
+     */
+    RateLimiter(double permitsPerSecond, int burst, TimeValue maxWait, boolean adaptive) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new RuntimeException("限流参数无效：permitsPerSecond=" + permitsPerSecond + "，burst=" + burst);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.maxWaitNanos = TimeValue.isPositive(maxWait)
+                ? maxWait.getTimeUnit().toNanos(maxWait.getDuration()) : 0L;
+        this.adaptive = adaptive;
+        this.arrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 同步请求执行链拦截器：等待许可后发出请求，等不到许可则直接失败
+     *
+     * @param limiters 各路由的限流器
+     * @param metrics  路由指标
+     * @return 执行链拦截器
+     */
+    static ExecChainHandler createExecInterceptor(Map<HttpRoute, RateLimiter> limiters, HttpClientMetrics metrics) {
+        return (request, scope, chain) -> {
+            RateLimiter limiter = limiters.isEmpty() ? null : limiters.get(scope.route);
+            if (limiter == null) {
+                return chain.proceed(request, scope);
+            }
+            long waitNanos = limiter.acquire(scope.route, metrics);
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待限流许可时被中断：" + scope.route.getTargetHost());
+                }
+            }
+            ClassicHttpResponse response = chain.proceed(request, scope);
+            limiter.onResponse(response);
+            return response;
+        };
+    }
+
+    /**
+     * 异步请求执行链拦截器：许可未到达时由定时线程在到达时间发出请求，等不到许可则直接失败
+     *
+     * @param limiters 各路由的限流器
+     * @param metrics  路由指标
+     * @return 执行链拦截器
+     */
+    static AsyncExecChainHandler createAsyncExecInterceptor(Map<HttpRoute, RateLimiter> limiters,
+                                                            HttpClientMetrics metrics) {
+        return (request, entityProducer, scope, chain, asyncExecCallback) -> {
+            RateLimiter limiter = limiters.isEmpty() ? null : limiters.get(scope.route);
+            if (limiter == null) {
+                chain.proceed(request, entityProducer, scope, asyncExecCallback);
+                return;
+            }
+            long waitNanos;
+            try {
+                waitNanos = limiter.acquire(scope.route, metrics);
+            } catch (RuntimeException e) {
+                asyncExecCallback.failed(e);
+                return;
+            }
+            AsyncExecCallback callback = new AsyncExecCallback() {
+                @Override
+                public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails)
+                        throws HttpException, IOException {
+                    limiter.onResponse(response);
+                    return asyncExecCallback.handleResponse(response, entityDetails);
+                }
+
+                @Override
+                public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+                    asyncExecCallback.handleInformationResponse(response);
+                }
+
+                @Override
+                public void completed() {
+                    asyncExecCallback.completed();
+                }
+
+                @Override
+                public void failed(Exception cause) {
+                    asyncExecCallback.failed(cause);
+                }
+            };
+            if (waitNanos <= 0) {
+                chain.proceed(request, entityProducer, scope, callback);
+                return;
+            }
+            SCHEDULER.schedule(() -> {
+                if (scope.cancellableDependency.isCancelled()) {
+                    asyncExecCallback.failed(new InterruptedIOException("等待限流许可时请求已取消"));
+                    return;
+                }
+                try {
+                    chain.proceed(request, entityProducer, scope, callback);
+                } catch (HttpException | IOException | RuntimeException e) {
+                    asyncExecCallback.failed(e);
+                }
+            }, waitNanos, TimeUnit.NANOSECONDS);
+        };
+    }
+
+    /**
+     * 获取一个许可（预约下一个到达时间）
+     *
+     * @param route   路由
+     * @param metrics 路由指标
+     * @return 需要等待的时间（纳秒），0则立即发出
+     */
+    long acquire(HttpRoute route, HttpClientMetrics metrics) {
+        long now = System.nanoTime();
+        while (true) {
+            long current = arrival.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long waitNanos = next - burstNanos - now;
+            if (waitNanos > maxWaitNanos) {
+                metrics.getRouteMetrics(route).recordRateLimitRejected();
+                throw new RuntimeException("请求超过路由限流（每秒" + permitsPerSecond + "个，突发" + burst
+                        + "个），请求被拒绝：" + route.getTargetHost());
+            }
+            if (arrival.compareAndSet(current, next)) {
+                if (waitNanos > 0) {
+                    metrics.getRouteMetrics(route).recordRateLimitDelayed();
+                    return waitNanos;
+                }
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * 按响应头暂停（adaptive开启时）：429、503的Retry-After，或剩余配额为0时的X-RateLimit-Reset
+     *
+     * @param response 响应信息
+     */
+    void onResponse(HttpResponse response) {
+        if (!adaptive) {
+            return;
+        }
+        long pauseSeconds = 0;
+        int code = response.getCode();
+        if (code == HttpStatus.SC_TOO_MANY_REQUESTS || code == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+            pauseSeconds = parseRetryAfter(response.getFirstHeader(HttpHeaders.RETRY_AFTER));
+        }
+        Header remaining = response.getFirstHeader("X-RateLimit-Remaining");
+        if (pauseSeconds <= 0 && remaining != null && "0".equals(remaining.getValue().trim())) {
+            pauseSeconds = parseReset(response.getFirstHeader("X-RateLimit-Reset"));
+        }
+        if (pauseSeconds > 0) {
+            pause(TimeUnit.SECONDS.toNanos(Math.min(pauseSeconds, MAX_PAUSE_SECONDS)));
+        }
+    }
+
+    /**
+     * 暂停：下一个请求的到达时间不早于pauseNanos之后
+     */
+    private void pause(long pauseNanos) {
+        long target = System.nanoTime() + pauseNanos + burstNanos - intervalNanos;
+        long current;
+        do {
+            current = arrival.get();
+            if (current - target >= 0) {
+                return;
+            }
+        } while (!arrival.compareAndSet(current, target));
+        log.info("按响应头暂停限流路由的请求：{}毫秒", TimeUnit.NANOSECONDS.toMillis(pauseNanos));
+    }
+
+    /**
+     * 解析Retry-After（秒数或HTTP日期），无效则返回0
+     */
+    private static long parseRetryAfter(Header header) {
+        if (header == null) {
+            return 0;
+        }
+        String value = header.getValue().trim();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            Instant date = DateUtils.parseStandardDate(value);
+            return date == null ? 0 : TimeUnit.MILLISECONDS.toSeconds(date.toEpochMilli() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 解析X-RateLimit-Reset（剩余秒数或Unix时间戳秒数），无效则返回0
+     */
+    private static long parseReset(Header header) {
+        if (header == null) {
+            return 0;
+        }
+        try {
+            long value = Long.parseLong(header.getValue().trim());
+            return value > EPOCH_SECONDS_THRESHOLD ? value - System.currentTimeMillis() / 1000L : value;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
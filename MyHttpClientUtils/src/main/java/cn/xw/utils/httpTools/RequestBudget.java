@@ -0,0 +1,60 @@
+package cn.xw.utils.httpTools;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 额外请求（重试、对冲请求）的预算：令牌桶，每个正常请求存入ratio个令牌，每个额外请求取出1个令牌，令牌不足则不发送，
+ * 使额外请求数不超过正常请求数的ratio；另有minTokens个令牌的余量（令牌桶容量），保证低流量路由也可发送额外请求<br/>
+ * 令牌以千分之一个计，存取均为无锁的CAS操作
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class RequestBudget {
+
+    // 令牌的计量单位（以千分之一个令牌计，便于存入小数个令牌）
+    private static final long TOKEN = 1000L;
+
+    private final long deposit;                     // 每个正常请求存入的令牌数（千分之一个计）
+    private final long capacity;                    // 令牌桶容量（千分之一个计）
+    private final AtomicLong tokens;                // 当前令牌数（千分之一个计）
+
+    /**
+     * @param ratio     额外请求数占正常请求数的最大比例（0~1）
+     * @param minTokens 令牌余量（令牌桶容量），也是预算耗尽前允许的突发额外请求数
+     */
+    RequestBudget(double ratio, int minTokens) {
+        this.deposit = (long) (ratio * TOKEN);
+        this.capacity = minTokens * TOKEN;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    /**
+     * 记录一个正常请求，存入ratio个令牌（不超过令牌桶容量）
+     */
+    void deposit() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * 为一个额外请求取出1个令牌
+     *
+     * @return true：取出成功，可以发送；false：预算不足
+     */
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
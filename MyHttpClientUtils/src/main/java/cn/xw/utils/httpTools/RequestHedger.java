@@ -0,0 +1,214 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.HttpResult;
+import cn.xw.utils.httpTools.entity.LatencyHistogram;
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求（降低长尾耗时）：幂等请求发出后超过对冲延迟仍未响应时，再发送一个相同的请求，取先到达的响应，
+ * 并取消另一个请求（释放其占用的连接）；少数慢实例造成的长尾耗时由更快的那个请求兜底<br/>
+ * 1、对冲延迟：指定固定延迟，或取路由最近时间窗口内请求总耗时的DELAY_PERCENTILE分位数
+ * （窗口内样本不足MIN_SAMPLES时不对冲，见LatencyHistogram），分位数每DELAY_REFRESH_MS毫秒重新计算一次，
+ * 下游变快或变慢后对冲延迟随之调整，不受历史耗时影响；<br/>
+ * 2、对冲预算：每个路由一个令牌桶（RequestBudget），对冲请求数不超过请求数的budgetRatio，下游整体变慢时不会成倍放大流量；<br/>
+ * 3、先完成的请求失败、另一个请求尚未发出时直接失败（失败的重试由重试策略负责）；两个请求都已发出时，取先成功的那个<br/>
+ * 对冲请求数、对冲请求胜出数、因预算不足未发送的对冲请求数计入路由指标（RouteMetrics）
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class RequestHedger {
+
+    // 对冲延迟取路由请求总耗时的分位数
+    private static final double DELAY_PERCENTILE = 0.95;
+    // 按分位数计算对冲延迟时时间窗口内至少需要的样本数
+    private static final int MIN_SAMPLES = 20;
+    // 分位数对冲延迟的重新计算周期（毫秒）
+    private static final long DELAY_REFRESH_MS = 1000L;
+    // 对冲预算的令牌余量，也是预算耗尽前允许的突发对冲请求数
+    private static final int BUDGET_MIN_HEDGES = 10;
+
+    // 所有对冲请求共用的定时线程（守护线程），只负责在对冲延迟到达时发出对冲请求
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-request-hedger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpClientMetrics metrics;                        // 路由指标
+    private final double budgetRatio;                               // 对冲请求数占请求数的最大比例
+    private final Map<HttpRoute, RouteState> routeStates = new ConcurrentHashMap<>(); // 各路由的对冲预算及对冲延迟
+
+    RequestHedger(HttpClientMetrics metrics, double budgetRatio) {
+        if (budgetRatio < 0 || budgetRatio > 1) {
+            throw new RuntimeException("对冲预算比例无效：budgetRatio=" + budgetRatio);
+        }
+        this.metrics = metrics;
+        this.budgetRatio = budgetRatio;
+    }
+
+    /**
+     * 发送请求，超过对冲延迟仍未响应时发送对冲请求
+     *
+     * @param route      路由
+     * @param delayNanos 对冲延迟（纳秒），小于等于0则取路由最近时间窗口内请求总耗时的分位数
+     * @param attempt    发送一次请求（首次请求、对冲请求各调用一次），取消返回的CompletableFuture时需取消底层请求
+     * @return 异步的HttpResult响应数据（先成功的请求的响应）
+     */
+    CompletableFuture<HttpResult> execute(HttpRoute route, long delayNanos,
+                                          Supplier<CompletableFuture<HttpResult>> attempt) {
+        RouteState state = getRouteState(route);
+        state.budget.deposit();
+        RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        long delay = delayNanos > 0 ? delayNanos : state.getPercentileDelay(routeMetrics.getTotal());
+        if (delay <= 0) {
+            return attempt.get();
+        }
+        HedgedCall call = new HedgedCall(state, routeMetrics, attempt);
+        call.start(delay);
+        return call.result;
+    }
+
+    private RouteState getRouteState(HttpRoute route) {
+        RouteState state = routeStates.get(route);
+        return state != null ? state : routeStates.computeIfAbsent(route, key -> new RouteState(budgetRatio));
+    }
+
+    /**
+     * 路由的对冲预算及按分位数计算的对冲延迟（缓存DELAY_REFRESH_MS毫秒，避免每次请求都计算分位数）
+     */
+    private static class RouteState {
+        private final RequestBudget budget;
+        private volatile long percentileDelay;  // 对冲延迟（纳秒），样本不足时为0
+        private volatile long refreshAt;        // 下次重新计算的时间（System.nanoTime）
+
+        RouteState(double budgetRatio) {
+            this.budget = new RequestBudget(budgetRatio, BUDGET_MIN_HEDGES);
+            this.refreshAt = System.nanoTime();
+        }
+
+        long getPercentileDelay(LatencyHistogram total) {
+            long now = System.nanoTime();
+            if (now - refreshAt >= 0) {
+                refreshAt = now + TimeUnit.MILLISECONDS.toNanos(DELAY_REFRESH_MS);
+                percentileDelay = total.getWindowCount() < MIN_SAMPLES ? 0
+                        : (long) total.getPercentile(DELAY_PERCENTILE, TimeUnit.NANOSECONDS);
+            }
+            return percentileDelay;
+        }
+    }
+
+    /**
+     * 一次对冲调用：首次请求、对冲请求（可能因预算不足不发送）以及最终结果
+     */
+    private static class HedgedCall {
+        private final RouteState state;
+        private final RouteMetrics routeMetrics;
+        private final Supplier<CompletableFuture<HttpResult>> attempt;
+        private final CompletableFuture<HttpResult> result = new CompletableFuture<>();
+        private CompletableFuture<HttpResult> primary;      // 首次请求
+        private CompletableFuture<HttpResult> hedge;        // 对冲请求（未发送时为null）
+        private ScheduledFuture<?> timer;                   // 发出对冲请求的定时任务
+        private int pending;                                // 未完成的请求数
+
+        HedgedCall(RouteState state, RouteMetrics routeMetrics, Supplier<CompletableFuture<HttpResult>> attempt) {
+            this.state = state;
+            this.routeMetrics = routeMetrics;
+            this.attempt = attempt;
+        }
+
+        void start(long delayNanos) {
+            synchronized (this) {
+                pending = 1;
+                primary = attempt.get();
+                timer = SCHEDULER.schedule(this::sendHedge, delayNanos, TimeUnit.NANOSECONDS);
+            }
+            primary.whenComplete((httpResult, throwable) -> onComplete(httpResult, throwable, false));
+            // 调用方取消时取消全部请求
+            result.whenComplete((httpResult, throwable) -> {
+                if (result.isCancelled()) {
+                    cancelAll();
+                }
+            });
+        }
+
+        /**
+         * 对冲延迟到达：结果仍未返回且预算充足时发送对冲请求
+         */
+        private void sendHedge() {
+            CompletableFuture<HttpResult> hedgeFuture;
+            synchronized (this) {
+                if (result.isDone() || pending == 0) {
+                    return;
+                }
+                if (!state.budget.tryAcquire()) {
+                    routeMetrics.recordHedgeBudgetExhausted();
+                    return;
+                }
+                routeMetrics.recordHedge();
+                pending++;
+                try {
+                    hedgeFuture = attempt.get();
+                } catch (RuntimeException e) {
+                    hedgeFuture = new CompletableFuture<>();
+                    hedgeFuture.completeExceptionally(e);
+                }
+                hedge = hedgeFuture;
+            }
+            hedgeFuture.whenComplete((httpResult, throwable) -> onComplete(httpResult, throwable, true));
+        }
+
+        private void onComplete(HttpResult httpResult, Throwable throwable, boolean fromHedge) {
+            if (throwable == null) {
+                if (result.complete(httpResult)) {
+                    if (fromHedge) {
+                        routeMetrics.recordHedgeWin();
+                    }
+                    cancelAll();
+                }
+                return;
+            }
+            boolean last;
+            synchronized (this) {
+                last = --pending == 0;
+            }
+            // 所有已发出的请求都失败（对冲请求尚未发出时不再发出）
+            if (last && result.completeExceptionally(throwable)) {
+                cancelAll();
+            }
+        }
+
+        /**
+         * 取消定时任务及未完成的请求（被取消的请求释放其占用的连接）
+         */
+        private void cancelAll() {
+            ScheduledFuture<?> hedgeTimer;
+            CompletableFuture<HttpResult> primaryFuture;
+            CompletableFuture<HttpResult> hedgeFuture;
+            synchronized (this) {
+                hedgeTimer = timer;
+                primaryFuture = primary;
+                hedgeFuture = hedge;
+            }
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            if (primaryFuture != null && !primaryFuture.isDone()) {
+                primaryFuture.cancel(true);
+            }
+            if (hedgeFuture != null && !hedgeFuture.isDone()) {
+                hedgeFuture.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 重试策略（替换HttpClient默认的重试策略，同时作用于同步、异步客户端）：<br/>
+ * 1、可重试的失败：连接未建立（连接被拒绝、建立连接超时、路由不可达），请求尚未发出，任何请求方法都可重试；
+ * 连接被重置、对方未响应等其它I/O异常，以及429、502、503、504响应，只重试幂等请求（GET、HEAD、PUT、DELETE、OPTIONS、TRACE）；
+ * 响应超时、获取连接超时、域名解析失败、SSL异常不重试（下游已经变慢或重试也不会成功，重试只会放大压力）；<br/>
+ * 2、退避时间：指数退避加全抖动（Full Jitter），第n次重试等待[0, min(maxBackoff, baseBackoff * 2^(n-1))]内的随机时间，
+ * 避免大量请求同时重试；响应带Retry-After时按其等待，超过响应超时时间则不重试；<br/>
+ * 3、重试预算：每个路由一个令牌桶，每个请求存入budgetRatio个令牌，每次重试取出1个令牌，令牌不足则放弃重试，
+ * 使重试次数不超过请求数的budgetRatio（另有BUDGET_MIN_RETRIES个令牌的余量，保证低流量路由也可重试）；
+ * 下游故障时重试很快被预算限制，不会成倍放大流量<br/>
+ * 重试次数、因预算不足放弃的重试次数计入路由指标（RouteMetrics）<br/>
+ * 注：请求体不可重复读取（如上传文件流）的请求不会重试
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class RetryPolicy implements HttpRequestRetryStrategy {
+
+    // 重试预算的令牌余量（令牌桶容量），也是预算耗尽前允许的突发重试次数
+    private static final int BUDGET_MIN_RETRIES = 10;
+
+    private final int maxRetries;                                   // 单个请求的最大重试次数
+    private final TimeValue baseBackoff;                            // 首次重试的退避时间上限
+    private final TimeValue maxBackoff;                             // 退避时间上限
+    private final double budgetRatio;                               // 重试次数占请求数的最大比例
+    private final HttpClientMetrics metrics;                        // 路由指标（记录重试次数）
+    private final Map<HttpRoute, RequestBudget> budgets = new ConcurrentHashMap<>(); // 各路由的重试预算
+
+    RetryPolicy(int maxRetries, TimeValue baseBackoff, TimeValue maxBackoff, double budgetRatio,
+                HttpClientMetrics metrics) {
+        if (maxRetries < 0 || !TimeValue.isNonNegative(baseBackoff) || !TimeValue.isNonNegative(maxBackoff)
+                || budgetRatio < 0 || budgetRatio > 1) {
+            throw new RuntimeException("重试策略参数无效：maxRetries=" + maxRetries + "，baseBackoff=" + baseBackoff
+                    + "，maxBackoff=" + maxBackoff + "，budgetRatio=" + budgetRatio);
+        }
+        this.maxRetries = maxRetries;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.budgetRatio = budgetRatio;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 委托给当前重试策略的重试策略（客户端创建后仍可替换重试策略），当前重试策略为null时不重试
+     *
+     * @param current 获取当前的重试策略
+     * @return 重试策略
+     */
+    static HttpRequestRetryStrategy delegate(Supplier<RetryPolicy> current) {
+        return new HttpRequestRetryStrategy() {
+            @Override
+            public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+                RetryPolicy policy = current.get();
+                return policy != null && policy.retryRequest(request, exception, execCount, context);
+            }
+
+            @Override
+            public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+                RetryPolicy policy = current.get();
+                return policy != null && policy.retryRequest(response, execCount, context);
+            }
+
+            @Override
+            public TimeValue getRetryInterval(HttpRequest request, IOException exception, int execCount,
+                                              HttpContext context) {
+                RetryPolicy policy = current.get();
+                return policy == null ? TimeValue.ZERO_MILLISECONDS
+                        : policy.getRetryInterval(request, exception, execCount, context);
+            }
+
+            @Override
+            public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
+                RetryPolicy policy = current.get();
+                return policy == null ? TimeValue.ZERO_MILLISECONDS
+                        : policy.getRetryInterval(response, execCount, context);
+            }
+        };
+    }
+
+    @Override
+    public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+        HttpRoute route = getRoute(context);
+        deposit(route, execCount);
+        if (execCount > maxRetries) {
+            return false;
+        }
+        if (request instanceof CancellableDependency && ((CancellableDependency) request).isCancelled()) {
+            return false;
+        }
+        boolean notSent = exception instanceof ConnectException || exception instanceof ConnectTimeoutException
+                || exception instanceof NoRouteToHostException;
+        if (!notSent) {
+            if (exception instanceof InterruptedIOException || exception instanceof UnknownHostException
+                    || exception instanceof SSLException || !Method.isIdempotent(request.getMethod())) {
+                return false;
+            }
+        }
+        return acquire(route);
+    }
+
+    @Override
+    public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+        HttpClientContext clientContext = HttpClientContext.adapt(context);
+        HttpRoute route = getRoute(context);
+        deposit(route, execCount);
+        if (execCount > maxRetries || !isRetriableStatus(response.getCode())) {
+            return false;
+        }
+        HttpRequest request = clientContext.getRequest();
+        if (request == null || !Method.isIdempotent(request.getMethod())) {
+            return false;
+        }
+        // Retry-After超过响应超时时间则不重试（与其占着线程等待，不如让调用方尽快得到响应）
+        TimeValue retryAfter = getRetryAfter(response);
+        Timeout responseTimeout = clientContext.getRequestConfig().getResponseTimeout();
+        if (retryAfter != null && TimeValue.isPositive(responseTimeout) && retryAfter.compareTo(responseTimeout) > 0) {
+            return false;
+        }
+        return acquire(route);
+    }
+
+    @Override
+    public TimeValue getRetryInterval(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+        return backoff(execCount);
+    }
+
+    @Override
+    public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
+        TimeValue retryAfter = getRetryAfter(response);
+        return retryAfter != null ? retryAfter : backoff(execCount);
+    }
+
+    /**
+     * 指数退避加全抖动：[0, min(maxBackoff, baseBackoff * 2^(execCount-1))]内的随机时间
+     *
+     * @param execCount 已执行次数（第几次重试）
+     * @return 退避时间
+     */
+    private TimeValue backoff(int execCount) {
+        long base = baseBackoff.toMilliseconds();
+        long cap = maxBackoff.toMilliseconds();
+        long ceiling = execCount > 31 ? cap : Math.min(cap, base << Math.max(execCount - 1, 0));
+        if (ceiling < 0) {
+            ceiling = cap;
+        }
+        return TimeValue.ofMilliseconds(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    /**
+     * 解析响应的Retry-After（秒数或HTTP日期），无效或已过期则返回null
+     */
+    private static TimeValue getRetryAfter(HttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null) {
+            return null;
+        }
+        String value = header.getValue().trim();
+        TimeValue retryAfter = null;
+        try {
+            retryAfter = TimeValue.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            Instant retryAfterDate = DateUtils.parseStandardDate(value);
+            if (retryAfterDate != null) {
+                retryAfter = TimeValue.ofMilliseconds(retryAfterDate.toEpochMilli() - System.currentTimeMillis());
+            }
+        }
+        return TimeValue.isPositive(retryAfter) ? retryAfter : null;
+    }
+
+    /**
+     * 从请求上下文中获取路由（由路由指标的执行链拦截器放入）
+     */
+    private static HttpRoute getRoute(HttpContext context) {
+        Object route = context == null ? null : context.getAttribute(HttpClientContext.HTTP_ROUTE);
+        return route instanceof HttpRoute ? (HttpRoute) route : null;
+    }
+
+    private static boolean isRetriableStatus(int code) {
+        return code == HttpStatus.SC_TOO_MANY_REQUESTS || code == HttpStatus.SC_BAD_GATEWAY
+                || code == HttpStatus.SC_SERVICE_UNAVAILABLE || code == HttpStatus.SC_GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * 请求首次执行完成（无论成功失败，重试策略都会被调用一次）时向路由的令牌桶存入budgetRatio个令牌
+     */
+    private void deposit(HttpRoute route, int execCount) {
+        if (execCount == 1 && route != null) {
+            getBudget(route).deposit();
+        }
+    }
+
+    /**
+     * 从路由的令牌桶取出1个令牌，成功则记录一次重试，令牌不足则记录一次预算不足并放弃重试
+     */
+    private boolean acquire(HttpRoute route) {
+        if (route == null) {
+            return false;
+        }
+        RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        if (!getBudget(route).tryAcquire()) {
+            routeMetrics.recordRetryBudgetExhausted();
+            return false;
+        }
+        routeMetrics.recordRetry();
+        return true;
+    }
+
+    private RequestBudget getBudget(HttpRoute route) {
+        RequestBudget budget = budgets.get(route);
+        return budget != null ? budget
+                : budgets.computeIfAbsent(route, key -> new RequestBudget(budgetRatio, BUDGET_MIN_RETRIES));
+    }
+}
@@ -0,0 +1,270 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * 分段并发下载：按字节范围（Range）把文件拆分为多段，通过异步连接池并发下载，
+ * 每段数据由I/O Reactor线程直接写入内存映射文件中该段对应的区域（不经过中间缓冲）<br/>
+ * 单段失败时从该段已写入的位置续传，全部完成后可校验整个文件的摘要（如SHA-256、MD5）
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class SegmentedDownloader {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedDownloader.class);
+
+    // 单段下载失败后的最大重试次数
+    private static final Integer SEGMENT_RETRIES = 3;
+    // 单段最大字节数（单个内存映射区域不能超过2GB）
+    private static final Long SEGMENT_MAX_SIZE = (long) Integer.MAX_VALUE;
+    // 计算文件摘要时的读取缓冲区大小
+    private static final Integer DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    private final CloseableHttpAsyncClient asyncClient;     // 异步客户端（HTTP/1.1连接池）
+    private final Supplier<ClassicHttpRequest> requestSupplier; // 每段请求的构建（请求地址、请求头、请求配置）
+    private final long contentLength;                       // 文件总字节数
+    private final String validator;                         // 续传校验值（强ETag或Last-Modified），用于If-Range
+
+    SegmentedDownloader(CloseableHttpAsyncClient asyncClient, Supplier<ClassicHttpRequest> requestSupplier,
+                        long contentLength, String validator) {
+        this.asyncClient = asyncClient;
+        this.requestSupplier = requestSupplier;
+        this.contentLength = contentLength;
+        this.validator = validator;
+    }
+
+    /**
+     * 分段并发下载到目标文件，任意一段最终失败或摘要校验失败时删除目标文件
+     *
+     * @param targetFile        目标文件
+     * @param segmentCount      分段数
+     * @param checksumAlgorithm 摘要算法（如：SHA-256、MD5），为null则不校验
+     * @param expectedChecksum  预期摘要（十六进制或Base64），为null则不校验
+     * @throws IOException 下载或校验失败
+     */
+    void download(Path targetFile, int segmentCount, String checksumAlgorithm, String expectedChecksum)
+            throws IOException {
+        // 每段不能超过单个内存映射区域的上限
+        long minSegmentCount = (contentLength + SEGMENT_MAX_SIZE - 1) / SEGMENT_MAX_SIZE;
+        int count = (int) Math.max(Math.max(segmentCount, minSegmentCount), 1);
+        long segmentSize = (contentLength + count - 1) / count;
+        boolean success = false;
+        try (FileChannel fileChannel = FileChannel.open(targetFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<CompletableFuture<Void>> segments = new ArrayList<>();
+            // 任意一段最终失败时立即结束等待（allOf要等全部段结束），取消其余段
+            CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+            for (long start = 0; start < contentLength; start += segmentSize) {
+                long length = Math.min(segmentSize, contentLength - start);
+                // 映射区域超出文件大小时文件会自动扩展
+                MappedByteBuffer region = fileChannel.map(FileChannel.MapMode.READ_WRITE, start, length);
+                CompletableFuture<Void> segment = new CompletableFuture<>();
+                segment.whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        firstFailure.completeExceptionally(throwable);
+                    }
+                });
+                fetchSegment(start, region, 0, segment);
+                segments.add(segment);
+            }
+            try {
+                CompletableFuture.anyOf(CompletableFuture.allOf(segments.toArray(new CompletableFuture<?>[0])),
+                        firstFailure).get();
+            } catch (InterruptedException e) {
+                segments.forEach(segment -> segment.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IOException("分段下载被中断", e);
+            } catch (ExecutionException e) {
+                segments.forEach(segment -> segment.cancel(true));
+                throw new IOException("分段下载失败：" + e.getCause().getMessage(), e.getCause());
+            }
+            if (checksumAlgorithm != null && expectedChecksum != null) {
+                verifyChecksum(fileChannel, checksumAlgorithm, expectedChecksum);
+            }
+            fileChannel.force(false);
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(targetFile);
+            }
+        }
+    }
+
+    /**
+     * 下载一段数据（从该段已写入的位置开始），失败时按剩余范围重试
+     *
+     * @param start   该段在文件中的起始位置
+     * @param region  该段对应的内存映射区域（position为已写入的字节数）
+     * @param attempt 当前已重试的次数
+     * @param segment 该段的完成结果
+     */
+    private void fetchSegment(long start, MappedByteBuffer region, int attempt, CompletableFuture<Void> segment) {
+        if (segment.isDone()) {
+            return;
+        }
+        long from = start + region.position();
+        long to = start + region.limit() - 1;
+        ClassicHttpRequest httpRequest = requestSupplier.get();
+        // 不协商内容压缩，保证Range的字节偏移与文件内容一致
+        httpRequest.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        httpRequest.setHeader(HttpHeaders.RANGE, "bytes=" + from + "-" + to);
+        if (validator != null) {
+            httpRequest.setHeader(HttpHeaders.IF_RANGE, validator);
+        }
+        Future<Long> request = asyncClient.execute(new BasicRequestProducer(httpRequest, null),
+                new RegionConsumer(from, region), null, new FutureCallback<Long>() {
+                    @Override
+                    public void completed(Long written) {
+                        if (!region.hasRemaining()) {
+                            segment.complete(null);
+                        } else {
+                            retry(new IOException("分段数据不完整，剩余" + region.remaining() + "字节"));
+                        }
+                    }
+
+                    @Override
+                    public void failed(Exception ex) {
+                        retry(ex);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        segment.cancel(false);
+                    }
+
+                    private void retry(Exception ex) {
+                        // 文件已变化（服务端未按范围返回）不再重试
+                        if (attempt >= SEGMENT_RETRIES || ex instanceof HttpException) {
+                            segment.completeExceptionally(ex);
+                            return;
+                        }
+                        log.warn("分段[{}-{}]下载中断，已写入{}字节，开始第{}次重试：{}", start, to,
+                                region.position(), attempt + 1, ex.getMessage());
+                        fetchSegment(start, region, attempt + 1, segment);
+                    }
+                });
+        // 该段被取消（其它段失败、下载被中断）时同时取消底层请求，不再继续写入即将删除的文件
+        segment.whenComplete((result, throwable) -> {
+            if (segment.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * 校验整个文件的摘要（逐块读取计算，内存占用固定）
+     *
+     * @param fileChannel       文件通道
+     * @param checksumAlgorithm 摘要算法
+     * @param expectedChecksum  预期摘要（十六进制或Base64）
+     * @throws IOException 摘要不一致
+     */
+    private void verifyChecksum(FileChannel fileChannel, String checksumAlgorithm, String expectedChecksum)
+            throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(checksumAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("不支持的摘要算法：" + checksumAlgorithm, e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+        long position = 0;
+        int bytesRead;
+        while ((bytesRead = fileChannel.read(buffer, position)) > 0) {
+            position += bytesRead;
+            buffer.flip();
+            messageDigest.update(buffer);
+            buffer.clear();
+        }
+        byte[] digest = messageDigest.digest();
+        String hex = String.format("%0" + (digest.length * 2) + "x", new BigInteger(1, digest));
+        String base64 = Base64.getEncoder().encodeToString(digest);
+        if (!hex.equalsIgnoreCase(expectedChecksum.trim()) && !base64.equals(expectedChecksum.trim())) {
+            throw new IOException("文件摘要校验失败，预期：" + expectedChecksum + "，实际：" + hex);
+        }
+        log.info("文件摘要校验通过（{}）：{}", checksumAlgorithm, hex);
+    }
+
+    /**
+     * 将一段响应体直接写入内存映射区域的响应消费者
+     */
+    private static class RegionConsumer extends AbstractBinResponseConsumer<Long> {
+
+        private final long from;                // 本次请求的范围起点
+        private final MappedByteBuffer region;  // 该段对应的内存映射区域
+        private final int startPosition;        // 本次请求开始时区域已写入的字节数
+        private long written;                   // 本次请求写入的字节数
+
+        private RegionConsumer(long from, MappedByteBuffer region) {
+            this.from = from;
+            this.region = region;
+            this.startPosition = region.position();
+        }
+
+        @Override
+        protected void start(HttpResponse response, ContentType contentType) throws HttpException {
+            // 必须是从请求的范围起点开始的部分内容，否则说明文件已变化或服务端不支持范围请求
+            Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+            if (response.getCode() != 206 || contentRange == null
+                    || !contentRange.getValue().trim().startsWith("bytes " + from + "-")) {
+                throw new HttpException("分段响应无效（响应码：" + response.getCode() + "），文件可能已变化");
+            }
+            // 请求执行链的重试会以同一个消费者重发请求，响应从范围起点重新写入
+            region.position(startPosition);
+            written = 0;
+        }
+
+        @Override
+        protected int capacityIncrement() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+            if (src.remaining() > region.remaining()) {
+                throw new IOException("分段数据超出请求的范围");
+            }
+            written += src.remaining();
+            region.put(src);
+        }
+
+        @Override
+        protected Long buildResult() {
+            return written;
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 客户端负载均衡的逻辑服务：一个服务名对应多个实例地址（如http://192.168.0.1:8080），请求地址写作lb://服务名/路径，
+ * 每次发送请求时按各实例路由的实时负载选出一个实例，替换为该实例的地址<br/>
+ * 1、负载 = (进行中的请求数 + 1) / 路由最大连接数（customMaxPerRoute设置的值，未设置取默认值），连接数大的实例承担更多请求；
+ * 进行中的请求数由路由指标（RouteMetrics）实时记录；<br/>
+ * 2、选择策略：最少进行中请求（遍历全部实例，负载相同的实例轮流选择），或P2C（随机取两个实例选负载低的，实例较多时开销更小，
+ * 也避免所有调用方同时涌向同一个负载最低的实例）；<br/>
+ * 3、离群实例剔除：实例路由连续失败（异常、超时、5xx响应）达到EJECTION_FAILURES次时剔除，剔除时长为
+ * EJECTION_BASE_MS毫秒乘以被剔除的次数（最长EJECTION_MAX_MS毫秒），到期后自动恢复；被剔除的实例最多占MAX_EJECTION_RATIO，
+ * 全部实例都被剔除时仍在全部实例中选择<br/>
+ * 剔除在选择实例时检查，不需要后台线程；被剔除的次数计入路由指标
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class ServiceLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceLoadBalancer.class);
+
+    // 服务请求地址的协议，如lb://order-service/api/order
+    static final String SCHEME = "lb";
+    // 剔除实例的连续失败数
+    private static final int EJECTION_FAILURES = 5;
+    // 首次剔除的时长（毫秒），再次剔除时按次数倍增
+    private static final long EJECTION_BASE_MS = 10000L;
+    // 最长剔除时长（毫秒），恢复后这么久未再被剔除则剔除次数清零
+    private static final long EJECTION_MAX_MS = 300000L;
+    // 同时被剔除的实例最多占全部实例的比例
+    private static final double MAX_EJECTION_RATIO = 0.5;
+
+    private final String name;                      // 服务名
+    private final Endpoint[] endpoints;             // 服务的实例
+    private final boolean powerOfTwoChoices;        // 是否使用P2C，否则选择最少进行中请求的实例
+    private final AtomicInteger next = new AtomicInteger(); // 负载相同时轮流选择的起点
+
+    /**
+     * @param name              服务名
+     * @param baseUrls          实例地址（协议+ip+端口，可带路径前缀）
+     * @param powerOfTwoChoices 是否使用P2C，否则选择最少进行中请求的实例
+     */
+    ServiceLoadBalancer(String name, List<String> baseUrls, boolean powerOfTwoChoices) {
+        if (baseUrls == null || baseUrls.isEmpty()) {
+            throw new RuntimeException("服务：" + name + " 的实例地址不可为空！");
+        }
+        this.name = name;
+        this.endpoints = new Endpoint[baseUrls.size()];
+        for (int index = 0; index < endpoints.length; index++) {
+            endpoints[index] = new Endpoint(baseUrls.get(index));
+        }
+        this.powerOfTwoChoices = powerOfTwoChoices;
+    }
+
+    /**
+     * 是否为服务请求地址（lb://服务名/路径）
+     *
+     * @param url 请求地址
+     * @return 是则返回true
+     */
+    static boolean isServiceUrl(String url) {
+        return url.regionMatches(true, 0, SCHEME + "://", 0, SCHEME.length() + 3);
+    }
+
+    /**
+     * 选出一个实例，并把服务请求地址替换为该实例的地址
+     *
+     * @param serviceUri    服务请求地址（lb://服务名/路径?参数）
+     * @param routeMetrics  获取实例路由的指标（按发送请求的客户端配置）
+     * @param maxConcurrency 获取实例路由的最大连接数
+     * @return 实例的请求地址
+     */
+    String resolve(URI serviceUri, Function<HttpRoute, RouteMetrics> routeMetrics,
+                   ToIntFunction<HttpRoute> maxConcurrency) {
+        Endpoint endpoint = choose(routeMetrics, maxConcurrency);
+        StringBuilder url = new StringBuilder(endpoint.baseUrl);
+        if (serviceUri.getRawPath() != null) {
+            url.append(serviceUri.getRawPath());
+        }
+        if (serviceUri.getRawQuery() != null) {
+            url.append('?').append(serviceUri.getRawQuery());
+        }
+        if (serviceUri.getRawFragment() != null) {
+            url.append('#').append(serviceUri.getRawFragment());
+        }
+        return url.toString();
+    }
+
+    private Endpoint choose(Function<HttpRoute, RouteMetrics> routeMetrics, ToIntFunction<HttpRoute> maxConcurrency) {
+        long now = System.nanoTime();
+        Endpoint[] candidates = available(now, routeMetrics);
+        if (candidates.length == 1) {
+            return candidates[0];
+        }
+        if (powerOfTwoChoices && candidates.length > 2) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(candidates.length);
+            int second = random.nextInt(candidates.length - 1);
+            if (second >= first) {
+                second++;
+            }
+            return compare(candidates[second], candidates[first], routeMetrics, maxConcurrency) < 0
+                    ? candidates[second] : candidates[first];
+        }
+        // 最少进行中请求：从轮流的起点开始遍历，负载相同时取先遍历到的
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % candidates.length;
+        Endpoint best = candidates[start];
+        for (int offset = 1; offset < candidates.length; offset++) {
+            Endpoint endpoint = candidates[(start + offset) % candidates.length];
+            if (compare(endpoint, best, routeMetrics, maxConcurrency) < 0) {
+                best = endpoint;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 检查剔除并返回可选择的实例（全部被剔除时返回全部实例）
+     */
+    private Endpoint[] available(long now, Function<HttpRoute, RouteMetrics> routeMetrics) {
+        int maxEjected = (int) (endpoints.length * MAX_EJECTION_RATIO);
+        int ejected = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isEjected(now)) {
+                ejected++;
+            }
+        }
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now) && ejected < maxEjected && endpoint.tryEject(now, routeMetrics)) {
+                ejected++;
+            }
+        }
+        if (ejected == 0 || ejected == endpoints.length) {
+            return endpoints;
+        }
+        Endpoint[] candidates = new Endpoint[endpoints.length - ejected];
+        int index = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (!endpoint.isEjected(now) && index < candidates.length) {
+                candidates[index++] = endpoint;
+            }
+        }
+        return index == candidates.length ? candidates : endpoints;
+    }
+
+    /**
+     * 比较两个实例的负载（(进行中的请求数 + 1) / 最大连接数，交叉相乘避免除法）
+     *
+     * @return 小于0则first负载更低
+     */
+    private static int compare(Endpoint first, Endpoint second, Function<HttpRoute, RouteMetrics> routeMetrics,
+                               ToIntFunction<HttpRoute> maxConcurrency) {
+        long firstLoad = (routeMetrics.apply(first.route).getInFlight() + 1L)
+                * Math.max(1, maxConcurrency.applyAsInt(second.route));
+        long secondLoad = (routeMetrics.apply(second.route).getInFlight() + 1L)
+                * Math.max(1, maxConcurrency.applyAsInt(first.route));
+        return Long.compare(firstLoad, secondLoad);
+    }
+
+    /**
+     * 服务的一个实例及其剔除状态
+     */
+    private class Endpoint {
+        private final String baseUrl;                   // 实例地址（去掉末尾的/）
+        private final HttpRoute route;                  // 实例的路由
+        private volatile long ejectedUntil;             // 剔除的结束时间（System.nanoTime）
+        private volatile boolean everEjected;           // 是否被剔除过
+        private int ejections;                          // 连续被剔除的次数（决定剔除时长）
+
+        Endpoint(String baseUrl) {
+            String url = baseUrl.trim();
+            this.baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+            this.route = HttpClientUtils.createHttpRoute(URI.create(this.baseUrl));
+        }
+
+        boolean isEjected(long now) {
+            return everEjected && now - ejectedUntil < 0;
+        }
+
+        /**
+         * 连续失败数达到阈值时剔除
+         *
+         * @return 是否被剔除
+         */
+        synchronized boolean tryEject(long now, Function<HttpRoute, RouteMetrics> routeMetrics) {
+            RouteMetrics metrics = routeMetrics.apply(route);
+            if (everEjected && now - ejectedUntil > TimeUnit.MILLISECONDS.toNanos(EJECTION_MAX_MS)) {
+                ejections = 0;
+            }
+            if (metrics.getConsecutiveFailures() < EJECTION_FAILURES || isEjected(now)) {
+                return false;
+            }
+            ejections++;
+            long ejectionMs = Math.min(EJECTION_BASE_MS * ejections, EJECTION_MAX_MS);
+            ejectedUntil = now + TimeUnit.MILLISECONDS.toNanos(ejectionMs);
+            everEjected = true;
+            metrics.recordEjected();
+            log.warn("服务：{} 的实例：{} 连续失败{}次，剔除{}毫秒（第{}次）", name, baseUrl, EJECTION_FAILURES, ejectionMs,
+                    ejections);
+            return true;
+        }
+    }
+}
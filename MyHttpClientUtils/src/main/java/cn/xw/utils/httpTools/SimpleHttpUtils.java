@@ -269,7 +269,7 @@ public class SimpleHttpUtils {
      * @param inputStream 输入流信息
      * @return 解析后的字符串信息
      */
-    private static String parsingInStream(InputStream inputStream) {
+    static String parsingInStream(InputStream inputStream) {
 
         // 初始化返回的结果信息
         StringBuilder sb = null;
@@ -294,7 +294,7 @@ public class SimpleHttpUtils {
      * @param originalUrl 原始的 URL
      * @return 编码后的URL 如：...getFarmer?likeName=%E6%99%93&...
      */
-    private static String encodeUrl(String originalUrl) {
+    static String encodeUrl(String originalUrl) {
         String encodedUrl = null;
         // 将原始 URL 拆分为基础URL和查询参数部分
         String[] parts = originalUrl.split("\\?");
@@ -0,0 +1,161 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.HttpResult;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.Header;
+
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求合并（single-flight）：同一时刻相同的幂等请求（请求方式、请求地址、请求头均相同）只发送一次，
+ * 其余调用方等待并共享这一次的响应，避免缓存失效瞬间大量相同请求占满路由的连接<br/>
+ * <p style="color:#f61">说明：合并的调用方共享同一个HttpResult对象，请勿修改其内容；文件流响应只能被读取一次，不要合并</p>
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class SingleFlight {
+
+    // 正在进行中的请求（键为请求合并的键）
+    private final ConcurrentHashMap<String, CompletableFuture<HttpResult>> inFlight = new ConcurrentHashMap<>();
+    // 计算请求合并的键时忽略的请求头（名称小写），如链路追踪、请求ID等每次都不同的请求头
+    private volatile Set<String> ignoredHeaders;
+    // 实际发送的请求数
+    private final LongAdder executions = new LongAdder();
+    // 被合并（未实际发送，共享其它请求响应）的请求数
+    private final LongAdder coalesced = new LongAdder();
+
+    SingleFlight(Set<String> ignoredHeaders) {
+        this.ignoredHeaders = ignoredHeaders;
+    }
+
+    /**
+     * 计算请求合并的键：请求方式 + 完整请求地址（含URL参数）+ 按名称排序的请求头（忽略指定的请求头）
+     *
+     * @param httpRequest Http请求对象
+     * @return 请求合并的键
+     */
+    String createKey(ClassicHttpRequest httpRequest) {
+        StringBuilder key = new StringBuilder(httpRequest.getMethod()).append(' ');
+        try {
+            key.append(httpRequest.getUri());
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+        Set<String> ignored = ignoredHeaders;
+        Header[] headers = httpRequest.getHeaders();
+        Arrays.sort(headers, Comparator.comparing((Header header) -> header.getName().toLowerCase())
+                .thenComparing(Header::getValue));
+        for (Header header : headers) {
+            String name = header.getName().toLowerCase();
+            if (!ignored.contains(name)) {
+                key.append('\n').append(name).append(':').append(header.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 同步执行：没有相同请求在进行中时由当前线程发送，否则等待进行中的请求完成并共享其响应<br/>
+     * 注：发送请求抛出任何异常（包括Error）时，等待中的调用方同样以该异常失败，合并的键随之移除；
+     * 等待超过最长等待时间时抛出超时异常（进行中的请求不受影响）
+     *
+     * @param key          请求合并的键
+     * @param timeoutNanos 等待进行中请求的最长时间（纳秒），小于等于0则不限制
+     * @param call         实际发送请求
+     * @return HttpResult响应数据
+     */
+    HttpResult execute(String key, long timeoutNanos, Supplier<HttpResult> call) {
+        CompletableFuture<HttpResult> leader = new CompletableFuture<>();
+        CompletableFuture<HttpResult> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return timeoutNanos > 0 ? existing.get(timeoutNanos, TimeUnit.NANOSECONDS) : existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (TimeoutException e) {
+                throw new RuntimeException("等待相同请求的响应超时（" + TimeUnit.NANOSECONDS.toMillis(timeoutNanos)
+                        + "毫秒）", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+            }
+        }
+        executions.increment();
+        try {
+            HttpResult httpResult = call.get();
+            leader.complete(httpResult);
+            return httpResult;
+        } catch (RuntimeException | Error e) {
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    /**
+     * 异步执行：没有相同请求在进行中时发送，否则共享进行中请求的结果<br/>
+     * 注：返回给每个调用方的是独立的CompletableFuture，某个调用方取消不会影响其它调用方
+     *
+     * @param key  请求合并的键
+     * @param call 实际发送请求
+     * @return 异步的HttpResult响应数据
+     */
+    CompletableFuture<HttpResult> executeAsync(String key, Supplier<CompletableFuture<HttpResult>> call) {
+        CompletableFuture<HttpResult> leader = new CompletableFuture<>();
+        CompletableFuture<HttpResult> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.thenApply(httpResult -> httpResult);
+        }
+        executions.increment();
+        try {
+            call.get().whenComplete((httpResult, throwable) -> {
+                inFlight.remove(key, leader);
+                if (throwable != null) {
+                    leader.completeExceptionally(throwable instanceof CompletionException
+                            && throwable.getCause() != null ? throwable.getCause() : throwable);
+                } else {
+                    leader.complete(httpResult);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(e);
+            if (e instanceof Error) {
+                throw e;
+            }
+        }
+        return leader.thenApply(httpResult -> httpResult);
+    }
+
+    void setIgnoredHeaders(Set<String> ignoredHeaders) {
+        this.ignoredHeaders = ignoredHeaders;
+    }
+
+    long getExecutions() {
+        return executions.sum();
+    }
+
+    long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    int getInFlight() {
+        return inFlight.size();
+    }
+}
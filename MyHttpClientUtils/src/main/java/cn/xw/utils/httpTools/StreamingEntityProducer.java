@@ -0,0 +1,71 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.nio.support.classic.AbstractClassicEntityProducer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 把同步请求体（如文件上传的多部分实体）以流的方式交给异步客户端发送：后台线程调用实体的writeTo写入固定大小的缓冲区，
+ * 缓冲区写满时等待I/O Reactor发出，文件内容边读边发，不会整体读入内存<br/>
+ * 注：请求体长度未知，以分块方式传输；不可重复发送（不重试、不重发）；请求失败或取消时中断后台线程的写入
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class StreamingEntityProducer extends AbstractClassicEntityProducer {
+
+    // 缓冲区大小（字节），即每个上传请求最多占用的内存
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // 写入请求体的后台线程（按需创建，空闲60秒后回收）
+    private static final ExecutorService WRITER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "httpclient-entity-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HttpEntity entity;
+    private Thread writer;                                  // 正在写入请求体的线程（写入结束后为null）
+
+    StreamingEntityProducer(HttpEntity entity) {
+        super(BUFFER_SIZE, ContentType.parse(entity.getContentType()), WRITER);
+        this.entity = entity;
+    }
+
+    @Override
+    protected void produceData(ContentType contentType, OutputStream outputStream) throws IOException {
+        synchronized (this) {
+            writer = Thread.currentThread();
+        }
+        try {
+            entity.writeTo(outputStream);
+        } finally {
+            synchronized (this) {
+                writer = null;
+                // 清除释放资源时可能设置的中断标记，线程归还线程池后不影响其它请求
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return entity.getContentEncoding();
+    }
+
+    /**
+     * 请求结束（失败、取消）时中断仍在等待缓冲区的写入线程，否则该线程会一直等待I/O Reactor取走数据
+     */
+    @Override
+    public void releaseResources() {
+        synchronized (this) {
+            if (writer != null) {
+                writer.interrupt();
+            }
+        }
+    }
+}
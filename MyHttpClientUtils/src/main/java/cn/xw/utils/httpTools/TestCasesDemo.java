@@ -11,7 +11,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * 测试案例
+ * 测试案例<br/>
+ * 注：扩展功能（异步、HTTP/2、缓存、指标、重试、熔断等）的测试案例见FeatureDemos，压测见LoadGenerator（均在src/loadtest/java）
  *
  * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
  * @version 1.0
@@ -0,0 +1,215 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.ssl.ApplicationProtocol;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.ReflectionUtils;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * TLS握手策略：指定启用的协议版本（如只用TLSv1.3，握手少一次往返）、加密套件的顺序（如ECDHE-ECDSA、AES-GCM优先），
+ * 以及在握手前自定义SSL参数（如ALPN协议列表、SNI），同步连接与异步连接（含HTTP/2）一致<br/>
+ * 1、未指定的项使用HttpClient的默认值（排除已知不安全的协议及加密套件）；HTTP/2连接的ALPN为h2、http/1.1
+ * （用于确认对方是否支持HTTP/2），自定义参数在其之后执行，可以覆盖；<br/>
+ * 2、同一个SSL上下文的连接共用会话缓存，对方支持时新连接复用之前的会话（会话恢复），不再做完整握手（不再交换证书、
+ * 双向认证时也不再发送客户端证书）；<br/>
+ * 3、每次握手的耗时以及是完整握手还是会话恢复计入路由指标（RouteMetrics）：会话创建时间早于本次握手开始时间即为会话恢复
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class TlsPolicy {
+
+    // HTTP/2客户端通过ALPN提供的应用层协议（同时提供http/1.1，对方不支持HTTP/2时会明确选择http/1.1）
+    private static final String[] HTTP2_APPLICATION_PROTOCOLS = {ApplicationProtocol.HTTP_2.id,
+            ApplicationProtocol.HTTP_1_1.id};
+
+    private final String[] protocols;                           // 启用的协议版本，为null则使用默认值
+    private final String[] cipherSuites;                        // 启用的加密套件（按优先顺序），为null则使用默认值
+    private final Consumer<SSLParameters> parametersCustomizer; // 握手前自定义SSL参数（可为null）
+
+    /**
+     * @param protocols            启用的协议版本，如：TLSv1.3、TLSv1.2，为null则使用默认值
+     * @param cipherSuites         启用的加密套件（按优先顺序），为null则使用默认值
+     * @param parametersCustomizer 握手前自定义SSL参数，如设置ALPN协议列表（setApplicationProtocols），可为null
+     */
+    TlsPolicy(String[] protocols, String[] cipherSuites, Consumer<SSLParameters> parametersCustomizer) {
+        if ((protocols != null && protocols.length == 0) || (cipherSuites != null && cipherSuites.length == 0)) {
+            throw new RuntimeException("TLS协议版本、加密套件不可为空数组（使用默认值请传null）！");
+        }
+        this.protocols = protocols == null ? null : protocols.clone();
+        this.cipherSuites = cipherSuites == null ? null : cipherSuites.clone();
+        this.parametersCustomizer = parametersCustomizer;
+    }
+
+    /**
+     * 按策略修改SSL参数
+     *
+     * @param parameters 套接字或引擎当前的SSL参数
+     * @return 修改后的SSL参数
+     */
+    private SSLParameters apply(SSLParameters parameters) {
+        if (protocols != null) {
+            parameters.setProtocols(protocols);
+        }
+        if (cipherSuites != null) {
+            parameters.setCipherSuites(cipherSuites);
+        }
+        if (parametersCustomizer != null) {
+            parametersCustomizer.accept(parameters);
+        }
+        return parameters;
+    }
+
+    /**
+     * 创建同步连接的SSL套接字工厂：握手前按当前策略修改SSL参数，握手后记录握手耗时及类型
+     *
+     * @param sslContext SSL上下文
+     * @param current    获取当前的策略（为null则使用默认值）
+     * @param metrics    路由指标
+     * @return SSL套接字工厂
+     */
+    static SSLConnectionSocketFactory createSocketFactory(SSLContext sslContext, Supplier<TlsPolicy> current,
+                                                          HttpClientMetrics metrics) {
+        return new SSLConnectionSocketFactory(sslContext) {
+            @Override
+            protected void prepareSocket(SSLSocket socket) {
+                TlsPolicy tlsPolicy = current.get();
+                if (tlsPolicy != null) {
+                    socket.setSSLParameters(tlsPolicy.apply(socket.getSSLParameters()));
+                }
+            }
+
+            @Override
+            public Socket createLayeredSocket(Socket socket, String target, int port, Object attachment,
+                                              HttpContext context) throws IOException {
+                long startMillis = System.currentTimeMillis();
+                long start = System.nanoTime();
+                Socket layeredSocket = super.createLayeredSocket(socket, target, port, attachment, context);
+                if (layeredSocket instanceof SSLSocket) {
+                    recordHandshake(metrics, createRoute(target, port), ((SSLSocket) layeredSocket).getSession(),
+                            startMillis, System.nanoTime() - start);
+                }
+                return layeredSocket;
+            }
+        };
+    }
+
+    /**
+     * 创建异步连接（含HTTP/2）的TLS策略：握手前按当前策略修改SSL参数，握手后记录握手耗时及类型
+     *
+     * @param sslContext SSL上下文
+     * @param current    获取当前的策略（为null则使用默认值）
+     * @param metrics    路由指标
+     * @return TLS策略
+     */
+    static TlsStrategy createTlsStrategy(SSLContext sslContext, Supplier<TlsPolicy> current,
+                                         HttpClientMetrics metrics) {
+        return createTlsStrategy(sslContext, current, metrics, false);
+    }
+
+    /**
+     * 创建HTTP/2客户端的TLS策略：ALPN同时提供h2、http/1.1，其余同createTlsStrategy<br/>
+     * 注：HttpClient默认只提供h2，不支持HTTP/2的服务端会直接终止握手，无从确认原因；同时提供http/1.1后，
+     * 对方明确选择http/1.1时请求以ProtocolNegotiationException失败，据此回退到HTTP/1.1
+     *
+     * @param sslContext SSL上下文
+     * @param current    获取当前的策略（为null则使用默认值）
+     * @param metrics    路由指标
+     * @return TLS策略
+     */
+    static TlsStrategy createHttp2TlsStrategy(SSLContext sslContext, Supplier<TlsPolicy> current,
+                                              HttpClientMetrics metrics) {
+        return createTlsStrategy(sslContext, current, metrics, true);
+    }
+
+    private static TlsStrategy createTlsStrategy(SSLContext sslContext, Supplier<TlsPolicy> current,
+                                                 HttpClientMetrics metrics, boolean http2) {
+        return new DefaultClientTlsStrategy(sslContext) {
+            @Override
+            protected void initializeEngine(SSLEngine sslEngine) {
+                TlsPolicy tlsPolicy = current.get();
+                if (tlsPolicy == null && !http2) {
+                    return;
+                }
+                SSLParameters parameters = sslEngine.getSSLParameters();
+                if (http2) {
+                    // 通过反射设置，早期的JDK8没有该方法时忽略
+                    ReflectionUtils.callSetter(parameters, "ApplicationProtocols", String[].class,
+                            HTTP2_APPLICATION_PROTOCOLS);
+                }
+                sslEngine.setSSLParameters(tlsPolicy == null ? parameters : tlsPolicy.apply(parameters));
+            }
+
+            @Override
+            public void upgrade(TransportSecurityLayer tlsSession, NamedEndpoint endpoint, Object attachment,
+                                Timeout handshakeTimeout, FutureCallback<TransportSecurityLayer> callback) {
+                long startMillis = System.currentTimeMillis();
+                long start = System.nanoTime();
+                super.upgrade(tlsSession, endpoint, attachment, handshakeTimeout,
+                        new FutureCallback<TransportSecurityLayer>() {
+                            @Override
+                            public void completed(TransportSecurityLayer result) {
+                                TlsDetails tlsDetails = result.getTlsDetails();
+                                if (tlsDetails != null) {
+                                    recordHandshake(metrics, createRoute(endpoint.getHostName(), endpoint.getPort()),
+                                            tlsDetails.getSSLSession(), startMillis, System.nanoTime() - start);
+                                }
+                                if (callback != null) {
+                                    callback.completed(result);
+                                }
+                            }
+
+                            @Override
+                            public void failed(Exception ex) {
+                                if (callback != null) {
+                                    callback.failed(ex);
+                                }
+                            }
+
+                            @Override
+                            public void cancelled() {
+                                if (callback != null) {
+                                    callback.cancelled();
+                                }
+                            }
+                        });
+            }
+        };
+    }
+
+    /**
+     * 记录一次握手（会话创建时间早于握手开始时间即为会话恢复）
+     */
+    private static void recordHandshake(HttpClientMetrics metrics, HttpRoute route, SSLSession session,
+                                        long startMillis, long handshakeNanos) {
+        if (session == null) {
+            return;
+        }
+        RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        routeMetrics.recordTlsHandshake(session.getCreationTime() < startMillis, handshakeNanos);
+    }
+
+    private static HttpRoute createRoute(String host, int port) {
+        return new HttpRoute(new HttpHost("https", host, port > 0 ? port : 443), null, true);
+    }
+}
@@ -20,6 +20,12 @@ public final class HttpConstant {
     // HTTP请求方式（RESTFUL风格：删除）：DELETE
     public static final String HTTP_DELETE = "DELETE";
 
+    /* 请求体压缩方式（Content-Encoding） */
+    // gzip压缩
+    public static final String CONTENT_ENCODING_GZIP = "gzip";
+    // deflate压缩（zlib格式）
+    public static final String CONTENT_ENCODING_DEFLATE = "deflate";
+
     // HTTP请求字符集信息
     public static final Charset CHARACTER_SET = StandardCharsets.UTF_8;
 }
@@ -0,0 +1,39 @@
+package cn.xw.utils.httpTools.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 批量请求中单个请求的结果（成功时为响应数据，失败、取消、超时时为异常信息）
+ *
+ * @author Anhui AntLaddie（博客园蚂蚁小哥）
+ * @version 1.0
+ **/
+@Data
+@AllArgsConstructor
+public class BatchResult {
+
+    /**
+     * 请求在批量请求集合中的位置（从0开始）
+     */
+    private int index;
+
+    /**
+     * 响应数据（请求失败时为null）
+     */
+    private HttpResult httpResult;
+
+    /**
+     * 请求失败的异常信息（请求成功时为null）；快速失败被取消时为CancellationException，超过截止时间时为TimeoutException
+     */
+    private Throwable exception;
+
+    /**
+     * 请求是否成功（收到响应即为成功，不区分响应码）
+     *
+     * @return true成功
+     */
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
@@ -3,6 +3,7 @@ package cn.xw.utils.httpTools.entity;
 import lombok.Data;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -39,4 +40,9 @@ public class HttpResult {
      * 下载的文件流信息（文件下载时字段不为空）
      */
     private InputStream fileInputStream;
+
+    /**
+     * 下载到本地的文件路径（通过downloadTo直接下载到文件时字段不为空）
+     */
+    private Path filePath;
 }
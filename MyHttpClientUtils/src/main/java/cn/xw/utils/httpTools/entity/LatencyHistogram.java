@@ -0,0 +1,231 @@
+package cn.xw.utils.httpTools.entity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 耗时直方图：按微秒分桶计数（每个2的幂区间再均分为8个子桶，相对误差不超过12.5%），覆盖1微秒到数十小时<br/>
+ * 1、次数、总耗时、平均耗时从创建起累计；分位数、最大耗时只统计最近的时间窗口（默认60秒），反映当前的耗时而不是历史最慢；<br/>
+ * 2、时间窗口由WINDOW_COUNT个分段轮转实现：每次记录同时写入所有分段，读取累计时间最长的分段，
+ * 每隔窗口的1/WINDOW_COUNT清空最旧的分段，因此读取到的是最近(WINDOW_COUNT-1)/WINDOW_COUNT个窗口到整个窗口内的记录；<br/>
+ * 3、记录只做原子自增（轮转时由一个线程清空分段），无锁、不分配对象；分位数等统计在读取时计算
+ *
+ * @author Anhui AntLaddie（博客园蚂蚁小哥）
+ * @version 1.0
+ **/
+public final class LatencyHistogram {
+
+    // 每个2的幂区间的子桶位数（2^3=8个子桶）
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 桶数：0~7微秒各一个桶，之后每个2的幂区间8个桶，最大到2^40微秒
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (40 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+    // 时间窗口的分段数
+    private static final int WINDOW_COUNT = 3;
+    // 默认时间窗口（秒）
+    private static final long DEFAULT_WINDOW_SECONDS = 60L;
+
+    private final LongAdder count = new LongAdder();                          // 记录总数（累计）
+    private final LongAdder totalNanos = new LongAdder();                     // 耗时总和（纳秒，累计）
+    private final Window[] windows = new Window[WINDOW_COUNT];                // 时间窗口的各分段
+    private final long rotateNanos;                                           // 分段轮转间隔（纳秒）
+    private final AtomicLong rotateAt;                                        // 下次轮转的时间（System.nanoTime）
+    private volatile int current;                                             // 当前读取的分段（累计时间最长）
+
+    public LatencyHistogram() {
+        this(DEFAULT_WINDOW_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param window 分位数、最大耗时的统计时间窗口
+     * @param unit   时间单位
+     */
+    public LatencyHistogram(long window, TimeUnit unit) {
+        if (window <= 0) {
+            throw new RuntimeException("耗时直方图的时间窗口无效：window=" + window);
+        }
+        for (int index = 0; index < WINDOW_COUNT; index++) {
+            windows[index] = new Window();
+        }
+        this.rotateNanos = Math.max(unit.toNanos(window) / WINDOW_COUNT, 1);
+        this.rotateAt = new AtomicLong(System.nanoTime() + rotateNanos);
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒），小于0按0记录
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        rotate();
+        int index = bucketIndex(TimeUnit.NANOSECONDS.toMicros(nanos));
+        for (Window window : windows) {
+            window.record(index, nanos);
+        }
+        count.increment();
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * 记录总数（累计）
+     *
+     * @return 记录总数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 耗时总和（累计）
+     *
+     * @param unit 时间单位
+     * @return 耗时总和
+     */
+    public double getTotalTime(TimeUnit unit) {
+        return (double) totalNanos.sum() / unit.toNanos(1);
+    }
+
+    /**
+     * 平均耗时（累计）
+     *
+     * @param unit 时间单位
+     * @return 平均耗时，无记录时为0
+     */
+    public double getMean(TimeUnit unit) {
+        long total = count.sum();
+        return total == 0 ? 0 : getTotalTime(unit) / total;
+    }
+
+    /**
+     * 时间窗口内的记录数
+     *
+     * @return 时间窗口内的记录数
+     */
+    public long getWindowCount() {
+        rotate();
+        AtomicLongArray buckets = windows[current].buckets;
+        long total = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            total += buckets.get(index);
+        }
+        return total;
+    }
+
+    /**
+     * 时间窗口内的最大耗时
+     *
+     * @param unit 时间单位
+     * @return 最大耗时，时间窗口内无记录时为0
+     */
+    public double getMax(TimeUnit unit) {
+        rotate();
+        return (double) windows[current].maxNanos.get() / unit.toNanos(1);
+    }
+
+    /**
+     * 时间窗口内的分位数耗时（取所在桶的上边界，且不超过最大耗时）
+     *
+     * @param percentile 分位数，如0.5、0.99、0.999
+     * @param unit       时间单位
+     * @return 分位数耗时，时间窗口内无记录时为0
+     */
+    public double getPercentile(double percentile, TimeUnit unit) {
+        rotate();
+        Window window = windows[current];
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            snapshot[index] = window.buckets.get(index);
+            total += snapshot[index];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long maxNanos = window.maxNanos.get();
+        long rank = Math.max((long) Math.ceil(Math.min(Math.max(percentile, 0), 1) * total), 1);
+        long seen = 0;
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += snapshot[index];
+            if (seen >= rank) {
+                long nanos = Math.min(TimeUnit.MICROSECONDS.toNanos(bucketUpperBound(index)), maxNanos);
+                return (double) nanos / unit.toNanos(1);
+            }
+        }
+        return (double) maxNanos / unit.toNanos(1);
+    }
+
+    /**
+     * 到达轮转时间时清空最旧的分段并改为读取下一个分段；长时间没有记录时最多轮转WINDOW_COUNT次（清空所有分段）<br/>
+     * 只有更新了下次轮转时间的线程执行轮转，其它线程直接返回
+     */
+    private void rotate() {
+        long now = System.nanoTime();
+        long at = rotateAt.get();
+        if (now - at < 0) {
+            return;
+        }
+        long steps = Math.min((now - at) / rotateNanos + 1, WINDOW_COUNT);
+        if (!rotateAt.compareAndSet(at, steps < WINDOW_COUNT ? at + steps * rotateNanos : now + rotateNanos)) {
+            return;
+        }
+        int index = current;
+        for (long step = 0; step < steps; step++) {
+            windows[index].reset();
+            index = (index + 1) % WINDOW_COUNT;
+        }
+        current = index;
+    }
+
+    /**
+     * 计算微秒数所在的桶
+     */
+    private static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        int index = SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 桶的上边界（微秒，包含）
+     */
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * 时间窗口的一个分段：各桶的记录数及最大耗时
+     */
+    private static final class Window {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT); // 各桶的记录数
+        private final AtomicLong maxNanos = new AtomicLong();                     // 最大耗时（纳秒）
+
+        void record(int index, long nanos) {
+            buckets.incrementAndGet(index);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        void reset() {
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                buckets.set(index, 0);
+            }
+            maxNanos.set(0);
+        }
+    }
+}
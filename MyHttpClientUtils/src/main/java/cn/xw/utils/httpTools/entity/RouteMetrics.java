@@ -0,0 +1,376 @@
+package cn.xw.utils.httpTools.entity;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.pool.PoolStats;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 单个客户端配置中单个路由（协议+ip+端口）的指标：连接池状态（租用、空闲、等待、最大连接数）、
+ * 租用连接等待耗时、建立连接耗时、请求总耗时（发出请求至收到响应头）、按响应码类别的请求数以及超时数、异常数、
+ * 被淘汰及校验失效的连接数、重试次数及因重试预算不足放弃的重试次数、对冲请求数及胜出数、熔断器状态及拒绝数、
+ * 限流等待及拒绝的请求数、进行中的请求数、连续失败数及被剔除（离群实例剔除）的次数、TLS握手耗时及完整握手、会话恢复次数<br/>
+ * 连接池状态在读取时从连接池管理器获取；其余指标在请求过程中记录，记录只做原子自增、无锁，本身不分配对象；
+ * 耗时分位数、最大耗时只统计最近的时间窗口（见LatencyHistogram）
+ *
+ * @author Anhui AntLaddie（博客园蚂蚁小哥）
+ * @version 1.0
+ **/
+public final class RouteMetrics {
+
+    // 熔断器状态：关闭（正常放行）、打开（快速失败）、半开（放行少量探测请求）
+    public static final int CIRCUIT_CLOSED = 0;
+    public static final int CIRCUIT_OPEN = 1;
+    public static final int CIRCUIT_HALF_OPEN = 2;
+
+    private final String profile;                                   // 所属的客户端配置名称
+    private final HttpRoute route;                                  // 路由
+    private final Function<HttpRoute, PoolStats> poolStats;         // 同步连接池状态
+    private final Function<HttpRoute, PoolStats> asyncPoolStats;    // 异步连接池状态（异步连接池未创建时返回null）
+    private final LatencyHistogram leaseWait = new LatencyHistogram(); // 从连接池租用连接的等待耗时
+    private final LatencyHistogram connect = new LatencyHistogram();   // 建立连接耗时（含TLS握手，复用连接时不记录）
+    private final LatencyHistogram total = new LatencyHistogram();     // 请求总耗时（含租用、建立连接，至收到响应头）
+    private final LatencyHistogram tlsHandshake = new LatencyHistogram(); // TLS握手耗时（建立连接耗时的一部分）
+    private final LongAdder[] statusClasses = new LongAdder[6];        // 按响应码类别（1xx~5xx）的请求数
+    private final LongAdder timeouts = new LongAdder();                // 超时数（租用连接、建立连接、响应超时）
+    private final LongAdder errors = new LongAdder();                  // 其它异常数（连接被拒绝、连接重置等）
+    private final LongAdder evicted = new LongAdder();                 // 被淘汰的连接数（空闲超时、超过存活时间或Keep-Alive到期）
+    private final LongAdder stale = new LongAdder();                   // 租用前校验发现已失效（被对方关闭）的连接数
+    private final LongAdder retries = new LongAdder();                 // 重试次数
+    private final LongAdder retryBudgetExhausted = new LongAdder();    // 可以重试但重试预算不足而放弃的次数
+    private final LongAdder hedges = new LongAdder();                  // 发出的对冲请求数
+    private final LongAdder hedgeWins = new LongAdder();               // 对冲请求先于首次请求成功的次数
+    private final LongAdder hedgeBudgetExhausted = new LongAdder();    // 对冲预算不足而未发送对冲请求的次数
+    private final LongAdder circuitOpened = new LongAdder();           // 熔断器打开的次数
+    private final LongAdder circuitRejected = new LongAdder();         // 熔断器打开时被直接拒绝的请求数
+    private volatile int circuitState = CIRCUIT_CLOSED;                // 熔断器当前状态
+    private final LongAdder rateLimitDelayed = new LongAdder();        // 等待限流许可后发出的请求数
+    private final LongAdder rateLimitRejected = new LongAdder();       // 超过限流被直接拒绝的请求数
+    private final AtomicInteger inFlight = new AtomicInteger();        // 进行中的请求数（已发出、未收到响应头）
+    private final AtomicInteger consecutiveFailures = new AtomicInteger(); // 连续失败数（异常、超时、5xx响应）
+    private final LongAdder ejected = new LongAdder();                 // 被服务负载均衡剔除（离群实例）的次数
+    private final LongAdder tlsFullHandshakes = new LongAdder();       // TLS完整握手次数
+    private final LongAdder tlsResumedHandshakes = new LongAdder();    // TLS会话恢复（复用之前的会话）的握手次数
+
+    public RouteMetrics(String profile, HttpRoute route, Function<HttpRoute, PoolStats> poolStats,
+                        Function<HttpRoute, PoolStats> asyncPoolStats) {
+        this.profile = profile;
+        this.route = route;
+        this.poolStats = poolStats;
+        this.asyncPoolStats = asyncPoolStats;
+        for (int index = 0; index < statusClasses.length; index++) {
+            statusClasses[index] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录收到响应
+     *
+     * @param code       响应码
+     * @param totalNanos 请求总耗时（纳秒）
+     */
+    public void recordResponse(int code, long totalNanos) {
+        int statusClass = code / 100;
+        if (statusClass > 0 && statusClass < statusClasses.length) {
+            statusClasses[statusClass].increment();
+        }
+        if (statusClass >= 5) {
+            consecutiveFailures.incrementAndGet();
+        } else if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        total.record(totalNanos);
+    }
+
+    /**
+     * 记录请求失败（未收到响应），超时异常计入超时数，其余计入异常数
+     *
+     * @param throwable  异常信息
+     * @param totalNanos 请求总耗时（纳秒）
+     */
+    public void recordFailure(Throwable throwable, long totalNanos) {
+        if (throwable instanceof InterruptedIOException || throwable instanceof TimeoutException) {
+            timeouts.increment();
+        } else {
+            errors.increment();
+        }
+        consecutiveFailures.incrementAndGet();
+        total.record(totalNanos);
+    }
+
+    /**
+     * 记录一个请求开始（发出请求前），与recordEnd成对调用
+     */
+    public void recordStart() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * 记录一个请求结束（收到响应头、失败或被取消）
+     */
+    public void recordEnd() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 记录一次被服务负载均衡剔除，并清零连续失败数（恢复后重新计数）
+     */
+    public void recordEjected() {
+        ejected.increment();
+        consecutiveFailures.set(0);
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    /**
+     * 记录一个连接被淘汰（后台淘汰空闲、过期的连接，或租用时发现超过存活时间）
+     */
+    public void recordEvicted() {
+        evicted.increment();
+    }
+
+    /**
+     * 记录一个连接在租用前的校验中被发现已失效（对方已关闭或重置），该连接被丢弃后重新建立
+     */
+    public void recordStale() {
+        stale.increment();
+    }
+
+    /**
+     * 记录一次重试
+     */
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    /**
+     * 记录一次因重试预算不足而放弃的重试
+     */
+    public void recordRetryBudgetExhausted() {
+        retryBudgetExhausted.increment();
+    }
+
+    /**
+     * 记录发出一个对冲请求
+     */
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * 记录一次对冲请求胜出（先于首次请求成功）
+     */
+    public void recordHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * 记录一次因对冲预算不足而未发送的对冲请求
+     */
+    public void recordHedgeBudgetExhausted() {
+        hedgeBudgetExhausted.increment();
+    }
+
+    /**
+     * 记录熔断器打开一次
+     */
+    public void recordCircuitOpened() {
+        circuitOpened.increment();
+    }
+
+    /**
+     * 记录一个被熔断器直接拒绝的请求（未租用连接、未发出）
+     */
+    public void recordCircuitRejected() {
+        circuitRejected.increment();
+    }
+
+    /**
+     * 设置熔断器当前状态（CIRCUIT_CLOSED、CIRCUIT_OPEN、CIRCUIT_HALF_OPEN）
+     */
+    public void setCircuitState(int circuitState) {
+        this.circuitState = circuitState;
+    }
+
+    /**
+     * 记录一个等待限流许可后发出的请求
+     */
+    public void recordRateLimitDelayed() {
+        rateLimitDelayed.increment();
+    }
+
+    /**
+     * 记录一个超过限流被直接拒绝的请求（未租用连接、未发出）
+     */
+    public void recordRateLimitRejected() {
+        rateLimitRejected.increment();
+    }
+
+    /**
+     * 记录一次TLS握手
+     *
+     * @param resumed        是否为会话恢复（否则为完整握手）
+     * @param handshakeNanos 握手耗时（纳秒）
+     */
+    public void recordTlsHandshake(boolean resumed, long handshakeNanos) {
+        if (resumed) {
+            tlsResumedHandshakes.increment();
+        } else {
+            tlsFullHandshakes.increment();
+        }
+        tlsHandshake.record(handshakeNanos);
+    }
+
+    public HttpRoute getRoute() {
+        return route;
+    }
+
+    /**
+     * 同步连接池中该路由的状态（租用、空闲、等待、最大连接数）
+     *
+     * @return 连接池状态
+     */
+    public PoolStats getPoolStats() {
+        return poolStats.apply(route);
+    }
+
+    /**
+     * 异步连接池中该路由的状态（租用、空闲、等待、最大连接数）
+     *
+     * @return 连接池状态，异步连接池未创建时为null
+     */
+    public PoolStats getAsyncPoolStats() {
+        return asyncPoolStats.apply(route);
+    }
+
+    public LatencyHistogram getLeaseWait() {
+        return leaseWait;
+    }
+
+    public LatencyHistogram getConnect() {
+        return connect;
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    public LatencyHistogram getTlsHandshake() {
+        return tlsHandshake;
+    }
+
+    /**
+     * 某类响应码的请求数
+     *
+     * @param statusClass 响应码类别，如2表示2xx、5表示5xx
+     * @return 请求数
+     */
+    public long getStatusClassCount(int statusClass) {
+        return statusClass > 0 && statusClass < statusClasses.length ? statusClasses[statusClass].sum() : 0;
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    public long getStale() {
+        return stale.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getRetryBudgetExhausted() {
+        return retryBudgetExhausted.sum();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    public long getHedgeBudgetExhausted() {
+        return hedgeBudgetExhausted.sum();
+    }
+
+    public long getCircuitOpened() {
+        return circuitOpened.sum();
+    }
+
+    public long getCircuitRejected() {
+        return circuitRejected.sum();
+    }
+
+    public int getCircuitState() {
+        return circuitState;
+    }
+
+    public long getRateLimitDelayed() {
+        return rateLimitDelayed.sum();
+    }
+
+    public long getRateLimitRejected() {
+        return rateLimitRejected.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    public long getEjected() {
+        return ejected.sum();
+    }
+
+    public long getTlsFullHandshakes() {
+        return tlsFullHandshakes.sum();
+    }
+
+    public long getTlsResumedHandshakes() {
+        return tlsResumedHandshakes.sum();
+    }
+
+    @Override
+    public String toString() {
+        PoolStats stats = getPoolStats();
+        return route.getTargetHost().toURI() + " 租用：" + stats.getLeased() + " 空闲：" + stats.getAvailable()
+                + " 等待：" + stats.getPending() + " 最大：" + stats.getMax()
+                + " 2xx：" + getStatusClassCount(2) + " 3xx：" + getStatusClassCount(3)
+                + " 4xx：" + getStatusClassCount(4) + " 5xx：" + getStatusClassCount(5)
+                + " 超时：" + getTimeouts() + " 异常：" + getErrors()
+                + " 淘汰连接：" + getEvicted() + " 失效连接：" + getStale()
+                + " 重试：" + getRetries() + " 预算不足：" + getRetryBudgetExhausted()
+                + " 对冲：" + getHedges() + " 对冲胜出：" + getHedgeWins() + " 对冲预算不足：" + getHedgeBudgetExhausted()
+                + " 熔断器：" + (circuitState == CIRCUIT_OPEN ? "打开" : circuitState == CIRCUIT_HALF_OPEN ? "半开" : "关闭")
+                + " 熔断次数：" + getCircuitOpened() + " 熔断拒绝：" + getCircuitRejected()
+                + " 限流等待：" + getRateLimitDelayed() + " 限流拒绝：" + getRateLimitRejected()
+                + " 进行中：" + getInFlight() + " 剔除：" + getEjected()
+                + " TLS完整握手：" + getTlsFullHandshakes() + " TLS会话恢复：" + getTlsResumedHandshakes()
+                + String.format(" 总耗时p50/p99/p999：%.1f/%.1f/%.1fms",
+                total.getPercentile(0.5, TimeUnit.MILLISECONDS),
+                total.getPercentile(0.99, TimeUnit.MILLISECONDS),
+                total.getPercentile(0.999, TimeUnit.MILLISECONDS));
+    }
+}
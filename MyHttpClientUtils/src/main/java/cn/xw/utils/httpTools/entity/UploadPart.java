@@ -0,0 +1,159 @@
+package cn.xw.utils.httpTools.entity;
+
+import org.apache.hc.client5.http.entity.mime.AbstractContentBody;
+import org.apache.hc.core5.http.ContentType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件上传的单个部分（长度已知），可来源于本地文件、文件通道的某段区域或内存缓冲区<br/>
+ * 所有部分长度已知时多部分实体会设置Content-Length而不是分块传输；发送时直接从文件通道或缓冲区写出，
+ * 不会预先把文件读入内存
+ *
+ * @author Anhui AntLaddie（博客园蚂蚁小哥）
+ * @version 1.0
+ **/
+public final class UploadPart extends AbstractContentBody {
+
+    private final String fileName;        // 文件名称（发送时URL编码，服务端需要解码）
+    private final long length;            // 精确的字节数
+    private final Path path;              // 来源：本地文件（发送时才打开，不长期占用文件句柄）
+    private final FileChannel channel;    // 来源：文件通道（不改变通道的position，可重复发送）
+    private final long position;          // 文件通道中的起始位置
+    private final ByteBuffer buffer;      // 来源：内存缓冲区（不改变缓冲区的position，可重复发送）
+
+    private UploadPart(ContentType contentType, String fileName, long length, Path path,
+                       FileChannel channel, long position, ByteBuffer buffer) {
+        super(contentType);
+        this.fileName = fileName;
+        this.length = length;
+        this.path = path;
+        this.channel = channel;
+        this.position = position;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 本地文件，文件名称取自路径，内容类型根据文件探测（探测不到则为application/octet-stream）
+     *
+     * @param path 本地文件路径
+     * @return 上传部分
+     * @throws IOException 文件不存在或无法读取
+     */
+    public static UploadPart of(Path path) throws IOException {
+        String probeType = Files.probeContentType(path);
+        return of(path, probeType == null ? ContentType.DEFAULT_BINARY : ContentType.create(probeType));
+    }
+
+    /**
+     * 本地文件，指定内容类型
+     *
+     * @param path        本地文件路径
+     * @param contentType 内容类型，如：ContentType.IMAGE_JPEG
+     * @return 上传部分
+     * @throws IOException 文件不存在或无法读取
+     */
+    public static UploadPart of(Path path, ContentType contentType) throws IOException {
+        return new UploadPart(contentType, path.getFileName().toString(), Files.size(path), path,
+                null, 0, null);
+    }
+
+    /**
+     * 文件通道中的一段区域（调用方负责关闭通道）
+     *
+     * @param channel     文件通道
+     * @param position    起始位置
+     * @param length      字节数
+     * @param contentType 内容类型
+     * @param fileName    文件名称
+     * @return 上传部分
+     */
+    public static UploadPart of(FileChannel channel, long position, long length, ContentType contentType,
+                                String fileName) {
+        return new UploadPart(contentType, fileName, length, null, channel, position, null);
+    }
+
+    /**
+     * 内存缓冲区中position到limit之间的内容（不复制内容，发送完成前不要修改缓冲区）<br/>
+     * 注：保存的是缓冲区的副本视图（duplicate），position、limit与原缓冲区相互独立，堆缓冲区发送时直接写出底层数组
+     *
+     * @param buffer      缓冲区
+     * @param contentType 内容类型
+     * @param fileName    文件名称
+     * @return 上传部分
+     */
+    public static UploadPart of(ByteBuffer buffer, ContentType contentType, String fileName) {
+        ByteBuffer content = buffer.duplicate();
+        return new UploadPart(contentType, fileName, content.remaining(), null, null, 0, content);
+    }
+
+    @Override
+    public String getFilename() {
+        // 文件名称编码，防止中文文件名称乱码（与sendFile的InputStream上传方式一致）
+        try {
+            return URLEncoder.encode(fileName, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            return fileName;
+        }
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (buffer != null) {
+            ByteBuffer content = buffer.duplicate();
+            if (content.hasArray()) {
+                // 堆缓冲区直接写出底层数组
+                out.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+            } else {
+                WritableByteChannel target = Channels.newChannel(out);
+                while (content.hasRemaining()) {
+                    target.write(content);
+                }
+            }
+            return;
+        }
+        if (path != null) {
+            try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                transfer(fileChannel, 0, out);
+            }
+        } else {
+            transfer(channel, position, out);
+        }
+    }
+
+    /**
+     * 从文件通道的指定位置开始将length字节写出到输出流
+     *
+     * @param source 文件通道
+     * @param start  起始位置
+     * @param out    输出流
+     * @throws IOException 读取或写出失败，或文件在发送过程中被截断
+     */
+    private void transfer(FileChannel source, long start, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long written = 0;
+        while (written < length) {
+            long transferred = source.transferTo(start + written, length - written, target);
+            if (transferred <= 0) {
+                throw new IOException("上传文件长度不足，预期：" + length + "字节，实际：" + written + "字节");
+            }
+            written += transferred;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package cn.xw.utils.httpTools.handler;
+
+/**
+ * 分片上传的请求地址规则，决定每个分片上传到哪里以及最终的合并（提交）请求发往哪里<br/>
+ * 分片请求的请求方式取Builder的setRequestType（如PUT），合并请求固定为POST
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public interface ChunkedUploadScheme {
+
+    /**
+     * 分片上传地址
+     *
+     * @param baseUrl    Builder设置的请求地址（已拼接URL参数）
+     * @param uploadId   本次上传的唯一标识（续传时保持不变）
+     * @param partNumber 分片序号（从1开始）
+     * @return 分片上传地址
+     */
+    String partUrl(String baseUrl, String uploadId, int partNumber);
+
+    /**
+     * 合并（提交）请求地址
+     *
+     * @param baseUrl  Builder设置的请求地址（已拼接URL参数）
+     * @param uploadId 本次上传的唯一标识
+     * @return 合并请求地址
+     */
+    String commitUrl(String baseUrl, String uploadId);
+
+    /**
+     * 合并（提交）请求的JSON请求体，默认告知服务端文件名称、文件大小、分片大小及分片数
+     *
+     * @param uploadId  本次上传的唯一标识
+     * @param fileName  文件名称
+     * @param fileSize  文件字节数
+     * @param partSize  分片字节数（最后一片可能更小）
+     * @param partCount 分片数
+     * @return JSON请求体
+     */
+    default String commitBody(String uploadId, String fileName, long fileSize, long partSize, int partCount) {
+        return "{\"uploadId\":\"" + uploadId + "\",\"fileName\":\""
+                + fileName.replace("\\", "\\\\").replace("\"", "\\\"")
+                + "\",\"fileSize\":" + fileSize + ",\"partSize\":" + partSize + ",\"partCount\":" + partCount + "}";
+    }
+
+    /**
+     * 默认规则：分片上传到 {baseUrl}/{uploadId}/parts/{partNumber}，合并请求发往 {baseUrl}/{uploadId}/commit
+     *
+     * @return 默认的分片上传地址规则
+     */
+    static ChunkedUploadScheme ofPath() {
+        return new ChunkedUploadScheme() {
+            @Override
+            public String partUrl(String baseUrl, String uploadId, int partNumber) {
+                return trimQuery(baseUrl) + "/" + uploadId + "/parts/" + partNumber + query(baseUrl);
+            }
+
+            @Override
+            public String commitUrl(String baseUrl, String uploadId) {
+                return trimQuery(baseUrl) + "/" + uploadId + "/commit" + query(baseUrl);
+            }
+
+            private String trimQuery(String baseUrl) {
+                int index = baseUrl.indexOf('?');
+                String path = index < 0 ? baseUrl : baseUrl.substring(0, index);
+                return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+            }
+
+            private String query(String baseUrl) {
+                int index = baseUrl.indexOf('?');
+                return index < 0 ? "" : baseUrl.substring(index);
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package cn.xw.utils.httpTools.handler;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+
+/**
+ * 指标注册表：把每个路由的指标绑定到监控系统（如Micrometer、Prometheus、自研监控）<br/>
+ * 指标由RouteMetrics在请求过程中记录，注册表只需在采集时读取，不参与请求过程；
+ * 默认绑定参考MicrometerMetricsRegistry，通过HttpClientUtils.customMetricsRegistry设置
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public interface HttpMetricsRegistry {
+
+    /**
+     * 绑定路由的指标，每个路由只调用一次：路由首次发送请求时调用，设置注册表时对已有的路由也会调用
+     *
+     * @param routeMetrics 路由的指标
+     */
+    void bindRoute(RouteMetrics routeMetrics);
+}
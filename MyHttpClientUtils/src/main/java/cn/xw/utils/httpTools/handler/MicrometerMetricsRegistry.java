@@ -0,0 +1,148 @@
+package cn.xw.utils.httpTools.handler;
+
+import cn.xw.utils.httpTools.entity.LatencyHistogram;
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.hc.core5.pool.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 基于Micrometer的指标注册表（需引入micrometer-core依赖），每个路由以route、profile（客户端配置名称）标签区分：<br/>
+ * httpclient.pool.leased/available/pending/max：连接池状态（pool标签区分classic同步、async异步连接池）<br/>
+ * httpclient.requests：按响应码类别（status标签：1xx~5xx）的请求数；httpclient.timeouts、httpclient.errors：超时数、异常数<br/>
+ * httpclient.connections.evicted、httpclient.connections.stale：被淘汰、租用前校验失效的连接数（同步连接池）<br/>
+ * httpclient.retries、httpclient.retries.budget.exhausted：重试次数、因重试预算不足放弃的重试次数<br/>
+ * httpclient.hedges、httpclient.hedges.wins、httpclient.hedges.budget.exhausted：对冲请求数、对冲请求胜出数、
+ * 因对冲预算不足未发送的对冲请求数<br/>
+ * httpclient.circuit.state：熔断器状态（0关闭、1打开、2半开）；httpclient.circuit.opened、httpclient.circuit.rejected：
+ * 熔断器打开次数、被熔断器直接拒绝的请求数<br/>
+ * httpclient.ratelimit.delayed、httpclient.ratelimit.rejected：等待限流许可后发出、超过限流被直接拒绝的请求数<br/>
+ * httpclient.requests.inflight：进行中的请求数；httpclient.outlier.ejected：被服务负载均衡剔除（离群实例）的次数<br/>
+ * httpclient.tls.handshakes：TLS握手次数（type标签：full完整握手、resumed会话恢复）<br/>
+ * httpclient.lease.wait、httpclient.connect、httpclient.tls.handshake、httpclient.request：
+ * 租用连接等待、建立连接、TLS握手、请求总耗时（次数及总耗时），
+ * 以及对应的xxx.percentile（phi标签：0.5、0.99、0.999）、xxx.max（最近60秒时间窗口内的值，见LatencyHistogram）
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+public class MicrometerMetricsRegistry implements HttpMetricsRegistry {
+
+    // 发布的分位数
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+
+    public MicrometerMetricsRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void bindRoute(RouteMetrics routeMetrics) {
+        Tags tags = Tags.of("route", routeMetrics.getRoute().getTargetHost().toURI(),
+                "profile", routeMetrics.getProfile());
+        // 连接池状态：采集时读取
+        bindPool(routeMetrics, tags.and("pool", "classic"), RouteMetrics::getPoolStats);
+        bindPool(routeMetrics, tags.and("pool", "async"), RouteMetrics::getAsyncPoolStats);
+        // 请求数、超时数、异常数
+        for (int statusClass = 1; statusClass <= 5; statusClass++) {
+            int code = statusClass;
+            FunctionCounter.builder("httpclient.requests", routeMetrics, metrics -> metrics.getStatusClassCount(code))
+                    .tags(tags.and("status", code + "xx")).description("按响应码类别的请求数")
+                    .register(meterRegistry);
+        }
+        FunctionCounter.builder("httpclient.timeouts", routeMetrics, RouteMetrics::getTimeouts)
+                .tags(tags).description("超时数（租用连接、建立连接、响应超时）").register(meterRegistry);
+        FunctionCounter.builder("httpclient.errors", routeMetrics, RouteMetrics::getErrors)
+                .tags(tags).description("超时以外的请求异常数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.connections.evicted", routeMetrics, RouteMetrics::getEvicted)
+                .tags(tags).description("被淘汰的连接数（空闲超时、超过存活时间）").register(meterRegistry);
+        FunctionCounter.builder("httpclient.connections.stale", routeMetrics, RouteMetrics::getStale)
+                .tags(tags).description("租用前校验发现已失效的连接数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.retries", routeMetrics, RouteMetrics::getRetries)
+                .tags(tags).description("重试次数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.retries.budget.exhausted", routeMetrics,
+                RouteMetrics::getRetryBudgetExhausted)
+                .tags(tags).description("因重试预算不足放弃的重试次数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.hedges", routeMetrics, RouteMetrics::getHedges)
+                .tags(tags).description("对冲请求数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.hedges.wins", routeMetrics, RouteMetrics::getHedgeWins)
+                .tags(tags).description("对冲请求先于首次请求成功的次数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.hedges.budget.exhausted", routeMetrics,
+                RouteMetrics::getHedgeBudgetExhausted)
+                .tags(tags).description("因对冲预算不足未发送的对冲请求数").register(meterRegistry);
+        // 熔断器
+        Gauge.builder("httpclient.circuit.state", routeMetrics, RouteMetrics::getCircuitState)
+                .tags(tags).description("熔断器状态（0关闭、1打开、2半开）").register(meterRegistry);
+        FunctionCounter.builder("httpclient.circuit.opened", routeMetrics, RouteMetrics::getCircuitOpened)
+                .tags(tags).description("熔断器打开次数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.circuit.rejected", routeMetrics, RouteMetrics::getCircuitRejected)
+                .tags(tags).description("被熔断器直接拒绝的请求数").register(meterRegistry);
+        // 限流
+        FunctionCounter.builder("httpclient.ratelimit.delayed", routeMetrics, RouteMetrics::getRateLimitDelayed)
+                .tags(tags).description("等待限流许可后发出的请求数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.ratelimit.rejected", routeMetrics, RouteMetrics::getRateLimitRejected)
+                .tags(tags).description("超过限流被直接拒绝的请求数").register(meterRegistry);
+        // 服务负载均衡
+        Gauge.builder("httpclient.requests.inflight", routeMetrics, RouteMetrics::getInFlight)
+                .tags(tags).description("进行中的请求数（已发出、未收到响应头）").register(meterRegistry);
+        FunctionCounter.builder("httpclient.outlier.ejected", routeMetrics, RouteMetrics::getEjected)
+                .tags(tags).description("被服务负载均衡剔除（离群实例）的次数").register(meterRegistry);
+        // TLS握手
+        FunctionCounter.builder("httpclient.tls.handshakes", routeMetrics, RouteMetrics::getTlsFullHandshakes)
+                .tags(tags.and("type", "full")).description("TLS完整握手次数").register(meterRegistry);
+        FunctionCounter.builder("httpclient.tls.handshakes", routeMetrics, RouteMetrics::getTlsResumedHandshakes)
+                .tags(tags.and("type", "resumed")).description("TLS会话恢复的握手次数").register(meterRegistry);
+        // 耗时
+        bindLatency("httpclient.lease.wait", routeMetrics.getLeaseWait(), tags, "从连接池租用连接的等待耗时");
+        bindLatency("httpclient.connect", routeMetrics.getConnect(), tags, "建立连接耗时（含TLS握手）");
+        bindLatency("httpclient.tls.handshake", routeMetrics.getTlsHandshake(), tags, "TLS握手耗时");
+        bindLatency("httpclient.request", routeMetrics.getTotal(), tags, "请求总耗时（至收到响应头）");
+    }
+
+    /**
+     * 绑定连接池状态，连接池未创建时为NaN
+     */
+    private void bindPool(RouteMetrics routeMetrics, Tags tags, Function<RouteMetrics, PoolStats> poolStats) {
+        bindPoolGauge("httpclient.pool.leased", routeMetrics, tags, poolStats, PoolStats::getLeased, "租用中的连接数");
+        bindPoolGauge("httpclient.pool.available", routeMetrics, tags, poolStats, PoolStats::getAvailable, "空闲连接数");
+        bindPoolGauge("httpclient.pool.pending", routeMetrics, tags, poolStats, PoolStats::getPending, "等待租用连接的请求数");
+        bindPoolGauge("httpclient.pool.max", routeMetrics, tags, poolStats, PoolStats::getMax, "最大连接数");
+    }
+
+    private void bindPoolGauge(String name, RouteMetrics routeMetrics, Tags tags,
+                               Function<RouteMetrics, PoolStats> poolStats, ToIntFunction<PoolStats> value,
+                               String description) {
+        Gauge.builder(name, routeMetrics, metrics -> {
+                    PoolStats stats = poolStats.apply(metrics);
+                    return stats == null ? Double.NaN : value.applyAsInt(stats);
+                })
+                .tags(tags).description(description).register(meterRegistry);
+    }
+
+    /**
+     * 绑定耗时直方图：次数及总耗时（累计）、分位数、最大值（时间窗口内）
+     */
+    private void bindLatency(String name, LatencyHistogram histogram, Tags tags, String description) {
+        FunctionTimer.builder(name, histogram, LatencyHistogram::getCount,
+                        hist -> hist.getTotalTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                .tags(tags).description(description).register(meterRegistry);
+        for (double percentile : PERCENTILES) {
+            TimeGauge.builder(name + ".percentile", histogram, TimeUnit.NANOSECONDS,
+                            hist -> hist.getPercentile(percentile, TimeUnit.NANOSECONDS))
+                    .tags(tags.and("phi", String.valueOf(percentile))).description(description)
+                    .register(meterRegistry);
+        }
+        TimeGauge.builder(name + ".max", histogram, TimeUnit.NANOSECONDS,
+                        hist -> hist.getMax(TimeUnit.NANOSECONDS))
+                .tags(tags).description(description).register(meterRegistry);
+    }
+}
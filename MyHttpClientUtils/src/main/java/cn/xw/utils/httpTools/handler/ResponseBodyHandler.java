@@ -0,0 +1,68 @@
+package cn.xw.utils.httpTools.handler;
+
+import cn.xw.utils.httpTools.entity.HttpResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 流式响应体处理器，在连接被占用期间直接把响应体的原始输入流交给调用方处理，
+ * 避免先把整个响应体转换为字符串放入内存（适合几MB以上的JSON、文件等）<br/>
+ * <p style="color:#f61">说明：处理器返回后连接立即归还连接池，处理器外不可再使用输入流</p>
+ *
+ * @param <T> 处理结果类型
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+@FunctionalInterface
+public interface ResponseBodyHandler<T> {
+
+    // 分块读取响应体时的缓冲区大小（字节）
+    int CHUNK_BUFFER_SIZE = 8192;
+
+    /**
+     * 处理响应体
+     *
+     * @param httpResult 响应信息（只包含响应码、响应头，不包含响应体）
+     * @param bodyStream 响应体原始输入流（无响应体时为空流）
+     * @return 处理结果
+     * @throws IOException 读取响应体异常
+     */
+    T handle(HttpResult httpResult, InputStream bodyStream) throws IOException;
+
+    /**
+     * 分块读取响应体，每读取一块回调一次，整个过程只使用一个固定大小的缓冲区
+     *
+     * @param chunkConsumer 分块回调（ByteBuffer只在回调内有效，回调返回后会被复用）
+     * @return 流式响应体处理器，处理结果为只包含响应码、响应头的HttpResult
+     */
+    static ResponseBodyHandler<HttpResult> ofChunks(ChunkConsumer chunkConsumer) {
+        return (httpResult, bodyStream) -> {
+            byte[] buffer = new byte[CHUNK_BUFFER_SIZE];
+            ByteBuffer chunk = ByteBuffer.wrap(buffer);
+            int bytesRead;
+            while ((bytesRead = bodyStream.read(buffer)) != -1) {
+                chunk.clear();
+                chunk.limit(bytesRead);
+                chunkConsumer.accept(chunk);
+            }
+            return httpResult;
+        };
+    }
+
+    /**
+     * 响应体分块回调
+     */
+    @FunctionalInterface
+    interface ChunkConsumer {
+
+        /**
+         * 接收一块响应体数据
+         *
+         * @param chunk 响应体数据块（position至limit之间为本次数据）
+         * @throws IOException 处理数据块异常
+         */
+        void accept(ByteBuffer chunk) throws IOException;
+    }
+}
@@ -0,0 +1,180 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecRuntime;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 熔断器（CircuitBreaker）：失败率达到阈值时打开并快速失败，打开时间到达后半开，
+ * 只放行有限的探测请求，按探测结果关闭或重新打开
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class CircuitBreakerTest {
+
+    // 打开熔断器所需的最少请求数（与CircuitBreaker.MIN_CALLS一致）
+    private static final int MIN_CALLS = 20;
+    // 半开状态放行的探测请求数（与CircuitBreaker.HALF_OPEN_PROBES一致）
+    private static final int HALF_OPEN_PROBES = 5;
+    private static final long OPEN_MILLIS = 100L;
+    // 执行链不会用到连接，只需非null的占位对象
+    private static final ExecRuntime EXEC_RUNTIME = (ExecRuntime) Proxy.newProxyInstance(
+            ExecRuntime.class.getClassLoader(), new Class<?>[]{ExecRuntime.class}, (proxy, method, args) -> null);
+
+    private final HttpRoute route = new HttpRoute(new HttpHost("http", "127.0.0.1", 8080));
+    private final HttpClientMetrics metrics = new HttpClientMetrics("test", null, null);
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(0.5, 0, TimeValue.ofSeconds(10),
+            TimeValue.ofMilliseconds(OPEN_MILLIS), metrics);
+    private final ExecChainHandler interceptor = CircuitBreaker.createExecInterceptor(() -> circuitBreaker);
+    private final AtomicInteger sent = new AtomicInteger();          // 实际发出（未被熔断器拒绝）的请求数
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void opensWhenFailureRateReached() throws Exception {
+        open();
+        assertEquals(RouteMetrics.CIRCUIT_OPEN, getRouteMetrics().getCircuitState());
+        assertEquals(1, getRouteMetrics().getCircuitOpened());
+
+        // 打开状态直接失败，不发出请求
+        assertThrows(RuntimeException.class, () -> execute(200));
+        assertEquals(MIN_CALLS, sent.get());
+        assertEquals(1, getRouteMetrics().getCircuitRejected());
+    }
+
+    @Test
+    void halfOpenClosesAfterSuccessfulProbes() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        for (int i = 0; i < HALF_OPEN_PROBES; i++) {
+            execute(200);
+            int expected = i < HALF_OPEN_PROBES - 1 ? RouteMetrics.CIRCUIT_HALF_OPEN : RouteMetrics.CIRCUIT_CLOSED;
+            assertEquals(expected, getRouteMetrics().getCircuitState());
+        }
+        // 关闭后窗口已清空，单个失败请求不会再次打开
+        execute(500);
+        assertEquals(RouteMetrics.CIRCUIT_CLOSED, getRouteMetrics().getCircuitState());
+    }
+
+    @Test
+    void halfOpenReopensWhenProbesFail() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        for (int i = 0; i < HALF_OPEN_PROBES; i++) {
+            execute(503);
+        }
+        assertEquals(RouteMetrics.CIRCUIT_OPEN, getRouteMetrics().getCircuitState());
+        assertEquals(2, getRouteMetrics().getCircuitOpened());
+        assertThrows(RuntimeException.class, () -> execute(200));
+    }
+
+    @Test
+    void halfOpenRejectsBeyondProbeLimit() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        // 探测请求未完成时，超出探测名额的请求直接失败
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(HALF_OPEN_PROBES);
+        List<Future<ClassicHttpResponse>> probes = new ArrayList<>();
+        for (int i = 0; i < HALF_OPEN_PROBES; i++) {
+            probes.add(executor.submit(() -> interceptor.execute(createRequest(), createScope(), (request, scope) -> {
+                sent.incrementAndGet();
+                started.countDown();
+                await(release);
+                return new BasicClassicHttpResponse(200);
+            })));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        int sentBefore = sent.get();
+        assertThrows(RuntimeException.class, () -> execute(200));
+        assertEquals(sentBefore, sent.get());
+
+        release.countDown();
+        for (Future<ClassicHttpResponse> probe : probes) {
+            assertEquals(200, probe.get(5, TimeUnit.SECONDS).getCode());
+        }
+        assertEquals(RouteMetrics.CIRCUIT_CLOSED, getRouteMetrics().getCircuitState());
+    }
+
+    @Test
+    void failedProbeCallThrowingIsRecorded() throws Exception {
+        open();
+        Thread.sleep(OPEN_MILLIS + 20);
+        // 发出请求时抛出的异常同样计为失败
+        for (int i = 0; i < HALF_OPEN_PROBES; i++) {
+            assertThrows(IOException.class, () -> interceptor.execute(createRequest(), createScope(),
+                    (request, scope) -> {
+                        throw new SocketTimeoutException("模拟响应超时");
+                    }));
+        }
+        assertEquals(RouteMetrics.CIRCUIT_OPEN, getRouteMetrics().getCircuitState());
+    }
+
+    /**
+     * 连续MIN_CALLS个5xx响应，打开熔断器
+     */
+    private void open() throws Exception {
+        for (int i = 0; i < MIN_CALLS; i++) {
+            execute(500);
+        }
+    }
+
+    private ClassicHttpResponse execute(int code) throws Exception {
+        return interceptor.execute(createRequest(), createScope(), (request, scope) -> {
+            sent.incrementAndGet();
+            return new BasicClassicHttpResponse(code);
+        });
+    }
+
+    private ClassicHttpRequest createRequest() {
+        return new BasicClassicHttpRequest("GET", "/get");
+    }
+
+    private ExecChain.Scope createScope() {
+        return new ExecChain.Scope("ex-1", route, createRequest(), EXEC_RUNTIME, HttpClientContext.create());
+    }
+
+    private RouteMetrics getRouteMetrics() {
+        return metrics.getRouteMetrics(route);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package cn.xw.utils.httpTools;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 路由限流器（RateLimiter，GCRA）：突发请求数内立即放行，超出后按间隔排队或直接拒绝，
+ * 间隔过后恢复许可；adaptive开启时按Retry-After暂停
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class RateLimiterTest {
+
+    private static final int BURST = 5;
+    // 每秒10个请求，每个许可间隔100毫秒
+    private static final double PERMITS_PER_SECOND = 10;
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final HttpRoute route = new HttpRoute(new HttpHost("http", "127.0.0.1", 8080));
+    private final HttpClientMetrics metrics = new HttpClientMetrics("test", null, null);
+
+    @Test
+    void burstPassesThenRejectsWithoutWait() {
+        RateLimiter limiter = new RateLimiter(PERMITS_PER_SECOND, BURST, TimeValue.ZERO_MILLISECONDS, false);
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0L, limiter.acquire(route, metrics));
+        }
+        assertThrows(RuntimeException.class, () -> limiter.acquire(route, metrics));
+        assertEquals(1, metrics.getRouteMetrics(route).getRateLimitRejected());
+        assertEquals(0, metrics.getRouteMetrics(route).getRateLimitDelayed());
+    }
+
+    @Test
+    void requestsBeyondBurstAreSpacedByInterval() {
+        RateLimiter limiter = new RateLimiter(PERMITS_PER_SECOND, BURST, TimeValue.ofSeconds(1), false);
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0L, limiter.acquire(route, metrics));
+        }
+        // 超出突发数的请求依次排在前一个请求的一个间隔之后
+        long first = limiter.acquire(route, metrics);
+        long second = limiter.acquire(route, metrics);
+        assertBetween(first, 1, INTERVAL_NANOS);
+        assertBetween(second - first, INTERVAL_NANOS / 2, INTERVAL_NANOS);
+        assertEquals(2, metrics.getRouteMetrics(route).getRateLimitDelayed());
+    }
+
+    @Test
+    void waitBeyondMaxWaitIsRejected() {
+        RateLimiter limiter = new RateLimiter(PERMITS_PER_SECOND, BURST, TimeValue.ofMilliseconds(150), false);
+        for (int i = 0; i < BURST; i++) {
+            limiter.acquire(route, metrics);
+        }
+        assertTrue(limiter.acquire(route, metrics) > 0);
+        // 第二个排队请求需要等待约200毫秒，超过最长等待时间
+        assertThrows(RuntimeException.class, () -> limiter.acquire(route, metrics));
+        assertEquals(1, metrics.getRouteMetrics(route).getRateLimitRejected());
+    }
+
+    @Test
+    void permitsRecoverAfterInterval() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(PERMITS_PER_SECOND, BURST, TimeValue.ZERO_MILLISECONDS, false);
+        for (int i = 0; i < BURST; i++) {
+            limiter.acquire(route, metrics);
+        }
+        assertThrows(RuntimeException.class, () -> limiter.acquire(route, metrics));
+        TimeUnit.NANOSECONDS.sleep(INTERVAL_NANOS * 2);
+        assertEquals(0L, limiter.acquire(route, metrics));
+    }
+
+    @Test
+    void adaptivePausesOnRetryAfter() {
+        RateLimiter limiter = new RateLimiter(PERMITS_PER_SECOND, BURST, TimeValue.ofSeconds(5), true);
+        BasicHttpResponse response = new BasicHttpResponse(429);
+        response.addHeader(HttpHeaders.RETRY_AFTER, "2");
+        limiter.onResponse(response);
+        // 暂停期间即使令牌桶是满的也需要等待至对方给出的时间
+        long waitNanos = limiter.acquire(route, metrics);
+        assertBetween(waitNanos, TimeUnit.MILLISECONDS.toNanos(1500), TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void nonAdaptiveIgnoresRetryAfter() {
+        RateLimiter limiter = new RateLimiter(PERMITS_PER_SECOND, BURST, TimeValue.ZERO_MILLISECONDS, false);
+        BasicHttpResponse response = new BasicHttpResponse(429);
+        response.addHeader(HttpHeaders.RETRY_AFTER, "2");
+        limiter.onResponse(response);
+        assertEquals(0L, limiter.acquire(route, metrics));
+    }
+
+    private static void assertBetween(long actual, long min, long max) {
+        assertTrue(actual >= min && actual <= max, "实际值：" + actual + "，预期范围：[" + min + ", " + max + "]");
+    }
+}
@@ -0,0 +1,135 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 重试策略（RetryPolicy）：重试预算按路由限制重试次数，每个请求存入budgetRatio个令牌；
+ * 同时校验可重试的异常、响应码及指数退避的范围
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class RetryPolicyTest {
+
+    // 重试预算的令牌余量（与RetryPolicy.BUDGET_MIN_RETRIES一致）
+    private static final int BUDGET_MIN_RETRIES = 10;
+
+    private final HttpRoute route = new HttpRoute(new HttpHost("http", "127.0.0.1", 8080));
+    private final HttpClientMetrics metrics = new HttpClientMetrics("test", null, null);
+    private final RetryPolicy retryPolicy = new RetryPolicy(3, TimeValue.ofMilliseconds(100),
+            TimeValue.ofSeconds(1), 0.1, metrics);
+
+    @Test
+    void budgetLimitsRetriesPerRoute() {
+        HttpRequest request = new BasicHttpRequest("GET", "/get");
+        // 令牌余量用完前可以重试
+        for (int i = 0; i < BUDGET_MIN_RETRIES; i++) {
+            assertTrue(retryPolicy.retryRequest(request, new ConnectException(), 2, createContext(route)));
+        }
+        assertFalse(retryPolicy.retryRequest(request, new ConnectException(), 2, createContext(route)));
+        RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        assertEquals(BUDGET_MIN_RETRIES, routeMetrics.getRetries());
+        assertEquals(1, routeMetrics.getRetryBudgetExhausted());
+
+        // 每个路由的预算相互独立
+        HttpRoute otherRoute = new HttpRoute(new HttpHost("http", "127.0.0.1", 8081));
+        assertTrue(retryPolicy.retryRequest(request, new ConnectException(), 2, createContext(otherRoute)));
+    }
+
+    @Test
+    void requestsRefillBudgetByRatio() {
+        HttpRequest request = new BasicHttpRequest("GET", "/get");
+        for (int i = 0; i < BUDGET_MIN_RETRIES; i++) {
+            retryPolicy.retryRequest(request, new ConnectException(), 2, createContext(route));
+        }
+        assertFalse(retryPolicy.retryRequest(request, new ConnectException(), 2, createContext(route)));
+
+        // 每个成功的请求存入0.1个令牌，10个请求后可以再重试一次
+        for (int i = 0; i < 10; i++) {
+            assertFalse(retryPolicy.retryRequest(new BasicHttpResponse(200), 1, createContext(route, request)));
+        }
+        assertTrue(retryPolicy.retryRequest(request, new ConnectException(), 2, createContext(route)));
+        assertFalse(retryPolicy.retryRequest(request, new ConnectException(), 2, createContext(route)));
+    }
+
+    @Test
+    void retriesStopAtMaxRetries() {
+        HttpRequest request = new BasicHttpRequest("GET", "/get");
+        assertTrue(retryPolicy.retryRequest(request, new ConnectException(), 3, createContext(route)));
+        assertFalse(retryPolicy.retryRequest(request, new ConnectException(), 4, createContext(route)));
+    }
+
+    @Test
+    void onlyUnsentRequestsOfAnyMethodAreRetried() {
+        HttpRequest post = new BasicHttpRequest("POST", "/post");
+        // 连接未建立，请求尚未发出，任何请求方法都可重试
+        assertTrue(retryPolicy.retryRequest(post, new ConnectException(), 2, createContext(route)));
+        // 请求可能已发出，只重试幂等请求
+        assertFalse(retryPolicy.retryRequest(post, new SocketException("Connection reset"), 2, createContext(route)));
+        assertTrue(retryPolicy.retryRequest(new BasicHttpRequest("GET", "/get"),
+                new SocketException("Connection reset"), 2, createContext(route)));
+        // 响应超时不重试
+        assertFalse(retryPolicy.retryRequest(new BasicHttpRequest("GET", "/get"), new SocketTimeoutException(), 2,
+                createContext(route)));
+    }
+
+    @Test
+    void retryAfterBeyondResponseTimeoutIsNotRetried() {
+        HttpRequest request = new BasicHttpRequest("GET", "/get");
+        BasicHttpResponse response = new BasicHttpResponse(503);
+        response.addHeader(HttpHeaders.RETRY_AFTER, "1");
+        assertTrue(retryPolicy.retryRequest(response, 1, createContext(route, request)));
+        assertEquals(TimeValue.ofSeconds(1),
+                retryPolicy.getRetryInterval(response, 1, createContext(route, request)));
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, "10");
+        assertFalse(retryPolicy.retryRequest(response, 1, createContext(route, request)));
+        assertFalse(retryPolicy.retryRequest(new BasicHttpResponse(500), 1, createContext(route, request)));
+    }
+
+    @Test
+    void backoffStaysWithinExponentialCeiling() {
+        HttpRequest request = new BasicHttpRequest("GET", "/get");
+        // 第n次重试的退避上限为min(maxBackoff, baseBackoff * 2^(n-1))
+        for (int i = 0; i < 100; i++) {
+            assertTrue(retryPolicy.getRetryInterval(request, null, 1, null).toMilliseconds() <= 100);
+            assertTrue(retryPolicy.getRetryInterval(request, null, 3, null).toMilliseconds() <= 400);
+            assertTrue(retryPolicy.getRetryInterval(request, null, 10, null).toMilliseconds() <= 1000);
+        }
+    }
+
+    private static HttpClientContext createContext(HttpRoute route) {
+        return createContext(route, null);
+    }
+
+    /**
+     * 请求上下文：路由（由路由指标的执行链拦截器放入）、原始请求及5秒的响应超时时间
+     */
+    private static HttpClientContext createContext(HttpRoute route, HttpRequest request) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+        context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+        context.setRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.ofSeconds(5)).build());
+        return context;
+    }
+}
@@ -0,0 +1,159 @@
+package cn.xw.utils.httpTools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.core5.io.CloseMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分段并发下载（SegmentedDownloader）：每段第一次请求只返回一半数据后断开连接，
+ * 校验各段从已写入的位置续传（Range起点后移、带If-Range），最终文件内容及摘要正确；
+ * 服务端不按范围返回（文件已变化）时下载失败并删除目标文件
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class SegmentedDownloaderTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final String ETAG = "\"segmented-test\"";
+    private static final int FILE_SIZE = 1024 * 1024;
+    private static final int SEGMENT_COUNT = 4;
+    private static final int SEGMENT_SIZE = FILE_SIZE / SEGMENT_COUNT;
+
+    private final byte[] content = new byte[FILE_SIZE];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();        // 收到的Range请求头
+    private final List<String> ifRanges = new CopyOnWriteArrayList<>();      // 收到的If-Range请求头
+    private final Set<Integer> truncated = ConcurrentHashMap.newKeySet();    // 已断开过一次的分段起点
+    private volatile boolean ignoreRange;                                     // 是否忽略Range返回完整文件
+
+    private HttpServer server;
+    private CloseableHttpAsyncClient asyncClient;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        new Random(42).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/file", this::handle);
+        server.start();
+        asyncClient = HttpAsyncClients.custom().disableAutomaticRetries().build();
+        asyncClient.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncClient.close(CloseMode.IMMEDIATE);
+        server.stop(0);
+    }
+
+    @Test
+    void interruptedSegmentsResumeFromWrittenPosition() throws Exception {
+        Path target = tempDir.resolve("download.bin");
+        createDownloader().download(target, SEGMENT_COUNT, "SHA-256", sha256(content));
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        // 每段先请求完整范围，断开后从已写入的位置续传一次
+        assertEquals(SEGMENT_COUNT * 2, ranges.size());
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            int start = i * SEGMENT_SIZE;
+            int end = start + SEGMENT_SIZE - 1;
+            assertTrue(ranges.contains("bytes=" + start + "-" + end));
+            assertTrue(ranges.contains("bytes=" + (start + SEGMENT_SIZE / 2) + "-" + end),
+                    "分段未从已写入的位置续传：" + ranges);
+        }
+        assertTrue(ifRanges.stream().allMatch(ETAG::equals));
+    }
+
+    @Test
+    void checksumMismatchDeletesTarget() {
+        Path target = tempDir.resolve("download.bin");
+        IOException failure = assertThrows(IOException.class,
+                () -> createDownloader().download(target, SEGMENT_COUNT, "SHA-256", sha256(new byte[0])));
+        assertTrue(failure.getMessage().contains("摘要校验失败"));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void changedFileFailsWithoutRetry() {
+        ignoreRange = true;
+        Path target = tempDir.resolve("download.bin");
+        assertThrows(IOException.class, () -> createDownloader().download(target, SEGMENT_COUNT, null, null));
+        assertFalse(Files.exists(target));
+    }
+
+    private SegmentedDownloader createDownloader() {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/file";
+        return new SegmentedDownloader(asyncClient, () -> new HttpGet(url), FILE_SIZE, ETAG);
+    }
+
+    /**
+     * 按Range返回部分内容；每段的第一次请求（从分段起点开始）只写出一半数据后断开连接
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range);
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (ifRange != null) {
+            ifRanges.add(ifRange);
+        }
+        Matcher matcher = RANGE.matcher(range);
+        if (ignoreRange || !matcher.matches()) {
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(content);
+            }
+            return;
+        }
+        int from = Integer.parseInt(matcher.group(1));
+        int to = Integer.parseInt(matcher.group(2));
+        int length = to - from + 1;
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+        exchange.sendResponseHeaders(206, length);
+        OutputStream responseBody = exchange.getResponseBody();
+        if (from % SEGMENT_SIZE == 0 && truncated.add(from)) {
+            responseBody.write(content, from, length / 2);
+            responseBody.flush();
+            // 响应体未写完即关闭，服务端断开连接
+            exchange.close();
+            return;
+        }
+        responseBody.write(content, from, length);
+        responseBody.close();
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+        return String.format("%064x", new BigInteger(1, digest));
+    }
+}
@@ -0,0 +1,162 @@
+package cn.xw.utils.httpTools;
+
+import cn.xw.utils.httpTools.entity.HttpResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 相同请求合并（SingleFlight）：并发的相同请求只发送一次并共享响应，发送失败（包括Error）时等待方同样失败，
+ * 等待超时不影响进行中的请求
+ *
+ * @author Anhui AntLaddie <a href="https://www.cnblogs.com/antLaddie/">(博客园蚂蚁小哥)</a>
+ * @version 1.0
+ **/
+class SingleFlightTest {
+
+    private static final String KEY = "GET http://127.0.0.1/get";
+    private static final int CALLERS = 8;
+
+    private final SingleFlight singleFlight = new SingleFlight(Collections.emptySet());
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        HttpResult httpResult = new HttpResult();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<HttpResult> leader = executor.submit(() -> singleFlight.execute(KEY, 0, () -> {
+            calls.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return httpResult;
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        List<Future<HttpResult>> followers = new ArrayList<>();
+        for (int i = 1; i < CALLERS; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute(KEY, 0, () -> {
+                calls.incrementAndGet();
+                return new HttpResult();
+            })));
+        }
+        // 等所有跟随方都已挂在进行中的请求上再放行
+        waitFor(() -> singleFlight.getCoalesced() == CALLERS - 1);
+        release.countDown();
+
+        assertSame(httpResult, leader.get(5, TimeUnit.SECONDS));
+        for (Future<HttpResult> follower : followers) {
+            assertSame(httpResult, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.getExecutions());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void followersFailWithLeaderError() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<HttpResult> leader = executor.submit(() -> singleFlight.execute(KEY, 0, () -> {
+            leaderStarted.countDown();
+            await(release);
+            throw new OutOfMemoryError("模拟Error");
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<HttpResult> follower = executor.submit(() -> singleFlight.execute(KEY, 0, HttpResult::new));
+        waitFor(() -> singleFlight.getCoalesced() == 1);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderFailure.getCause() instanceof OutOfMemoryError);
+        ExecutionException followerFailure = assertThrows(ExecutionException.class,
+                () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(followerFailure.getCause() instanceof RuntimeException);
+        assertTrue(followerFailure.getCause().getCause() instanceof OutOfMemoryError);
+        // 失败后键已移除，下一次请求重新发送
+        assertEquals(0, singleFlight.getInFlight());
+        HttpResult httpResult = new HttpResult();
+        assertSame(httpResult, singleFlight.execute(KEY, 0, () -> httpResult));
+    }
+
+    @Test
+    void followerWaitIsBounded() throws Exception {
+        HttpResult httpResult = new HttpResult();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<HttpResult> leader = executor.submit(() -> singleFlight.execute(KEY, 0, () -> {
+            leaderStarted.countDown();
+            await(release);
+            return httpResult;
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        RuntimeException timeout = assertThrows(RuntimeException.class,
+                () -> singleFlight.execute(KEY, TimeUnit.MILLISECONDS.toNanos(50), HttpResult::new));
+        assertTrue(timeout.getMessage().contains("超时"));
+        // 等待方超时不影响进行中的请求
+        release.countDown();
+        assertSame(httpResult, leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, singleFlight.getExecutions());
+    }
+
+    @Test
+    void asyncCallsShareOneExecution() throws Exception {
+        HttpResult httpResult = new HttpResult();
+        CompletableFuture<HttpResult> response = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<HttpResult> first = singleFlight.executeAsync(KEY, () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<HttpResult> second = singleFlight.executeAsync(KEY, () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        // 某个调用方取消不影响其它调用方
+        first.cancel(false);
+        response.complete(httpResult);
+
+        assertSame(httpResult, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, "等待条件超时");
+            Thread.sleep(1);
+        }
+    }
+}